@@ -18,7 +18,11 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.servlet.FilterConfig;
 import javax.servlet.ServletContext;
@@ -83,15 +87,30 @@ public class ActionContext {
 	protected static final String INTERCEPTOR_DATA_KEY = "org.dihedron.webmvc.interceptor_data";
 
 	/**
-	 * The per-thread instance.
+	 * The marker returned by single-pass lookups when a scope does not contain 
+	 * the requested value.
 	 */
-	private static ThreadLocal<ActionContext> context = new ThreadLocal<ActionContext>() {
-		@Override
-		protected ActionContext initialValue() {
-//			logger.trace("creating action context instance for thread {}", Thread.currentThread().getId());
-			return new ActionContext();
-		}
-	};
+	private static final Object MISSING = new Object();
+
+	/**
+	 * The per-thread instance; it is created (or taken from the spare ones)
+	 * the first time it is needed, and left in place for the next request after
+	 * being unbound.
+	 */
+	private static ThreadLocal<ActionContext> context = new ThreadLocal<>();
+
+	/**
+	 * The maximum number of idle spare instances.
+	 */
+	private static final int MAX_SPARE_CONTEXTS = 64;
+
+	/**
+	 * Idle instances displaced from worker threads by contexts attached to 
+	 * them; they are handed over to the threads left with no instance after 
+	 * detaching theirs, so that asynchronous dispatching moves instances 
+	 * between threads instead of allocating new ones.
+	 */
+	private static final Queue<ActionContext> spares = new ArrayBlockingQueue<>(MAX_SPARE_CONTEXTS);
 
 	/**
 	 * A reference to the filter configuration, for access to filter-specific
@@ -122,6 +141,11 @@ public class ActionContext {
 	 */
 	private WebServer server = null;
 	
+	/**
+	 * The limits the controller servicing the request applies to conversations.
+	 */
+	private ConversationStore.Limits conversationLimits = null;
+	
 //	/**
 //	 * The encoding of uploaded file names.
 //	 */
@@ -139,14 +163,31 @@ public class ActionContext {
 	 * (be they form fields or uploaded files) will be available inside this map.
 	 */
 	private Map<String, FileItem> parts = null;
+	
+	/**
+	 * The deadline of the current request, if it is servicing a target.
+	 */
+	private Deadline deadline = null;
 
 	/**
-	 * Retrieves the per-thread instance.
+	 * Retrieves the per-thread instance; code running on behalf of a request 
+	 * (interceptors, generated stubs) should resolve it once and then use its 
+	 * instance methods, instead of going through the static accessors, each of
+	 * which looks up the thread-local storage anew.
 	 * 
 	 * @return the per-thread instance.
 	 */
-	private static ActionContext getContext() {
-		return context.get();
+	public static ActionContext getContext() {
+		ActionContext current = context.get();
+		if(current == null) {
+			current = spares.poll();
+			if(current == null) {
+				logger.trace("creating action context instance for thread {}", Thread.currentThread().getId());
+				current = new ActionContext();
+			}
+			context.set(current);
+		}
+		return current;
 	}
 
 	/**
@@ -165,15 +206,21 @@ public class ActionContext {
 	 *   web.xml.
 	 * @param server
 	 *   a reference to the web server specific plugin.
+	 * @param uploadInfo
+	 *   the configuration of file uploads.
+	 * @param conversationLimits
+	 *   the limits applied to the conversations of the session.
 	 * @throws WebMVCException 
 	 */
-	static void bindContext(FilterConfig filter, HttpServletRequest request, HttpServletResponse response, Properties configuration, WebServer server, FileUploadConfiguration uploadInfo) throws WebMVCException {
+	static void bindContext(FilterConfig filter, HttpServletRequest request, HttpServletResponse response, Properties configuration, WebServer server, FileUploadConfiguration uploadInfo, ConversationStore.Limits conversationLimits) throws WebMVCException {
 //		logger.trace("initialising the action context for thread {}", Thread.currentThread().getId());
-		getContext().filter = filter;
-		getContext().request = request;
-		getContext().response = response;
-		getContext().configuration = configuration;
-		getContext().server = server;
+		ActionContext current = getContext();
+		current.filter = filter;
+		current.request = request;
+		current.response = response;
+		current.configuration = configuration;
+		current.server = server;
+		current.conversationLimits = conversationLimits;
 		
 		// this is where we try to retrieve all files (if there are any that were 
 		// uploaded) and store them as temporary files on disk; these objects will
@@ -189,7 +236,7 @@ public class ActionContext {
 	        // check that we have a file upload request
 	        if(ServletFileUpload.isMultipartContent(request)) {  
         	
-	        	getContext().parts = new HashMap<String, FileItem>();
+	        	current.parts = new HashMap<String, FileItem>();
 	        	
 	        	logger.trace("handling multipart/form-data request");
 	        	
@@ -215,7 +262,7 @@ public class ActionContext {
 		        logger.trace("{} items in the multipart/form-data request", items.size());
 		        for(FileItem item : items) {
 		        	logger.trace("storing field '{}' (type: '{}') into parts map", item.getFieldName(), item.isFormField() ? "field" : "file"); 
-		        	getContext().parts.put(item.getFieldName(), item);
+		        	current.parts.put(item.getFieldName(), item);
 		        }		        
 //	        } else {
 //	        	logger.trace("handling plain form request");
@@ -226,25 +273,112 @@ public class ActionContext {
     	}        
 	}
 
+	/**
+	 * Detaches the context from the current thread without cleaning it up, so 
+	 * that it can be attached to another thread (see {@link #attachContext(ActionContext)}) 
+	 * when the request is processed asynchronously; once detached, the current 
+	 * thread has no context left, and unbinding it is a no-op.
+	 * 
+	 * @return
+	 *   the context that was bound to the current thread.
+	 */
+	static ActionContext detachContext() {
+		ActionContext current = getContext();
+		context.remove();
+		logger.trace("action context detached from thread {}", Thread.currentThread().getId());
+		return current;
+	}
+	
+	/**
+	 * Attaches a context previously detached from another thread to the current 
+	 * thread; it must eventually be released with {@link #unbindContext()}. The
+	 * idle instance the current thread had, if any, is kept as a spare for the
+	 * thread the context was detached from.
+	 * 
+	 * @param current
+	 *   the context to be attached to the current thread.
+	 */
+	static void attachContext(ActionContext current) {
+		ActionContext idle = context.get();
+		if(idle != null && idle != current) {
+			spares.offer(idle);
+		}
+		context.set(current);
+		logger.trace("action context attached to thread {}", Thread.currentThread().getId());
+	}
+
+	/**
+	 * Sets the deadline of the current request.
+	 * 
+	 * @param deadline
+	 *   the deadline of the request; it is released when the context is unbound.
+	 */
+	static void setDeadline(Deadline deadline) {
+		getContext().deadline = deadline;
+	}
+	
+	/**
+	 * Returns the deadline of the current request.
+	 * 
+	 * @return
+	 *   the deadline, or {@code null} if the request is not servicing a target.
+	 */
+	static Deadline getDeadline() {
+		return getContext().deadline;
+	}
+	
+	/**
+	 * Returns the time the current target has left before its deadline passes;
+	 * long-running actions should use it to bound their calls to downstream 
+	 * services, or to give up early.
+	 * 
+	 * @return
+	 *   the remaining time in milliseconds, or {@link Long#MAX_VALUE} if the 
+	 *   target has no deadline.
+	 */
+	public static long getRemainingTime() {
+		return getContext().remainingTime();
+	}
+	
+	/**
+	 * Returns whether the current request has been cancelled, either because 
+	 * its deadline has passed or because the client abandoned it; in that case
+	 * the action should stop processing as soon as possible, since its result 
+	 * will be discarded.
+	 * 
+	 * @return
+	 *   whether the request has been cancelled.
+	 */
+	public static boolean isCancelled() {
+		Deadline deadline = getContext().deadline;
+		return deadline != null && deadline.isCancelled();
+	}
+
 	/**
 	 * Cleans up the internal status of the {@code ActionContext} in order to
 	 * avoid memory leaks due to persisting objects stored in the per-thread
-	 * local storage; afterwards it removes the thread local entry altogether,
-	 * so the application server does not complain about left-over data in TLS
-	 * when re-deploying the application (see Tomcat memory leak detection
-	 * feature).
+	 * local storage; the emptied instance is left in the thread-local storage, 
+	 * so that it can be recycled by the next request serviced by the same thread,
+	 * the same way invocations are. Nothing is done if the context has been 
+	 * detached from the current thread.
 	 */
 	static void unbindContext() {
-		logger.trace("removing action context for thread {}", Thread.currentThread().getId());
-		getContext().filter = null;
-		getContext().request = null;
-		getContext().response = null;
-		getContext().configuration = null;
-		getContext().server = null;
+		ActionContext current = context.get();
+		if(current == null) {
+			logger.trace("no action context bound to thread {}", Thread.currentThread().getId());
+			return;
+		}
+		logger.trace("releasing action context for thread {}", Thread.currentThread().getId());
+		current.filter = null;
+		current.request = null;
+		current.response = null;
+		current.configuration = null;
+		current.server = null;
+		current.conversationLimits = null;
 		// remove all files if this is a multipart/form-data request, because
 		// the file tracker does not seem to work as expected
-		if(isMultiPartRequest()) {
-			for(Entry<String, FileItem> entry : getContext().parts.entrySet()) {
+		if(current.parts != null) {
+			for(Entry<String, FileItem> entry : current.parts.entrySet()) {
 				if(!entry.getValue().isFormField() && !entry.getValue().isInMemory()) {
 					File file = ((DiskFileItem)entry.getValue()).getStoreLocation();
 					try {
@@ -257,18 +391,11 @@ public class ActionContext {
 				}
 			}
 		}		
-		getContext().parts = null;
-		
-//		if(getContext().parts != null) {
-//			for(Entry<String, FileItem> entry : getContext().parts.entrySet()) {
-//				FileItem part = entry.getValue();
-//				if(!part.isFormField() && !part.isInMemory()) {
-//					logger.trace("releasing on-disk uploaded file '{}'", part.getFieldName());
-//					
-//				}
-//			}
-//		}
-		context.remove();
+		current.parts = null;
+		if(current.deadline != null) {
+			current.deadline.finish();
+			current.deadline = null;
+		}
 	}
 	
 	/**
@@ -800,65 +927,7 @@ public class ActionContext {
 	 * @throws WebMVCException
 	 */
 	public static boolean hasValue(String key, Scope scope) throws WebMVCException {
-		boolean result = false;
-		if (!Strings.isValid(key)) {
-			logger.error("value name must be valid");
-			throw new WebMVCException("Value name must be valid.");
-		}
-		switch (scope) {
-		case FORM:
-			if(isMultiPartRequest()) {
-				result = getContext().parts.containsKey(key);
-			} else {
-				result = getContext().request.getParameterValues(key) != null;
-			}
-			break;
-		case REQUEST:
-			result = getContext().request.getAttribute(key) != null;
-			break;
-		case CONVERSATION:
-			String conversationId = Conversation.getConversationId(key);
-			String valueId = Conversation.getValueId(key);
-			if(Strings.areValid(conversationId, valueId)) {
-				logger.trace("checking existence of value '{}' in conversation '{}'", valueId, conversationId);
-				@SuppressWarnings("unchecked")
-				Map<String, Map<String, Object>> conversations = (Map<String, Map<String, Object>>) getValue(CONVERSATION_SCOPED_ATTRIBUTES_KEY, Scope.SESSION);
-				if (conversations != null && conversations.get(conversationId) != null) {
-					result = conversations.get(conversationId).containsKey(valueId);
-				}
-			}
-			break;			
-		case SESSION:
-			result = getContext().request.getSession().getAttribute(key) != null;
-			break;
-		case STICKY:
-			String user = getRemoteUser();
-			if(Strings.isValid(user)) {
-				@SuppressWarnings("unchecked")
-				Map<String, Map<String, Object>> sticky = (Map<String, Map<String, Object>>) getValue(STICKY_SCOPED_ATTRIBUTES_KEY, Scope.APPLICATION);
-				if (sticky != null && sticky.get(user) != null) {
-					result = sticky.get(user).containsKey(key);
-				}
-			}
-			break;
-		case APPLICATION:
-			result = getContext().filter.getServletContext().getAttribute(key) != null;
-			break;
-		case CONFIGURATION:
-			if (getContext().configuration != null) {
-				result = getContext().configuration.get(key) != null;
-			}
-			break;
-		case SYSTEM:
-			result = Strings.isValid(System.getProperty(key));
-			break;
-		case ENVIRONMENT:
-			result = Strings.isValid(System.getenv(key));
-			break;
-
-		}
-		logger.debug("scope '{}' {} value '{}'", scope.name(), result ? "contains" : "doesn't contain", key);
-		return result;
+		return getContext().contains(key, scope);
 	}
 
 	/**
@@ -875,71 +944,7 @@ public class ActionContext {
 	 *   the requested parameter or attribute value, or null if not found.
 	 */
 	public static Object getValue(String key, Scope scope) throws WebMVCException {
-		if (!Strings.isValid(key)) {
-			logger.error("value name must be valid");
-			throw new WebMVCException("Value name must be valid.");
-		}
-		Object value = null;
-		switch (scope) {
-		case FORM:
-			if(isMultiPartRequest()) {
-				FileItem item = getContext().parts.get(key);
-				if(item != null) {
-					if(item.isFormField()) {
-						value = item.getString();
-					} else {
-						value = new UploadedFile(item); 
-					}
-				}
-			} else {
-				value = getContext().request.getParameterValues(key);
-			}
-			break;
-		case REQUEST:
-			value = getContext().request.getAttribute(key);
-			break;
-		case CONVERSATION:
-			String conversationId = Conversation.getConversationId(key);
-			String valueId = Conversation.getValueId(key);
-			if(Strings.areValid(conversationId, valueId)) {
-//				logger.trace("retrieving value '{}' in conversation '{}'", valueId, conversationId);
-				@SuppressWarnings("unchecked")
-				Map<String, Map<String, Object>> conversations = (Map<String, Map<String, Object>>) getValue(CONVERSATION_SCOPED_ATTRIBUTES_KEY, Scope.SESSION);
-				if (conversations != null && conversations.get(conversationId) != null) {
-					value = conversations.get(conversationId).get(valueId);
-				}
-			}
-			break;						
-		case SESSION:
-			value = getContext().request.getSession().getAttribute(key);
-			break;
-		case STICKY:
-			String user = getRemoteUser();
-			if(Strings.isValid(user)) {
-				@SuppressWarnings("unchecked")
-				Map<String, Map<String, Object>> sticky = (Map<String, Map<String, Object>>) getValue(STICKY_SCOPED_ATTRIBUTES_KEY, Scope.APPLICATION);
-				if (sticky != null && sticky.get(user) != null) {
-					value = sticky.get(user).get(key);
-				}
-			}
-			break;
-		case APPLICATION:
-			value = getContext().filter.getServletContext().getAttribute(key);
-			break;
-		case CONFIGURATION:
-			if (getContext().configuration != null) {
-				value = getContext().configuration.get(key);
-			}
-			break;
-		case SYSTEM:
-			value = System.getProperty(key);
-			break;
-		case ENVIRONMENT:
-			value = System.getenv(key);
-			break;
-		}
-//		logger.trace("value '{}' in scope '{}' has value '{}' (class {})", key, scope.name(), value, value != null ? value.getClass().getSimpleName() : "n.a.");
-		return value;
+		return getContext().get(key, scope);
 	}
 
 	/**
@@ -968,12 +973,7 @@ public class ActionContext {
 	 * @throws WebMVCException
 	 */
 	public static Map<String, Object> getValues(Scope scope, Regex pattern) throws WebMVCException {
-		Set<String> names = getValueNames(scope);
-		Map<String, Object> map = new HashMap<>();
-		for (String name : names) {
-			map.put(name, getValue(name, scope));
-		}
-		return map;
+		return getContext().values(scope, pattern);
 	}
 
 	/**
@@ -991,71 +991,8 @@ public class ActionContext {
 	 * @param scope
 	 *   the scope into which the value should be stored.
 	 */
-	@SuppressWarnings("unchecked")
 	public static void setValue(String key, Object value, Scope scope) throws WebMVCException {
-		if (!Strings.isValid(key)) {
-			logger.error("value name must be valid");
-			throw new WebMVCException("Value name must be valid.");
-		}
-		if (scope.isReadOnly()) {
-			logger.error("trying to store value in read-only scope '{}'", scope.name());
-			throw new WebMVCException("Trying to store value in read-only scope '" + scope.name() + "'.");
-		}
-
-		Map<String, Object> map = null;
-		switch (scope) {
-		case REQUEST:
-			getContext().request.setAttribute(key, value);
-			break;
-		case CONVERSATION:
-			String conversationId = Conversation.getConversationId(key);
-			String valueId = Conversation.getValueId(key);
-			if(Strings.areValid(conversationId, valueId)) {
-				logger.trace("setting value '{}' in conversation '{}'", valueId, conversationId);
-				synchronized(ActionContext.class) {
-					Map<String, Map<String, Object>> conversations = (Map<String, Map<String, Object>>) getValue(CONVERSATION_SCOPED_ATTRIBUTES_KEY, Scope.SESSION);
-					if(conversations == null)  {
-						conversations = Collections.synchronizedMap(new HashMap<String, Map<String, Object>>());
-						setValue(CONVERSATION_SCOPED_ATTRIBUTES_KEY, conversations, Scope.SESSION);
-					}
-					map = conversations.get(conversationId); 
-					if(map == null) {
-						map = new HashMap<>();
-						conversations.put(conversationId, map);
-					}
-					map.put(valueId, value);
-				}
-			}
-			break;
-		case SESSION:
-			getContext().request.getSession().setAttribute(key, value);
-			break;
-		case STICKY:
-			String user = getRemoteUser();
-			if(Strings.isValid(user)) {
-				user = user.trim();
-				synchronized(ActionContext.class) {
-					Map<String, Map<String, Object>> sticky = (Map<String, Map<String, Object>>) getValue(STICKY_SCOPED_ATTRIBUTES_KEY, Scope.APPLICATION);
-					if(sticky == null)  {
-						sticky = Collections.synchronizedMap(new HashMap<String, Map<String, Object>>());
-						setValue(STICKY_SCOPED_ATTRIBUTES_KEY, sticky, Scope.APPLICATION);
-					}
-					map = sticky.get(user); 
-					if(map == null) {
-						map = new HashMap<>();
-						sticky.put(user, map);
-					}
-					map.put(key, value);
-				}
-			}
-			break;
-		case APPLICATION:
-			getContext().filter.getServletContext().setAttribute(key, value);
-			break;
-		default:
-			logger.error("should never get here: is this a bug?");
-		}
-		logger.debug("value '{}' in scope '{}' set to value '{}' (class {})", key, scope.name(), value, value != null ? value.getClass().getSimpleName() : "n.a.");
+		getContext().set(key, value, scope);
 	}
 
 	/**
@@ -1110,52 +1047,8 @@ public class ActionContext {
 	 * @param scope
 	 *   the scope from which the value should be removed.
 	 */
-	@SuppressWarnings("unchecked")
 	public static void removeValue(String key, Scope scope) throws WebMVCException {
-
-		if (!Strings.isValid(key)) {
-			logger.error("value name must be valid");
-			throw new WebMVCException("Value name must be valid.");
-		}
-		if (scope.isReadOnly()) {
-			logger.error("trying to remove value from read-only scope '{}'", scope.name());
-			throw new WebMVCException("Trying to remove value from read-only scope '" + scope.name() + "'.");
-		}
-
-		switch (scope) {
-		case REQUEST:
-			getContext().request.removeAttribute(key);
-			break;
-		case CONVERSATION:
-			String conversationId = Conversation.getConversationId(key);
-			String valueId = Conversation.getValueId(key);
-			if(Strings.areValid(conversationId, valueId)) {
-				logger.trace("retrieving value '{}' in conversation '{}'", valueId, conversationId);
-				Map<String, Map<String, Object>> conversations = (Map<String, Map<String, Object>>) getValue(CONVERSATION_SCOPED_ATTRIBUTES_KEY, Scope.SESSION);
-				if (conversations != null && conversations.get(conversationId) != null) {
-					conversations.get(conversationId).remove(valueId);
-				}
-			}
-			break;						
-		case SESSION:
-			getContext().request.getSession().removeAttribute(key);
-			break;
-		case STICKY:
-			String user = getRemoteUser();
-			if(Strings.isValid(user)) {
-				Map<String, Map<String, Object>> sticky = (Map<String, Map<String, Object>>) getValue(STICKY_SCOPED_ATTRIBUTES_KEY, Scope.APPLICATION);
-				if (sticky != null && sticky.get(user) != null) {
-					sticky.get(user).remove(key);
-				}
-			}
-			break;
-		case APPLICATION:
-			getContext().filter.getServletContext().removeAttribute(key);
-			break;
-		default:
-			logger.error("should never get here: is this a bug?");
-		}
-		logger.debug("value '{}' removed from scope '{}'", key, scope.name());
+		getContext().remove(key, scope);
 	}
 
 	/**
@@ -1241,111 +1134,8 @@ public class ActionContext {
 	 *   the names of the attributes/parameters in the given scope.
 	 * @throws WebMVCException 
 	 */
-	@SuppressWarnings("unchecked")
 	public static Set<String> getValueNames(String pattern, Scope scope) throws WebMVCException {
-		Set<String> names = new HashSet<>();
-		Enumeration<?> enumeration = null;
-		Regex regex = null;
-		if(Strings.isValid(pattern)) {
-			regex = new Regex(pattern);
-		}		
-		switch (scope) {
-		case FORM:
-			if(isMultiPartRequest()) {
-				names.addAll(getContext().parts.keySet());
-			} else {
-				enumeration = getContext().request.getParameterNames();
-				while (enumeration.hasMoreElements()) {
-					String name = (String) enumeration.nextElement();
-					if (regex == null || regex.matches(name)) {
-						names.add(name);
-					}
-				}
-			}
-			break;
-		case REQUEST:
-			enumeration = getContext().request.getAttributeNames();
-			while (enumeration.hasMoreElements()) {
-				String name = (String) enumeration.nextElement();
-				if (regex == null || regex.matches(name)) {
-					names.add(name);
-				}
-			}
-			break;
-		case CONVERSATION:			
-			Regex conversation = Strings.isValid(Conversation.getConversationId(pattern)) ? new Regex(Conversation.getConversationId(pattern)) : new Regex(".*");  
-			regex = Strings.isValid(Conversation.getValueId(pattern)) ? new Regex(Conversation.getValueId(pattern)) : new Regex(".*");
-			Map<String, Map<String, Object>> conversations = (Map<String, Map<String, Object>>) getValue(CONVERSATION_SCOPED_ATTRIBUTES_KEY, Scope.SESSION);
-			if (conversations != null) {
-				for(String conversationId : conversations.keySet()) {
-					if(conversation.matches(conversationId)) {
-						for (String name : conversations.get(conversationId).keySet()) {
-							if (regex.matches(name)) {
-								names.add(conversationId + ":" + name);
-							}
-						}							
-					}
-				}
-			}
-			break;
-		case SESSION:
-			enumeration = getContext().request.getSession().getAttributeNames();
-			while (enumeration.hasMoreElements()) {
-				String name = (String) enumeration.nextElement();
-				if (regex == null || regex.matches(name)) {
-					names.add(name);
-				}
-			}
-			break;
-		case STICKY:
-			String user = getRemoteUser();
-			if(Strings.isValid(user)) {
-				Map<String, Map<String, Object>> sticky = (Map<String, Map<String, Object>>) getValue(STICKY_SCOPED_ATTRIBUTES_KEY, Scope.APPLICATION);
-				if (sticky != null && sticky.get(user) != null) {
-					for (String name : sticky.get(user).keySet()) {
-						if (regex == null || regex.matches(name)) {
-							names.add(name);
-						}
-					}
-				}
-			}
-			break;
-		case APPLICATION:
-			enumeration = getContext().filter.getServletContext().getAttributeNames();
-			while (enumeration.hasMoreElements()) {
-				String name = (String) enumeration.nextElement();
-				if (regex == null || regex.matches(name)) {
-					names.add(name);
-				}
-			}
-			break;
-		case CONFIGURATION:
-			if (getContext().configuration != null) {
-				for (String name : getContext().configuration.getKeys()) {
-					if (regex == null || regex.matches(name)) {
-						names.add(name);
-					}
-				}
-			}
-			break;
-		case SYSTEM:
-			enumeration = System.getProperties().keys();
-			while (enumeration.hasMoreElements()) {
-				String name = (String) enumeration.nextElement();
-				if (regex == null || regex.matches(name)) {
-					names.add(name);
-				}
-			}
-			break;
-		case ENVIRONMENT:
-			for (String name : System.getenv().keySet()) {
-				if (regex == null || regex.matches(name)) {
-					names.add(name);
-				}
-			}
-			break;
-		}
-		return names;
+		return getContext().names(pattern, scope);
 	}
 
 	/**
@@ -1360,14 +1150,24 @@ public class ActionContext {
 	 * @throws WebMVCException
 	 */
 	public static Object findValue(String name, Scope... scopes) throws WebMVCException {
-		Object value = null;
-		for (Scope scope : scopes) {
-			if (hasValue(name, scope)) {
-				value = getValue(name, scope);
-				break;
-			}
-		}
-		return value;
+		return getContext().find(name, scopes);
+	}
+
+	/**
+	 * Looks for a value in any of the provided scopes, in the given order; 
+	 * unlike {@link #findValue(String, Scope...)}, it tells a value that is 
+	 * absent from all scopes from one that is present but {@code null}.
+	 * 
+	 * @param name
+	 *   the name of the parameter to look for.
+	 * @param scopes
+	 *   the ordered list of scopes to look into.
+	 * @return 
+	 *   the result of the lookup, holding the first value found, if any.
+	 * @throws WebMVCException
+	 */
+	public static Lookup<Object> lookupValue(String name, Scope... scopes) throws WebMVCException {
+		return getContext().lookup(name, scopes);
 	}
 
 	
@@ -1385,11 +1185,7 @@ public class ActionContext {
 	 * @throws WebMVCException
 	 */
 	public static Map<String, Object> matchValues(String pattern, Scope... scopes) throws WebMVCException {
-		if (!Strings.isValid(pattern)) {
-			logger.error("regular expression to match against value names must be a valid string");
-			throw new WebMVCException("Regular expression to match against value names must be a valid string.");
-		}
-		return matchValues(new Regex(pattern), scopes);	
+		return getContext().match(pattern, scopes);
 	}
 	
 	/**
@@ -1406,21 +1202,47 @@ public class ActionContext {
 	 * @throws WebMVCException
 	 */
 	public static Map<String, Object> matchValues(Regex pattern, Scope... scopes) throws WebMVCException {
-		if (pattern == null) {
-			logger.error("regular expression to match against value names must not be null");
-			throw new WebMVCException("Regular expression to match against value names must not be null.");
+		return getContext().match(pattern, scopes);
+	}
+
+	/**
+	 * Begins a conversation in the current session; conversations are also
+	 * begun implicitly when a value is first stored in them, but beginning one
+	 * explicitly makes it count towards the session's limits right away.
+	 * 
+	 * @param conversationId
+	 *   the conversation id.
+	 * @return
+	 *   whether a new conversation was begun, {@code false} if it was already
+	 *   in progress.
+	 * @throws WebMVCException
+	 */
+	public static boolean beginConversation(String conversationId) throws WebMVCException {
+		if (!Strings.isValid(conversationId)) {
+			logger.error("conversation id must be valid");
+			throw new WebMVCException("Conversation id must be valid.");
 		}
-		Map<String, Object> values = new HashMap<>();
+		return getContext().getConversations(true).begin(conversationId.trim(), System.currentTimeMillis());
+	}
 
-		if (scopes != null && scopes.length > 0) {
-			// visit the scopes in reverse order so that first scopes have
-			// higher
-			// priority in retrieving values than last ones
-			for (int i = scopes.length - 1; i >= 0; i--) {
-				values.putAll(getValues(scopes[i], pattern));
-			}
+	/**
+	 * Ends a conversation in the current session, discarding all its values;
+	 * conversations that are not ended explicitly expire after being idle for
+	 * longer than the {@code webmvc:conversation-idle-timeout}.
+	 * 
+	 * @param conversationId
+	 *   the conversation id.
+	 * @return
+	 *   whether the conversation was in progress.
+	 * @throws WebMVCException
+	 */
+	public static boolean endConversation(String conversationId) throws WebMVCException {
+		if (!Strings.isValid(conversationId)) {
+			logger.error("conversation id must be valid");
+			throw new WebMVCException("Conversation id must be valid.");
 		}
-		return values;
+		ConversationStore conversations = getContext().getConversations(false);
+		return conversations != null && conversations.end(conversationId.trim(), System.currentTimeMillis());
 	}
 
 	/**
@@ -1519,4 +1341,567 @@ public class ActionContext {
 	public static HttpSession getSession() {
 		return getContext().request.getSession();
 	}
+
+	/**
+	 * Checks if the given scope contains a non-null value under the given name.
+	 * 
+	 * @see #hasValue(String, Scope)
+	 */
+	public boolean contains(String key, Scope scope) throws WebMVCException {
+		boolean result = false;
+		if (!Strings.isValid(key)) {
+			logger.error("value name must be valid");
+			throw new WebMVCException("Value name must be valid.");
+		}
+		switch (scope) {
+		case FORM:
+			if(parts != null) {
+				result = parts.containsKey(key);
+			} else {
+				result = request.getParameterValues(key) != null;
+			}
+			break;
+		case REQUEST:
+			result = request.getAttribute(key) != null;
+			break;
+		case CONVERSATION:
+			String conversationId = Conversation.getConversationId(key);
+			String valueId = Conversation.getValueId(key);
+			if(Strings.areValid(conversationId, valueId)) {
+				logger.trace("checking existence of value '{}' in conversation '{}'", valueId, conversationId);
+				ConversationStore conversations = getConversations(false);
+				result = conversations != null && conversations.lookup(conversationId, valueId, System.currentTimeMillis()).isPresent();
+			}
+			break;			
+		case SESSION:
+			result = request.getSession().getAttribute(key) != null;
+			break;
+		case STICKY:
+			String user = request.getRemoteUser();
+			if(Strings.isValid(user)) {
+				ConcurrentMap<String, Map<String, Object>> sticky = getStickyValues(false);
+				if (sticky != null && sticky.get(user) != null) {
+					result = sticky.get(user).containsKey(key);
+				}
+			}
+			break;
+		case APPLICATION:
+			result = filter.getServletContext().getAttribute(key) != null;
+			break;
+		case CONFIGURATION:
+			if (configuration != null) {
+				result = configuration.get(key) != null;
+			}
+			break;
+		case SYSTEM:
+			result = Strings.isValid(System.getProperty(key));
+			break;
+		case ENVIRONMENT:
+			result = Strings.isValid(System.getenv(key));
+			break;
+
+		}
+		logger.debug("scope '{}' {} value '{}'", scope.name(), result ? "contains" : "doesn't contain", key);
+		return result;
+	}
+
+	/**
+	 * Returns the value associated with the given name in the given scope.
+	 * 
+	 * @see #getValue(String, Scope)
+	 */
+	public Object get(String key, Scope scope) throws WebMVCException {
+		if (!Strings.isValid(key)) {
+			logger.error("value name must be valid");
+			throw new WebMVCException("Value name must be valid.");
+		}
+		Object value = null;
+		switch (scope) {
+		case FORM:
+			if(parts != null) {
+				FileItem item = parts.get(key);
+				if(item != null) {
+					if(item.isFormField()) {
+						value = item.getString();
+					} else {
+						value = new UploadedFile(item); 
+					}
+				}
+			} else {
+				value = request.getParameterValues(key);
+			}
+			break;
+		case REQUEST:
+			value = request.getAttribute(key);
+			break;
+		case CONVERSATION:
+			String conversationId = Conversation.getConversationId(key);
+			String valueId = Conversation.getValueId(key);
+			if(Strings.areValid(conversationId, valueId)) {
+//				logger.trace("retrieving value '{}' in conversation '{}'", valueId, conversationId);
+				ConversationStore conversations = getConversations(false);
+				if (conversations != null) {
+					value = conversations.lookup(conversationId, valueId, System.currentTimeMillis()).orNull();
+				}
+			}
+			break;						
+		case SESSION:
+			value = request.getSession().getAttribute(key);
+			break;
+		case STICKY:
+			String user = request.getRemoteUser();
+			if(Strings.isValid(user)) {
+				ConcurrentMap<String, Map<String, Object>> sticky = getStickyValues(false);
+				if (sticky != null && sticky.get(user) != null) {
+					value = sticky.get(user).get(key);
+				}
+			}
+			break;
+		case APPLICATION:
+			value = filter.getServletContext().getAttribute(key);
+			break;
+		case CONFIGURATION:
+			if (configuration != null) {
+				value = configuration.get(key);
+			}
+			break;
+		case SYSTEM:
+			value = System.getProperty(key);
+			break;
+		case ENVIRONMENT:
+			value = System.getenv(key);
+			break;
+		}
+//		logger.trace("value '{}' in scope '{}' has value '{}' (class {})", key, scope.name(), value, value != null ? value.getClass().getSimpleName() : "n.a.");
+		return value;
+	}
+
+	/**
+	 * Returns a copy of the map of values at the given scope.
+	 * 
+	 * @see #getValues(Scope, Regex)
+	 */
+	public Map<String, Object> values(Scope scope, Regex pattern) throws WebMVCException {
+		Set<String> names = names(null, scope);
+		Map<String, Object> map = new HashMap<>();
+		for (String name : names) {
+			map.put(name, get(name, scope));
+		}
+		return map;
+	}
+
+	/**
+	 * Sets the value associated with the given name into the given (writable) scope.
+	 * 
+	 * @see #setValue(String, Object, Scope)
+	 */
+	public void set(String key, Object value, Scope scope) throws WebMVCException {
+		if (!Strings.isValid(key)) {
+			logger.error("value name must be valid");
+			throw new WebMVCException("Value name must be valid.");
+		}
+		if (scope.isReadOnly()) {
+			logger.error("trying to store value in read-only scope '{}'", scope.name());
+			throw new WebMVCException("Trying to store value in read-only scope '" + scope.name() + "'.");
+		}
+
+		switch (scope) {
+		case REQUEST:
+			request.setAttribute(key, value);
+			break;
+		case CONVERSATION:
+			String conversationId = Conversation.getConversationId(key);
+			String valueId = Conversation.getValueId(key);
+			if(Strings.areValid(conversationId, valueId)) {
+				logger.trace("setting value '{}' in conversation '{}'", valueId, conversationId);
+				getConversations(true).put(conversationId, valueId, value, System.currentTimeMillis());
+			}
+			break;
+		case SESSION:
+			request.getSession().setAttribute(key, value);
+			break;
+		case STICKY:
+			String user = request.getRemoteUser();
+			if(Strings.isValid(user)) {
+				user = user.trim();
+				ConcurrentMap<String, Map<String, Object>> sticky = getStickyValues(true);
+				Map<String, Object> map = sticky.get(user); 
+				if(map == null) {
+					map = Collections.synchronizedMap(new HashMap<String, Object>());
+					Map<String, Object> existing = sticky.putIfAbsent(user, map);
+					if(existing != null) {
+						map = existing;
+					}
+				}
+				map.put(key, value);
+			}
+			break;
+		case APPLICATION:
+			filter.getServletContext().setAttribute(key, value);
+			break;
+		default:
+			logger.error("should never get here: is this a bug?");
+		}
+		logger.debug("value '{}' in scope '{}' set to value '{}' (class {})", key, scope.name(), value, value != null ? value.getClass().getSimpleName() : "n.a.");
+	}
+
+	/**
+	 * Removes the value associated with the given name from the given (writable) scope.
+	 * 
+	 * @see #removeValue(String, Scope)
+	 */
+	public void remove(String key, Scope scope) throws WebMVCException {
+
+		if (!Strings.isValid(key)) {
+			logger.error("value name must be valid");
+			throw new WebMVCException("Value name must be valid.");
+		}
+		if (scope.isReadOnly()) {
+			logger.error("trying to remove value from read-only scope '{}'", scope.name());
+			throw new WebMVCException("Trying to remove value from read-only scope '" + scope.name() + "'.");
+		}
+
+		switch (scope) {
+		case REQUEST:
+			request.removeAttribute(key);
+			break;
+		case CONVERSATION:
+			String conversationId = Conversation.getConversationId(key);
+			String valueId = Conversation.getValueId(key);
+			if(Strings.areValid(conversationId, valueId)) {
+				logger.trace("removing value '{}' from conversation '{}'", valueId, conversationId);
+				ConversationStore conversations = getConversations(false);
+				if (conversations != null) {
+					conversations.remove(conversationId, valueId, System.currentTimeMillis());
+				}
+			}
+			break;						
+		case SESSION:
+			request.getSession().removeAttribute(key);
+			break;
+		case STICKY:
+			String user = request.getRemoteUser();
+			if(Strings.isValid(user)) {
+				ConcurrentMap<String, Map<String, Object>> sticky = getStickyValues(false);
+				if (sticky != null && sticky.get(user) != null) {
+					sticky.get(user).remove(key);
+				}
+			}
+			break;
+		case APPLICATION:
+			filter.getServletContext().removeAttribute(key);
+			break;
+		default:
+			logger.error("should never get here: is this a bug?");
+		}
+		logger.debug("value '{}' removed from scope '{}'", key, scope.name());
+	}
+
+	/**
+	 * Retrieves the names of the values in the given scope that match the optional pattern.
+	 * 
+	 * @see #getValueNames(String, Scope)
+	 */
+	public Set<String> names(String pattern, Scope scope) throws WebMVCException {
+		Set<String> names = new HashSet<>();
+		Enumeration<?> enumeration = null;
+		Regex regex = null;
+		if(Strings.isValid(pattern)) {
+			regex = new Regex(pattern);
+		}		
+		switch (scope) {
+		case FORM:
+			if(parts != null) {
+				names.addAll(parts.keySet());
+			} else {
+				enumeration = request.getParameterNames();
+				while (enumeration.hasMoreElements()) {
+					String name = (String) enumeration.nextElement();
+					if (regex == null || regex.matches(name)) {
+						names.add(name);
+					}
+				}
+			}
+			break;
+		case REQUEST:
+			enumeration = request.getAttributeNames();
+			while (enumeration.hasMoreElements()) {
+				String name = (String) enumeration.nextElement();
+				if (regex == null || regex.matches(name)) {
+					names.add(name);
+				}
+			}
+			break;
+		case CONVERSATION:			
+			Regex conversation = Strings.isValid(Conversation.getConversationId(pattern)) ? new Regex(Conversation.getConversationId(pattern)) : new Regex(".*");  
+			regex = Strings.isValid(Conversation.getValueId(pattern)) ? new Regex(Conversation.getValueId(pattern)) : new Regex(".*");
+			ConversationStore conversations = getConversations(false);
+			if (conversations != null) {
+				names.addAll(conversations.names(conversation, regex, System.currentTimeMillis()));
+			}
+			break;
+		case SESSION:
+			enumeration = request.getSession().getAttributeNames();
+			while (enumeration.hasMoreElements()) {
+				String name = (String) enumeration.nextElement();
+				if (regex == null || regex.matches(name)) {
+					names.add(name);
+				}
+			}
+			break;
+		case STICKY:
+			String user = request.getRemoteUser();
+			if(Strings.isValid(user)) {
+				ConcurrentMap<String, Map<String, Object>> sticky = getStickyValues(false);
+				Map<String, Object> values = sticky != null ? sticky.get(user) : null;
+				if (values != null) {
+					synchronized(values) {
+						for (String name : values.keySet()) {
+							if (regex == null || regex.matches(name)) {
+								names.add(name);
+							}
+						}
+					}
+				}
+			}
+			break;
+		case APPLICATION:
+			enumeration = filter.getServletContext().getAttributeNames();
+			while (enumeration.hasMoreElements()) {
+				String name = (String) enumeration.nextElement();
+				if (regex == null || regex.matches(name)) {
+					names.add(name);
+				}
+			}
+			break;
+		case CONFIGURATION:
+			if (configuration != null) {
+				for (String name : configuration.getKeys()) {
+					if (regex == null || regex.matches(name)) {
+						names.add(name);
+					}
+				}
+			}
+			break;
+		case SYSTEM:
+			enumeration = System.getProperties().keys();
+			while (enumeration.hasMoreElements()) {
+				String name = (String) enumeration.nextElement();
+				if (regex == null || regex.matches(name)) {
+					names.add(name);
+				}
+			}
+			break;
+		case ENVIRONMENT:
+			for (String name : System.getenv().keySet()) {
+				if (regex == null || regex.matches(name)) {
+					names.add(name);
+				}
+			}
+			break;
+		}
+		return names;
+	}
+
+	/**
+	 * Returns the time the target servicing this context has left before its 
+	 * deadline passes.
+	 * 
+	 * @see #getRemainingTime()
+	 */
+	public long remainingTime() {
+		return deadline != null ? deadline.getRemainingTime() : Long.MAX_VALUE;
+	}
+
+	/**
+	 * Looks for a value in any of the provided scopes, in the given order; each
+	 * scope is visited at most once.
+	 * 
+	 * @see #findValue(String, Scope...)
+	 */
+	public Object find(String name, Scope... scopes) throws WebMVCException {
+		if (!Strings.isValid(name)) {
+			logger.error("value name must be valid");
+			throw new WebMVCException("Value name must be valid.");
+		}
+		for (Scope scope : scopes) {
+			Object value = probe(name, scope);
+			if (value != MISSING) {
+				return value;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Looks for a value in any of the provided scopes, in the given order, 
+	 * telling a value that is absent from all scopes from one that is present
+	 * but {@code null}.
+	 * 
+	 * @see #lookupValue(String, Scope...)
+	 */
+	public Lookup<Object> lookup(String name, Scope... scopes) throws WebMVCException {
+		if (!Strings.isValid(name)) {
+			logger.error("value name must be valid");
+			throw new WebMVCException("Value name must be valid.");
+		}
+		for (Scope scope : scopes) {
+			Object value = probe(name, scope);
+			if (value != MISSING) {
+				return Lookup.of(value);
+			}
+		}
+		return Lookup.absent();
+	}
+
+	/**
+	 * Retrieves a value from the given scope with a single access to the 
+	 * underlying storage; the value is considered present under the same 
+	 * conditions as in {@link #contains(String, Scope)}.
+	 * 
+	 * @param key
+	 *   the name of the value, already validated.
+	 * @param scope
+	 *   the scope in which the value should be looked up.
+	 * @return
+	 *   the value (possibly {@code null}), or {@link #MISSING} if the scope 
+	 *   does not contain it.
+	 */
+	private Object probe(String key, Scope scope) throws WebMVCException {
+		Object value = null;
+		switch (scope) {
+		case FORM:
+			if(parts != null) {
+				FileItem item = parts.get(key);
+				if(item == null) {
+					return MISSING;
+				}
+				return item.isFormField() ? item.getString() : new UploadedFile(item);
+			}
+			value = request.getParameterValues(key);
+			break;
+		case REQUEST:
+			value = request.getAttribute(key);
+			break;
+		case CONVERSATION:
+			String conversationId = Conversation.getConversationId(key);
+			String valueId = Conversation.getValueId(key);
+			if(Strings.areValid(conversationId, valueId)) {
+				ConversationStore conversations = getConversations(false);
+				if (conversations != null) {
+					Lookup<Object> lookup = conversations.lookup(conversationId, valueId, System.currentTimeMillis());
+					if(lookup.isPresent()) {
+						return lookup.orNull();
+					}
+				}
+			}
+			return MISSING;
+		case SESSION:
+			value = request.getSession().getAttribute(key);
+			break;
+		case STICKY:
+			String user = request.getRemoteUser();
+			if(Strings.isValid(user)) {
+				ConcurrentMap<String, Map<String, Object>> sticky = getStickyValues(false);
+				Map<String, Object> values = sticky != null ? sticky.get(user) : null;
+				if (values != null) {
+					value = values.get(key);
+					if(value != null || values.containsKey(key)) {
+						return value;
+					}
+				}
+			}
+			return MISSING;
+		case APPLICATION:
+			value = filter.getServletContext().getAttribute(key);
+			break;
+		case CONFIGURATION:
+			if (configuration != null) {
+				value = configuration.get(key);
+			}
+			break;
+		case SYSTEM:
+			value = System.getProperty(key);
+			return Strings.isValid((String)value) ? value : MISSING;
+		case ENVIRONMENT:
+			value = System.getenv(key);
+			return Strings.isValid((String)value) ? value : MISSING;
+		}
+		return value != null ? value : MISSING;
+	}
+
+	/**
+	 * Looks up any value whose name matches the given pattern in the given scopes.
+	 * 
+	 * @see #matchValues(String, Scope...)
+	 */
+	public Map<String, Object> match(String pattern, Scope... scopes) throws WebMVCException {
+		if (!Strings.isValid(pattern)) {
+			logger.error("regular expression to match against value names must be a valid string");
+			throw new WebMVCException("Regular expression to match against value names must be a valid string.");
+		}
+		return match(new Regex(pattern), scopes);	
+	}
+
+	/**
+	 * Looks up any value whose name matches the given regular expression in the given scopes.
+	 * 
+	 * @see #matchValues(Regex, Scope...)
+	 */
+	public Map<String, Object> match(Regex pattern, Scope... scopes) throws WebMVCException {
+		if (pattern == null) {
+			logger.error("regular expression to match against value names must not be null");
+			throw new WebMVCException("Regular expression to match against value names must not be null.");
+		}
+		Map<String, Object> values = new HashMap<>();
+
+		if (scopes != null && scopes.length > 0) {
+			// visit the scopes in reverse order so that first scopes have
+			// higher
+			// priority in retrieving values than last ones
+			for (int i = scopes.length - 1; i >= 0; i--) {
+				values.putAll(values(scopes[i], pattern));
+			}
+		}
+		return values;
+	}
+
+	/**
+	 * Returns the conversation store of the current session.
+	 * 
+	 * @param create
+	 *   whether the session and its store should be created if missing.
+	 * @return
+	 *   the conversation store, or {@code null} if there is none and it should
+	 *   not be created.
+	 */
+	private ConversationStore getConversations(boolean create) {
+		HttpSession session = request.getSession(create);
+		return session != null ? ConversationStore.of(session, create, conversationLimits) : null;
+	}
+
+	/**
+	 * Returns the sticky values of all users.
+	 * 
+	 * @param create
+	 *   whether the map should be created if it does not exist yet.
+	 * @return
+	 *   the sticky values, by user, or {@code null} if there are none and the
+	 *   map should not be created.
+	 */
+	@SuppressWarnings("unchecked")
+	private ConcurrentMap<String, Map<String, Object>> getStickyValues(boolean create) {
+		ServletContext application = filter.getServletContext();
+		ConcurrentMap<String, Map<String, Object>> sticky = (ConcurrentMap<String, Map<String, Object>>) application.getAttribute(STICKY_SCOPED_ATTRIBUTES_KEY);
+		if(sticky == null && create) {
+			synchronized(application) {
+				sticky = (ConcurrentMap<String, Map<String, Object>>) application.getAttribute(STICKY_SCOPED_ATTRIBUTES_KEY);
+				if(sticky == null) {
+					sticky = new ConcurrentHashMap<>();
+					application.setAttribute(STICKY_SCOPED_ATTRIBUTES_KEY, sticky);
+				}
+			}
+		}
+		return sticky;
+	}
 }
@@ -8,15 +8,29 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.channels.ClosedByInterruptException;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Collections;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.management.InstanceAlreadyExistsException;
 import javax.management.InstanceNotFoundException;
@@ -25,6 +39,13 @@ import javax.management.MBeanServer;
 import javax.management.MalformedObjectNameException;
 import javax.management.NotCompliantMBeanException;
 import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.OpenDataException;
+import javax.management.openmbean.TabularData;
+import javax.management.openmbean.TabularDataSupport;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
 import javax.servlet.Filter;
 import javax.servlet.FilterChain;
 import javax.servlet.FilterConfig;
@@ -44,19 +65,39 @@ import org.dihedron.core.variables.SystemPropertyValueProvider;
 import org.dihedron.core.variables.Variables;
 import org.dihedron.webmvc.actions.ActionFactory;
 import org.dihedron.webmvc.actions.Result;
+import org.dihedron.webmvc.admission.AdaptiveLimit;
+import org.dihedron.webmvc.admission.PriorityClass;
+import org.dihedron.webmvc.admission.PriorityDispatcher;
 import org.dihedron.webmvc.annotations.Action;
+import org.dihedron.webmvc.aop.CodegenProfile;
+import org.dihedron.webmvc.cache.CacheKey;
+import org.dihedron.webmvc.cache.CachePolicy;
+import org.dihedron.webmvc.cache.CachedResponse;
+import org.dihedron.webmvc.cache.CapturingResponseWrapper;
+import org.dihedron.webmvc.cache.ResponseCache;
+import org.dihedron.webmvc.compression.CompressingResponseWrapper;
+import org.dihedron.webmvc.compression.Compression;
+import org.dihedron.webmvc.compression.DeflaterPool;
+import org.dihedron.webmvc.exceptions.ControlFlowException;
 import org.dihedron.webmvc.exceptions.DeploymentException;
 import org.dihedron.webmvc.exceptions.WebMVCException;
 import org.dihedron.webmvc.interceptors.Domain;
 import org.dihedron.webmvc.interceptors.InterceptorStack;
 import org.dihedron.webmvc.interceptors.registry.DomainsRegistry;
 import org.dihedron.webmvc.interceptors.registry.InterceptorsRegistry;
+import org.dihedron.webmvc.metrics.Phase;
+import org.dihedron.webmvc.metrics.PhaseBreakdown;
+import org.dihedron.webmvc.metrics.PhaseTimer;
+import org.dihedron.webmvc.metrics.TargetMetrics;
 import org.dihedron.webmvc.plugins.Plugin;
 import org.dihedron.webmvc.plugins.PluginManager;
+import org.dihedron.webmvc.protocol.ETags;
 import org.dihedron.webmvc.renderers.Renderer;
 import org.dihedron.webmvc.renderers.impl.CachingRendererRegistry;
+import org.dihedron.webmvc.renderers.impl.ChainRenderer;
 import org.dihedron.webmvc.renderers.registry.RendererRegistry;
 import org.dihedron.webmvc.renderers.registry.RendererRegistryLoader;
+import org.dihedron.webmvc.targets.ExecutionPlan;
 import org.dihedron.webmvc.targets.Target;
 import org.dihedron.webmvc.targets.TargetId;
 import org.dihedron.webmvc.targets.registry.TargetFactory;
@@ -116,14 +157,11 @@ public class ActionController implements Filter, ActionControllerMBean {
 	private TargetRegistry registry = null;
 
 	/**
-	 * The registry of interceptor stacks.
+	 * The reloadable part of the configuration: the interceptor stacks, the 
+	 * domains, the static resources and the targets' execution plans; it is
+	 * replaced as a whole, by a single write, when the configuration is reloaded.
 	 */
-	private InterceptorsRegistry interceptors;
-	
-	/**
-	 * The registry of domains.
-	 */
-	private DomainsRegistry domains;
+	private volatile ConfigurationSnapshot snapshot;
 		
 	/**
 	 * The registry of supported renderers.
@@ -134,6 +172,88 @@ public class ActionController implements Filter, ActionControllerMBean {
 	 * The configuration for file upload handling.
 	 */
 	private FileUploadConfiguration uploadInfo = null;
+	
+	/**
+	 * The limits applied to the conversations of each session.
+	 */
+	private ConversationStore.Limits conversationLimits = ConversationStore.Limits.DEFAULT;
+	
+	/**
+	 * The executor running asynchronous targets; it is {@code null} if no target 
+	 * is declared as asynchronous and the dispatch mode is not virtual.
+	 */
+	private ExecutorService executor = null;
+	
+	/**
+	 * The maximum number of targets that can be chained in process after the 
+	 * first one.
+	 */
+	private int maxChainHops = DEFAULT_CHAIN_MAX_HOPS;
+	
+	/**
+	 * The default maximum number of chained targets.
+	 */
+	public static final int DEFAULT_CHAIN_MAX_HOPS = 8;
+	
+	/**
+	 * The maximum size of a rendered response held back to compute its entity 
+	 * tag; larger responses are streamed to the client without one.
+	 */
+	public static final long DEFAULT_ETAG_BUFFER_SIZE = 1024 * 1024;
+	
+	/**
+	 * The cache of {@code @Cached} targets' outcomes.
+	 */
+	private ResponseCache cache = null;
+	
+	/**
+	 * The pool of deflaters used to compress responses.
+	 */
+	private volatile DeflaterPool deflaters = null;
+	
+	/**
+	 * The queue admitting requests to targets in domains having a priority 
+	 * class; it is {@code null} if no domain has one.
+	 */
+	private volatile PriorityDispatcher dispatcher = null;
+	
+	/**
+	 * The executor expiring the deadlines of targets; it is {@code null} if no
+	 * target or domain declares a deadline.
+	 */
+	private volatile ScheduledExecutorService deadlines = null;
+	
+	/**
+	 * The executor periodically checking whether the interceptors and domains
+	 * declarations have changed; it is {@code null} if automatic reload is not
+	 * enabled.
+	 */
+	private ScheduledExecutorService reloader = null;
+	
+	/**
+	 * How targets are dispatched.
+	 */
+	private DispatchMode dispatchMode = DispatchMode.ANNOTATED;
+	
+	/**
+	 * The timeout of asynchronous requests, in milliseconds.
+	 */
+	private long asyncTimeout = DEFAULT_ASYNC_TIMEOUT;
+	
+	/**
+	 * The default timeout of asynchronous requests, in milliseconds.
+	 */
+	public static final long DEFAULT_ASYNC_TIMEOUT = 30000;
+
+	/**
+	 * The default number of threads serving asynchronous targets.
+	 */
+	public static final int DEFAULT_ASYNC_THREADS = 4 * Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * The name of the {@code Executors} factory method creating virtual threads.
+	 */
+	private static final String VIRTUAL_THREAD_EXECUTOR_FACTORY = "newVirtualThreadPerTaskExecutor";
 
 	/**
 	 * The default package for stock portal- and application-server plugins.
@@ -170,17 +290,33 @@ public class ActionController implements Filter, ActionControllerMBean {
 
 			initialiseRuntimeEnvironment();
 
-			initialiseInterceptorsRegistry();
+			initialiseRegistries();
 			
-			initialiseDomainsRegistry();
+			initialiseRenderersRegistry();
+			
+			initialiseResponseCache();
+			
+			initialiseCompression();
 			
 			initialiseTargetsRegistry();
-
-			initialiseRenderersRegistry();
+			
+			initialiseChaining();
 			
 			initialiseFileUploadConfiguration();
 			
+			initialiseConversations();
+			
+			initialiseAsyncSupport();
+			
+			initialiseAdmission();
+			
+			initialiseDeadlines();
+			
+			initialiseMetrics();
+			
 			initialiseJMXSupport();
+			
+			initialiseConfigurationReload();
 
 		} finally {
 
@@ -191,7 +327,17 @@ public class ActionController implements Filter, ActionControllerMBean {
 	public void destroy() {
 		logger.info("webmvc filter for {} is down", filter.getFilterName());
 		
+		cleanupConfigurationReload();
+		
 		cleanupJMXSupport();
+		
+		cleanupAsyncSupport();
+		
+		cleanupAdmission();
+		
+		cleanupDeadlines();
+		
+		cleanupCompression();
 	}
 
 	@Override
@@ -204,13 +350,51 @@ public class ActionController implements Filter, ActionControllerMBean {
 		// end up handling the request is not determined; the only reliable way seems to be 
 		// by stripping the context path from the complete request URI
 		String uri = request.getRequestURI();
-		String targetId = uri.substring(contextPath.length() + 1); // strip the leading '/'
-		String queryString = request.getQueryString();
+		int offset = contextPath.length() + 1; // skip the leading '/'
+
+		logger.debug("servicing request for '{}' (query string: '{}', context path: '{}')...", uri, request.getQueryString(), contextPath);
+
+		// the configuration is read once, as it may be swapped by a reload
+		ConfigurationSnapshot snapshot = this.snapshot;
+		
+		// resolve the target through the compiled route index, without creating
+		// any intermediate string or target id
+		Target target = registry.lookup(uri, offset);
+		ExecutionPlan plan = target != null ? snapshot.getPlan(target) : null;
+		
+		// static resources are handed over to the container as they are 
+		if(target == null && snapshot.getStatics().isStatic(uri, offset)) {
+			logger.trace("'{}' is a static resource, letting the server handle it...", uri);
+			chain.doFilter(req, res);
+			return;
+		}
+		
+		if(target == null && offset < uri.length() && TargetId.isValidTargetId(uri.substring(offset))) {
+			// syntactically valid but unregistered target: reply right away, 
+			// without any exception or stack trace
+			logger.debug("repository does not contain info for target '{}'", uri);
+			response.sendError(HttpServletResponse.SC_NOT_FOUND);
+			return;
+		}
 
-		logger.debug("servicing request for '{}' (query string: '{}', context path: '{}', request URI: '{}')...", targetId, queryString, contextPath, uri);
+		// shed excess load before any binding or multipart parsing takes place
+		AdaptiveLimit limit = plan != null ? plan.getDomain().getAdaptiveLimit() : null;
+		if(limit != null && !limit.tryAcquire()) {
+			logger.debug("request for '{}' shed, domain concurrency limit {} reached", uri, limit.getLimit());
+			response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+			return;
+		}
+		long start = System.nanoTime();
 
 		try {
-			ActionContext.bindContext(filter, request, response, configuration, server, uploadInfo);
+			if(target != null) {
+				PhaseTimer.start();
+			}
+			ActionContext.bindContext(filter, request, response, configuration, server, uploadInfo, conversationLimits);
+			if(target != null) {
+				ActionContext.setDeadline(makeDeadline(plan));
+			}
+			PhaseTimer.enter(Phase.OTHER);
 			
 			// TODO: test, remove!
 //			ActionContext.setValue("conversation_A:key1", "value1a", Scope.CONVERSATION);
@@ -224,96 +408,46 @@ public class ActionController implements Filter, ActionControllerMBean {
 			
 			// TODO: end test
 			
-			String invocationResult = null;
-			Result result = null;
-			while(TargetId.isValidTargetId(targetId) && (result == null || result.getRendererId().equals("chain"))) {
-				
-				logger.trace("invoking target '{}'...", targetId);
-				
-				// check if there's configuration available for the given action
-				Target target = registry.getTarget(targetId);
-				
-				logger.trace("target configuration:\n{}", target.toString());
-				
-				// instantiate the action
-				Object action = ActionFactory.makeAction(target);
-				if(action != null) {
-					logger.trace("action instance '{}' ready", target.getActionClass().getSimpleName());
-				} else {    			 	
-					logger.error("could not create an action instance for target '{}'", target.getId());
-					throw new WebMVCException("No action could be found for target '" + target.getId() + "'");
-				}
-				
-				// get the domain protecting the given action
-				Domain domain = null;
-				if(Strings.isValid(target.getDomainId())) {
-					logger.trace("action is within domain '{}'", target.getDomainId());
-					domain = domains.findDomainById(target.getDomainId());
+			if(target != null) {
+				PriorityClass priority = plan.getDomain().getPriority();
+				PriorityDispatcher dispatcher = this.dispatcher;
+				if(priority != null && dispatcher != null && request.isAsyncSupported()) {
+					dispatchTarget(snapshot, plan, dispatcher.getExecutor(priority), limit, start, request, response);
+					// the worker thread is now in charge of releasing the limit
+					limit = null;
+				} else if((target.isAsync() || dispatchMode == DispatchMode.VIRTUAL) && executor != null && request.isAsyncSupported()) {
+					dispatchTarget(snapshot, plan, executor, limit, start, request, response);
+					limit = null;
 				} else {
-					logger.trace("looking for applicable domain");
-					domain = domains.findDomainByResource(target.getId().toString());
-				}
-								
-				// get the stack for the given domain				
-				InterceptorStack stack = interceptors.getStackOrDefault(domain.getStackId());
-		    	    	
-		    	// create and fire the action stack invocation				
-				ActionInvocation invocation = null;
-				try {
-					logger.trace("invoking interceptors' stack...");
-					invocation = new ActionInvocation(target, action, stack, request, response);
-					invocationResult = invocation.invoke();
-					if(invocationResult.equals(Action.DONE)) {
-						logger.trace("action request performed view rendering too, request is complete");
-						return;
-					}					
-					
-					do {
-						// look up the result among those already available (explicitly configured 
-						// only at first, then auto-configured too as the target warms up)
-						logger.trace("looking up result among target's ...");
-						result = target.getResult(invocationResult);						
-						if(result != null) break;
-
-						// is not among the target's, check if there is a global result handler
-						// at stack level
-						logger.trace("looking up result among globals in stack '{}'...", stack.getId());
-						result = domain.getGlobalResult(invocationResult);
-						if(result != null) break;
-										        
-			            // nope, then try to auto-configure one in the target
-						logger.trace("result '{}' is not present yet, auto-configuring...", invocationResult);
-			            result = target.addUndeclaredResult(invocationResult);
-			            if(result != null) break;
-					
-						// too bad, we're throwing an error because everyithing else failed
-						logger.error("misconfiguration in registry: target '{}' and result '{}' have no valid processing information", target.getId(), invocationResult);
-						throw new WebMVCException("No valid information found in registry for target '" + target.getId() + "', result '" + invocationResult + "', please check your actions");
-						
-					} while(false);
-					
-				} finally {
-					logger.debug("... business logic invocation done!");
-					invocation.cleanup();
+					if(target.isAsync()) {
+						logger.debug("asynchronous processing not available for '{}', executing synchronously", target.getId());
+					}
+					serviceTarget(snapshot, plan, request, response);
 				}
-			} 
+				return;
+			}
 			
-			if(result == null) {
-				logger.trace("'{}' is no action, treating as resource...", uri);
-				
-				// get the applicable interceptors stack, either by domain or the default one
-				Domain domain = domains.findDomainByResource(uri);				
-				InterceptorStack stack = interceptors.getStackOrDefault(domain != null ? domain.getStackId() : null);
+			logger.trace("'{}' is no action, treating as resource...", uri);
 				
-				logger.trace("'{}' is serviced by stack '{}'...", uri, stack != null ? stack.getId() : "null");
-				
-				ResourceInvocation invocation = null;
-				try {
-					invocation = new ResourceInvocation(uri, stack, request, response);
-					invocationResult = invocation.invoke();
-					result = domain.getGlobalResult(invocationResult);					
-				} finally {
-					logger.debug("... resource invocation done!");
+			// get the applicable interceptors stack, either by domain or the default one
+			Domain domain = snapshot.getDomains().findDomainByResource(uri);				
+			InterceptorStack stack = snapshot.getInterceptors().getStackOrDefault(domain != null ? domain.getStackId() : null);
+			
+			logger.trace("'{}' is serviced by stack '{}'...", uri, stack != null ? stack.getId() : "null");
+			
+			Result result = null;
+			Renderer renderer = null;
+			ResourceInvocation invocation = null;
+			try {
+				invocation = ResourceInvocation.obtain(uri, stack != null ? stack.getInterceptors() : null, request, response);
+				String invocationResult = invocation.invoke();
+				result = domain.getGlobalResult(invocationResult);
+				if(result != null) {
+					renderer = renderers.getRenderer(result.getRendererId());
+				}
+			} finally {
+				logger.debug("... resource invocation done!");
+				if(invocation != null) {
 					invocation.cleanup();
 				}
 			}
@@ -322,11 +456,576 @@ public class ActionController implements Filter, ActionControllerMBean {
 				logger.trace("after interceptors application, letting the server handle the resource...");
 				chain.doFilter(req, res);				
 			} else {
-				Renderer renderer = renderers.getRenderer(result.getRendererId());
 				renderer.render(request, response, result.getData());
 			}
+		} catch(ControlFlowException e) {
+			// expected condition (e.g. unauthorised user), reply with the status code
+			logger.debug("request for '{}' ended with status {}: {}", uri, e.getStatus(), e.getMessage());
+			if(!response.isCommitted()) {
+				response.sendError(e.getStatus());
+			}
 		} finally {
 			ActionContext.unbindContext();
+			PhaseTimer.detach();
+			if(limit != null) {
+				limit.release(System.nanoTime() - start);
+			}
+		}
+	}
+	
+	/**
+	 * Invokes the given target and renders the result, recording the latency
+	 * of the whole request and its outcome into the target's metrics; requests
+	 * ending with an expected condition (see {@link ControlFlowException}) are
+	 * not counted as failed.
+	 * 
+	 * @param snapshot
+	 *   the configuration the request is serviced with.
+	 * @param plan
+	 *   the execution plan of the target to be invoked.
+	 * @param request
+	 *   the servlet request.
+	 * @param response
+	 *   the servlet response.
+	 * @throws IOException
+	 * @throws ServletException
+	 */
+	private void serviceTarget(ConfigurationSnapshot snapshot, ExecutionPlan plan, HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException {
+		Target target = plan.getTarget();
+		long start = System.nanoTime();
+		boolean failed = true;
+		try {
+			executeTarget(snapshot, plan, request, response);
+			failed = false;
+		} catch(ControlFlowException e) {
+			failed = false;
+			throw e;
+		} finally {
+			target.getMetrics().record(System.nanoTime() - start, failed);
+			PhaseTimer timer = PhaseTimer.stop();
+			if(timer != null) {
+				target.getMetrics().getBreakdown().record(timer);
+			}
+		}
+	}
+	
+	/**
+	 * Invokes the given target, applying its interceptors, and renders the 
+	 * result; the {@code ActionContext} must have already been bound to the 
+	 * current thread. Results rendered by the "chain" renderer and pointing to
+	 * a registered target are resolved in process, by invoking the chained
+	 * target right away with the same context (and the same already parsed 
+	 * form data), without any round-trip through the container; up to 
+	 * {@code webmvc:chain-max-hops} targets can be chained this way.
+	 * 
+	 * Only targets in the same domain as the first one are chained in process:
+	 * the settings of a domain (its concurrency limit, priority class, dispatch 
+	 * mode, deadline and compression) are applied once, when the request enters
+	 * the framework, so a target in another domain could otherwise be invoked 
+	 * without them. Results chaining into a different domain are rendered by
+	 * the chain renderer instead, which forwards the request through the 
+	 * container.
+	 * 
+	 * @param snapshot
+	 *   the configuration the request is serviced with; chained targets are
+	 *   resolved against it too.
+	 * @param plan
+	 *   the execution plan of the target to be invoked.
+	 * @param request
+	 *   the servlet request.
+	 * @param response
+	 *   the servlet response.
+	 * @throws IOException
+	 * @throws ServletException
+	 */
+	private void executeTarget(ConfigurationSnapshot snapshot, ExecutionPlan plan, HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException {
+		Target target = plan.getTarget();
+		Domain domain = plan.getDomain();
+		String invocationResult = null;
+		Result result = null;
+		Renderer renderer = null;
+		CachedResponse cached = null;
+		CachedResponse pending = null;
+		CacheKey cacheKey = null;
+		Deadline deadline = ActionContext.getDeadline();
+		int hops = 0;
+		while(true) {
+			
+			if(deadline != null && deadline.isCancelled()) {
+				break;
+			}
+			
+			logger.trace("invoking target '{}' (hop {})...", target.getId(), hops);
+			long start = logger.isDebugEnabled() ? System.nanoTime() : 0L;
+			
+			if(logger.isTraceEnabled()) {
+				logger.trace("target configuration:\n{}", target.toString());
+			}
+			
+			// instantiate the action
+			Object action = ActionFactory.makeAction(target);
+			if(action != null) {
+				if(logger.isTraceEnabled()) {
+					logger.trace("action instance '{}' ready", target.getActionClass().getSimpleName());
+				}
+			} else {    			 	
+				logger.error("could not create an action instance for target '{}'", target.getId());
+				throw new WebMVCException("No action could be found for target '" + target.getId() + "'");
+			}
+			
+			// get the domain and stack for the given action (resolved at deployment)
+			InterceptorStack stack = plan.getStack();
+			logger.trace("action is within domain '{}', stack '{}'", plan.getDomain().getId(), stack.getId());
+	    	    	
+	    	// create and fire the action stack invocation				
+			ActionInvocation invocation = null;
+			if(deadline != null) {
+				deadline.enter();
+			}
+			try {
+				logger.trace("invoking interceptors' stack...");
+				invocation = ActionInvocation.obtain(plan, action, request, response);
+				invocationResult = invocation.invoke();
+				cached = invocation.getCachedResponse();
+				pending = invocation.getPendingResponse();
+				cacheKey = invocation.getCacheKey();
+				if(invocationResult.equals(Action.DONE)) {
+					logger.trace("action request performed view rendering too, request is complete");
+					if(pending != null) {
+						target.getCachePolicy().abandon(cacheKey);
+					}
+					return;
+				}					
+				
+				// look up the result among the target's and the domain's (explicitly 
+				// configured only at first, then auto-configured too as the target 
+				// warms up)
+				ExecutionPlan.Outcome outcome = plan.getOutcome(invocationResult);
+				result = outcome.getResult();
+				renderer = outcome.getRenderer();
+			} catch(WebMVCException | RuntimeException e) {
+				if(deadline == null || !deadline.isCancelled()) {
+					throw e;
+				}
+				// failures caused by the interrupt are expected on cancellation, 
+				// anything else is a genuine bug that happened to race with it
+				if(isCancellation(e)) {
+					logger.debug("target '{}' failed after cancellation", target.getId(), e);
+				} else {
+					logger.warn("target '{}' failed after cancellation for reasons other than the interrupt", target.getId(), e);
+				}
+			} finally {
+				logger.debug("... business logic invocation done!");
+				if(invocation != null) {
+					invocation.cleanup();
+				}
+				if(deadline != null) {
+					deadline.exit();
+				}
+			}
+			if(deadline != null && deadline.isCancelled()) {
+				break;
+			}
+			if(logger.isDebugEnabled()) {
+				logger.debug("hop {} ('{}') completed in {} us", hops, target.getId(), (System.nanoTime() - start) / 1000);
+			}
+			
+			if(!ChainRenderer.ID.equals(result.getRendererId())) {
+				break;
+			}
+			Target next = resolveChainedTarget(result.getData());
+			if(next == null) {
+				logger.trace("chained result '{}' is not a registered target, forwarding...", result.getData());
+				break;
+			}
+			ExecutionPlan chained = snapshot.getPlan(next);
+			if(chained.getDomain() != domain) {
+				logger.trace("chained target '{}' is in domain '{}', not '{}': forwarding...", next.getId(), chained.getDomain().getId(), domain.getId());
+				break;
+			}
+			if(++hops > maxChainHops) {
+				logger.error("target '{}' exceeds the maximum number of chained targets ({})", target.getId(), maxChainHops);
+				throw new WebMVCException("Too many chained targets (more than " + maxChainHops + ") after '" + target.getId() + "'");
+			}
+			if(pending != null) {
+				target.getCachePolicy().abandon(cacheKey);
+				pending = null;
+			}
+			logger.trace("chaining target '{}' in process", next.getId());
+			target = next;
+			plan = chained;
+		}
+		
+		// replace the result of a cancelled target, or drop it altogether if
+		// nobody is waiting for it
+		if(deadline != null && deadline.isCancelled()) {
+			if(pending != null) {
+				target.getCachePolicy().abandon(cacheKey);
+				pending = null;
+			}
+			cached = null;
+			if(deadline.isAbandoned()) {
+				logger.debug("request for '{}' abandoned by the client, skipping rendering", target.getId());
+				return;
+			}
+			logger.warn("target '{}' exceeded its deadline, rendering result '{}'", target.getId(), deadline.getResult());
+			ExecutionPlan.Outcome outcome = plan.findOutcome(deadline.getResult());
+			if(outcome == null) {
+				throw ControlFlowException.TIMEOUT;
+			}
+			result = outcome.getResult();
+			renderer = outcome.getRenderer();
+		}
+		
+		// compress the rendered output on its way to the client, if the domain
+		// is configured for it and the client accepts it
+		CompressingResponseWrapper compressed = null;
+		String coding = null;
+		Compression compression = domain.getCompression();
+		if(compression != null && deflaters != null && !"HEAD".equals(request.getMethod())) {
+			response.addHeader(Compression.VARY_HEADER, Compression.ACCEPT_ENCODING_HEADER);
+			Compression.Encoding encoding = Compression.negotiate(request);
+			if(encoding != null) {
+				compressed = new CompressingResponseWrapper(response, compression, encoding, deflaters);
+				coding = encoding.getCoding();
+			}
+		}
+		PhaseTimer.enter(Phase.RENDERING);
+		try {
+			renderResult(plan, result, renderer, cached, pending, cacheKey, coding, request, compressed != null ? compressed : response);
+			if(compressed != null) {
+				compressed.finish();
+			}
+		} finally {
+			if(compressed != null) {
+				compressed.recycle();
+			}
+		}
+	}
+	
+	/**
+	 * Renders the result of the last target invoked, replying to conditional
+	 * requests and serving or filling the response cache as needed.
+	 * 
+	 * @param plan
+	 *   the execution plan of the target whose result is being rendered.
+	 * @param result
+	 *   the result to be rendered.
+	 * @param renderer
+	 *   the renderer of the result.
+	 * @param cached
+	 *   the cached response to be written, if any.
+	 * @param pending
+	 *   the cache entry waiting for the rendered response, if any.
+	 * @param cacheKey
+	 *   the key of the cache entry.
+	 * @param coding
+	 *   the content coding the response is compressed with, if any; entity 
+	 *   tags are made specific to it.
+	 * @param request
+	 *   the servlet request.
+	 * @param response
+	 *   the servlet response.
+	 * @throws IOException
+	 * @throws ServletException
+	 */
+	private void renderResult(ExecutionPlan plan, Result result, Renderer renderer, CachedResponse cached, CachedResponse pending, CacheKey cacheKey, String coding, HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException {
+		Target target = plan.getTarget();
+		// conditional GET: targets with a version-based entity tag can reply
+		// "304 Not Modified" before anything is rendered
+		boolean conditional = target.hasETag() && ETags.isConditionalMethod(request);
+		if(conditional && target.getETagVersion() != null) {
+			Object version = ActionContext.getValue(target.getETagVersion(), target.getETagVersionScope());
+			if(version != null) {
+				String etag = ETags.forCoding(ETags.fromVersion(version), coding);
+				response.setHeader(ETags.ETAG_HEADER, etag);
+				if(ETags.matches(request, etag)) {
+					logger.trace("resource version '{}' matches, replying 'not modified'", version);
+					if(pending != null) {
+						target.getCachePolicy().abandon(cacheKey);
+					}
+					response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+					return;
+				}
+				conditional = false;
+			}
+		}
+		
+		if(cached != null && cached.hasBody()) {
+			if(conditional) {
+				String etag = ETags.forCoding(cached.getETag(), coding);
+				response.setHeader(ETags.ETAG_HEADER, etag);
+				if(ETags.matches(request, etag)) {
+					logger.trace("cached response for target '{}' matches, replying 'not modified'", target.getId());
+					response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+					return;
+				}
+			}
+			logger.trace("writing cached response for target '{}'", target.getId());
+			cached.writeTo(response);
+		} else if(pending != null || conditional) {
+			// render while capturing the output for the cache and/or for hashing; 
+			// in the latter case the output is held back until the entity tag is 
+			// known, unless it grows beyond the limit
+			CachePolicy policy = target.getCachePolicy();
+			long limit = pending != null ? policy.getCache().getMaxWeight() : DEFAULT_ETAG_BUFFER_SIZE;
+			CapturingResponseWrapper capture = new CapturingResponseWrapper(response, limit, !conditional);
+			boolean stored = false;
+			try {
+				renderer.render(request, capture, result.getData());
+				capture.flushBuffer();
+				byte[] body = capture.getCaptured();
+				if(conditional && body != null) {
+					String etag = ETags.forCoding(ETags.fromBody(body), coding);
+					response.setHeader(ETags.ETAG_HEADER, etag);
+					if(ETags.matches(request, etag)) {
+						logger.trace("rendered response for target '{}' matches, replying 'not modified'", target.getId());
+						response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+					} else {
+						response.setContentLength(body.length);
+						capture.release();
+					}
+				} else {
+					capture.release();
+				}
+				if(pending != null) {
+					stored = policy.store(cacheKey, pending, capture);
+				}
+			} finally {
+				if(pending != null && !stored) {
+					policy.abandon(cacheKey);
+				}
+			}
+		} else {
+			renderer.render(request, response, result.getData());
+		}
+	}
+	
+	/**
+	 * Resolves the data of a chained result to a registered target; results
+	 * carrying a query string are left to the chain renderer, since their 
+	 * parameters must be merged into the forwarded request by the container.
+	 * 
+	 * @param data
+	 *   the data of the chained result, e.g. "/MyAction!myMethod".
+	 * @return
+	 *   the target, or {@code null} if the data does not point to a registered
+	 *   target that can be invoked in process.
+	 */
+	private Target resolveChainedTarget(String data) {
+		if(!Strings.isValid(data) || data.indexOf('?') != -1) {
+			return null;
+		}
+		return registry.lookup(data, data.startsWith("/") ? 1 : 0);
+	}
+	
+	/**
+	 * Puts the request in asynchronous mode and hands the target over to a 
+	 * framework-managed executor, so that the container thread is released 
+	 * right away; the {@code ActionContext} is detached from the current thread 
+	 * and attached to the worker thread, which also takes care of releasing it
+	 * and of completing the asynchronous request.
+	 * 
+	 * @param snapshot
+	 *   the configuration the request is serviced with.
+	 * @param plan
+	 *   the execution plan of the target to be invoked.
+	 * @param pool
+	 *   the executor running the target, either the asynchronous executor or 
+	 *   the priority dispatch queue.
+	 * @param limit
+	 *   the concurrency limit the request was admitted by, if any; it is released
+	 *   once the request is complete.
+	 * @param start
+	 *   the time at which the request was admitted, in nanoseconds.
+	 * @param request
+	 *   the servlet request.
+	 * @param response
+	 *   the servlet response.
+	 * @throws IOException
+	 */
+	private void dispatchTarget(ConfigurationSnapshot snapshot, ExecutionPlan plan, Executor pool, AdaptiveLimit limit, long start, HttpServletRequest request, HttpServletResponse response) throws IOException {
+		Target target = plan.getTarget();
+		AsyncContext async = request.startAsync(request, response);
+		async.setTimeout(asyncTimeout);
+		final Deadline deadline = ActionContext.getDeadline();
+		if(deadline != null) {
+			// the container reports clients going away (and requests timing out)
+			// only on asynchronous requests: cancel the target, and skip rendering
+			async.addListener(new AsyncListener() {
+				@Override
+				public void onTimeout(AsyncEvent event) {
+					deadline.abandon();
+				}
+				@Override
+				public void onError(AsyncEvent event) {
+					deadline.abandon();
+				}
+				@Override
+				public void onStartAsync(AsyncEvent event) {
+				}
+				@Override
+				public void onComplete(AsyncEvent event) {
+				}
+			});
+		}
+		DispatchedTarget task = new DispatchedTarget(snapshot, plan, async, ActionContext.detachContext(), PhaseTimer.detach(), limit, start);
+		try {
+			logger.trace("dispatching target '{}' for asynchronous execution", target.getId());
+			pool.execute(task);
+		} catch(RejectedExecutionException e) {
+			logger.warn("executor rejected target '{}', replying with 503", target.getId());
+			task.reject();
+		}
+	}
+	
+	/**
+	 * A target handed over to a framework-managed executor, along with the 
+	 * state of its request; it is either run on a worker thread or, if it 
+	 * cannot be run at all, rejected with a "503 Service Unavailable". Either 
+	 * way it releases the request's context and concurrency limit, and 
+	 * completes the asynchronous request.
+	 */
+	private final class DispatchedTarget implements Runnable {
+		
+		/**
+		 * The configuration the request is serviced with.
+		 */
+		private final ConfigurationSnapshot snapshot;
+		
+		/**
+		 * The execution plan of the target.
+		 */
+		private final ExecutionPlan plan;
+		
+		/**
+		 * The asynchronous request.
+		 */
+		private final AsyncContext async;
+		
+		/**
+		 * The context of the request, detached from the container thread.
+		 */
+		private final ActionContext context;
+		
+		/**
+		 * The phase timer of the request, detached from the container thread.
+		 */
+		private final PhaseTimer timer;
+		
+		/**
+		 * The concurrency limit the request was admitted by, if any.
+		 */
+		private final AdaptiveLimit limit;
+		
+		/**
+		 * The time at which the request was admitted, in nanoseconds.
+		 */
+		private final long start;
+		
+		/**
+		 * Constructor.
+		 * 
+		 * @param snapshot
+		 *   the configuration the request is serviced with.
+		 * @param plan
+		 *   the execution plan of the target.
+		 * @param async
+		 *   the asynchronous request.
+		 * @param context
+		 *   the context of the request, detached from the container thread.
+		 * @param timer
+		 *   the phase timer of the request, if any.
+		 * @param limit
+		 *   the concurrency limit the request was admitted by, if any.
+		 * @param start
+		 *   the time at which the request was admitted, in nanoseconds.
+		 */
+		DispatchedTarget(ConfigurationSnapshot snapshot, ExecutionPlan plan, AsyncContext async, ActionContext context, PhaseTimer timer, AdaptiveLimit limit, long start) {
+			this.snapshot = snapshot;
+			this.plan = plan;
+			this.async = async;
+			this.context = context;
+			this.timer = timer;
+			this.limit = limit;
+			this.start = start;
+		}
+		
+		/**
+		 * Services the target on the current (worker) thread.
+		 * 
+		 * @see java.lang.Runnable#run()
+		 */
+		@Override
+		public void run() {
+			HttpServletRequest request = (HttpServletRequest)async.getRequest();
+			HttpServletResponse response = (HttpServletResponse)async.getResponse();
+			ActionContext.attachContext(context);
+			PhaseTimer.attach(timer);
+			try {
+				serviceTarget(snapshot, plan, request, response);
+			} catch(ControlFlowException e) {
+				logger.debug("request for '{}' ended with status {}: {}", plan.getTarget().getId(), e.getStatus(), e.getMessage());
+				sendErrorQuietly(response, e.getStatus());
+			} catch(IOException | ServletException | RuntimeException e) {
+				logger.error("error executing target '" + plan.getTarget().getId() + "' asynchronously", e);
+				sendErrorQuietly(response, HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+			} finally {
+				complete();
+			}
+		}
+		
+		/**
+		 * Replies "503 Service Unavailable" to a request whose target cannot be 
+		 * run, either because the executor refused it or because it was still 
+		 * queued when the executor was shut down.
+		 */
+		void reject() {
+			ActionContext.attachContext(context);
+			PhaseTimer.attach(timer);
+			try {
+				sendErrorQuietly((HttpServletResponse)async.getResponse(), HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+			} finally {
+				complete();
+			}
+		}
+		
+		/**
+		 * Releases the request's context, phase timer and concurrency limit, and
+		 * completes the asynchronous request; the limit is released even if the
+		 * container has already completed the request on its own, e.g. because
+		 * it timed out or the client went away.
+		 */
+		private void complete() {
+			try {
+				ActionContext.unbindContext();
+				PhaseTimer.detach();
+				async.complete();
+			} catch(IllegalStateException e) {
+				logger.debug("asynchronous request for '{}' already completed by the container", plan.getTarget().getId());
+			} finally {
+				if(limit != null) {
+					limit.release(System.nanoTime() - start);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Sends an error status code, unless the response has already been committed.
+	 * 
+	 * @param response
+	 *   the servlet response.
+	 * @param status
+	 *   the HTTP status code.
+	 */
+	private static void sendErrorQuietly(HttpServletResponse response, int status) {
+		if(!response.isCommitted()) {
+			try {
+				response.sendError(status);
+			} catch(IOException e) {
+				logger.warn("error sending status code " + status, e);
+			}
 		}
 	}
 
@@ -442,15 +1141,19 @@ public class ActionController implements Filter, ActionControllerMBean {
 		// set the root directory for HTML files and JSPs, for auto-configured
 		// annotated actions
 		registry.setJspPathInfo(Parameter.JSP_ROOT_PATH.getValueFor(filter), Parameter.JSP_PATH_PATTERN.getValueFor(filter));
+		
+		// enable caching of @Cached targets
+		registry.setResponseCache(cache);
 
 		// pre-scan existing classes and methods in the default actions package
 		TargetFactory loader = null;
 
+		CodegenProfile profile = CodegenProfile.fromString(Parameter.CODEGEN_PROFILE.getValueFor(filter));
 		String value = Parameter.ACTIONS_ENABLE_VALIDATION.getValueFor(filter);
 		if (Strings.isValid(value) && value.equalsIgnoreCase("true")) {
-			loader = new TargetFactory(true);
+			loader = new TargetFactory(true, profile);
 		} else {
-			loader = new TargetFactory(false);
+			loader = new TargetFactory(false, profile);
 		}
 
 		String parameter = Parameter.ACTIONS_JAVA_PACKAGES.getValueFor(filter);
@@ -458,25 +1161,52 @@ public class ActionController implements Filter, ActionControllerMBean {
 			logger.trace("scanning for actions in packages: '{}'", parameter);
 			String[] packages = Strings.split(parameter, ",", true);
 			for (String pkg : packages) {
-				loader.makeFromJavaPackage(registry, domains, pkg);
+				loader.makeFromJavaPackage(registry, snapshot.getDomains(), pkg);
 			}
 		} else {
 			logger.error("no Java packages specified for actions: check parameter '{}'", Parameter.ACTIONS_JAVA_PACKAGES.getName());
 			throw new DeploymentException("No Java package specified for actions: check parameter '" + Parameter.ACTIONS_JAVA_PACKAGES.getName() + "'");
 		}
+		
+		// compile the route index: no more targets can be added from now on
+		registry.freeze();
+		
+		// resolve the domain protecting each target and everything else that is 
+		// needed to service it once and for all, so it needn't be looked up again
+		// on each request
+		snapshot = snapshot.withPlans(makeExecutionPlans(snapshot.getDomains(), snapshot.getInterceptors()));
+		
 		logger.info("actions configuration:\n{}", registry.toString());
 	}
 	
     /**
-     * Initialises the interceptors stack registry (factory) by loading the default 
-     * stacks first and then any custom stacks provided in the initialisation 
-     * parameters.
+     * Initialises the interceptors stack and domains registries and the table 
+     * of static resources, and makes them the current configuration; the targets'
+     * execution plans are added to it as soon as the targets are registered.
+     * 
+     * @throws WebMVCException
+     */
+    private void initialiseRegistries() throws WebMVCException {
+    	InterceptorsRegistry interceptors = loadInterceptorsRegistry();
+		logger.info("interceptors stacks:\n{}", interceptors.toString());
+		DomainsRegistry domains = loadDomainsRegistry(interceptors);
+		logger.info("domains:\n{}", domains.toString());
+		StaticResources statics = makeStaticResources(domains, interceptors);
+		logger.info("static resources fast path is {}", statics.isEnabled() ? "enabled" : "disabled");
+		snapshot = new ConfigurationSnapshot(interceptors, domains, statics, Collections.<Target, ExecutionPlan>emptyMap());
+    }
+    
+    /**
+     * Creates a new interceptors stack registry, loading the default stacks 
+     * first and then any custom stacks provided in the initialisation parameters.
      * 
+     * @return
+     *   the new interceptors registry.
      * @throws WebMVCException
      */
-    private void initialiseInterceptorsRegistry() throws WebMVCException {
+    private InterceptorsRegistry loadInterceptorsRegistry() throws WebMVCException {
 
-		interceptors = new InterceptorsRegistry();
+    	InterceptorsRegistry interceptors = new InterceptorsRegistry();
 		
 		// load the default interceptors stacks ("default" and others)
 		logger.trace("loading default interceptors stacks: '{}'", InterceptorsRegistry.DEFAULT_INTERCEPTORS_CONFIG_XML);
@@ -494,22 +1224,22 @@ public class ActionController implements Filter, ActionControllerMBean {
     			throw e;
     		}
 		} 
-		
-		logger.info("interceptors stacks:\n{}", interceptors.toString());
+		return interceptors;
     }
         
     /**
-     * Initialises the domains registry (factory) by loading any custom
-     * domains first, and the default domain(s) at last; domains are
-     * checked in strict insertion order, so it's always possible to override 
-     * default domains behaviour by providing custom rules, which will take
-     * precedence.
+     * Creates a new domains registry, loading any custom domains first and the 
+     * default domain(s) at last.
      * 
+     * @param interceptors
+     *   the registry of the interceptor stacks the domains refer to.
+     * @return
+     *   the new domains registry.
      * @throws WebMVCException
      */
-    private void initialiseDomainsRegistry() throws WebMVCException {
+    private DomainsRegistry loadDomainsRegistry(InterceptorsRegistry interceptors) throws WebMVCException {
 
-    	domains = new DomainsRegistry();
+    	DomainsRegistry domains = new DomainsRegistry();
 				
 		// load the custom domains configuration, if available
 		String value = Parameter.DOMAINS_DECLARATION.getValueFor(filter);
@@ -526,11 +1256,60 @@ public class ActionController implements Filter, ActionControllerMBean {
 		// now load the default domain
 		logger.trace("loading default domain: '{}'", DomainsRegistry.DEFAULT_DOMAINS_CONFIG_XML);
 		domains.load(DomainsRegistry.DEFAULT_DOMAINS_CONFIG_XML, interceptors);
-		
-		logger.info("domains:\n{}", domains.toString());
-    }	
-    
+		return domains;
+    }
 
+	/**
+	 * Creates the table of static resources for the given domains and stacks;
+	 * static resources are handed over to the web container with no framework 
+	 * processing, and include the resources declared via the 
+	 * {@code webmvc:static-resources} parameter and, if so requested via 
+	 * {@code webmvc:static-empty-domains}, those falling into domains with an 
+	 * empty interceptors stack and no global results.
+	 * 
+	 * @param domains
+	 *   the registry of domains.
+	 * @param interceptors
+	 *   the registry of interceptor stacks.
+	 * @return
+	 *   the table of static resources.
+	 */
+	private StaticResources makeStaticResources(DomainsRegistry domains, InterceptorsRegistry interceptors) {
+		StaticResources statics = new StaticResources(Parameter.STATIC_RESOURCES.getValueFor(filter));
+		
+		String value = Parameter.STATIC_EMPTY_DOMAINS.getValueFor(filter);
+		if(Strings.isValid(value) && value.equalsIgnoreCase("true")) {
+			for(Domain domain : domains.getDomains()) {
+				InterceptorStack stack = interceptors.getStack(domain.getStackId());
+				if(stack != null && stack.isEmpty() && domain.getGlobalResults().isEmpty()) {
+					statics.addDomain(domain, domains);
+				}
+			}
+		}
+		return statics;
+	}
+	
+	/**
+	 * Resolves the execution plans of all registered targets against the given
+	 * registries.
+	 * 
+	 * @param domains
+	 *   the registry of domains.
+	 * @param interceptors
+	 *   the registry of interceptor stacks.
+	 * @return
+	 *   the execution plans, by target.
+	 * @throws WebMVCException
+	 *   if the plan of any target cannot be resolved.
+	 */
+	private Map<Target, ExecutionPlan> makeExecutionPlans(DomainsRegistry domains, InterceptorsRegistry interceptors) throws WebMVCException {
+		Map<Target, ExecutionPlan> plans = new HashMap<>();
+		for(Target target : registry.getTargets()) {
+			plans.put(target, TargetFactory.makeExecutionPlan(target, domains, interceptors, renderers));
+		}
+		return plans;
+	}
+	
 	/**
 	 * Initialises the registry of view renderers.
 	 * 
@@ -641,6 +1420,506 @@ public class ActionController implements Filter, ActionControllerMBean {
 		logger.trace("done configuring file upload support");
 	}
 	
+	/**
+	 * Initialises the cache of {@code @Cached} targets, whose size and weight 
+	 * limits can be set via the {@code webmvc:cache-max-entries} and the 
+	 * {@code webmvc:cache-max-weight} parameters.
+	 */
+	private void initialiseResponseCache() {
+		int entries = ResponseCache.DEFAULT_MAX_ENTRIES;
+		String value = Parameter.CACHE_MAX_ENTRIES.getValueFor(filter);
+		if(Strings.isValid(value)) {
+			entries = Integer.parseInt(value.trim());
+		}
+		long weight = ResponseCache.DEFAULT_MAX_WEIGHT;
+		value = Parameter.CACHE_MAX_WEIGHT.getValueFor(filter);
+		if(Strings.isValid(value)) {
+			weight = Long.parseLong(value.trim());
+		}
+		cache = new ResponseCache(entries, weight);
+	}
+	
+	/**
+	 * Initialises the pool of deflaters used to compress responses, if any 
+	 * domain is configured for compression; the number of idle deflaters kept 
+	 * in the pool can be set via the {@code webmvc:compression-pool-size} 
+	 * parameter.
+	 */
+	private void initialiseCompression() {
+		boolean enabled = false;
+		for(Domain domain : snapshot.getDomains().getDomains()) {
+			if(domain.getCompression() != null) {
+				logger.info("responses in domain '{}' are compressed ({})", domain.getId(), domain.getCompression());
+				enabled = true;
+			}
+		}
+		if(!enabled) {
+			logger.info("no domain is configured for compression, compression is disabled");
+			return;
+		}
+		deflaters = makeDeflaterPool();
+	}
+	
+	/**
+	 * Creates the pool of deflaters, sized as per the {@code webmvc:compression-pool-size}
+	 * parameter.
+	 * 
+	 * @return
+	 *   the pool of deflaters.
+	 */
+	private DeflaterPool makeDeflaterPool() {
+		int size = DeflaterPool.DEFAULT_SIZE;
+		String value = Parameter.COMPRESSION_POOL_SIZE.getValueFor(filter);
+		if(Strings.isValid(value)) {
+			size = Integer.parseInt(value.trim());
+		}
+		return new DeflaterPool(size);
+	}
+	
+	/**
+	 * Releases the native memory of the pooled deflaters, if any.
+	 */
+	private void cleanupCompression() {
+		if(deflaters != null) {
+			deflaters.clear();
+			deflaters = null;
+		}
+	}
+	
+	/**
+	 * Initialises the priority dispatch queue, if any domain has a priority 
+	 * class; its worker threads, the capacity of the queue of each class and 
+	 * the starvation limit can be set via the {@code webmvc:admission-threads}, 
+	 * {@code webmvc:admission-queue-size} and {@code webmvc:admission-max-wait}
+	 * parameters.
+	 */
+	private void initialiseAdmission() {
+		if(!hasPriorities(snapshot.getDomains())) {
+			logger.info("no domain has a priority class, priority admission is disabled");
+			return;
+		}
+		dispatcher = makeDispatcher();
+	}
+	
+	/**
+	 * Returns whether any of the given domains has a priority class.
+	 * 
+	 * @param domains
+	 *   the registry of domains.
+	 * @return
+	 *   whether the priority dispatch queue is needed.
+	 */
+	private static boolean hasPriorities(DomainsRegistry domains) {
+		for(Domain domain : domains.getDomains()) {
+			if(domain.getPriority() != null) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Creates the priority dispatch queue.
+	 * 
+	 * @return
+	 *   the priority dispatch queue.
+	 */
+	private PriorityDispatcher makeDispatcher() {
+		int threads = DEFAULT_ASYNC_THREADS;
+		String value = Parameter.ADMISSION_THREADS.getValueFor(filter);
+		if(Strings.isValid(value)) {
+			threads = Integer.parseInt(value.trim());
+		}
+		int size = PriorityDispatcher.DEFAULT_QUEUE_SIZE;
+		value = Parameter.ADMISSION_QUEUE_SIZE.getValueFor(filter);
+		if(Strings.isValid(value)) {
+			size = Integer.parseInt(value.trim());
+		}
+		long wait = PriorityDispatcher.DEFAULT_MAX_WAIT;
+		value = Parameter.ADMISSION_MAX_WAIT.getValueFor(filter);
+		if(Strings.isValid(value)) {
+			wait = Long.parseLong(value.trim());
+		}
+		logger.info("prioritised domains are served by {} threads (queue size: {}, starvation limit: {} ms)", threads, size, wait);
+		return new PriorityDispatcher("webmvc-admission-" + filter.getFilterName() + "-", threads, size, wait);
+	}
+	
+	/**
+	 * Shuts down the priority dispatch queue, if any, once the queued requests
+	 * have been served.
+	 */
+	private void cleanupAdmission() {
+		if(dispatcher != null) {
+			logger.info("shutting down priority dispatch queue...");
+			for(Runnable task : dispatcher.shutdown(asyncTimeout)) {
+				if(task instanceof DispatchedTarget) {
+					((DispatchedTarget)task).reject();
+				}
+			}
+			dispatcher = null;
+		}
+	}
+	
+	/**
+	 * Initialises the timer expiring the deadlines of targets, if any target or
+	 * domain declares one.
+	 */
+	private void initialiseDeadlines() {
+		if(!hasDeadlines(snapshot.getDomains())) {
+			logger.info("no target or domain declares a deadline, deadlines are disabled");
+			return;
+		}
+		deadlines = makeDeadlinesTimer();
+		logger.info("deadlines are enabled");
+	}
+	
+	/**
+	 * Returns whether any target, or any of the given domains, declares a 
+	 * deadline.
+	 * 
+	 * @param domains
+	 *   the registry of domains.
+	 * @return
+	 *   whether deadlines must be enforced.
+	 */
+	private boolean hasDeadlines(DomainsRegistry domains) {
+		for(Domain domain : domains.getDomains()) {
+			if(domain.getTimeout() > 0) {
+				return true;
+			}
+		}
+		for(Target target : registry.getTargets()) {
+			if(target.getTimeout() > 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Creates the timer expiring the deadlines of targets; cancelled timers are
+	 * removed right away, since most targets complete well before their deadline.
+	 * 
+	 * @return
+	 *   the timer.
+	 */
+	private ScheduledExecutorService makeDeadlinesTimer() {
+		final String name = "webmvc-deadlines-" + filter.getFilterName();
+		ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, name);
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		timer.setRemoveOnCancelPolicy(true);
+		return timer;
+	}
+	
+	/**
+	 * Creates the deadline of a request for the given target.
+	 * 
+	 * @param plan
+	 *   the execution plan of the target being serviced.
+	 * @return
+	 *   the deadline of the request.
+	 */
+	private Deadline makeDeadline(ExecutionPlan plan) {
+		Target target = plan.getTarget();
+		Domain domain = plan.getDomain();
+		long timeout = target.getTimeout() > 0 ? target.getTimeout() : domain.getTimeout();
+		String result = Strings.isValid(target.getTimeoutResult()) ? target.getTimeoutResult() : domain.getTimeoutResult();
+		return new Deadline(timeout, result, deadlines);
+	}
+	
+	/**
+	 * Returns whether the given failure is the expected effect of cancelling a
+	 * target: an interruption anywhere in its chain of causes, or the timeout
+	 * of a coalesced invocation waiting on the same deadline.
+	 * 
+	 * @param failure
+	 *   the failure of the cancelled target.
+	 * @return
+	 *   whether the failure was caused by the cancellation.
+	 */
+	private static boolean isCancellation(Throwable failure) {
+		for(Throwable t = failure; t != null; t = t.getCause()) {
+			if(t == ControlFlowException.TIMEOUT || t instanceof InterruptedException || t instanceof ClosedByInterruptException) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Stops the timer expiring the deadlines of targets, if any.
+	 */
+	private void cleanupDeadlines() {
+		if(deadlines != null) {
+			deadlines.shutdownNow();
+			deadlines = null;
+		}
+	}
+	
+	/**
+	 * Initialises runtime metrics, enabling phase timing if requested via the
+	 * {@code webmvc:phase-timing} parameter; phase timing can also be switched
+	 * on and off at runtime via JMX.
+	 */
+	private void initialiseMetrics() {
+		String value = Parameter.PHASE_TIMING.getValueFor(filter);
+		PhaseTimer.setEnabled(Strings.isValid(value) && value.trim().equalsIgnoreCase("true"));
+		logger.info("phase timing is {}", PhaseTimer.isEnabled() ? "enabled" : "disabled");
+	}
+	
+	/**
+	 * Initialises in-process target chaining, reading the maximum number of 
+	 * chained targets from the {@code webmvc:chain-max-hops} parameter.
+	 */
+	private void initialiseChaining() {
+		String value = Parameter.CHAIN_MAX_HOPS.getValueFor(filter);
+		if(Strings.isValid(value)) {
+			maxChainHops = Integer.parseInt(value.trim());
+		}
+		logger.info("up to {} targets can be chained in process", maxChainHops);
+	}
+	
+	/**
+	 * Sets the limits on the conversations each session can hold: their number,
+	 * their idle timeout and their estimated memory footprint.
+	 */
+	private void initialiseConversations() {
+		int count = ConversationStore.DEFAULT_MAX_CONVERSATIONS;
+		String value = Parameter.CONVERSATION_MAX_COUNT.getValueFor(filter);
+		if(Strings.isValid(value)) {
+			count = Integer.parseInt(value.trim());
+		}
+		long timeout = ConversationStore.DEFAULT_IDLE_TIMEOUT;
+		value = Parameter.CONVERSATION_IDLE_TIMEOUT.getValueFor(filter);
+		if(Strings.isValid(value)) {
+			timeout = TimeUnit.SECONDS.toMillis(Long.parseLong(value.trim()));
+		}
+		long footprint = ConversationStore.DEFAULT_MAX_FOOTPRINT;
+		value = Parameter.CONVERSATION_MAX_FOOTPRINT.getValueFor(filter);
+		if(Strings.isValid(value)) {
+			footprint = Long.parseLong(value.trim());
+		}
+		logger.info("sessions hold up to {} conversations (idle timeout: {} ms, footprint: {} bytes)", count, timeout, footprint);
+		conversationLimits = new ConversationStore.Limits(count, timeout, footprint);
+	}
+	
+	/**
+	 * Initialises the executor running asynchronous targets; in virtual dispatch 
+	 * mode, this is a virtual-thread-per-task executor that runs all targets, 
+	 * otherwise it is a fixed-size pool that is only created if any target is 
+	 * declared as asynchronous. The size of the pool and the timeout of 
+	 * asynchronous requests can be set via the {@code webmvc:async-threads} and 
+	 * the {@code webmvc:async-timeout} parameters.
+	 */
+	private void initialiseAsyncSupport() {
+		String value = Parameter.ASYNC_TIMEOUT.getValueFor(filter);
+		if(Strings.isValid(value)) {
+			asyncTimeout = Long.parseLong(value.trim());
+		}
+		
+		dispatchMode = DispatchMode.fromString(Parameter.DISPATCH_MODE.getValueFor(filter));
+		if(dispatchMode == DispatchMode.VIRTUAL) {
+			executor = makeVirtualThreadExecutor();
+			if(executor != null) {
+				logger.info("all targets are served by virtual threads (timeout: {} ms)", asyncTimeout);
+				return;
+			}
+			logger.warn("virtual threads are not supported by this JVM, falling back to annotated dispatch mode");
+			dispatchMode = DispatchMode.ANNOTATED;
+		}
+		
+		int count = 0;
+		for(Target target : registry.getTargets()) {
+			if(target.isAsync()) {
+				count++;
+			}
+		}
+		if(count == 0) {
+			logger.info("no asynchronous target, asynchronous support is disabled");
+			return;
+		}
+		
+		int threads = DEFAULT_ASYNC_THREADS;
+		value = Parameter.ASYNC_THREADS.getValueFor(filter);
+		if(Strings.isValid(value)) {
+			threads = Integer.parseInt(value.trim());
+		}
+		
+		final String prefix = "webmvc-async-" + filter.getFilterName() + "-";
+		executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+			private final AtomicInteger counter = new AtomicInteger();
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		logger.info("{} asynchronous targets, served by {} threads (timeout: {} ms)", count, threads, asyncTimeout);
+	}
+	
+	/**
+	 * Creates a virtual-thread-per-task executor; the factory method is looked
+	 * up reflectively, so that the framework can still be compiled against and
+	 * run on JDKs that do not support virtual threads.
+	 * 
+	 * @return
+	 *   the executor, or {@code null} if virtual threads are not supported.
+	 */
+	private static ExecutorService makeVirtualThreadExecutor() {
+		try {
+			Method factory = Executors.class.getMethod(VIRTUAL_THREAD_EXECUTOR_FACTORY);
+			return (ExecutorService)factory.invoke(null);
+		} catch(NoSuchMethodException e) {
+			logger.trace("no virtual threads support in this JVM");
+		} catch(IllegalAccessException | InvocationTargetException e) {
+			logger.error("error creating virtual threads executor", e);
+		}
+		return null;
+	}
+	
+	/**
+	 * Shuts down the executor running asynchronous targets, if any.
+	 */
+	private void cleanupAsyncSupport() {
+		if(executor != null) {
+			logger.info("shutting down asynchronous executor...");
+			executor.shutdown();
+			try {
+				if(!executor.awaitTermination(asyncTimeout, TimeUnit.MILLISECONDS)) {
+					executor.shutdownNow();
+				}
+			} catch(InterruptedException e) {
+				executor.shutdownNow();
+				Thread.currentThread().interrupt();
+			}
+			executor = null;
+		}
+	}
+	
+	// CONFIGURATION RELOAD
+	
+	/**
+	 * Reloads the interceptors and domains declarations and applies them to all
+	 * targets; the new registries and execution plans are completely built 
+	 * before they are all made visible at once, by replacing the configuration
+	 * snapshot, so a broken configuration leaves the current one in place, and 
+	 * requests already being serviced complete with the configuration they 
+	 * started with.
+	 * 
+	 * @throws WebMVCException
+	 *   if the new configuration cannot be loaded or does not apply to all 
+	 *   targets.
+	 */
+	private synchronized void reload() throws WebMVCException {
+		logger.info("reloading interceptors and domains configuration...");
+		
+		// build everything off the request path
+		InterceptorsRegistry interceptors = loadInterceptorsRegistry();
+		DomainsRegistry domains = loadDomainsRegistry(interceptors);
+		StaticResources statics = makeStaticResources(domains, interceptors);
+		ConfigurationSnapshot next = new ConfigurationSnapshot(interceptors, domains, statics, makeExecutionPlans(domains, interceptors));
+		
+		// the new configuration is consistent: prepare the services it needs, 
+		// then make it visible with a single write
+		if(deflaters == null) {
+			for(Domain domain : domains.getDomains()) {
+				if(domain.getCompression() != null) {
+					deflaters = makeDeflaterPool();
+					break;
+				}
+			}
+		}
+		if(dispatcher == null && hasPriorities(domains)) {
+			dispatcher = makeDispatcher();
+		}
+		if(deadlines == null && hasDeadlines(domains)) {
+			deadlines = makeDeadlinesTimer();
+		}
+		snapshot = next;
+		
+		logger.info("... configuration reloaded, interceptors stacks:\n{}\ndomains:\n{}", interceptors.toString(), domains.toString());
+	}
+	
+	/**
+	 * Starts polling the interceptors and domains declarations for changes, if
+	 * requested via the {@code webmvc:reload-interval} parameter; on change, the 
+	 * configuration is reloaded automatically.
+	 */
+	private void initialiseConfigurationReload() {
+		String value = Parameter.RELOAD_INTERVAL.getValueFor(filter);
+		long interval = Strings.isValid(value) ? Long.parseLong(value.trim()) : 0;
+		if(interval <= 0) {
+			logger.info("automatic configuration reload is disabled");
+			return;
+		}
+		final String name = "webmvc-reload-" + filter.getFilterName();
+		reloader = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, name);
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		reloader.scheduleWithFixedDelay(new Runnable() {
+			private long interceptorsStamp = getLastModified(Parameter.INTERCEPTORS_DECLARATION);
+			private long domainsStamp = getLastModified(Parameter.DOMAINS_DECLARATION);
+			@Override
+			public void run() {
+				long interceptorsCheck = getLastModified(Parameter.INTERCEPTORS_DECLARATION);
+				long domainsCheck = getLastModified(Parameter.DOMAINS_DECLARATION);
+				if(interceptorsCheck != interceptorsStamp || domainsCheck != domainsStamp) {
+					logger.info("configuration declarations have changed");
+					interceptorsStamp = interceptorsCheck;
+					domainsStamp = domainsCheck;
+					reloadConfiguration();
+				}
+			}
+		}, interval, interval, TimeUnit.SECONDS);
+		logger.info("configuration declarations are checked for changes every {} seconds", interval);
+	}
+	
+	/**
+	 * Returns the last modification time of the resource declared in the given
+	 * parameter.
+	 * 
+	 * @param parameter
+	 *   the parameter declaring the resource URL.
+	 * @return
+	 *   the last modification time, or 0 if not declared or not available.
+	 */
+	private long getLastModified(Parameter parameter) {
+		String value = parameter.getValueFor(filter);
+		if(Strings.isValid(value)) {
+			try {
+				URL url = URLFactory.makeURL(value);
+				if(url != null) {
+					return url.openConnection().getLastModified();
+				}
+			} catch(IOException e) {
+				logger.warn("error checking URL '{}' for changes", value);
+			}
+		}
+		return 0;
+	}
+	
+	/**
+	 * Stops polling the configuration declarations for changes.
+	 */
+	private void cleanupConfigurationReload() {
+		if(reloader != null) {
+			reloader.shutdownNow();
+			reloader = null;
+		}
+	}
+	
 	// JMX SUPPORT
 	
 	private void initialiseJMXSupport() {
@@ -714,6 +1993,219 @@ public class ActionController implements Filter, ActionControllerMBean {
 		return WebMVC.getVersion();
 	}
 
+	/**
+	 * @see org.dihedron.webmvc.ActionControllerMBean#getCacheHits()
+	 */
+	public long getCacheHits() {
+		return cache != null ? cache.getHits() : 0;
+	}
+
+	/**
+	 * @see org.dihedron.webmvc.ActionControllerMBean#getCacheStaleHits()
+	 */
+	public long getCacheStaleHits() {
+		return cache != null ? cache.getStaleHits() : 0;
+	}
+
+	/**
+	 * @see org.dihedron.webmvc.ActionControllerMBean#getCacheMisses()
+	 */
+	public long getCacheMisses() {
+		return cache != null ? cache.getMisses() : 0;
+	}
+
+	/**
+	 * @see org.dihedron.webmvc.ActionControllerMBean#getCacheEvictions()
+	 */
+	public long getCacheEvictions() {
+		return cache != null ? cache.getEvictions() : 0;
+	}
+
+	/**
+	 * @see org.dihedron.webmvc.ActionControllerMBean#getCacheSize()
+	 */
+	public int getCacheSize() {
+		return cache != null ? cache.getSize() : 0;
+	}
+
+	/**
+	 * @see org.dihedron.webmvc.ActionControllerMBean#getCacheWeight()
+	 */
+	public long getCacheWeight() {
+		return cache != null ? cache.getWeight() : 0;
+	}
+
+	/**
+	 * @see org.dihedron.webmvc.ActionControllerMBean#clearCache()
+	 */
+	public void clearCache() {
+		if(cache != null) {
+			cache.clear();
+		}
+	}
+
+	/**
+	 * @see org.dihedron.webmvc.ActionControllerMBean#getRequestCount()
+	 */
+	public long getRequestCount() {
+		long count = 0;
+		if(registry != null) {
+			for(Target target : registry.getTargets()) {
+				count += target.getMetrics().getCount();
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * @see org.dihedron.webmvc.ActionControllerMBean#getErrorCount()
+	 */
+	public long getErrorCount() {
+		long count = 0;
+		if(registry != null) {
+			for(Target target : registry.getTargets()) {
+				count += target.getMetrics().getErrors();
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * @see org.dihedron.webmvc.ActionControllerMBean#getTargetMetrics()
+	 */
+	public TabularData getTargetMetrics() throws OpenDataException {
+		TabularData table = new TabularDataSupport(TargetMetrics.TABULAR_TYPE);
+		if(registry != null) {
+			for(Target target : registry.getTargets()) {
+				if(target.getMetrics().getCount() > 0) {
+					table.put(target.getMetrics().toCompositeData(target.getId().toString()));
+				}
+			}
+		}
+		return table;
+	}
+
+	/**
+	 * @see org.dihedron.webmvc.ActionControllerMBean#getMetricsOf(java.lang.String)
+	 */
+	public CompositeData getMetricsOf(String targetId) throws OpenDataException {
+		if(registry == null) {
+			return null;
+		}
+		Target target = registry.findTarget(targetId).orNull();
+		return target != null ? target.getMetrics().toCompositeData(target.getId().toString()) : null;
+	}
+
+	/**
+	 * @see org.dihedron.webmvc.ActionControllerMBean#resetMetrics()
+	 */
+	public void resetMetrics() {
+		if(registry != null) {
+			for(Target target : registry.getTargets()) {
+				target.getMetrics().reset();
+			}
+		}
+	}
+
+	/**
+	 * @see org.dihedron.webmvc.ActionControllerMBean#getAdaptiveLimits()
+	 */
+	public TabularData getAdaptiveLimits() throws OpenDataException {
+		TabularData table = new TabularDataSupport(AdaptiveLimit.TABULAR_TYPE);
+		ConfigurationSnapshot snapshot = this.snapshot;
+		if(snapshot != null) {
+			for(Domain domain : snapshot.getDomains().getDomains()) {
+				if(domain.getAdaptiveLimit() != null) {
+					table.put(domain.getAdaptiveLimit().toCompositeData(domain.getId()));
+				}
+			}
+		}
+		return table;
+	}
+
+	/**
+	 * @see org.dihedron.webmvc.ActionControllerMBean#getAdmissionQueues()
+	 */
+	public TabularData getAdmissionQueues() throws OpenDataException {
+		PriorityDispatcher dispatcher = this.dispatcher;
+		return dispatcher != null ? dispatcher.toTabularData() : new TabularDataSupport(PriorityDispatcher.TABULAR_TYPE);
+	}
+
+	/**
+	 * @see org.dihedron.webmvc.ActionControllerMBean#reloadConfiguration()
+	 */
+	public String reloadConfiguration() {
+		if(registry == null) {
+			return "uninitialised";
+		}
+		try {
+			reload();
+			return "configuration reloaded";
+		} catch(WebMVCException | RuntimeException e) {
+			logger.error("error reloading configuration, the current one is kept", e);
+			return "configuration not reloaded, the current one is kept: " + e.getMessage();
+		}
+	}
+
+	/**
+	 * @see org.dihedron.webmvc.ActionControllerMBean#isPhaseTimingEnabled()
+	 */
+	public boolean isPhaseTimingEnabled() {
+		return PhaseTimer.isEnabled();
+	}
+
+	/**
+	 * @see org.dihedron.webmvc.ActionControllerMBean#setPhaseTimingEnabled(boolean)
+	 */
+	public void setPhaseTimingEnabled(boolean enabled) {
+		logger.info("phase timing {}", enabled ? "enabled" : "disabled");
+		PhaseTimer.setEnabled(enabled);
+	}
+
+	/**
+	 * @see org.dihedron.webmvc.ActionControllerMBean#getPhaseBreakdown()
+	 */
+	public TabularData getPhaseBreakdown() throws OpenDataException {
+		TabularData table = new TabularDataSupport(PhaseBreakdown.TABULAR_TYPE);
+		if(registry != null) {
+			for(Target target : registry.getTargets()) {
+				PhaseBreakdown breakdown = target.getMetrics().getBreakdown();
+				if(breakdown.getSamples() > 0) {
+					table.put(breakdown.toCompositeData(target.getId().toString()));
+				}
+			}
+		}
+		return table;
+	}
+
+	/**
+	 * @see org.dihedron.webmvc.ActionControllerMBean#getInterceptorBreakdownOf(java.lang.String)
+	 */
+	public TabularData getInterceptorBreakdownOf(String targetId) throws OpenDataException {
+		if(registry == null) {
+			return null;
+		}
+		Target target = registry.findTarget(targetId).orNull();
+		return target != null ? target.getMetrics().getBreakdown().toInterceptorsTabularData() : null;
+	}
+
+	/**
+	 * Returns the execution plans of all registered targets.
+	 * 
+	 * @see org.dihedron.webmvc.ActionControllerMBean#dumpExecutionPlans()
+	 */
+	public String dumpExecutionPlans() {
+		if(registry == null) {
+			return "uninitialised";
+		}
+		ConfigurationSnapshot snapshot = this.snapshot;
+		StringBuilder buffer = new StringBuilder();
+		for(Target target : registry.getTargets()) {
+			buffer.append(snapshot.getPlan(target));
+		}
+		return buffer.toString();
+	}
+
 //	protected String invokeTarget(TargetId targetId, HttpServletRequest request, HttpServletRequest response) throws WebMVCException {
 //
 //		logger.info("invoking target '{}'", targetId);
@@ -18,6 +18,9 @@
  */
 package org.dihedron.webmvc;
 
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.OpenDataException;
+import javax.management.openmbean.TabularData;
 
 /**
  * The JMX MBean to enable manipulation of the framework's controller.
@@ -40,5 +43,135 @@ public interface ActionControllerMBean {
 	 * Returns the current version of the WebMVC MVC framework.
 	 */
 	String getFrameworkVersion();
+	
+	/**
+	 * Returns a dump of the execution plans of all registered targets, showing
+	 * what each URL actually runs.
+	 */
+	String dumpExecutionPlans();
+	
+	/**
+	 * Returns the number of requests to {@code @Cached} targets served with a 
+	 * fresh cached entry.
+	 */
+	long getCacheHits();
+	
+	/**
+	 * Returns the number of requests to {@code @Cached} targets served with a 
+	 * stale cached entry, while it was being refreshed.
+	 */
+	long getCacheStaleHits();
+	
+	/**
+	 * Returns the number of requests to {@code @Cached} targets that had to 
+	 * invoke the business method.
+	 */
+	long getCacheMisses();
+	
+	/**
+	 * Returns the number of cached entries evicted to honour the size and weight
+	 * limits.
+	 */
+	long getCacheEvictions();
+	
+	/**
+	 * Returns the number of entries currently in the response cache.
+	 */
+	int getCacheSize();
+	
+	/**
+	 * Returns the estimated memory taken by the response cache, in bytes.
+	 */
+	long getCacheWeight();
+	
+	/**
+	 * Removes all entries from the response cache.
+	 */
+	void clearCache();
+	
+	/**
+	 * Returns the overall number of requests served by targets.
+	 */
+	long getRequestCount();
+	
+	/**
+	 * Returns the overall number of requests to targets that failed.
+	 */
+	long getErrorCount();
+	
+	/**
+	 * Returns the runtime metrics (requests, errors and latency percentiles, in
+	 * microseconds) of all targets that have served at least one request, 
+	 * indexed by target id.
+	 */
+	TabularData getTargetMetrics() throws OpenDataException;
+	
+	/**
+	 * Returns the runtime metrics of the given target, or {@code null} if no 
+	 * such target exists.
+	 */
+	CompositeData getMetricsOf(String targetId) throws OpenDataException;
+	
+	/**
+	 * Resets the runtime metrics of all targets.
+	 */
+	void resetMetrics();
+	
+	/**
+	 * Returns the adaptive concurrency limits of all domains having one, with
+	 * the number of requests currently in progress and of those shed so far.
+	 * 
+	 * @return
+	 *   the adaptive limits, indexed by domain id.
+	 * @throws OpenDataException
+	 */
+	TabularData getAdaptiveLimits() throws OpenDataException;
+	
+	/**
+	 * Returns the state of the admission queue of each priority class: the
+	 * number of requests queued, dispatched and rejected, and the time they
+	 * spent waiting.
+	 * 
+	 * @return
+	 *   the admission queues, indexed by priority class.
+	 * @throws OpenDataException
+	 */
+	TabularData getAdmissionQueues() throws OpenDataException;
+	
+	/**
+	 * Reloads the interceptors and domains declarations and applies them to all
+	 * targets atomically; if the new configuration is invalid, the current one 
+	 * is kept.
+	 * 
+	 * @return
+	 *   a message describing the outcome of the reload.
+	 */
+	String reloadConfiguration();
+	
+	/**
+	 * Returns whether the time spent by requests in each phase of the pipeline
+	 * is being measured.
+	 */
+	boolean isPhaseTimingEnabled();
+	
+	/**
+	 * Enables or disables the measurement of the time spent by requests in 
+	 * each phase of the pipeline.
+	 */
+	void setPhaseTimingEnabled(boolean enabled);
+	
+	/**
+	 * Returns the mean time spent in each phase (binding, interceptors, inputs,
+	 * action, outputs, rendering), in microseconds, by all targets that have 
+	 * served at least one request while phase timing was enabled, indexed by 
+	 * target id.
+	 */
+	TabularData getPhaseBreakdown() throws OpenDataException;
+	
+	/**
+	 * Returns the mean exclusive time spent in each interceptor by the given 
+	 * target, in microseconds, or {@code null} if no such target exists.
+	 */
+	TabularData getInterceptorBreakdownOf(String targetId) throws OpenDataException;
 
 }
@@ -6,14 +6,20 @@ package org.dihedron.webmvc;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.util.Iterator;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.dihedron.webmvc.cache.CacheKey;
+import org.dihedron.webmvc.cache.CachePolicy;
+import org.dihedron.webmvc.cache.CachedResponse;
+import org.dihedron.webmvc.exceptions.ControlFlowException;
 import org.dihedron.webmvc.exceptions.WebMVCException;
 import org.dihedron.webmvc.interceptors.Interceptor;
 import org.dihedron.webmvc.interceptors.InterceptorStack;
+import org.dihedron.webmvc.metrics.Phase;
+import org.dihedron.webmvc.metrics.PhaseTimer;
+import org.dihedron.webmvc.targets.ExecutionPlan;
 import org.dihedron.webmvc.targets.Target;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,19 +43,84 @@ public class ActionInvocation extends Invocation {
 	 */
 	private Target target;
 	
+	/**
+	 * The execution plan of the target, including the domain protecting it; it
+	 * is {@code null} for invocations not created by the controller.
+	 */
+	private ExecutionPlan plan;
+	
 	/**
 	 * The actual action instance on which the business method is being invoked.
 	 */
 	private Object action;
 	
 	/**
-	 * The thread-specific store for the iterator on the list of interceptors.
+	 * The per-thread recyclable instance.
 	 */
-	private ThreadLocal<Iterator<Interceptor>> iterator = new ThreadLocal<Iterator<Interceptor>>() {
-		@Override protected Iterator<Interceptor> initialValue() {
-			return null;
+	private static final ThreadLocal<ActionInvocation> recycled = new ThreadLocal<ActionInvocation>() {
+		@Override protected ActionInvocation initialValue() {
+			return new ActionInvocation();
 		}
 	};
+	
+	/**
+	 * Returns an invocation for the given target and action, recycling the 
+	 * current thread's instance unless it is already in use (e.g. because of
+	 * a nested request dispatch); {@link #cleanup()} makes the instance 
+	 * available again.
+	 * 
+	 * @param plan
+	 *   the execution plan of the target being invoked, as resolved for the 
+	 *   current request.
+	 * @param action
+	 *   the instance of action object on which the business method exists.
+	 * @param request
+	 *   the {@code HttpServletRequest} object.
+	 * @param response
+	 *   the {@code HttpServletResponse} object.
+	 * @return
+	 *   the invocation.
+	 */
+	public static ActionInvocation obtain(ExecutionPlan plan, Object action, HttpServletRequest request, HttpServletResponse response) {
+		ActionInvocation invocation = recycled.get();
+		if(invocation.busy) {
+			logger.trace("recyclable action invocation is busy, creating a new one");
+			invocation = new ActionInvocation();
+		}
+		invocation.bind(plan.getInterceptors(), request, response);
+		invocation.plan = plan;
+		invocation.target = plan.getTarget();
+		invocation.action = action;
+		invocation.busy = true;
+		return invocation;
+	}
+	
+	/**
+	 * Whether the invocation is currently in use.
+	 */
+	private boolean busy = false;
+	
+	/**
+	 * The cache key of the invocation, if the target is cached.
+	 */
+	private CacheKey cacheKey = null;
+	
+	/**
+	 * The cached entry replayed instead of invoking the business method, if any.
+	 */
+	private CachedResponse cached = null;
+	
+	/**
+	 * The entry captured after invoking the business method, which still needs 
+	 * the rendered response before being stored in the cache.
+	 */
+	private CachedResponse pending = null;
+	
+	/**
+	 * Constructor for recyclable instances.
+	 */
+	private ActionInvocation() {
+	}
 		
 	/**
 	 * Constructor.
@@ -70,7 +141,6 @@ public class ActionInvocation extends Invocation {
 		super(interceptors, request, response);
 		this.target = target;
 		this.action = action;
-		this.iterator.set(null);
 	}
 	
 	/**
@@ -83,6 +153,18 @@ public class ActionInvocation extends Invocation {
 		return target;
 	}
 	
+	/**
+	 * Returns the execution plan of the target, which includes the domain 
+	 * protecting it.
+	 * 
+	 * @return
+	 *   the execution plan, or {@code null} if the invocation was not created 
+	 *   by the controller.
+	 */
+	public ExecutionPlan getExecutionPlan() {
+		return plan;
+	}
+	
 	/**
 	 * Returns the instance of action object (as returned by the target's
 	 * factory method) on which the businedss method being invoked resides.
@@ -112,17 +194,111 @@ public class ActionInvocation extends Invocation {
 	public String invoke() throws WebMVCException {
 		
 		// invoke the interceptors stack
-		if(iterator.get() == null) {
-			iterator.set(interceptors.iterator());
+		Interceptor interceptor = next();
+		if(interceptor != null) {
+			if(!PhaseTimer.isEnabled()) {
+				return interceptor.intercept(this);
+			}
+			int previous = PhaseTimer.enterInterceptor(interceptor.getId());
+			try {
+				return interceptor.intercept(this);
+			} finally {
+				PhaseTimer.resume(previous);
+			}
+		}
+		// look up the cache, if the target is cached
+		CachePolicy policy = target.getCachePolicy();
+		if(policy != null) {
+			return invokeCached(policy);
+		}
+		return invokeStub();
+	}
+	
+	/**
+	 * Returns the cache key of the invocation.
+	 * 
+	 * @return
+	 *   the cache key, or {@code null} if the target is not cached.
+	 */
+	public CacheKey getCacheKey() {
+		return cacheKey;
+	}
+	
+	/**
+	 * Returns the cached entry that was replayed instead of invoking the 
+	 * business method.
+	 * 
+	 * @return
+	 *   the cached entry, or {@code null} if the business method was invoked.
+	 */
+	public CachedResponse getCachedResponse() {
+		return cached;
+	}
+	
+	/**
+	 * Returns the entry captured after invoking the business method, which must 
+	 * be stored along with the rendered response.
+	 * 
+	 * @return
+	 *   the captured entry, or {@code null} if there is none pending.
+	 */
+	public CachedResponse getPendingResponse() {
+		return pending;
+	}
+	
+	/**
+	 * Serves the invocation from the cache if possible, otherwise invokes the 
+	 * business method and captures its outcome; entries that need the rendered
+	 * response are left pending, for the controller to complete and store them.
+	 * 
+	 * @param policy
+	 *   the target's caching policy.
+	 * @return
+	 *   the result of the (possibly cached) invocation.
+	 * @throws WebMVCException
+	 */
+	private String invokeCached(CachePolicy policy) throws WebMVCException {
+		cacheKey = policy.makeKey(context);
+		CachedResponse entry = policy.lookup(cacheKey);
+		if(entry != null) {
+			logger.trace("serving target '{}' from cache", target.getId());
+			policy.replay(entry, context);
+			cached = entry;
+			return entry.getResultId();
 		}
-		if(iterator.get().hasNext()) {
-			return iterator.get().next().intercept(this);
+		boolean success = false;
+		try {
+			String result = invokeStub();
+			CachedResponse captured = policy.capture(result, context);
+			if(policy.isRendered()) {
+				pending = captured;
+			} else {
+				policy.store(cacheKey, captured);
+			}
+			success = true;
+			return result;
+		} finally {
+			if(!success) {
+				policy.abandon(cacheKey);
+			}
 		}
-		// now invoke the static proxy method 
+	}
+	
+	/**
+	 * Invokes the business method through its static stub.
+	 * 
+	 * @return
+	 *   the result of the business method.
+	 * @throws WebMVCException
+	 */
+	private String invokeStub() throws WebMVCException {
+		// now invoke the static proxy method; the stub takes care of 
+		// switching to the action and outputs phases
+		int previous = PhaseTimer.enter(Phase.INPUTS);
 		try {
 			Method proxy = target.getStubMethod();
 			logger.trace("invoking actual method on action instance through proxy '{}'", proxy.getName());
-			return (String)proxy.invoke(null, action);
+			return (String)proxy.invoke(null, action, context);
 		} catch (IllegalArgumentException e) {
 			logger.error("illegal argument to proxy method invocation", e);
 			throw new WebMVCException("illegal argument to proxy method invocation", e);
@@ -130,20 +306,33 @@ public class ActionInvocation extends Invocation {
 			logger.error("illegal access to proxy method during invocation", e);
 			throw new WebMVCException("illegal access to proxy method during invocation", e);
 		} catch (InvocationTargetException e) {
+			if(e.getCause() instanceof ControlFlowException) {
+				// expected condition, no need to log or wrap it
+				throw (ControlFlowException)e.getCause();
+			}
 			logger.error("invocation target error calling proxy method", e);
 			throw new WebMVCException("invocation target error calling proxy method", e);
+		} finally {
+			PhaseTimer.resume(previous);
 		}
 	}
 	
 	/**
-	 * Cleans up after the invocation has completed, by unbinding data from the 
-	 * thread-local storage; this method must be called after each invocation,
-	 * no matter how it ends, whether in success or with an exception; add it to 
-	 * a "finally" block around the action invocation.
+	 * Cleans up after the invocation has completed, by releasing all references
+	 * so that the object can be recycled; this method must be called after each 
+	 * invocation, no matter how it ends, whether in success or with an exception; 
+	 * add it to a "finally" block around the action invocation.
 	 */
 	@Override
 	public void cleanup() {
-		logger.debug("removing the interceptors iterator from the thread-local storage");
-		iterator.remove();
+		logger.trace("releasing action invocation");
+		unbind();
+		plan = null;
+		target = null;
+		action = null;
+		cacheKey = null;
+		cached = null;
+		pending = null;
+		busy = false;
 	}
 }
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2012-2015, Andrea Funto'. All rights reserved. See LICENSE for details.
+ */
+
+package org.dihedron.webmvc;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.dihedron.webmvc.interceptors.registry.DomainsRegistry;
+import org.dihedron.webmvc.interceptors.registry.InterceptorsRegistry;
+import org.dihedron.webmvc.targets.ExecutionPlan;
+import org.dihedron.webmvc.targets.Target;
+
+/**
+ * The part of the controller's configuration that can be reloaded at runtime:
+ * the interceptor stacks, the domains, the table of static resources and the
+ * execution plans of all targets, as resolved against them. Snapshots are
+ * immutable and are replaced as a whole, so a request reading the current
+ * snapshot once sees a consistent configuration until it completes, however
+ * many times the configuration is reloaded in the meanwhile.
+ *
+ * @author Andrea Funto'
+ */
+final class ConfigurationSnapshot {
+
+	/**
+	 * The registry of interceptor stacks.
+	 */
+	private final InterceptorsRegistry interceptors;
+
+	/**
+	 * The registry of domains.
+	 */
+	private final DomainsRegistry domains;
+
+	/**
+	 * The table of static resources, which bypass the framework altogether.
+	 */
+	private final StaticResources statics;
+
+	/**
+	 * The execution plans of the targets, resolved against the registries above.
+	 */
+	private final Map<Target, ExecutionPlan> plans;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param interceptors
+	 *   the registry of interceptor stacks.
+	 * @param domains
+	 *   the registry of domains.
+	 * @param statics
+	 *   the table of static resources.
+	 * @param plans
+	 *   the execution plans of the targets; the map is copied.
+	 */
+	ConfigurationSnapshot(InterceptorsRegistry interceptors, DomainsRegistry domains, StaticResources statics, Map<Target, ExecutionPlan> plans) {
+		this.interceptors = interceptors;
+		this.domains = domains;
+		this.statics = statics;
+		this.plans = Collections.unmodifiableMap(new HashMap<>(plans));
+	}
+
+	/**
+	 * Returns the registry of interceptor stacks.
+	 *
+	 * @return
+	 *   the registry of interceptor stacks.
+	 */
+	InterceptorsRegistry getInterceptors() {
+		return interceptors;
+	}
+
+	/**
+	 * Returns the registry of domains.
+	 *
+	 * @return
+	 *   the registry of domains.
+	 */
+	DomainsRegistry getDomains() {
+		return domains;
+	}
+
+	/**
+	 * Returns the table of static resources.
+	 *
+	 * @return
+	 *   the table of static resources.
+	 */
+	StaticResources getStatics() {
+		return statics;
+	}
+
+	/**
+	 * Returns the execution plan of the given target.
+	 *
+	 * @param target
+	 *   the target.
+	 * @return
+	 *   the execution plan of the target, or {@code null} if the target was not
+	 *   registered when the snapshot was taken.
+	 */
+	ExecutionPlan getPlan(Target target) {
+		return plans.get(target);
+	}
+
+	/**
+	 * Returns a copy of this snapshot with the given execution plans.
+	 *
+	 * @param plans
+	 *   the execution plans of the targets.
+	 * @return
+	 *   a new snapshot, sharing the registries of this one.
+	 */
+	ConfigurationSnapshot withPlans(Map<Target, ExecutionPlan> plans) {
+		return new ConfigurationSnapshot(interceptors, domains, statics, plans);
+	}
+}
@@ -0,0 +1,422 @@
+/*
+ * Copyright (c) 2012-2015, Andrea Funto'. All rights reserved. See LICENSE for details.
+ */
+
+package org.dihedron.webmvc;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import javax.servlet.http.HttpSession;
+
+import org.dihedron.core.regex.Regex;
+import org.dihedron.webmvc.metrics.Footprint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The conversation-scoped values of a session. Each session has its own store,
+ * guarded by its own lock, so requests belonging to different sessions never
+ * contend with each other. Conversations are ended explicitly, or when they
+ * stay idle longer than the configured timeout; when a session exceeds the
+ * maximum number of conversations or their estimated memory footprint, the
+ * least recently used conversations are ended first. The limits are those of
+ * the controller servicing the session's latest request.
+ *
+ * @author Andrea Funto'
+ */
+final class ConversationStore implements Serializable {
+
+	/**
+	 * The serial version UID.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The logger.
+	 */
+	private static final Logger logger = LoggerFactory.getLogger(ConversationStore.class);
+
+	/**
+	 * The default maximum number of conversations per session.
+	 */
+	static final int DEFAULT_MAX_CONVERSATIONS = 16;
+
+	/**
+	 * The default idle timeout of conversations, in milliseconds.
+	 */
+	static final long DEFAULT_IDLE_TIMEOUT = 30L * 60 * 1000;
+
+	/**
+	 * The default maximum footprint of the conversations of a session, in bytes.
+	 */
+	static final long DEFAULT_MAX_FOOTPRINT = 1024L * 1024;
+
+	/**
+	 * The estimated memory taken up by each value, besides its key and contents.
+	 */
+	private static final long ENTRY_OVERHEAD = 48;
+
+	/**
+	 * The number of locks used to create stores; sessions are mapped onto them
+	 * by their identifier.
+	 */
+	private static final int STRIPES = 32;
+
+	/**
+	 * The locks guarding the creation of stores.
+	 */
+	private static final Object[] locks = new Object[STRIPES];
+
+	static {
+		for(int i = 0; i < STRIPES; ++i) {
+			locks[i] = new Object();
+		}
+	}
+
+	/**
+	 * The limits applied to the conversations of a session; each controller 
+	 * has its own, and hands them over to the stores of the sessions whose 
+	 * requests it services.
+	 */
+	static final class Limits implements Serializable {
+
+		/**
+		 * The serial version UID.
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * The default limits.
+		 */
+		static final Limits DEFAULT = new Limits(DEFAULT_MAX_CONVERSATIONS, DEFAULT_IDLE_TIMEOUT, DEFAULT_MAX_FOOTPRINT);
+
+		/**
+		 * The maximum number of conversations per session.
+		 */
+		private final int maxConversations;
+
+		/**
+		 * The idle timeout of conversations, in milliseconds.
+		 */
+		private final long idleTimeout;
+
+		/**
+		 * The maximum footprint of the conversations of a session, in bytes.
+		 */
+		private final long maxFootprint;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param maxConversations
+		 *   the maximum number of conversations per session.
+		 * @param idleTimeout
+		 *   the idle timeout of conversations, in milliseconds; if not positive,
+		 *   conversations never expire.
+		 * @param maxFootprint
+		 *   the maximum footprint of the conversations of a session, in bytes.
+		 */
+		Limits(int maxConversations, long idleTimeout, long maxFootprint) {
+			this.maxConversations = maxConversations;
+			this.idleTimeout = idleTimeout;
+			this.maxFootprint = maxFootprint;
+		}
+	}
+
+	/**
+	 * Returns the conversation store of the given session.
+	 *
+	 * @param session
+	 *   the HTTP session.
+	 * @param create
+	 *   whether the store should be created if the session does not have one.
+	 * @param limits
+	 *   the limits applied to the conversations of the session from now on; if
+	 *   {@code null}, the store keeps its current ones.
+	 * @return
+	 *   the store, or {@code null} if the session has none and {@code create}
+	 *   is {@code false}.
+	 */
+	static ConversationStore of(HttpSession session, boolean create, Limits limits) {
+		Object store = session.getAttribute(ActionContext.CONVERSATION_SCOPED_ATTRIBUTES_KEY);
+		if(!(store instanceof ConversationStore) && create) {
+			synchronized(locks[(session.getId().hashCode() & Integer.MAX_VALUE) % STRIPES]) {
+				store = session.getAttribute(ActionContext.CONVERSATION_SCOPED_ATTRIBUTES_KEY);
+				if(!(store instanceof ConversationStore)) {
+					logger.trace("creating conversation store for session '{}'", session.getId());
+					store = new ConversationStore();
+					session.setAttribute(ActionContext.CONVERSATION_SCOPED_ATTRIBUTES_KEY, store);
+				}
+			}
+		}
+		if(!(store instanceof ConversationStore)) {
+			return null;
+		}
+		ConversationStore conversations = (ConversationStore)store;
+		if(limits != null && conversations.limits != limits) {
+			conversations.limits = limits;
+		}
+		return conversations;
+	}
+
+	/**
+	 * The values of a single conversation.
+	 */
+	private static final class Conversation implements Serializable {
+
+		/**
+		 * The serial version UID.
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * The values, by name.
+		 */
+		private final Map<String, Object> values = new HashMap<>();
+
+		/**
+		 * The estimated footprint of the values, in bytes.
+		 */
+		private long footprint = 0;
+
+		/**
+		 * The time of the last access, as per {@link System#currentTimeMillis()}.
+		 */
+		private long accessed;
+	}
+
+	/**
+	 * The conversations, from the least to the most recently used one.
+	 */
+	private final LinkedHashMap<String, Conversation> conversations = new LinkedHashMap<>(16, 0.75f, true);
+
+	/**
+	 * The estimated footprint of all conversations, in bytes.
+	 */
+	private long footprint = 0;
+
+	/**
+	 * The limits applied to the conversations.
+	 */
+	private volatile Limits limits = Limits.DEFAULT;
+
+	/**
+	 * Begins a conversation, unless it is already in progress.
+	 *
+	 * @param id
+	 *   the conversation id.
+	 * @param now
+	 *   the current time, in milliseconds since the epoch.
+	 * @return
+	 *   whether a new conversation was begun.
+	 */
+	synchronized boolean begin(String id, long now) {
+		expire(now);
+		if(touch(id, now) != null) {
+			return false;
+		}
+		open(id, now);
+		return true;
+	}
+
+	/**
+	 * Ends a conversation, discarding all its values.
+	 *
+	 * @param id
+	 *   the conversation id.
+	 * @param now
+	 *   the current time, in milliseconds since the epoch.
+	 * @return
+	 *   whether the conversation was in progress.
+	 */
+	synchronized boolean end(String id, long now) {
+		expire(now);
+		Conversation conversation = conversations.remove(id);
+		if(conversation != null) {
+			footprint -= conversation.footprint;
+			logger.trace("conversation '{}' ended", id);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Looks up a value in a conversation.
+	 *
+	 * @param id
+	 *   the conversation id.
+	 * @param key
+	 *   the name of the value.
+	 * @param now
+	 *   the current time, in milliseconds since the epoch.
+	 * @return
+	 *   the result of the lookup; the value is present (possibly {@code null})
+	 *   if the conversation is in progress and contains it.
+	 */
+	synchronized Lookup<Object> lookup(String id, String key, long now) {
+		expire(now);
+		Conversation conversation = touch(id, now);
+		if(conversation != null) {
+			Object value = conversation.values.get(key);
+			if(value != null || conversation.values.containsKey(key)) {
+				return Lookup.of(value);
+			}
+		}
+		return Lookup.absent();
+	}
+
+	/**
+	 * Stores a value in a conversation, beginning it if it is not in progress.
+	 *
+	 * @param id
+	 *   the conversation id.
+	 * @param key
+	 *   the name of the value.
+	 * @param value
+	 *   the value.
+	 * @param now
+	 *   the current time, in milliseconds since the epoch.
+	 */
+	synchronized void put(String id, String key, Object value, long now) {
+		expire(now);
+		Conversation conversation = touch(id, now);
+		if(conversation == null) {
+			conversation = open(id, now);
+		}
+		boolean replaced = conversation.values.containsKey(key);
+		Object previous = conversation.values.put(key, value);
+		long delta = estimate(key, value) - (replaced ? estimate(key, previous) : 0);
+		conversation.footprint += delta;
+		footprint += delta;
+		evict(id);
+	}
+
+	/**
+	 * Removes a value from a conversation.
+	 *
+	 * @param id
+	 *   the conversation id.
+	 * @param key
+	 *   the name of the value.
+	 * @param now
+	 *   the current time, in milliseconds since the epoch.
+	 */
+	synchronized void remove(String id, String key, long now) {
+		expire(now);
+		Conversation conversation = touch(id, now);
+		if(conversation != null && conversation.values.containsKey(key)) {
+			long delta = estimate(key, conversation.values.remove(key));
+			conversation.footprint -= delta;
+			footprint -= delta;
+		}
+	}
+
+	/**
+	 * Returns the names (in the form {@code conversation:key}) of the values
+	 * whose conversation id and name match the given patterns.
+	 *
+	 * @param conversation
+	 *   the pattern matching conversation ids.
+	 * @param value
+	 *   the pattern matching value names.
+	 * @param now
+	 *   the current time, in milliseconds since the epoch.
+	 * @return
+	 *   a snapshot of the matching names.
+	 */
+	synchronized Set<String> names(Regex conversation, Regex value, long now) {
+		expire(now);
+		Set<String> names = new HashSet<>();
+		for(Entry<String, Conversation> entry : conversations.entrySet()) {
+			if(conversation.matches(entry.getKey())) {
+				for(String name : entry.getValue().values.keySet()) {
+					if(value.matches(name)) {
+						names.add(entry.getKey() + ":" + name);
+					}
+				}
+			}
+		}
+		return names;
+	}
+
+	/**
+	 * Returns a conversation in progress, marking it as the most recently used.
+	 */
+	private Conversation touch(String id, long now) {
+		Conversation conversation = conversations.get(id);
+		if(conversation != null) {
+			conversation.accessed = now;
+		}
+		return conversation;
+	}
+
+	/**
+	 * Begins a new conversation, ending the least recently used ones if the
+	 * session holds too many.
+	 */
+	private Conversation open(String id, long now) {
+		Conversation conversation = new Conversation();
+		conversation.accessed = now;
+		conversations.put(id, conversation);
+		logger.trace("conversation '{}' begun", id);
+		evict(id);
+		return conversation;
+	}
+
+	/**
+	 * Ends the conversations that have been idle for too long; since they are
+	 * kept in access order, the scan stops at the first live one.
+	 */
+	private void expire(long now) {
+		long timeout = limits.idleTimeout;
+		if(timeout <= 0) {
+			return;
+		}
+		Iterator<Entry<String, Conversation>> iterator = conversations.entrySet().iterator();
+		while(iterator.hasNext()) {
+			Entry<String, Conversation> entry = iterator.next();
+			if(now - entry.getValue().accessed < timeout) {
+				break;
+			}
+			logger.debug("conversation '{}' expired after {} ms of inactivity", entry.getKey(), now - entry.getValue().accessed);
+			footprint -= entry.getValue().footprint;
+			iterator.remove();
+		}
+	}
+
+	/**
+	 * Ends the least recently used conversations while the session holds too
+	 * many of them or they take up too much memory; the given conversation,
+	 * which is being used, is never ended.
+	 */
+	private void evict(String current) {
+		Limits limits = this.limits;
+		Iterator<Entry<String, Conversation>> iterator = conversations.entrySet().iterator();
+		while(iterator.hasNext() && (conversations.size() > limits.maxConversations || footprint > limits.maxFootprint)) {
+			Entry<String, Conversation> entry = iterator.next();
+			if(entry.getKey().equals(current)) {
+				continue;
+			}
+			logger.debug("evicting least recently used conversation '{}' ({} conversations, {} bytes)", entry.getKey(), conversations.size(), footprint);
+			footprint -= entry.getValue().footprint;
+			iterator.remove();
+		}
+		if(footprint > limits.maxFootprint) {
+			logger.warn("conversation '{}' alone exceeds the maximum footprint ({} bytes out of {})", current, footprint, limits.maxFootprint);
+		}
+	}
+
+	/**
+	 * Estimates the memory taken up by a value and its name.
+	 */
+	private static long estimate(String key, Object value) {
+		return ENTRY_OVERHEAD + Footprint.sizeOf(key) + Footprint.sizeOf(value);
+	}
+}
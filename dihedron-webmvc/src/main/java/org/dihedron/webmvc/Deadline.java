@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2012-2015, Andrea Funto'. All rights reserved. See LICENSE for details.
+ */
+
+package org.dihedron.webmvc;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The deadline of a request, and its cooperative cancellation: a request is
+ * cancelled either when its deadline passes or when the client abandons it; 
+ * on cancellation, the thread currently running the target (if any) is 
+ * interrupted, so that blocking calls can bail out early. The interrupt never
+ * leaks past the target's execution: once the thread has left the target, it 
+ * can no longer be interrupted and any pending interrupt is cleared.
+ * 
+ * @author Andrea Funto'
+ */
+final class Deadline {
+
+	/**
+	 * The logger.
+	 */
+	private static final Logger logger = LoggerFactory.getLogger(Deadline.class);
+	
+	/**
+	 * The state of a request that is still running.
+	 */
+	private static final int RUNNING = 0;
+
+	/**
+	 * The state of a request whose deadline has passed.
+	 */
+	private static final int EXPIRED = 1;
+
+	/**
+	 * The state of a request abandoned by the client.
+	 */
+	private static final int ABANDONED = 2;
+	
+	/**
+	 * The time at which the deadline passes (as per {@link System#nanoTime()}); 
+	 * it is meaningless if the request is not bounded.
+	 */
+	private final long expiry;
+	
+	/**
+	 * The result to be rendered when the deadline passes.
+	 */
+	private final String result;
+	
+	/**
+	 * The state of the request; it is only modified while holding the lock on
+	 * this object.
+	 */
+	private volatile int state = RUNNING;
+	
+	/**
+	 * The thread currently running the target, if any.
+	 */
+	private Thread thread = null;
+	
+	/**
+	 * Whether the running thread has been interrupted on cancellation.
+	 */
+	private boolean interrupted = false;
+	
+	/**
+	 * The timer that expires the deadline, or {@code null} if the request is not
+	 * bounded.
+	 */
+	private final ScheduledFuture<?> timer;
+	
+	/**
+	 * Constructor.
+	 * 
+	 * @param timeout
+	 *   the maximum running time in milliseconds, or 0 if the request is not
+	 *   bounded.
+	 * @param result
+	 *   the result to be rendered when the deadline passes.
+	 * @param timers
+	 *   the executor used to expire deadlines; it may be {@code null} if the 
+	 *   request is not bounded.
+	 */
+	Deadline(long timeout, String result, ScheduledExecutorService timers) {
+		this.result = result;
+		if(timeout > 0 && timers != null) {
+			this.expiry = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+			this.timer = timers.schedule(new Runnable() {
+				@Override
+				public void run() {
+					cancel(EXPIRED);
+				}
+			}, timeout, TimeUnit.MILLISECONDS);
+		} else {
+			this.expiry = 0;
+			this.timer = null;
+		}
+	}
+	
+	/**
+	 * Returns the time left before the deadline passes.
+	 * 
+	 * @return
+	 *   the remaining time in milliseconds, 0 if the deadline has already passed,
+	 *   or {@link Long#MAX_VALUE} if the request is not bounded.
+	 */
+	long getRemainingTime() {
+		if(timer == null) {
+			return Long.MAX_VALUE;
+		}
+		return Math.max(0, TimeUnit.NANOSECONDS.toMillis(expiry - System.nanoTime()));
+	}
+	
+	/**
+	 * Returns the result to be rendered when the deadline passes.
+	 * 
+	 * @return
+	 *   the timeout result id.
+	 */
+	String getResult() {
+		return result;
+	}
+	
+	/**
+	 * Returns whether the request has been cancelled, either because its 
+	 * deadline has passed or because it was abandoned by the client.
+	 * 
+	 * @return
+	 *   whether the request has been cancelled.
+	 */
+	boolean isCancelled() {
+		return state != RUNNING;
+	}
+	
+	/**
+	 * Returns whether the request was abandoned by the client.
+	 * 
+	 * @return
+	 *   whether the request was abandoned.
+	 */
+	boolean isAbandoned() {
+		return state == ABANDONED;
+	}
+	
+	/**
+	 * Cancels the request because it was abandoned by the client.
+	 */
+	void abandon() {
+		cancel(ABANDONED);
+	}
+	
+	/**
+	 * Marks the current thread as the one running the target, which will be
+	 * interrupted on cancellation.
+	 */
+	synchronized void enter() {
+		thread = Thread.currentThread();
+	}
+	
+	/**
+	 * Marks the current thread as no longer running the target, clearing any
+	 * interrupt raised on cancellation.
+	 */
+	void exit() {
+		boolean clear;
+		synchronized(this) {
+			thread = null;
+			clear = interrupted;
+			interrupted = false;
+		}
+		if(clear) {
+			Thread.interrupted();
+		}
+	}
+	
+	/**
+	 * Releases the timer, if the deadline has not passed yet.
+	 */
+	void finish() {
+		if(timer != null) {
+			timer.cancel(false);
+		}
+	}
+	
+	/**
+	 * Cancels the request, interrupting the thread running the target, if any.
+	 * 
+	 * @param reason
+	 *   the state of the cancelled request.
+	 */
+	private synchronized void cancel(int reason) {
+		if(state == RUNNING) {
+			state = reason;
+			if(thread != null) {
+				logger.trace("interrupting thread {} on {}", thread.getName(), reason == EXPIRED ? "deadline" : "client abandonment");
+				thread.interrupt();
+				interrupted = true;
+			}
+		}
+	}
+}
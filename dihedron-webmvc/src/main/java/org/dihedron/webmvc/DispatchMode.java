@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2012-2015, Andrea Funto'. All rights reserved. See LICENSE for details.
+ */
+
+package org.dihedron.webmvc;
+
+import org.dihedron.core.strings.Strings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The enumeration of supported target dispatch modes, as set via the
+ * {@code webmvc:dispatch-mode} initialisation parameter.
+ *
+ * @author Andrea Funto'
+ */
+public enum DispatchMode {
+
+	/**
+	 * Targets are executed on the container thread, unless they are declared
+	 * as {@code @Invocable(async = true)}, in which case they are executed on
+	 * a fixed-size, framework-managed thread pool; this is the default.
+	 */
+	ANNOTATED,
+
+	/**
+	 * All targets are executed asynchronously, each on its own virtual thread;
+	 * this is meant for applications whose actions mostly block on I/O (JDBC,
+	 * HTTP clients) and requires a JDK supporting virtual threads; on older
+	 * JDKs, the framework falls back to {@link #ANNOTATED}.
+	 */
+	VIRTUAL;
+
+	/**
+	 * Tries to map the given string to an enumeration value.
+	 *
+	 * @param name
+	 *   the name to be mapped to an enumeration value.
+	 * @return
+	 *   the enumeration value if one fits the name, {@link #ANNOTATED} if none
+	 *   applies or the input string is null.
+	 */
+	public static DispatchMode fromString(String name) {
+		if(Strings.isValid(name)) {
+			String internal = name.trim();
+			for(DispatchMode mode : DispatchMode.values()) {
+				if(mode.name().equalsIgnoreCase(internal)) {
+					logger.trace("name '{}' corresponds to dispatch mode {}", name, mode.name());
+					return mode;
+				}
+			}
+			logger.warn("no dispatch mode found corresponding to name '{}', using default", name);
+		}
+		return ANNOTATED;
+	}
+
+	/**
+	 * The logger.
+	 */
+	private static final Logger logger = LoggerFactory.getLogger(DispatchMode.class);
+}
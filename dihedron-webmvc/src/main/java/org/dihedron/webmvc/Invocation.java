@@ -8,6 +8,7 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.dihedron.webmvc.exceptions.WebMVCException;
+import org.dihedron.webmvc.interceptors.Interceptor;
 import org.dihedron.webmvc.interceptors.InterceptorStack;
 
 /**
@@ -17,6 +18,11 @@ import org.dihedron.webmvc.interceptors.InterceptorStack;
  * @author Andrea Funto'
  */
 public abstract class Invocation {
+	
+	/**
+	 * An empty set of interceptors.
+	 */
+	protected static final Interceptor[] NO_INTERCEPTORS = new Interceptor[0];
 			
 	/**
 	 * The {@code HttpServletRequest} object.
@@ -29,9 +35,28 @@ public abstract class Invocation {
 	protected HttpServletResponse response;
 	
 	/**
-	 * The stack of interceptors.
+	 * The action context of the request, resolved once when the invocation is
+	 * bound, so that interceptors and stubs need not look it up again.
+	 */
+	protected ActionContext context;
+	
+	/**
+	 * A snapshot of the stack of interceptors, as an array.
+	 */
+	protected Interceptor[] interceptors = NO_INTERCEPTORS;
+	
+	/**
+	 * The index of the next interceptor to be invoked; since the invocation is
+	 * used by a single thread at a time, there is no need to store it in a 
+	 * thread-local variable.
+	 */
+	protected int cursor = 0;
+	
+	/**
+	 * Constructor.
 	 */
-	protected InterceptorStack interceptors;
+	protected Invocation() {
+	}
 	
 	/**
 	 * Constructor.
@@ -44,9 +69,62 @@ public abstract class Invocation {
 	 *   the {@code HttpServletResponse} object.
 	 */
 	protected Invocation(InterceptorStack interceptors, HttpServletRequest request, HttpServletResponse response) {
+		this(interceptors != null ? interceptors.getInterceptors() : NO_INTERCEPTORS, request, response);
+	}
+	
+	/**
+	 * Constructor.
+	 * 
+	 * @param interceptors
+	 *   the array of interceptors to be applied, in order; the array is not 
+	 *   copied, nor modified. 
+	 * @param request
+	 *   the {@code HttpServletRequest} object.
+	 * @param response
+	 *   the {@code HttpServletResponse} object.
+	 */
+	protected Invocation(Interceptor[] interceptors, HttpServletRequest request, HttpServletResponse response) {
+		bind(interceptors, request, response);
+	}
+	
+	/**
+	 * (Re-)initialises the invocation, so that the object can be recycled.
+	 * 
+	 * @param interceptors
+	 *   the array of interceptors to be applied, in order.
+	 * @param request
+	 *   the {@code HttpServletRequest} object.
+	 * @param response
+	 *   the {@code HttpServletResponse} object.
+	 */
+	protected void bind(Interceptor[] interceptors, HttpServletRequest request, HttpServletResponse response) {
 		this.request = request;
 		this.response = response;
-		this.interceptors = interceptors;
+		this.context = ActionContext.getContext();
+		this.interceptors = interceptors != null ? interceptors : NO_INTERCEPTORS;
+		this.cursor = 0;
+	}
+	
+	/**
+	 * Releases all references held by the invocation.
+	 */
+	protected void unbind() {
+		this.request = null;
+		this.response = null;
+		this.context = null;
+		this.interceptors = NO_INTERCEPTORS;
+		this.cursor = 0;
+	}
+	
+	/**
+	 * Returns the next interceptor to be invoked and advances the cursor.
+	 * 
+	 * @return
+	 *   the next interceptor, or {@code null} if all interceptors have already
+	 *   been invoked.
+	 */
+	protected Interceptor next() {
+		return cursor < interceptors.length ? interceptors[cursor++] : null;
 	}
 		
 	/**
@@ -69,6 +147,18 @@ public abstract class Invocation {
 		return response;
 	}
 	
+	/**
+	 * Returns the action context of the current request; interceptors should 
+	 * prefer its instance methods to the static accessors in 
+	 * {@code ActionContext}.
+	 * 
+	 * @return
+	 *   the action context of the current request.
+	 */
+	public ActionContext getContext() {
+		return context;
+	}
+	
 	/**
 	 * Invokes the next interceptor in the stack.
 	 * 
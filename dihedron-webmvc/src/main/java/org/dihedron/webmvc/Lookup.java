@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2012-2015, Andrea Funto'. All rights reserved. See LICENSE for details.
+ */
+
+package org.dihedron.webmvc;
+
+import org.dihedron.webmvc.exceptions.ControlFlowException;
+
+/**
+ * The result of a lookup that may or may not find a value; unlike a plain
+ * {@code null} return value, it distinguishes a value that is absent from one 
+ * that is present but {@code null}, and it lets callers decide how to handle 
+ * the absent case without paying for an exception.
+ * 
+ * @param <T>
+ *   the type of the value.
+ *   
+ * @author Andrea Funto'
+ */
+public final class Lookup<T> {
+
+	/**
+	 * The shared instance representing an absent value.
+	 */
+	private static final Lookup<?> ABSENT = new Lookup<Object>(null, false);
+
+	/**
+	 * The shared instance representing a present {@code null} value.
+	 */
+	private static final Lookup<?> NULL = new Lookup<Object>(null, true);
+
+	/**
+	 * Returns a lookup result with the given value, which may be {@code null}.
+	 * 
+	 * @param value
+	 *   the value found.
+	 * @return
+	 *   a lookup result representing a present value.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> Lookup<T> of(T value) {
+		return value != null ? new Lookup<T>(value, true) : (Lookup<T>)NULL;
+	}
+
+	/**
+	 * Returns a lookup result with the given value, or an absent result if the
+	 * value is {@code null}.
+	 * 
+	 * @param value
+	 *   the value found, or {@code null} if none.
+	 * @return
+	 *   a lookup result.
+	 */
+	public static <T> Lookup<T> ofNullable(T value) {
+		return value != null ? new Lookup<T>(value, true) : Lookup.<T>absent();
+	}
+
+	/**
+	 * Returns the lookup result representing an absent value.
+	 * 
+	 * @return
+	 *   a lookup result representing an absent value.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> Lookup<T> absent() {
+		return (Lookup<T>)ABSENT;
+	}
+
+	/**
+	 * The value.
+	 */
+	private final T value;
+
+	/**
+	 * Whether the value is present.
+	 */
+	private final boolean present;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param value
+	 *   the value.
+	 * @param present
+	 *   whether the value is present.
+	 */
+	private Lookup(T value, boolean present) {
+		this.value = value;
+		this.present = present;
+	}
+
+	/**
+	 * Returns whether the value is present.
+	 * 
+	 * @return
+	 *   whether the value is present (even if {@code null}).
+	 */
+	public boolean isPresent() {
+		return present;
+	}
+
+	/**
+	 * Returns the value, if present.
+	 * 
+	 * @return
+	 *   the value.
+	 * @throws ControlFlowException
+	 *   the preallocated, stackless {@code NOT_FOUND} exception if the value
+	 *   is absent.
+	 */
+	public T get() throws ControlFlowException {
+		if(!present) {
+			throw ControlFlowException.NOT_FOUND;
+		}
+		return value;
+	}
+
+	/**
+	 * Returns the value if present, or the given default value otherwise.
+	 * 
+	 * @param other
+	 *   the default value.
+	 * @return
+	 *   the value, or the default value.
+	 */
+	public T or(T other) {
+		return present ? value : other;
+	}
+
+	/**
+	 * Returns the value if present, or {@code null} otherwise.
+	 * 
+	 * @return
+	 *   the value, or {@code null}.
+	 */
+	public T orNull() {
+		return value;
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return present ? "present('" + value + "')" : "absent";
+	}
+}
@@ -131,7 +131,136 @@ public enum Parameter {
      * The parameter used to specify an optional application-server-specific plugin,
      * which will be used by the framework to retrieve platform-specific data.
      */
-    WEB_CONTAINER_PLUGIN("webmvc:web-container-plugin");
+    WEB_CONTAINER_PLUGIN("webmvc:web-container-plugin"),
+
+    /**
+     * The comma-separated list of static resources, which are handed over to
+     * the web container without binding the action context or running any
+     * interceptor; accepted formats include:<ul>
+     * <li><b>*.css</b>: all resources with the given extension;</li>
+     * <li><b>static/*</b>: all resources under the given path, relative to
+     * the context root;</li>
+     * <li><b>favicon.ico</b>: the resource at the given path, relative to the
+     * context root.</li>
+     * </ul>
+     */
+    STATIC_RESOURCES("webmvc:static-resources"),
+
+    /**
+     * The parameter used to specify whether resources in domains bound to an
+     * empty interceptors stack, and declaring no global results, should be 
+     * treated as static resources; it defaults to "false". 
+     */
+    STATIC_EMPTY_DOMAINS("webmvc:static-empty-domains"),
+
+    /**
+     * The number of threads in the pool serving targets declared as asynchronous
+     * (see {@code @Invocable(async = true)}); it defaults to four times the 
+     * number of available processors.
+     */
+    ASYNC_THREADS("webmvc:async-threads"),
+
+    /**
+     * The timeout of asynchronous requests, in milliseconds; it defaults to 
+     * 30 seconds.
+     */
+    ASYNC_TIMEOUT("webmvc:async-timeout"),
+
+    /**
+     * The way targets are dispatched (see {@link DispatchMode}): with 
+     * "annotated" (the default) only targets declared as asynchronous are 
+     * executed off the container thread, with "virtual" all targets are 
+     * executed asynchronously, each on its own virtual thread.
+     */
+    DISPATCH_MODE("webmvc:dispatch-mode"),
+
+    /**
+     * The maximum number of targets that can be chained in process, via the
+     * "chain" renderer, after the one originally requested; it defaults to 8.
+     */
+    CHAIN_MAX_HOPS("webmvc:chain-max-hops"),
+
+    /**
+     * The maximum number of entries in the cache of {@code @Cached} targets; 
+     * it defaults to 1000.
+     */
+    CACHE_MAX_ENTRIES("webmvc:cache-max-entries"),
+
+    /**
+     * The maximum overall size, in bytes, of the entries in the cache of 
+     * {@code @Cached} targets (rendered responses included); it defaults to 
+     * 16 MB.
+     */
+    CACHE_MAX_WEIGHT("webmvc:cache-max-weight"),
+
+    /**
+     * The maximum number of idle {@code Deflater}s kept for reuse by compressed
+     * responses (see the {@code <compression>} element of domains), per format; 
+     * it defaults to twice the number of available processors.
+     */
+    COMPRESSION_POOL_SIZE("webmvc:compression-pool-size"),
+
+    /**
+     * The code generation profile of action stubs (see {@code CodegenProfile}):
+     * with "standard" (the default) stubs always collect diagnostic information
+     * about each invocation, with "lean" they only do so when debug logging is 
+     * enabled.
+     */
+    CODEGEN_PROFILE("webmvc:codegen-profile"),
+
+    /**
+     * Whether the time spent by requests in each phase of the pipeline should 
+     * be measured from startup; it defaults to "false", and can be changed at
+     * runtime via JMX.
+     */
+    PHASE_TIMING("webmvc:phase-timing"),
+
+    /**
+     * How often (in seconds) the interceptors and domains declarations should 
+     * be checked for changes, and reloaded if modified; it defaults to 0, which
+     * disables automatic reload (the configuration can still be reloaded via 
+     * JMX).
+     */
+    RELOAD_INTERVAL("webmvc:reload-interval"),
+
+    /**
+     * The number of threads serving targets in domains having a priority class;
+     * it defaults to four times the number of available processors.
+     */
+    ADMISSION_THREADS("webmvc:admission-threads"),
+
+    /**
+     * The maximum number of requests waiting in the admission queue of each 
+     * priority class; it defaults to 1000.
+     */
+    ADMISSION_QUEUE_SIZE("webmvc:admission-queue-size"),
+
+    /**
+     * How long (in milliseconds) a request can wait in the admission queue 
+     * before it is dispatched ahead of higher priority ones; it defaults to 1 
+     * second.
+     */
+    ADMISSION_MAX_WAIT("webmvc:admission-max-wait"),
+
+    /**
+     * The maximum number of conversations each session can hold; when it is
+     * exceeded, the least recently used conversation is ended; it defaults to 
+     * 16.
+     */
+    CONVERSATION_MAX_COUNT("webmvc:conversation-max-count"),
+
+    /**
+     * How long (in seconds) a conversation can stay untouched before it is 
+     * ended; it defaults to 30 minutes.
+     */
+    CONVERSATION_IDLE_TIMEOUT("webmvc:conversation-idle-timeout"),
+
+    /**
+     * The (estimated) amount of memory, in bytes, that the conversations of a
+     * session can take up; when it is exceeded, the least recently used 
+     * conversations are ended; it defaults to 1 MB.
+     */
+    CONVERSATION_MAX_FOOTPRINT("webmvc:conversation-max-footprint");
 
     /**
      * Constructor.
@@ -4,8 +4,6 @@
 
 package org.dihedron.webmvc;
 
-import java.util.Iterator;
-
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
@@ -34,13 +32,52 @@ public class ResourceInvocation extends Invocation {
 	private String resource;
 	
 	/**
-	 * The thread-specific store for the iterator on the list of interceptors.
+	 * The per-thread recyclable instance.
 	 */
-	private ThreadLocal<Iterator<Interceptor>> iterator = new ThreadLocal<Iterator<Interceptor>>() {
-		@Override protected Iterator<Interceptor> initialValue() {
-			return null;
+	private static final ThreadLocal<ResourceInvocation> recycled = new ThreadLocal<ResourceInvocation>() {
+		@Override protected ResourceInvocation initialValue() {
+			return new ResourceInvocation();
 		}
 	};
+	
+	/**
+	 * Returns an invocation for the given resource, recycling the current 
+	 * thread's instance unless it is already in use (e.g. because of a nested
+	 * request dispatch); {@link #cleanup()} makes the instance available again.
+	 * 
+	 * @param resource
+	 *   the resource being requested.
+	 * @param interceptors
+	 *   the array of interceptors to be applied, in order.
+	 * @param request
+	 *   the {@code HttpServletRequest} object.
+	 * @param response
+	 *   the {@code HttpServletResponse} object.
+	 * @return
+	 *   the invocation.
+	 */
+	public static ResourceInvocation obtain(String resource, Interceptor[] interceptors, HttpServletRequest request, HttpServletResponse response) {
+		ResourceInvocation invocation = recycled.get();
+		if(invocation.busy) {
+			logger.trace("recyclable resource invocation is busy, creating a new one");
+			invocation = new ResourceInvocation();
+		}
+		invocation.bind(interceptors, request, response);
+		invocation.resource = resource;
+		invocation.busy = true;
+		return invocation;
+	}
+	
+	/**
+	 * Whether the invocation is currently in use.
+	 */
+	private boolean busy = false;
+	
+	/**
+	 * Constructor for recyclable instances.
+	 */
+	private ResourceInvocation() {
+	}
 		
 	/**
 	 * Constructor.
@@ -57,7 +94,6 @@ public class ResourceInvocation extends Invocation {
 	public ResourceInvocation(String resource, InterceptorStack interceptors, HttpServletRequest request, HttpServletResponse response) {
 		super(interceptors, request, response);
 		this.resource = resource;
-		this.iterator.set(null);
 	}
 	
 	/**
@@ -85,24 +121,24 @@ public class ResourceInvocation extends Invocation {
 	public String invoke() throws WebMVCException {
 		
 		// invoke the interceptors stack
-		if(iterator.get() == null) {
-			iterator.set(interceptors.iterator());
-		}
-		if(iterator.get().hasNext()) {
-			return iterator.get().next().intercept(this);
+		Interceptor interceptor = next();
+		if(interceptor != null) {
+			return interceptor.intercept(this);
 		}
 		// now simply return the name of the resource
 		return resource;
 	}
 	
 	/**
-	 * Cleans up after the invocation has completed, by unbinding data from the 
-	 * thread-local storage; this method must be called after each invocation,
-	 * no matter how it ends, whether in success or with an exception; add it to 
-	 * a "finally" block around the action invocation.
+	 * Cleans up after the invocation has completed, by releasing all references
+	 * so that the object can be recycled; this method must be called after each 
+	 * invocation, no matter how it ends, whether in success or with an exception; 
+	 * add it to a "finally" block around the action invocation.
 	 */
 	public void cleanup() {
-		logger.trace("removing the interceptors iterator from the thread-local storage");
-		iterator.remove();
+		logger.trace("releasing resource invocation");
+		unbind();
+		resource = null;
+		busy = false;
 	}
 }
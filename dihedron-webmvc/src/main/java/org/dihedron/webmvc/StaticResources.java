@@ -0,0 +1,272 @@
+/*
+ * Copyright (c) 2012-2015, Andrea Funto'. All rights reserved. See LICENSE for details.
+ */
+
+package org.dihedron.webmvc;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import org.dihedron.core.strings.Strings;
+import org.dihedron.webmvc.interceptors.Domain;
+import org.dihedron.webmvc.interceptors.registry.DomainsRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The table of static resources, i.e. resources that are handed over to the
+ * web container as they are, without binding the {@code ActionContext} and
+ * without running any interceptor. Static resources can be declared:<ul>
+ * <li>by extension, as in {@code *.css};</li>
+ * <li>by path prefix, relative to the context root, as in {@code static/*};</li>
+ * <li>by exact path, relative to the context root, as in {@code favicon.ico};</li>
+ * <li>by domain: resources falling into domains whose interceptors stack is
+ * empty and which declare no global results can be treated as static too.</li>
+ * </ul>
+ * Extensions and paths are compiled into character tries at initialisation
+ * time, so checking a request URI involves no allocation and no regular
+ * expression. The table is immutable once built.
+ *
+ * @author Andrea Funto'
+ */
+public final class StaticResources {
+
+	/**
+	 * The logger.
+	 */
+	private static final Logger logger = LoggerFactory.getLogger(StaticResources.class);
+
+	/**
+	 * The prefix of extension patterns.
+	 */
+	private static final String EXTENSION_PREFIX = "*.";
+
+	/**
+	 * The suffix of path prefix patterns.
+	 */
+	private static final String PATH_WILDCARD = "*";
+
+	/**
+	 * A node in a character trie.
+	 */
+	private static final class Node {
+
+		/**
+		 * The sorted labels of the outgoing edges.
+		 */
+		private char[] labels = new char[0];
+
+		/**
+		 * The child nodes, in the same order as the labels.
+		 */
+		private Node[] children = new Node[0];
+
+		/**
+		 * Whether a prefix (or an extension) ends at this node.
+		 */
+		private boolean prefix = false;
+
+		/**
+		 * Whether an exact path ends at this node.
+		 */
+		private boolean exact = false;
+
+		/**
+		 * Returns the child node reached through the given character, or
+		 * {@code null} if none.
+		 */
+		Node next(char c) {
+			int index = Arrays.binarySearch(labels, c);
+			return index >= 0 ? children[index] : null;
+		}
+
+		/**
+		 * Returns the child node reached through the given character, creating
+		 * it if necessary.
+		 */
+		Node add(char c) {
+			int index = Arrays.binarySearch(labels, c);
+			if(index >= 0) {
+				return children[index];
+			}
+			index = -(index + 1);
+			char[] l = new char[labels.length + 1];
+			Node[] n = new Node[children.length + 1];
+			System.arraycopy(labels, 0, l, 0, index);
+			System.arraycopy(children, 0, n, 0, index);
+			l[index] = c;
+			n[index] = new Node();
+			System.arraycopy(labels, index, l, index + 1, labels.length - index);
+			System.arraycopy(children, index, n, index + 1, children.length - index);
+			labels = l;
+			children = n;
+			return n[index];
+		}
+	}
+
+	/**
+	 * The trie of path prefixes and exact paths.
+	 */
+	private final Node paths = new Node();
+
+	/**
+	 * The trie of reversed extensions.
+	 */
+	private final Node extensions = new Node();
+
+	/**
+	 * The domains whose resources are static.
+	 */
+	private final Set<Domain> domains = Collections.newSetFromMap(new IdentityHashMap<Domain, Boolean>());
+
+	/**
+	 * The domains registry, used to identify the domain of a resource; it is
+	 * {@code null} if no domain is static.
+	 */
+	private DomainsRegistry registry = null;
+
+	/**
+	 * Whether any static resource has been declared.
+	 */
+	private boolean enabled = false;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param patterns
+	 *   the comma-separated list of static resource patterns (extensions, path
+	 *   prefixes and paths); it may be null or blank.
+	 */
+	public StaticResources(String patterns) {
+		if(Strings.isValid(patterns)) {
+			for(String pattern : Strings.split(patterns, ",", true)) {
+				addPattern(pattern);
+			}
+		}
+	}
+
+	/**
+	 * Adds all resources belonging to the given domain to the static resources.
+	 *
+	 * @param domain
+	 *   the domain whose resources are static.
+	 * @param registry
+	 *   the domains registry used to identify the domain of each resource.
+	 * @return
+	 *   the object itself, for method chaining.
+	 */
+	public StaticResources addDomain(Domain domain, DomainsRegistry registry) {
+		logger.info("resources in domain '{}' will be served as static resources", domain.getId());
+		this.domains.add(domain);
+		this.registry = registry;
+		this.enabled = true;
+		return this;
+	}
+
+	/**
+	 * Returns whether any static resource has been declared.
+	 *
+	 * @return
+	 *   whether the table contains any static resource.
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Returns whether the given resource is static.
+	 *
+	 * @param uri
+	 *   the request URI.
+	 * @param offset
+	 *   the index of the first character of the resource path within the URI,
+	 *   that is right after the context path and the leading slash.
+	 * @return
+	 *   whether the resource should be handed over to the web container as is.
+	 */
+	public boolean isStatic(String uri, int offset) {
+		if(!enabled || uri == null) {
+			return false;
+		}
+
+		// check paths and path prefixes
+		Node node = paths;
+		int length = uri.length();
+		for(int i = offset; node != null; ++i) {
+			if(node.prefix) {
+				return true;
+			}
+			if(i >= length) {
+				if(node.exact) {
+					return true;
+				}
+				break;
+			}
+			node = node.next(uri.charAt(i));
+		}
+
+		// check extensions, walking backwards up to the dot
+		node = extensions;
+		for(int i = length - 1; i >= offset && node != null; --i) {
+			char c = uri.charAt(i);
+			if(c == '/') {
+				break;
+			}
+			if(c == '.') {
+				if(node.prefix) {
+					return true;
+				}
+				break;
+			}
+			node = node.next(c);
+		}
+
+		// check domains
+		if(registry != null) {
+			Domain domain = registry.findDomainByResource(uri);
+			return domain != null && domains.contains(domain);
+		}
+		return false;
+	}
+
+	/**
+	 * Adds a single pattern to the table.
+	 *
+	 * @param pattern
+	 *   an extension ({@code *.css}), path prefix ({@code static/*}) or path
+	 *   ({@code favicon.ico}).
+	 */
+	private void addPattern(String pattern) {
+		if(!Strings.isValid(pattern)) {
+			return;
+		}
+		if(pattern.startsWith(EXTENSION_PREFIX)) {
+			String extension = pattern.substring(EXTENSION_PREFIX.length());
+			logger.info("resources with extension '{}' will be served as static resources", extension);
+			Node node = extensions;
+			for(int i = extension.length() - 1; i >= 0; --i) {
+				node = node.add(extension.charAt(i));
+			}
+			node.prefix = true;
+		} else {
+			String path = pattern.startsWith("/") ? pattern.substring(1) : pattern;
+			boolean prefix = path.endsWith(PATH_WILDCARD);
+			if(prefix) {
+				path = path.substring(0, path.length() - PATH_WILDCARD.length());
+			}
+			logger.info("resources {} '{}' will be served as static resources", prefix ? "under" : "at", path);
+			Node node = paths;
+			for(int i = 0; i < path.length(); ++i) {
+				node = node.add(path.charAt(i));
+			}
+			if(prefix) {
+				node.prefix = true;
+			} else {
+				node.exact = true;
+			}
+		}
+		enabled = true;
+	}
+}
@@ -0,0 +1,351 @@
+/*
+ * Copyright (c) 2012-2015, Andrea Funto'. All rights reserved. See LICENSE for details.
+ */
+
+package org.dihedron.webmvc.admission;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.CompositeDataSupport;
+import javax.management.openmbean.CompositeType;
+import javax.management.openmbean.OpenDataException;
+import javax.management.openmbean.OpenType;
+import javax.management.openmbean.SimpleType;
+import javax.management.openmbean.TabularType;
+
+import org.dihedron.webmvc.metrics.StripedCounter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A concurrency limit that adapts to the observed latency of a domain, with an
+ * additive-increase, multiplicative-decrease policy: latencies are averaged over
+ * windows of requests and compared against a baseline, which tracks the lowest
+ * latency observed and slowly drifts towards the current one; if the average 
+ * exceeds the baseline by more than the given tolerance the limit is reduced 
+ * by the backoff factor, otherwise it is increased by one, provided it was 
+ * actually reached during the window. Requests beyond the limit are rejected 
+ * right away.
+ *
+ * @author Andrea Funto'
+ */
+public class AdaptiveLimit {
+
+	/**
+	 * The default initial limit.
+	 */
+	public static final int DEFAULT_INITIAL = 20;
+
+	/**
+	 * The default minimum limit.
+	 */
+	public static final int DEFAULT_MIN = 1;
+
+	/**
+	 * The default maximum limit.
+	 */
+	public static final int DEFAULT_MAX = 1000;
+
+	/**
+	 * The default ratio between the average latency and the baseline above 
+	 * which the domain is considered congested.
+	 */
+	public static final double DEFAULT_TOLERANCE = 2.0;
+
+	/**
+	 * The default factor by which the limit is reduced on congestion.
+	 */
+	public static final double DEFAULT_BACKOFF = 0.9;
+
+	/**
+	 * The default number of requests per window.
+	 */
+	public static final int DEFAULT_WINDOW = 100;
+
+	/**
+	 * The fraction of the gap with the current latency by which the baseline
+	 * drifts at each window, as a power of 2 (i.e. 1/64).
+	 */
+	private static final int BASELINE_DRIFT_SHIFT = 6;
+
+	/**
+	 * The names of the items in the JMX representation of the limit; latencies
+	 * are in microseconds.
+	 */
+	private static final String[] ITEMS = { 
+		"domain", "limit", "inflight", "shed", "baseline", "latency" 
+	};
+
+	/**
+	 * The descriptions of the items in the JMX representation of the limit.
+	 */
+	private static final String[] DESCRIPTIONS = { 
+		"the domain id", 
+		"the current concurrency limit", 
+		"the number of requests in progress", 
+		"the number of requests shed", 
+		"the baseline latency (us)", 
+		"the average latency in the last window (us)" 
+	};
+
+	/**
+	 * The JMX open type of the limit of a domain.
+	 */
+	public static final CompositeType COMPOSITE_TYPE;
+
+	/**
+	 * The JMX open type of the limits of all domains, indexed by domain id.
+	 */
+	public static final TabularType TABULAR_TYPE;
+
+	static {
+		try {
+			OpenType<?>[] types = new OpenType<?>[ITEMS.length];
+			types[0] = SimpleType.STRING;
+			for(int i = 1; i < types.length; ++i) {
+				types[i] = SimpleType.LONG;
+			}
+			COMPOSITE_TYPE = new CompositeType("AdaptiveLimit", "The adaptive concurrency limit of a domain", ITEMS, DESCRIPTIONS, types);
+			TABULAR_TYPE = new TabularType("AdaptiveLimits", "The adaptive concurrency limits of all domains", COMPOSITE_TYPE, new String[] { ITEMS[0] });
+		} catch(OpenDataException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	/**
+	 * The logger.
+	 */
+	private static final Logger logger = LoggerFactory.getLogger(AdaptiveLimit.class);
+
+	/**
+	 * The minimum limit.
+	 */
+	private final int min;
+
+	/**
+	 * The maximum limit.
+	 */
+	private final int max;
+
+	/**
+	 * The congestion tolerance.
+	 */
+	private final double tolerance;
+
+	/**
+	 * The backoff factor.
+	 */
+	private final double backoff;
+
+	/**
+	 * The number of requests per window.
+	 */
+	private final int window;
+
+	/**
+	 * The current limit.
+	 */
+	private volatile int limit;
+
+	/**
+	 * The number of requests in progress.
+	 */
+	private final AtomicInteger inflight = new AtomicInteger();
+
+	/**
+	 * The highest number of requests in progress during the current window.
+	 */
+	private final AtomicInteger peak = new AtomicInteger();
+
+	/**
+	 * The number of requests completed in the current window.
+	 */
+	private final AtomicLong samples = new AtomicLong();
+
+	/**
+	 * The overall latency of the requests completed in the current window, in
+	 * nanoseconds.
+	 */
+	private final AtomicLong elapsed = new AtomicLong();
+
+	/**
+	 * Whether a thread is closing the current window.
+	 */
+	private final AtomicBoolean adjusting = new AtomicBoolean();
+
+	/**
+	 * The baseline latency, in nanoseconds.
+	 */
+	private volatile long baseline = Long.MAX_VALUE;
+
+	/**
+	 * The average latency in the last window, in nanoseconds.
+	 */
+	private volatile long latency = 0;
+
+	/**
+	 * The number of requests shed.
+	 */
+	private final StripedCounter shed = new StripedCounter();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param initial
+	 *   the initial limit.
+	 * @param min
+	 *   the minimum limit.
+	 * @param max
+	 *   the maximum limit.
+	 * @param tolerance
+	 *   the ratio between the average latency and the baseline above which the 
+	 *   domain is considered congested.
+	 * @param backoff
+	 *   the factor by which the limit is reduced on congestion.
+	 * @param window
+	 *   the number of requests over which latency is averaged.
+	 */
+	public AdaptiveLimit(int initial, int min, int max, double tolerance, double backoff, int window) {
+		this.min = Math.max(min, 1);
+		this.max = Math.max(max, this.min);
+		this.tolerance = Math.max(tolerance, 1.0);
+		this.backoff = Math.min(Math.max(backoff, 0.1), 1.0);
+		this.window = Math.max(window, 1);
+		this.limit = Math.min(Math.max(initial, this.min), this.max);
+	}
+
+	/**
+	 * Tries to admit a request; if admitted, {@link #release(long)} must be 
+	 * invoked once the request is complete.
+	 *
+	 * @return
+	 *   whether the request was admitted.
+	 */
+	public boolean tryAcquire() {
+		while(true) {
+			int current = inflight.get();
+			if(current >= limit) {
+				shed.increment();
+				return false;
+			}
+			if(inflight.compareAndSet(current, current + 1)) {
+				int highest = peak.get();
+				while(current + 1 > highest && !peak.compareAndSet(highest, current + 1)) {
+					highest = peak.get();
+				}
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Releases an admitted request, recording its latency; the limit is adjusted
+	 * at the end of each window.
+	 *
+	 * @param nanos
+	 *   the latency of the request, in nanoseconds.
+	 */
+	public void release(long nanos) {
+		inflight.decrementAndGet();
+		elapsed.addAndGet(nanos);
+		if(samples.incrementAndGet() >= window && adjusting.compareAndSet(false, true)) {
+			try {
+				adjust();
+			} finally {
+				adjusting.set(false);
+			}
+		}
+	}
+
+	/**
+	 * Closes the current window and adjusts the limit.
+	 */
+	private void adjust() {
+		long count = samples.getAndSet(0);
+		long total = elapsed.getAndSet(0);
+		int used = peak.getAndSet(inflight.get());
+		if(count <= 0) {
+			return;
+		}
+		long average = total / count;
+		long base = baseline;
+		if(average < base) {
+			base = average;
+		} else {
+			base += (average - base) >> BASELINE_DRIFT_SHIFT;
+		}
+		baseline = base;
+		latency = average;
+
+		int current = limit;
+		if(average > base * tolerance) {
+			limit = Math.max(min, (int)(current * backoff));
+			logger.debug("latency {} us over baseline {} us, limit reduced from {} to {}", average / 1000, base / 1000, current, limit);
+		} else if(used >= current && current < max) {
+			limit = current + 1;
+			logger.trace("latency {} us within baseline {} us, limit increased to {}", average / 1000, base / 1000, limit);
+		}
+	}
+
+	/**
+	 * Returns the current limit.
+	 *
+	 * @return
+	 *   the maximum number of requests admitted at the same time.
+	 */
+	public int getLimit() {
+		return limit;
+	}
+
+	/**
+	 * Returns the number of requests in progress.
+	 *
+	 * @return
+	 *   the number of admitted requests not yet released.
+	 */
+	public int getInflight() {
+		return inflight.get();
+	}
+
+	/**
+	 * Returns the number of requests shed.
+	 *
+	 * @return
+	 *   the number of requests that were not admitted.
+	 */
+	public long getShed() {
+		return shed.get();
+	}
+
+	/**
+	 * Returns the JMX representation of the limit.
+	 *
+	 * @param domain
+	 *   the id of the domain the limit applies to.
+	 * @return
+	 *   the limit, as composite data.
+	 * @throws OpenDataException
+	 */
+	public CompositeData toCompositeData(String domain) throws OpenDataException {
+		long base = baseline;
+		return new CompositeDataSupport(COMPOSITE_TYPE, ITEMS, new Object[] {
+			domain,
+			(long)limit,
+			(long)inflight.get(),
+			shed.get(),
+			base == Long.MAX_VALUE ? 0L : base / 1000,
+			latency / 1000
+		});
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "adaptive-limit(limit: " + limit + ", min: " + min + ", max: " + max + ", tolerance: " + tolerance + ", backoff: " + backoff + ", window: " + window + ")";
+	}
+}
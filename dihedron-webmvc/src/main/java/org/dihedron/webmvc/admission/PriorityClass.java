@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2012-2015, Andrea Funto'. All rights reserved. See LICENSE for details.
+ */
+
+package org.dihedron.webmvc.admission;
+
+import org.dihedron.core.strings.Strings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The enumeration of the priority classes that can be assigned to domains in 
+ * the domains configuration; requests to targets in prioritised domains are
+ * admitted through a dispatch queue that serves each class in proportion to
+ * its weight, higher priorities first.
+ *
+ * @author Andrea Funto'
+ */
+public enum PriorityClass {
+
+	/**
+	 * Interactive requests, e.g. page loads, which a user is waiting for.
+	 */
+	INTERACTIVE(8),
+
+	/**
+	 * Ordinary requests.
+	 */
+	NORMAL(4),
+
+	/**
+	 * Background requests, e.g. batch exports and reports, which can tolerate
+	 * being delayed during peaks.
+	 */
+	BATCH(1);
+
+	/**
+	 * The weight of the class.
+	 */
+	private final int weight;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param weight
+	 *   the weight of the class.
+	 */
+	private PriorityClass(int weight) {
+		this.weight = weight;
+	}
+
+	/**
+	 * Returns the weight of the class, that is how many requests of this class
+	 * are dispatched, relative to other classes, when all of them are queued.
+	 *
+	 * @return
+	 *   the weight of the class.
+	 */
+	public int getWeight() {
+		return weight;
+	}
+
+	/**
+	 * Tries to map the given string to an enumeration value.
+	 *
+	 * @param name
+	 *   the name to be mapped to an enumeration value.
+	 * @return
+	 *   the enumeration value if one fits the name, {@code null} if none applies
+	 *   or the input string is null.
+	 */
+	public static PriorityClass fromString(String name) {
+		if(Strings.isValid(name)) {
+			String internal = name.trim();
+			for(PriorityClass priority : PriorityClass.values()) {
+				if(priority.name().equalsIgnoreCase(internal)) {
+					logger.trace("name '{}' corresponds to priority class {}", name, priority.name());
+					return priority;
+				}
+			}
+			logger.warn("no priority class found corresponding to name '{}'", name);
+		}
+		return null;
+	}
+
+	/**
+	 * The logger.
+	 */
+	private static final Logger logger = LoggerFactory.getLogger(PriorityClass.class);
+}
@@ -0,0 +1,468 @@
+/*
+ * Copyright (c) 2012-2015, Andrea Funto'. All rights reserved. See LICENSE for details.
+ */
+
+package org.dihedron.webmvc.admission;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.management.openmbean.CompositeDataSupport;
+import javax.management.openmbean.CompositeType;
+import javax.management.openmbean.OpenDataException;
+import javax.management.openmbean.OpenType;
+import javax.management.openmbean.SimpleType;
+import javax.management.openmbean.TabularData;
+import javax.management.openmbean.TabularDataSupport;
+import javax.management.openmbean.TabularType;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A dispatch queue running tasks on a fixed set of worker threads, in order of
+ * priority class: when several classes have queued tasks, they are served in 
+ * proportion to their weights (with a smooth weighted round-robin, so that the
+ * classes are interleaved rather than served in bursts), and ties go to the 
+ * higher priority; a task that has waited longer than the starvation limit 
+ * is served first, whatever its class. Each class has its own bounded queue, 
+ * so a flood of low-priority tasks never fills the room of the others.
+ *
+ * @author Andrea Funto'
+ */
+public class PriorityDispatcher {
+
+	/**
+	 * The default capacity of the queue of each class.
+	 */
+	public static final int DEFAULT_QUEUE_SIZE = 1000;
+
+	/**
+	 * The default starvation limit, in milliseconds.
+	 */
+	public static final long DEFAULT_MAX_WAIT = 1000;
+
+	/**
+	 * The names of the items in the JMX representation of a queue; wait times
+	 * are in microseconds.
+	 */
+	private static final String[] ITEMS = { 
+		"class", "weight", "depth", "dispatched", "rejected", "starved", "meanWait", "maxWait" 
+	};
+
+	/**
+	 * The descriptions of the items in the JMX representation of a queue.
+	 */
+	private static final String[] DESCRIPTIONS = { 
+		"the priority class", 
+		"the weight of the class", 
+		"the number of requests currently queued", 
+		"the number of requests dispatched", 
+		"the number of requests rejected because the queue was full", 
+		"the number of requests dispatched ahead of their turn after waiting too long", 
+		"the mean time spent in the queue (us)", 
+		"the maximum time spent in the queue (us)" 
+	};
+
+	/**
+	 * The JMX open type of a queue.
+	 */
+	public static final CompositeType COMPOSITE_TYPE;
+
+	/**
+	 * The JMX open type of all queues, indexed by priority class.
+	 */
+	public static final TabularType TABULAR_TYPE;
+
+	static {
+		try {
+			OpenType<?>[] types = new OpenType<?>[ITEMS.length];
+			types[0] = SimpleType.STRING;
+			for(int i = 1; i < types.length; ++i) {
+				types[i] = SimpleType.LONG;
+			}
+			COMPOSITE_TYPE = new CompositeType("AdmissionQueue", "The admission queue of a priority class", ITEMS, DESCRIPTIONS, types);
+			TABULAR_TYPE = new TabularType("AdmissionQueues", "The admission queues of all priority classes", COMPOSITE_TYPE, new String[] { ITEMS[0] });
+		} catch(OpenDataException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	/**
+	 * The logger.
+	 */
+	private static final Logger logger = LoggerFactory.getLogger(PriorityDispatcher.class);
+
+	/**
+	 * The priority classes, by decreasing priority.
+	 */
+	private static final PriorityClass[] CLASSES = PriorityClass.values();
+
+	/**
+	 * A queued task.
+	 */
+	private static final class Entry {
+
+		/**
+		 * The task.
+		 */
+		final Runnable task;
+
+		/**
+		 * The time at which the task was queued, in nanoseconds.
+		 */
+		final long queued;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param task
+		 *   the task.
+		 */
+		Entry(Runnable task) {
+			this.task = task;
+			this.queued = System.nanoTime();
+		}
+	}
+
+	/**
+	 * The queue of a priority class and its statistics; all fields are guarded 
+	 * by the dispatcher's lock.
+	 */
+	private static final class Queue {
+
+		/**
+		 * The queued tasks.
+		 */
+		final ArrayDeque<Entry> entries = new ArrayDeque<>();
+
+		/**
+		 * The current credit of the class in the weighted round-robin.
+		 */
+		long credit = 0;
+
+		/**
+		 * The number of tasks dispatched.
+		 */
+		long dispatched = 0;
+
+		/**
+		 * The number of tasks rejected.
+		 */
+		long rejected = 0;
+
+		/**
+		 * The number of tasks dispatched after reaching the starvation limit.
+		 */
+		long starved = 0;
+
+		/**
+		 * The overall time spent in the queue by dispatched tasks, in nanoseconds.
+		 */
+		long waited = 0;
+
+		/**
+		 * The maximum time spent in the queue, in nanoseconds.
+		 */
+		long maxWaited = 0;
+	}
+
+	/**
+	 * The lock guarding the queues.
+	 */
+	private final ReentrantLock lock = new ReentrantLock();
+
+	/**
+	 * The condition on which idle workers wait for tasks.
+	 */
+	private final Condition available = lock.newCondition();
+
+	/**
+	 * The queues, by priority class ordinal.
+	 */
+	private final Queue[] queues;
+
+	/**
+	 * The capacity of each queue.
+	 */
+	private final int capacity;
+
+	/**
+	 * The starvation limit, in nanoseconds.
+	 */
+	private final long maxWait;
+
+	/**
+	 * The executors queuing tasks in each class, by priority class ordinal.
+	 */
+	private final Executor[] executors;
+
+	/**
+	 * The worker threads.
+	 */
+	private final Thread[] workers;
+
+	/**
+	 * Whether new tasks are accepted; guarded by the lock.
+	 */
+	private boolean running = true;
+
+	/**
+	 * Constructor; the worker threads are started right away.
+	 *
+	 * @param name
+	 *   the prefix of the worker threads' names.
+	 * @param threads
+	 *   the number of worker threads.
+	 * @param capacity
+	 *   the capacity of the queue of each class.
+	 * @param maxWait
+	 *   the starvation limit, in milliseconds.
+	 */
+	public PriorityDispatcher(String name, int threads, int capacity, long maxWait) {
+		this.capacity = Math.max(capacity, 1);
+		this.maxWait = TimeUnit.MILLISECONDS.toNanos(Math.max(maxWait, 0));
+		this.queues = new Queue[CLASSES.length];
+		this.executors = new Executor[CLASSES.length];
+		for(int i = 0; i < queues.length; ++i) {
+			final PriorityClass priority = CLASSES[i];
+			queues[i] = new Queue();
+			executors[i] = new Executor() {
+				@Override
+				public void execute(Runnable task) {
+					submit(task, priority);
+				}
+			};
+		}
+		this.workers = new Thread[Math.max(threads, 1)];
+		for(int i = 0; i < workers.length; ++i) {
+			workers[i] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					work();
+				}
+			}, name + (i + 1));
+			workers[i].setDaemon(true);
+			workers[i].start();
+		}
+	}
+
+	/**
+	 * Returns an executor queuing its tasks in the given priority class; tasks
+	 * are rejected with a {@code RejectedExecutionException} if the queue is 
+	 * full or the dispatcher has been shut down.
+	 *
+	 * @param priority
+	 *   the priority class.
+	 * @return
+	 *   the executor.
+	 */
+	public Executor getExecutor(PriorityClass priority) {
+		return executors[priority.ordinal()];
+	}
+
+	/**
+	 * Queues a task in the given priority class.
+	 *
+	 * @param task
+	 *   the task.
+	 * @param priority
+	 *   the priority class.
+	 * @throws RejectedExecutionException
+	 *   if the queue is full or the dispatcher has been shut down.
+	 */
+	public void submit(Runnable task, PriorityClass priority) {
+		Queue queue = queues[priority.ordinal()];
+		lock.lock();
+		try {
+			if(!running || queue.entries.size() >= capacity) {
+				queue.rejected++;
+				throw new RejectedExecutionException("Admission queue '" + priority.name().toLowerCase() + "' is full");
+			}
+			queue.entries.addLast(new Entry(task));
+			available.signal();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * The body of the worker threads.
+	 */
+	private void work() {
+		while(true) {
+			Runnable task;
+			try {
+				task = take();
+			} catch(InterruptedException e) {
+				return;
+			}
+			if(task == null) {
+				return;
+			}
+			try {
+				task.run();
+			} catch(Throwable e) {
+				// the worker must survive whatever the task throws, or the 
+				// dispatcher would silently lose capacity
+				logger.error("error running dispatched task", e);
+			}
+		}
+	}
+
+	/**
+	 * Takes the next task to be run, waiting for one if all queues are empty.
+	 *
+	 * @return
+	 *   the task, or {@code null} if the dispatcher has been shut down and all
+	 *   queued tasks have been run.
+	 * @throws InterruptedException
+	 */
+	private Runnable take() throws InterruptedException {
+		lock.lock();
+		try {
+			while(true) {
+				Queue selected = select(System.nanoTime());
+				if(selected != null) {
+					Entry entry = selected.entries.pollFirst();
+					long waited = System.nanoTime() - entry.queued;
+					selected.dispatched++;
+					selected.waited += waited;
+					if(waited > selected.maxWaited) {
+						selected.maxWaited = waited;
+					}
+					return entry.task;
+				}
+				if(!running) {
+					return null;
+				}
+				available.await();
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Selects the queue to be served next; it must be called while holding the
+	 * lock.
+	 *
+	 * @param now
+	 *   the current time, in nanoseconds.
+	 * @return
+	 *   the queue, or {@code null} if all queues are empty.
+	 */
+	private Queue select(long now) {
+		// starving tasks first, the longest waiting one ahead of the others
+		Queue oldest = null;
+		long longest = maxWait;
+		int total = 0;
+		for(int i = 0; i < queues.length; ++i) {
+			Entry head = queues[i].entries.peekFirst();
+			if(head != null) {
+				total += CLASSES[i].getWeight();
+				if(now - head.queued > longest) {
+					longest = now - head.queued;
+					oldest = queues[i];
+				}
+			}
+		}
+		if(total == 0) {
+			return null;
+		}
+		if(oldest != null) {
+			oldest.starved++;
+			return oldest;
+		}
+		
+		// smooth weighted round-robin among non-empty queues; classes are 
+		// scanned by decreasing priority, so ties go to the higher one
+		Queue selected = null;
+		for(int i = 0; i < queues.length; ++i) {
+			if(!queues[i].entries.isEmpty()) {
+				queues[i].credit += CLASSES[i].getWeight();
+				if(selected == null || queues[i].credit > selected.credit) {
+					selected = queues[i];
+				}
+			}
+		}
+		selected.credit -= total;
+		return selected;
+	}
+
+	/**
+	 * Stops accepting new tasks, removes the queued ones and waits for the 
+	 * running ones to complete; the caller is in charge of the tasks that were
+	 * never run, e.g. to answer the requests they stand for.
+	 *
+	 * @param timeout
+	 *   how long to wait for each worker thread, in milliseconds.
+	 * @return
+	 *   the tasks that were queued and will never be run, oldest first within 
+	 *   each priority class.
+	 */
+	public List<Runnable> shutdown(long timeout) {
+		List<Runnable> drained = new ArrayList<>();
+		lock.lock();
+		try {
+			running = false;
+			for(Queue queue : queues) {
+				for(Entry entry = queue.entries.pollFirst(); entry != null; entry = queue.entries.pollFirst()) {
+					drained.add(entry.task);
+				}
+			}
+			available.signalAll();
+		} finally {
+			lock.unlock();
+		}
+		logger.debug("{} queued tasks removed on shutdown", drained.size());
+		for(Thread worker : workers) {
+			try {
+				worker.join(timeout);
+			} catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+			if(worker.isAlive()) {
+				worker.interrupt();
+			}
+		}
+		return drained;
+	}
+
+	/**
+	 * Returns the JMX representation of the queues.
+	 *
+	 * @return
+	 *   the queues, as tabular data indexed by priority class.
+	 * @throws OpenDataException
+	 */
+	public TabularData toTabularData() throws OpenDataException {
+		TabularData table = new TabularDataSupport(TABULAR_TYPE);
+		lock.lock();
+		try {
+			for(PriorityClass priority : CLASSES) {
+				Queue queue = queues[priority.ordinal()];
+				table.put(new CompositeDataSupport(COMPOSITE_TYPE, ITEMS, new Object[] {
+					priority.name().toLowerCase(),
+					(long)priority.getWeight(),
+					(long)queue.entries.size(),
+					queue.dispatched,
+					queue.rejected,
+					queue.starved,
+					queue.dispatched > 0 ? queue.waited / queue.dispatched / 1000 : 0L,
+					queue.maxWaited / 1000
+				}));
+			}
+		} finally {
+			lock.unlock();
+		}
+		return table;
+	}
+}
@@ -0,0 +1,12 @@
+/*
+ * Copyright (c) 2012-2015, Andrea Funto'. All rights reserved. See LICENSE for details.
+ */
+
+/**
+ * The package containing the per-domain admission control, which sheds excess
+ * load before requests are bound to the framework, so that latency stays flat
+ * during traffic bursts instead of degrading into queueing.
+ *
+ * @author Andrea Funto'
+ */
+package org.dihedron.webmvc.admission;
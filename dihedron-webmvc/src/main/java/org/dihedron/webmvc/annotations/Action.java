@@ -51,6 +51,13 @@ public @interface Action {
      */
     public static final String DONE = "done";
 
+    /**
+     * The default result rendered when a target exceeds its deadline; it must
+     * be declared by the target or globally by its domain, otherwise the request
+     * is answered with a "503 Service Unavailable" status code.
+     */
+    public static final String TIMEOUT = "timeout";
+
     /**
      * An alternative name for the action, so that the user need not know the
      * name of the concrete class implementing the business logic.
@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2012-2015, Andrea Funto'. All rights reserved. See LICENSE for details.
+ */ 
+
+package org.dihedron.webmvc.annotations;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotation to be placed on {@code @Invocable} methods whose outcome can be
+ * cached for a while: the result id and the {@code @Out} values (and, 
+ * optionally, the rendered response) are cached, keyed on the values of the 
+ * selected {@code @In} parameters, and replayed to subsequent requests without 
+ * invoking the business method again; interceptors are applied as usual.
+ *
+ * @author Andrea Funto'
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+@Documented
+public @interface Cached {
+
+    /**
+     * The time to live of cached entries, in seconds.
+     *
+     * @return 
+     *   the time to live of cached entries, in seconds.
+     */
+    long ttl();
+
+    /**
+     * The time, in seconds, during which an expired entry can still be served
+     * while a single request refreshes it ("stale-while-revalidate"); by 
+     * default, expired entries are never served.
+     *
+     * @return 
+     *   the time during which expired entries can still be served, in seconds.
+     */
+    long stale() default 0;
+
+    /**
+     * The names of the {@code @In} parameters making up the cache key; by 
+     * default, all {@code @In} parameters are part of the key.
+     *
+     * @return 
+     *   the names of the {@code @In} parameters making up the cache key.
+     */
+    String[] key() default {};
+
+    /**
+     * Whether the rendered response should be cached too, in which case cache
+     * hits skip rendering altogether; only successful responses are cached.
+     *
+     * @return 
+     *   whether the rendered response should be cached too.
+     */
+    boolean rendered() default false;
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2012-2015, Andrea Funto'. All rights reserved. See LICENSE for details.
+ */ 
+
+package org.dihedron.webmvc.annotations;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotation to be placed on {@code @Invocable} methods whose responses to GET
+ * and HEAD requests should carry a strong entity tag, so that clients can 
+ * revalidate them with {@code If-None-Match} and receive a "304 Not Modified"
+ * with no body when the representation has not changed.
+ * 
+ * The entity tag is either the version of the resource, as supplied by the
+ * business method through an {@code @Out} parameter (in which case a match
+ * short-circuits rendering altogether), or a hash of the rendered response.
+ *
+ * @author Andrea Funto'
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+@Documented
+public @interface ETag {
+
+    /**
+     * The name of the {@code @Out} parameter carrying the version of the 
+     * resource; if empty, or if the business method does not set it, the entity 
+     * tag is computed by hashing the rendered response.
+     *
+     * @return 
+     *   the name of the {@code @Out} parameter carrying the resource version.
+     */
+    String version() default "";
+}
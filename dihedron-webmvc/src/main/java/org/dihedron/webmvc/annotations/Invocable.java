@@ -55,4 +55,52 @@ public @interface Invocable {
      * see {@link ValidationHandler}.
      */
     Class<? extends ValidationHandler> validator() default DefaultValidationHandler.class;
+    
+    /**
+     * Whether the method should be executed asynchronously; if so, the request 
+     * is put in asynchronous mode (see {@link javax.servlet.ServletRequest#startAsync()}) 
+     * and the interceptors, the business method and the renderer are run on a 
+     * framework-managed thread pool, so that the container thread is released 
+     * right away; this requires the filter to be declared as {@code async-supported} 
+     * in the web.xml, otherwise the method is executed synchronously.
+     * 
+     * @return
+     *   whether the method should be executed asynchronously.
+     */
+    boolean async() default false;
+    
+    /**
+     * Whether the method is idempotent, that is its outcome only depends on its 
+     * {@code @In} parameters; if so, concurrent invocations resolving the same 
+     * input values are coalesced into a single execution, whose result and 
+     * {@code @Out} values are shared by all callers. Coalescing only applies to
+     * methods whose parameters are all either pure {@code @In} or pure 
+     * {@code @Out}.
+     * 
+     * @return
+     *   whether the method is idempotent.
+     */
+    boolean idempotent() default false;
+    
+    /**
+     * The maximum time (in milliseconds) the method may run; when the deadline
+     * passes, the thread running it is interrupted and the timeout result is 
+     * rendered (see {@link #timeoutResult()}). The remaining budget is available
+     * to the method through {@code ActionContext.getRemainingTime()}; if left 
+     * to the default, the deadline of the domain applies, if any.
+     * 
+     * @return
+     *   the maximum running time, in milliseconds.
+     */
+    long timeout() default 0;
+    
+    /**
+     * The result rendered when the method exceeds its deadline; it must be 
+     * among the method's or the domain's results. If left to the default, the
+     * timeout result of the domain applies (usually {@link Action#TIMEOUT}).
+     * 
+     * @return
+     *   the result rendered on timeout.
+     */
+    String timeoutResult() default "";
 }
\ No newline at end of file
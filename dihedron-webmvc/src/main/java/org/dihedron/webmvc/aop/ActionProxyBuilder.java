@@ -98,6 +98,12 @@ public class ActionProxyBuilder {
 	 */
 	private static final String DEFAULT_PROXY_METHOD_NAME_SUFFIX = "";
 
+	/**
+	 * The name of the static field holding the table of in-flight invocations
+	 * of idempotent methods.
+	 */
+	private static final String SINGLE_FLIGHT_FIELD_NAME = "flights";
+
 	private static String actionFactoryMethodName = DEFAULT_ACTION_FACTORY_METHOD_NAME;
 	private static String proxyClassNamePrefix = DEFAULT_PROXY_CLASS_NAME_PREFIX;
 	private static String proxyClassNameSuffix = DEFAULT_PROXY_CLASS_NAME_SUFFIX;
@@ -122,6 +128,12 @@ public class ActionProxyBuilder {
 		 */
 		private boolean doValidation;
 
+		/**
+		 * Whether the generated code should only collect diagnostic information
+		 * when debug logging is enabled.
+		 */
+		private boolean lean;
+
 		/**
 		 * The Javassist object that actually compiles and creates the Proxy
 		 * class bytecode; we call this "metaclass", since it is a representaton
@@ -135,9 +147,12 @@ public class ActionProxyBuilder {
 		 * 
 		 * @param doValidation
 		 *   whether the builder will emit code to support JSR-349 validation.
+		 * @param profile
+		 *   the code generation profile.
 		 */
-		ActionProxyBuilderContext(boolean doValidation) {
+		ActionProxyBuilderContext(boolean doValidation, CodegenProfile profile) {
 			this.doValidation = doValidation;
+			this.lean = profile == CodegenProfile.LEAN;
 		}
 
 		/**
@@ -280,7 +295,9 @@ public class ActionProxyBuilder {
 			try {
 				StringBuilder code = new StringBuilder("public static final ").append(action.getCanonicalName()).append(" ").append(methodName)
 						.append("() {\n");
-				code.append("\tlogger.trace(\"entering action factory method...\");\n");
+				if (!lean) {
+					code.append("\tlogger.trace(\"entering action factory method...\");\n");
+				}
 
 				if (doValidation) {
 					// try to initialise the JSR-349 validator
@@ -310,13 +327,19 @@ public class ActionProxyBuilder {
 				// allocate
 				// a brand new one per request
 				if (hasState) {
-					code.append("\tlogger.trace(\"instantiating brand new non-cacheable object\");\n");
+					if (!lean) {
+						code.append("\tlogger.trace(\"instantiating brand new non-cacheable object\");\n");
+					}
 					code.append("\t").append(action.getCanonicalName()).append(" action = new ").append(action.getCanonicalName()).append("();\n");
 				} else {
-					code.append("\tlogger.trace(\"reusing single, cached instance\");\n");
+					if (!lean) {
+						code.append("\tlogger.trace(\"reusing single, cached instance\");\n");
+					}
 					code.append("\t").append(action.getCanonicalName()).append(" action = singleton;\n");
 				}
-				code.append("\tlogger.trace(\"... leaving factory method\");\n");
+				if (!lean) {
+					code.append("\tlogger.trace(\"... leaving factory method\");\n");
+				}
 				code.append("\treturn action;\n").append("}");
 				logger.trace("compiling code:\n\n{}\n", code);
 
@@ -443,10 +466,18 @@ public class ActionProxyBuilder {
 			logger.trace("method '{}' (action alias '{}') will be proxied by '{}'", method.getName(), actionAlias, stubMethodName);
 			try {
 
-				StringBuilder code = new StringBuilder("public static final java.lang.String ").append(stubMethodName).append("( java.lang.Object action ) {\n\n");
+				StringBuilder code = new StringBuilder("public static final java.lang.String ").append(stubMethodName).append("( java.lang.Object action, org.dihedron.webmvc.ActionContext context ) {\n\n");
 
-				code.append("\tlogger.trace(\"entering proxy method...\");\n");
-				code.append("\tjava.lang.StringBuilder trace = new java.lang.StringBuilder();\n");
+				if (lean) {
+					// diagnostic information is only collected if it is going to 
+					// be logged
+					code.append("\tboolean debug = logger.isDebugEnabled();\n");
+					code.append("\tjava.lang.StringBuilder trace = null;\n");
+					code.append("\tif(debug) {\n\t\ttrace = new java.lang.StringBuilder();\n\t}\n");
+				} else {
+					code.append("\tlogger.trace(\"entering proxy method...\");\n");
+					code.append("\tjava.lang.StringBuilder trace = new java.lang.StringBuilder();\n");
+				}
 				code.append("\tjava.lang.Object value = null;\n");
 				if (doValidation) {
 					code.append("\tjava.lang.reflect.Method methodToValidate = null;\n");
@@ -483,7 +514,7 @@ public class ActionProxyBuilder {
 					}
 					code.append(");\n");
 					code.append("\t} else {\n");
-					code.append("\t\tlogger.trace(\"no JSR-349 method validation available\");\n");
+					code.append("\t\t").append(guard()).append("logger.trace(\"no JSR-349 method validation available\");\n");
 					code.append("\t}\n\n");
 				}
 
@@ -493,17 +524,35 @@ public class ActionProxyBuilder {
 				StringBuilder validCode = new StringBuilder();
 				StringBuilder preCode = new StringBuilder();
 				StringBuilder postCode = new StringBuilder();
+				StringBuilder inputs = new StringBuilder();
+				StringBuilder outputs = new StringBuilder();
+				List<String> outputVariables = new ArrayList<>();
+				boolean coalesce = method.getAnnotation(Invocable.class).idempotent();
 				for (int i = 0; i < types.length; ++i) {
 					if (doValidation) {
 						validCode.append("\t\t\t");
 					}
 					String arg = prepareArgument(i, types[i], annotations[i], actionAlias, method, preCode, postCode, doValidation);
 					args.append(args.length() > 0 ? ", " : "").append(arg);
+					if (coalesce) {
+						if (isAnnotatedOnlyWith(annotations[i], In.class)) {
+							inputs.append(", ").append(arg);
+						} else if (isAnnotatedOnlyWith(annotations[i], Out.class)) {
+							outputs.append(outputs.length() > 0 ? ", " : "").append(arg);
+							outputVariables.add(arg);
+						} else {
+							logger.warn("method '{}' is idempotent but parameter no.{} is neither a pure @In nor a pure @Out: invocations will not be coalesced", method.getName(), i);
+							coalesce = false;
+						}
+					}
+				}
+				if (coalesce) {
+					addSingleFlightField();
 				}
 
 				code.append(preCode);
 
-				code.append("\tif(trace.length() > 0) {\n\t\ttrace.setLength(trace.length() - 2);\n\t\tlogger.debug(trace.toString());\n\t}\n\n");
+				code.append("\tif(").append(lean ? "debug && " : "").append("trace.length() > 0) {\n\t\ttrace.setLength(trace.length() - 2);\n\t\tlogger.debug(trace.toString());\n\t}\n\n");
 
 				// if validation should occur, and there are both a valid
 				// JSR-349 validator and
@@ -516,7 +565,7 @@ public class ActionProxyBuilder {
 				if (doValidation) {
 					code.append("\t//\n\t// JSR-349 parameters validation\n\t//\n");
 					code.append("\tif(methodToValidate != null) {\n");
-					code.append("\t\tlogger.trace(\"validating invocation parameters\");\n");
+					code.append("\t\t").append(guard()).append("logger.trace(\"validating invocation parameters\");\n");
 					code.append("\t\tObject[] array = validationValues.toArray(new java.lang.Object[validationValues.size()]);\n");
 					code.append("\t\tjava.util.Set violations = methodValidator.validateParameters((").append(action.getCanonicalName()).append(")$1, methodToValidate, array, new java.lang.Class[] { javax.validation.groups.Default.class });\n");
 
@@ -543,16 +592,53 @@ public class ActionProxyBuilder {
 				}
 
 				code.append("\t//\n\t// invoking proxied method\n\t//\n");
-				code.append("\tlong millis = java.lang.System.currentTimeMillis();\n");
-				code.append("\tjava.lang.String result = ((").append(action.getCanonicalName()).append(")$1).").append(method.getName()).append("(").append(args).append(");\n");
+				code.append("\torg.dihedron.webmvc.metrics.PhaseTimer.enter(org.dihedron.webmvc.metrics.Phase.ACTION);\n");
+				if (lean) {
+					code.append("\tlong millis = debug ? java.lang.System.currentTimeMillis() : 0L;\n");
+				} else {
+					code.append("\tlong millis = java.lang.System.currentTimeMillis();\n");
+				}
+				if (coalesce) {
+					// concurrent invocations with the same inputs share a single
+					// execution: the leader invokes the method, the others wait
+					// for it and reuse its result and output holders
+					code.append("\tjava.lang.String result = null;\n");
+					code.append("\torg.dihedron.webmvc.aop.SingleFlight.Flight flight = ").append(SINGLE_FLIGHT_FIELD_NAME).append(".join(new java.lang.Object[] { \"").append(method.getName()).append("\"").append(inputs).append(" });\n");
+					code.append("\tif(flight.isLeader()) {\n");
+					code.append("\t\ttry {\n");
+					code.append("\t\t\tresult = ((").append(action.getCanonicalName()).append(")$1).").append(method.getName()).append("(").append(args).append(");\n");
+					code.append("\t\t} catch(java.lang.Throwable t) {\n");
+					code.append("\t\t\tflight.fail(t);\n");
+					code.append("\t\t\tthrow t;\n");
+					code.append("\t\t}\n");
+					// Javassist rejects empty array initialisers
+					code.append("\t\tflight.complete(result, ").append(outputs.length() > 0 ? "new java.lang.Object[] { " + outputs + " }" : "new java.lang.Object[0]").append(");\n");
+					code.append("\t} else {\n");
+					code.append("\t\t").append(guard()).append("logger.debug(\"coalescing invocation with an identical one in progress\");\n");
+					code.append("\t\tif(flight.await($2.remainingTime())) {\n");
+					code.append("\t\t\tresult = flight.getResult();\n");
+					if (!outputVariables.isEmpty()) {
+						code.append("\t\t\tjava.lang.Object[] shared = flight.getOutputs();\n");
+						for (int i = 0; i < outputVariables.size(); ++i) {
+							code.append("\t\t\t").append(outputVariables.get(i)).append(" = (org.dihedron.webmvc.aop.$)shared[").append(i).append("];\n");
+						}
+					}
+					code.append("\t\t} else {\n");
+					code.append("\t\t\tresult = ((").append(action.getCanonicalName()).append(")$1).").append(method.getName()).append("(").append(args).append(");\n");
+					code.append("\t\t}\n");
+					code.append("\t}\n");
+				} else {
+					code.append("\tjava.lang.String result = ((").append(action.getCanonicalName()).append(")$1).").append(method.getName()).append("(").append(args).append(");\n");
+				}
 
+				code.append("\torg.dihedron.webmvc.metrics.PhaseTimer.enter(org.dihedron.webmvc.metrics.Phase.OUTPUTS);\n");
 				code.append("\n");
 
 				if (doValidation) {
 					// now apply JSR-349 validation to result
 					code.append("\t//\n\t// JSR-349 result validation\n\t//\n");
 					code.append("\tif(methodToValidate != null) {\n");
-					code.append("\t\tlogger.trace(\"validating invocation results\");\n");
+					code.append("\t\t").append(guard()).append("logger.trace(\"validating invocation results\");\n");
 					code.append("\t\tjava.util.Set violations = methodValidator.validateReturnValue((").append(action.getCanonicalName()).append(")$1, methodToValidate, result, new java.lang.Class[] { javax.validation.groups.Default.class });\n");
 
 					code.append("\t\tif(violations.size() > 0) {\n");
@@ -581,8 +667,10 @@ public class ActionProxyBuilder {
 					code.append(postCode);
 				}
 
-				code.append("\tlogger.debug(\"result is '{}' (execution took {} ms)\", result, new java.lang.Long((java.lang.System.currentTimeMillis() - millis)).toString());\n");
-				code.append("\tlogger.trace(\"... leaving proxy method\");\n");
+				code.append("\t").append(guard()).append("logger.debug(\"result is '{}' (execution took {} ms)\", result, new java.lang.Long((java.lang.System.currentTimeMillis() - millis)).toString());\n");
+				if (!lean) {
+					code.append("\tlogger.trace(\"... leaving proxy method\");\n");
+				}
 				code.append("\treturn result;\n");
 
 				code.append("}");
@@ -602,6 +690,40 @@ public class ActionProxyBuilder {
 			}
 		}
 
+		/**
+		 * Adds the table of in-flight invocations to the proxy class, unless 
+		 * already present; the table is shared by all idempotent methods of the 
+		 * action, whose flights are told apart by the method name.
+		 * 
+		 * @throws CannotCompileException
+		 */
+		private void addSingleFlightField() throws CannotCompileException {
+			try {
+				metaclass.getDeclaredField(SINGLE_FLIGHT_FIELD_NAME);
+			} catch (NotFoundException e) {
+				logger.trace("adding in-flight invocations table to proxy class");
+				CtField flights = CtField.make("private static final org.dihedron.webmvc.aop.SingleFlight " + SINGLE_FLIGHT_FIELD_NAME
+						+ " = new org.dihedron.webmvc.aop.SingleFlight();", metaclass);
+				metaclass.addField(flights);
+			}
+		}
+
+		/**
+		 * Returns whether the given parameter annotations include the given 
+		 * annotation type and no other framework annotation.
+		 */
+		private boolean isAnnotatedOnlyWith(Annotation[] annotations, Class<? extends Annotation> type) {
+			boolean found = false;
+			for (Annotation annotation : annotations) {
+				if (type.isInstance(annotation)) {
+					found = true;
+				} else if (annotation instanceof In || annotation instanceof Out || annotation instanceof InOut || annotation instanceof Model) {
+					return false;
+				}
+			}
+			return found;
+		}
+
 		public ActionProxy getActionProxy() throws DeploymentException {
 
 			ActionProxy proxy = new ActionProxy();
@@ -750,7 +872,7 @@ public class ActionProxyBuilder {
 					.append(Types.getAsString(type)).append(")\n\t//\n");
 
 			logger.trace("{}-{} parameter is annotated with @In('{}')", i, i==1 ? "st" : i==2 ? "nd" : i==3 ? "rd" : "th", in.value());
-			preCode.append("\tvalue = org.dihedron.webmvc.ActionContext.findValue(\"").append(parameter)
+			preCode.append("\tvalue = $2.find(\"").append(parameter)
 					.append("\", new org.dihedron.webmvc.protocol.Scope[] {");
 			boolean first = true;
 			for (Scope scope : in.from()) {
@@ -766,7 +888,7 @@ public class ActionProxyBuilder {
 
 			preCode.append("\t").append(Types.getAsRawType(type)).append(" ").append(variable).append(" = (").append(Types.getAsRawType(type))
 					.append(") value;\n");
-			preCode.append("\ttrace.append(\"").append(variable).append("\").append(\" => '\").append(").append(variable)
+			preCode.append("\t").append(guard()).append("trace.append(\"").append(variable).append("\").append(\" => '\").append(").append(variable)
 					.append(").append(\"', \");\n");
 
 			//
@@ -847,10 +969,10 @@ public class ActionProxyBuilder {
 					.append(Types.getAsString(wrapped)).append(") into scope ").append(scope.name()).append("\n\t//\n");
 			postCode.append("\tvalue = ").append(variable).append(".get();\n");
 			postCode.append("\tif(value != null) {\n");
-			postCode.append("\t\torg.dihedron.webmvc.ActionContext.setValue(\"").append(out.value())
+			postCode.append("\t\t$2.set(\"").append(out.value())
 					.append("\", value, org.dihedron.webmvc.protocol.Scope.").append(scope.name()).append(");\n");
 			postCode.append("\t} else if(").append(variable).append(".isReset()) {\n");
-			postCode.append("\t\torg.dihedron.webmvc.ActionContext.removeValue(\"").append(parameter).append("\", ")
+			postCode.append("\t\t$2.remove(\"").append(parameter).append("\", ")
 					.append("org.dihedron.webmvc.protocol.Scope.").append(scope.name()).append(");\n");
 			postCode.append("\t}\n");
 			postCode.append("\n");
@@ -907,7 +1029,7 @@ public class ActionProxyBuilder {
 					.append(Types.getAsString(wrapped)).append(")\n\t//\n");
 
 			logger.trace("{}-{} parameter is annotated with @In('{}') and @Out('{}')", i, i==1 ? "st" : i==2 ? "nd" : i==3 ? "rd" : "th", in.value(), out.value());
-			preCode.append("\tvalue = org.dihedron.webmvc.ActionContext.findValue(\"").append(parameter)
+			preCode.append("\tvalue = $2.find(\"").append(parameter)
 					.append("\", new org.dihedron.webmvc.protocol.Scope[] {");
 			boolean first = true;
 			for (Scope scope : in.from()) {
@@ -925,7 +1047,7 @@ public class ActionProxyBuilder {
 			// would be dropped by type erasure anyway...)
 			preCode.append("\torg.dihedron.webmvc.aop.$ ").append(variable).append(" = new org.dihedron.webmvc.aop.$();\n");
 			preCode.append("\t").append(variable).append(".set(value);\n");
-			preCode.append("\ttrace.append(\"").append(variable).append("\").append(\" => '\").append(").append(variable)
+			preCode.append("\t").append(guard()).append("trace.append(\"").append(variable).append("\").append(\" => '\").append(").append(variable)
 					.append(".get()).append(\"', \");\n");
 
 			//
@@ -950,10 +1072,10 @@ public class ActionProxyBuilder {
 					.append(Types.getAsString(wrapped)).append(") into scope ").append(scope.name()).append("\n\t//\n");
 			postCode.append("\tvalue = ").append(variable).append(".get();\n");
 			postCode.append("\tif(value != null) {\n");
-			postCode.append("\t\torg.dihedron.webmvc.ActionContext.setValue(\"").append(out.value())
+			postCode.append("\t\t$2.set(\"").append(out.value())
 					.append("\", value, org.dihedron.webmvc.protocol.Scope.").append(scope.name()).append(");\n");
 			postCode.append("\t} else if(").append(variable).append(".isReset()) {\n");
-			postCode.append("\t\torg.dihedron.webmvc.ActionContext.removeValue(\"").append(parameter).append("\", ")
+			postCode.append("\t\t$2.remove(\"").append(parameter).append("\", ")
 					.append("org.dihedron.webmvc.protocol.Scope.").append(scope.name()).append(");\n");
 			postCode.append("\t}\n");
 			postCode.append("\n");
@@ -1000,7 +1122,7 @@ public class ActionProxyBuilder {
 					.append(Types.getAsString(wrapped)).append(">)\n\t//\n");
 
 			logger.trace("{}-{} parameter is annotated with @InOut('{}')", i, i==1 ? "st" : i==2 ? "nd" : i==3 ? "rd" : "th", inout.value());
-			preCode.append("\tvalue = org.dihedron.webmvc.ActionContext.findValue(\"").append(parameter)
+			preCode.append("\tvalue = $2.find(\"").append(parameter)
 					.append("\", new org.dihedron.webmvc.protocol.Scope[] {");
 			boolean first = true;
 			for (Scope scope : inout.from()) {
@@ -1018,7 +1140,7 @@ public class ActionProxyBuilder {
 			// would be dropped by type erasure anyway...)
 			preCode.append("\torg.dihedron.webmvc.aop.$ ").append(variable).append(" = new org.dihedron.webmvc.aop.$();\n");
 			preCode.append("\t").append(variable).append(".set(value);\n");
-			preCode.append("\ttrace.append(\"").append(variable).append("\").append(\" => '\").append(").append(variable)
+			preCode.append("\t").append(guard()).append("trace.append(\"").append(variable).append("\").append(\" => '\").append(").append(variable)
 					.append(".get()).append(\"', \");\n");
 
 			//
@@ -1041,10 +1163,10 @@ public class ActionProxyBuilder {
 					.append(Types.getAsString(wrapped)).append(") into scope ").append(inout.to().name()).append("\n\t//\n");
 			postCode.append("\tvalue = ").append(variable).append(".get();\n");
 			postCode.append("\tif(value != null) {\n");
-			postCode.append("\t\torg.dihedron.webmvc.ActionContext.setValue(\"").append(inout.value())
+			postCode.append("\t\t$2.set(\"").append(inout.value())
 					.append("\", value, org.dihedron.webmvc.protocol.Scope.").append(inout.to().name()).append(");\n");
 			postCode.append("\t} else if(").append(variable).append(".isReset()) {\n");
-			postCode.append("\t\torg.dihedron.webmvc.ActionContext.removeValue(\"").append(parameter).append("\", ")
+			postCode.append("\t\t$2.remove(\"").append(parameter).append("\", ")
 					.append("org.dihedron.webmvc.protocol.Scope.").append(inout.to().name()).append(");\n");
 			postCode.append("\t}\n");
 			postCode.append("\n");
@@ -1086,7 +1208,7 @@ public class ActionProxyBuilder {
 
 			// retrieve the applicable parameters from the specified scopes
 			logger.trace("{}-{} parameter is annotated with @Model('{}')", i, i==1 ? "st" : i==2 ? "nd" : i==3 ? "rd" : "th", pattern);
-			preCode.append("\tjava.util.Map map = org.dihedron.webmvc.ActionContext.matchValues(\"").append(pattern)
+			preCode.append("\tjava.util.Map map = $2.match(\"").append(pattern)
 					.append("\", new org.dihedron.webmvc.protocol.Scope[] {");
 			boolean first = true;
 			for (Scope scope : model.from()) {
@@ -1118,7 +1240,7 @@ public class ActionProxyBuilder {
 			preCode.append("\t\tif(regex.matches(key)) {\n");
 			preCode.append("\t\t\tString[] matches = (String[])regex.getAllMatches(key).get(0);\n");
 			preCode.append("\t\t\tkey = matches[0];\n");
-			preCode.append("\t\t\tlogger.trace(\"key after masking out is '{}'\", key);\n");
+			preCode.append("\t\t\t").append(guard()).append("logger.trace(\"key after masking out is '{}'\", key);\n");
 			// create an OGNL interpreter and launch it against the model object
 			preCode.append("\t\t\t// create the OGNL expression\n");
 			preCode.append("\t\t\torg.dihedron.webmvc.ognl.OgnlExpression ognl = new org.dihedron.webmvc.ognl.OgnlExpression(key);\n");
@@ -1152,7 +1274,7 @@ public class ActionProxyBuilder {
 			preCode.append("\t\t}\n");
 			preCode.append("\t}\n\n");
 
-			preCode.append("\ttrace.append(\"").append(variable).append("\").append(\" => '\").append(").append(variable)
+			preCode.append("\t").append(guard()).append("trace.append(\"").append(variable).append("\").append(\" => '\").append(").append(variable)
 					.append(").append(\"', \");\n");
 
 			preCode.append("\n");
@@ -1208,7 +1330,7 @@ public class ActionProxyBuilder {
 
 			// retrieve the applicable parameters from the specified scopes
 			logger.trace("{}-{} parameter is annotated with @Model('{}')", i, i==1 ? "st" : i==2 ? "nd" : i==3 ? "rd" : "th", pattern);
-			preCode.append("\tjava.util.Map map = org.dihedron.webmvc.ActionContext.matchValues(\"").append(pattern)
+			preCode.append("\tjava.util.Map map = $2.match(\"").append(pattern)
 					.append("\", new org.dihedron.webmvc.protocol.Scope[] {");
 			boolean first = true;
 			for (Scope scope : model.from()) {
@@ -1241,7 +1363,7 @@ public class ActionProxyBuilder {
 			preCode.append("\t\tif(regex.matches(key)) {\n");
 			preCode.append("\t\t\tString[] matches = (String[])regex.getAllMatches(key).get(0);\n");
 			preCode.append("\t\t\tkey = matches[0];\n");
-			preCode.append("\t\t\tlogger.trace(\"key after masking out is '{}'\", key);\n");
+			preCode.append("\t\t\t").append(guard()).append("logger.trace(\"key after masking out is '{}'\", key);\n");
 
 			// // if there is a mask, remove it from the key name
 			// preCode.append("\t\tif(org.dihedron.core.utils.Strings.isValid(\"").append(mask).append("\")) {\n");
@@ -1285,7 +1407,7 @@ public class ActionProxyBuilder {
 			preCode.append("\t\t}\n");
 			preCode.append("\t}\n\n");
 
-			preCode.append("\ttrace.append(\"").append(variable).append("\").append(\" => '\").append(").append(variable)
+			preCode.append("\t").append(guard()).append("trace.append(\"").append(variable).append("\").append(\" => '\").append(").append(variable)
 					.append(".get()).append(\"', \");\n");
 
 			preCode.append("\n");
@@ -1300,11 +1422,11 @@ public class ActionProxyBuilder {
 					.append(Types.getAsString(wrapped)).append(") into scope ").append(scope.name()).append("\n\t//\n");
 			postCode.append("\tvalue = ").append(variable).append(".get();\n");
 			postCode.append("\tif(value != null) {\n");
-			postCode.append("\t\torg.dihedron.webmvc.ActionContext.setValue( \"").append(out.value())
+			postCode.append("\t\t$2.set( \"").append(out.value())
 					.append("\", value, org.dihedron.webmvc.protocol.Scope.").append(scope.name()).append(" );\n");
 			postCode.append("\t} else if(").append(variable).append(".isReset()) {\n");
 			// postCode.append("\t\torg.dihedron.webmvc.ActionContext.removeValueFromScope( \"").append(parameter).append("\", ").append("org.dihedron.webmvc.protocol.Scope.").append(scope.name()).append(" );\n");
-			postCode.append("\t\torg.dihedron.webmvc.ActionContext.removeValue( \"").append(parameter).append("\", ")
+			postCode.append("\t\t$2.remove( \"").append(parameter).append("\", ")
 					.append("org.dihedron.webmvc.protocol.Scope.").append(scope.name()).append(" );\n");
 			postCode.append("\t}\n");
 			postCode.append("\n");
@@ -1321,7 +1443,7 @@ public class ActionProxyBuilder {
 			if (!type.isPrimitive()) {
 				logger.trace("{}-{} parameter will be passed in as a null object", i, i==1 ? "st" : i==2 ? "nd" : i==3 ? "rd" : "th");
 				code.append("\t").append(Types.getAsString(type)).append(" arg").append(i).append(" = null;\n");
-				code.append("\ttrace.append(\"arg").append(i).append("\").append(\" => null, \");\n");
+				code.append("\t").append(guard()).append("trace.append(\"arg").append(i).append("\").append(\" => null, \");\n");
 				if (doValidation) {
 					code.append("\t// non annotated object reference parameter\n");
 					code.append("\tif(validationValues != null) validationValues.add(null);\n");
@@ -1331,7 +1453,7 @@ public class ActionProxyBuilder {
 				if (type == Boolean.TYPE) {
 					logger.trace("{}-{} parameter will be passed in as a boolean 'false'", i, i==1 ? "st" : i==2 ? "nd" : i==3 ? "rd" : "th");
 					code.append("\tboolean arg").append(i).append(" = false;\n");
-					code.append("\ttrace.append(\"arg").append(i).append("\").append(\" => false, \");\n");
+					code.append("\t").append(guard()).append("trace.append(\"arg").append(i).append("\").append(\" => false, \");\n");
 					if (doValidation) {
 						code.append("\t// non annotated boolean parameter\n");
 						code.append("\tif(validationValues != null) validationValues.add(new java.lang.Boolean(false));\n");
@@ -1339,7 +1461,7 @@ public class ActionProxyBuilder {
 				} else if (type == Character.TYPE) {
 					logger.trace("{}-{} parameter will be passed in as a character ' '", i, i==1 ? "st" : i==2 ? "nd" : i==3 ? "rd" : "th");
 					code.append("\tchar arg").append(i).append(" = ' ';\n");
-					code.append("\ttrace.append(\"arg").append(i).append("\").append(\" => ' ', \");\n");
+					code.append("\t").append(guard()).append("trace.append(\"arg").append(i).append("\").append(\" => ' ', \");\n");
 					if (doValidation) {
 						code.append("\t// non annotated character parameter\n");
 						code.append("\tif(validationValues != null) validationValues.add(new java.lang.Character' ');\n");
@@ -1347,7 +1469,7 @@ public class ActionProxyBuilder {
 				} else if (type == Byte.TYPE) {
 					logger.trace("{}-{} parameter will be passed in as a byte '0'", i, i==1 ? "st" : i==2 ? "nd" : i==3 ? "rd" : "th");
 					code.append("\tbyte arg").append(i).append(" = 0;\n");
-					code.append("\ttrace.append(\"arg").append(i).append("\").append(\" => 0, \");\n");
+					code.append("\t").append(guard()).append("trace.append(\"arg").append(i).append("\").append(\" => 0, \");\n");
 					if (doValidation) {
 						code.append("\t// non annotated byte parameter\n");
 						code.append("\tif(validationValues != null) validationValues.add(new java.lang.Byte(0));\n");
@@ -1355,7 +1477,7 @@ public class ActionProxyBuilder {
 				} else if (type == Short.TYPE) {
 					logger.trace("{}-{} parameter will be passed in as a short '0'", i, i==1 ? "st" : i==2 ? "nd" : i==3 ? "rd" : "th");
 					code.append("\tshort arg").append(i).append(" = 0;\n");
-					code.append("\ttrace.append(\"arg").append(i).append("\").append(\" => 0, \");\n");
+					code.append("\t").append(guard()).append("trace.append(\"arg").append(i).append("\").append(\" => 0, \");\n");
 					if (doValidation) {
 						code.append("\t// non annotated short parameter\n");
 						code.append("\tif(validationValues != null) validationValues.add(new java.lang.Short(0));\n");
@@ -1363,7 +1485,7 @@ public class ActionProxyBuilder {
 				} else if (type == Integer.TYPE) {
 					logger.trace("{}-{} parameter will be passed in as an integer '0'", i, i==1 ? "st" : i==2 ? "nd" : i==3 ? "rd" : "th");
 					code.append("\tint arg").append(i).append(" = 0;\n");
-					code.append("\ttrace.append(\"arg").append(i).append("\").append(\" => 0, \");\n");
+					code.append("\t").append(guard()).append("trace.append(\"arg").append(i).append("\").append(\" => 0, \");\n");
 					if (doValidation) {
 						code.append("\t// non annotated integer parameter\n");
 						code.append("\tif(validationValues != null) validationValues.add(new java.lang.Integer(0));\n");
@@ -1371,7 +1493,7 @@ public class ActionProxyBuilder {
 				} else if (type == Long.TYPE) {
 					logger.trace("{}-{} parameter will be passed in as a long '0'", i, i==1 ? "st" : i==2 ? "nd" : i==3 ? "rd" : "th");
 					code.append("\tlong arg").append(i).append(" = 0;\n");
-					code.append("\ttrace.append(\"arg").append(i).append("\").append(\" => 0, \");\n");
+					code.append("\t").append(guard()).append("trace.append(\"arg").append(i).append("\").append(\" => 0, \");\n");
 					if (doValidation) {
 						code.append("\t// non annotated long parameter\n");
 						code.append("\tif(validationValues != null) validationValues.add(new java.lang.Long(0));\n");
@@ -1379,7 +1501,7 @@ public class ActionProxyBuilder {
 				} else if (type == Float.TYPE) {
 					logger.trace("{}-{} parameter will be passed in as a float '0.0'", i, i==1 ? "st" : i==2 ? "nd" : i==3 ? "rd" : "th");
 					code.append("\tfloat arg").append(i).append(" = 0.0;\n");
-					code.append("\ttrace.append(\"arg").append(i).append("\").append(\" => 0.0, \");\n");
+					code.append("\t").append(guard()).append("trace.append(\"arg").append(i).append("\").append(\" => 0.0, \");\n");
 					if (doValidation) {
 						code.append("\t// non annotated float parameter\n");
 						code.append("\tif(validationValues != null) validationValues.add(new java.lang.Float(0.0));\n");
@@ -1387,7 +1509,7 @@ public class ActionProxyBuilder {
 				} else if (type == Double.TYPE) {
 					logger.trace("{}-{} parameter will be passed in as a float '0.0'", i, i==1 ? "st" : i==2 ? "nd" : i==3 ? "rd" : "th");
 					code.append("\tdouble arg").append(i).append(" = 0.0;\n");
-					code.append("\ttrace.append(\"arg").append(i).append("\").append(\" => 0.0, \");\n");
+					code.append("\t").append(guard()).append("trace.append(\"arg").append(i).append("\").append(\" => 0.0, \");\n");
 					if (doValidation) {
 						code.append("\t// non annotated double parameter\n");
 						code.append("\tif(validationValues != null) validationValues.add(new java.lang.Double(0.0));\n");
@@ -1398,6 +1520,18 @@ public class ActionProxyBuilder {
 			return "arg" + i;
 		}
 
+		/**
+		 * Returns the condition to be prepended to statements that only produce
+		 * diagnostic information, if any.
+		 * 
+		 * @return
+		 *   the guard for diagnostic statements in lean mode, an empty string 
+		 *   otherwise.
+		 */
+		private String guard() {
+			return lean ? "if(debug) " : "";
+		}
+
 		private String getActionAlias() {
 			String alias = action.getSimpleName();
 			Action annotation = action.getAnnotation(Action.class);
@@ -1466,6 +1600,11 @@ public class ActionProxyBuilder {
 	 * Whether the builder shoud emit code to support JSR-349 validation.
 	 */
 	private boolean doValidation = DEFAULT_DO_VALIDATION;
+	
+	/**
+	 * The code generation profile.
+	 */
+	private CodegenProfile profile = CodegenProfile.STANDARD;
 
 	/**
 	 * Default constructor, initialises the internal Javassist class pool with
@@ -1509,6 +1648,19 @@ public class ActionProxyBuilder {
 		return this;
 	}
 	
+	/**
+	 * Sets the code generation profile of the builder.
+	 * 
+	 * @param profile
+	 *   the code generation profile.
+	 * @return
+	 *   the object itself, for method chaining.
+	 */
+	public ActionProxyBuilder withProfile(CodegenProfile profile) {
+		this.profile = profile;
+		return this;
+	}
+	
 	/**
 	 * Starts the construction of a new ActionProxy around the given action class.
 	 * 
@@ -1520,6 +1672,6 @@ public class ActionProxyBuilder {
 	 * @throws DeploymentException
 	 */
 	public ActionProxyBuilderContext build(Class<?> action) throws DeploymentException {
-		return this.new ActionProxyBuilderContext(doValidation).on(action);
+		return this.new ActionProxyBuilderContext(doValidation, profile).on(action);
 	}
 }
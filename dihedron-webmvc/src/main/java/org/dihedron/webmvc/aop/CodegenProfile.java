@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2012-2015, Andrea Funto'. All rights reserved. See LICENSE for details.
+ */
+
+package org.dihedron.webmvc.aop;
+
+import org.dihedron.core.strings.Strings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The enumeration of supported code generation profiles for action stubs, as 
+ * set via the {@code webmvc:codegen-profile} initialisation parameter.
+ *
+ * @author Andrea Funto'
+ */
+public enum CodegenProfile {
+
+	/**
+	 * Stubs always collect and log a description of the invocation arguments 
+	 * and the execution time, so that they are available as soon as the log 
+	 * level is raised; this is the default.
+	 */
+	STANDARD,
+
+	/**
+	 * Stubs only collect diagnostic information when their logger's debug level
+	 * is enabled, and trace-level messages about the stubs' own flow are left 
+	 * out of the generated code altogether; this is meant for production, where 
+	 * diagnostic code would only produce garbage on each request.
+	 */
+	LEAN;
+
+	/**
+	 * Tries to map the given string to an enumeration value.
+	 *
+	 * @param name
+	 *   the name to be mapped to an enumeration value.
+	 * @return
+	 *   the enumeration value if one fits the name, {@link #STANDARD} if none
+	 *   applies or the input string is null.
+	 */
+	public static CodegenProfile fromString(String name) {
+		if(Strings.isValid(name)) {
+			String internal = name.trim();
+			for(CodegenProfile profile : CodegenProfile.values()) {
+				if(profile.name().equalsIgnoreCase(internal)) {
+					logger.trace("name '{}' corresponds to code generation profile {}", name, profile.name());
+					return profile;
+				}
+			}
+			logger.warn("no code generation profile found corresponding to name '{}', using default", name);
+		}
+		return STANDARD;
+	}
+
+	/**
+	 * The logger.
+	 */
+	private static final Logger logger = LoggerFactory.getLogger(CodegenProfile.class);
+}
@@ -0,0 +1,317 @@
+/*
+ * Copyright (c) 2012-2015, Andrea Funto'. All rights reserved. See LICENSE for details.
+ */
+
+package org.dihedron.webmvc.aop;
+
+import java.lang.reflect.UndeclaredThrowableException;
+import java.nio.channels.ClosedByInterruptException;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.dihedron.webmvc.exceptions.ControlFlowException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A table of in-flight invocations of idempotent business methods, used by
+ * the generated method stubs to coalesce concurrent invocations having the
+ * same inputs: the first thread to join a flight (the "leader") actually
+ * invokes the business method, while all the others wait for it to complete
+ * and then share its result and output parameters. Flights are removed from
+ * the table as soon as they complete, so the results are never cached beyond
+ * the lifetime of the leader's invocation.
+ * 
+ * Waiting threads never wait longer than their own request's deadline, and 
+ * stop waiting as soon as they are interrupted; if the leader was itself 
+ * interrupted (e.g. because its own request was cancelled), they invoke the
+ * business method on their own instead of sharing its failure.
+ *
+ * @author Andrea Funto'
+ */
+public class SingleFlight {
+
+	/**
+	 * The logger.
+	 */
+	private static final Logger logger = LoggerFactory.getLogger(SingleFlight.class);
+
+	/**
+	 * The key of a flight, i.e. the method name and the values of its input
+	 * parameters; arrays (e.g. multi-valued form fields) are compared by value.
+	 */
+	private static final class Key {
+
+		/**
+		 * The method name and the input values.
+		 */
+		private final Object[] values;
+
+		/**
+		 * The cached hash code.
+		 */
+		private final int hash;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param values
+		 *   the method name and the input values.
+		 */
+		Key(Object[] values) {
+			this.values = values;
+			this.hash = Arrays.deepHashCode(values);
+		}
+
+		/**
+		 * @see java.lang.Object#hashCode()
+		 */
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		/**
+		 * @see java.lang.Object#equals(java.lang.Object)
+		 */
+		@Override
+		public boolean equals(Object other) {
+			return other instanceof Key && ((Key)other).hash == hash && Arrays.deepEquals(values, ((Key)other).values);
+		}
+	}
+
+	/**
+	 * An in-flight invocation.
+	 */
+	public final class Flight {
+
+		/**
+		 * The flight key.
+		 */
+		private final Key key;
+
+		/**
+		 * The thread actually invoking the business method.
+		 */
+		private final Thread leader = Thread.currentThread();
+
+		/**
+		 * The latch on which the other threads wait.
+		 */
+		private final CountDownLatch done = new CountDownLatch(1);
+
+		/**
+		 * The result of the invocation.
+		 */
+		private String result;
+
+		/**
+		 * The output parameters' holders, as filled by the business method.
+		 */
+		private Object[] outputs;
+
+		/**
+		 * The failure of the invocation, if any.
+		 */
+		private Throwable failure;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param key
+		 *   the flight key.
+		 */
+		private Flight(Key key) {
+			this.key = key;
+		}
+
+		/**
+		 * Returns whether the current thread is the one that must invoke the
+		 * business method.
+		 *
+		 * @return
+		 *   whether the current thread leads the flight.
+		 */
+		public boolean isLeader() {
+			return leader == Thread.currentThread();
+		}
+
+		/**
+		 * Completes the flight successfully, waking up all waiting threads.
+		 *
+		 * @param result
+		 *   the result of the business method.
+		 * @param outputs
+		 *   the output parameters' holders; they must not be modified afterwards.
+		 */
+		public void complete(String result, Object[] outputs) {
+			this.result = result;
+			this.outputs = outputs;
+			land();
+		}
+
+		/**
+		 * Completes the flight with a failure, which is re-thrown to all waiting
+		 * threads.
+		 *
+		 * @param failure
+		 *   the failure of the business method.
+		 */
+		public void fail(Throwable failure) {
+			this.failure = failure;
+			land();
+		}
+
+		/**
+		 * Waits for the leader to complete the flight, for at most the given 
+		 * time.
+		 *
+		 * @param timeout
+		 *   the maximum time to wait, in milliseconds (usually the time left 
+		 *   before the request's deadline), or {@link Long#MAX_VALUE} to wait 
+		 *   with no time limit.
+		 * @return
+		 *   whether the outcome of the flight can be shared; if {@code false},
+		 *   the leader was interrupted and the current thread must invoke the 
+		 *   business method on its own.
+		 * @throws InterruptedException
+		 *   if the current thread is interrupted while waiting.
+		 * @throws ControlFlowException
+		 *   if the flight does not complete within the given time.
+		 */
+		public boolean await(long timeout) throws InterruptedException, ControlFlowException {
+			if(timeout == Long.MAX_VALUE) {
+				done.await();
+			} else if(!done.await(timeout, TimeUnit.MILLISECONDS)) {
+				logger.debug("coalesced invocation of '{}' did not complete within {} ms", key.values[0], timeout);
+				throw ControlFlowException.TIMEOUT;
+			}
+			if(failure != null && isInterruption(failure)) {
+				logger.debug("leader of coalesced invocation of '{}' was interrupted, invoking on its own", key.values[0]);
+				return false;
+			}
+			return true;
+		}
+
+		/**
+		 * Returns the result of the flight; if the leader failed, a new exception
+		 * of the same type, having the leader's as its cause, is thrown in its 
+		 * place, so that the leader's exception is never shared across threads. 
+		 * It must only be called after {@link #await(long)} has returned 
+		 * {@code true}.
+		 *
+		 * @return
+		 *   the result of the business method.
+		 * @throws Exception
+		 *   the exception thrown by the business method, if any.
+		 */
+		public String getResult() throws Exception {
+			if(failure != null) {
+				Throwable copy = reproduce(failure);
+				if(copy instanceof Exception) {
+					throw (Exception)copy;
+				} else if(copy instanceof Error) {
+					throw (Error)copy;
+				}
+				throw new UndeclaredThrowableException(copy);
+			}
+			logger.trace("sharing result '{}' of coalesced invocation", result);
+			return result;
+		}
+
+		/**
+		 * Returns the output parameters' holders, as filled by the leader; it
+		 * must only be called after {@link #await(long)} has returned {@code true}.
+		 *
+		 * @return
+		 *   the output parameters' holders.
+		 */
+		public Object[] getOutputs() {
+			return outputs;
+		}
+
+		/**
+		 * Removes the flight from the table and wakes up all waiting threads.
+		 */
+		private void land() {
+			flights.remove(key, this);
+			done.countDown();
+		}
+	}
+
+	/**
+	 * Returns whether the given failure was caused by an interrupt.
+	 *
+	 * @param failure
+	 *   the failure.
+	 * @return
+	 *   whether the failure, or any of its causes, is an interruption.
+	 */
+	private static boolean isInterruption(Throwable failure) {
+		for(Throwable t = failure; t != null; t = t.getCause()) {
+			if(t instanceof InterruptedException || t instanceof ClosedByInterruptException) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Creates a new exception of the same type as the given one, having it as
+	 * its cause; preallocated control flow exceptions, and exceptions that 
+	 * have no public constructor taking a message, are returned as they are.
+	 *
+	 * @param failure
+	 *   the exception to be reproduced.
+	 * @return
+	 *   the new exception, or the given one if it cannot be reproduced.
+	 */
+	private static Throwable reproduce(Throwable failure) {
+		if(failure instanceof ControlFlowException) {
+			return failure;
+		}
+		Class<? extends Throwable> type = failure.getClass();
+		try {
+			return type.getConstructor(String.class, Throwable.class).newInstance(failure.getMessage(), failure);
+		} catch(ReflectiveOperationException | RuntimeException e) {
+			logger.trace("exception '{}' has no (String, Throwable) constructor", type.getName());
+		}
+		try {
+			Throwable copy = type.getConstructor(String.class).newInstance(failure.getMessage());
+			copy.initCause(failure);
+			return copy;
+		} catch(ReflectiveOperationException | RuntimeException e) {
+			logger.trace("exception '{}' cannot be reproduced, sharing the original", type.getName());
+		}
+		return failure;
+	}
+
+	/**
+	 * The flights currently in progress.
+	 */
+	private final ConcurrentMap<Key, Flight> flights = new ConcurrentHashMap<>();
+
+	/**
+	 * Joins the flight for the given method and inputs, starting a new one (led
+	 * by the current thread) if none is in progress.
+	 *
+	 * @param values
+	 *   the method name, followed by the values of its input parameters.
+	 * @return
+	 *   the flight; use {@link Flight#isLeader()} to know whether the current
+	 *   thread must invoke the business method or wait for its result.
+	 */
+	public Flight join(Object[] values) {
+		Key key = new Key(values);
+		Flight flight = new Flight(key);
+		Flight existing = flights.putIfAbsent(key, flight);
+		if(existing != null) {
+			logger.trace("joining in-flight invocation of '{}'", values[0]);
+			return existing;
+		}
+		return flight;
+	}
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2012-2015, Andrea Funto'. All rights reserved. See LICENSE for details.
+ */
+
+package org.dihedron.webmvc.cache;
+
+import java.util.Arrays;
+
+/**
+ * The key of a cached response, made up of the target id and the values of
+ * the {@code @In} parameters selected as key; array values (e.g. multi-valued
+ * form fields) are compared by content.
+ *
+ * @author Andrea Funto'
+ */
+public final class CacheKey {
+
+	/**
+	 * The target id, followed by the key values.
+	 */
+	private final Object[] values;
+
+	/**
+	 * The cached hash code.
+	 */
+	private final int hash;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param values
+	 *   the target id, followed by the key values.
+	 */
+	CacheKey(Object[] values) {
+		this.values = values;
+		this.hash = Arrays.deepHashCode(values);
+	}
+
+	/**
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
+	/**
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(Object other) {
+		return other instanceof CacheKey && ((CacheKey)other).hash == hash && Arrays.deepEquals(values, ((CacheKey)other).values);
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return Arrays.deepToString(values);
+	}
+}
@@ -0,0 +1,299 @@
+/*
+ * Copyright (c) 2012-2015, Andrea Funto'. All rights reserved. See LICENSE for details.
+ */
+
+package org.dihedron.webmvc.cache;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.dihedron.webmvc.ActionContext;
+import org.dihedron.webmvc.annotations.Cached;
+import org.dihedron.webmvc.annotations.In;
+import org.dihedron.webmvc.annotations.InOut;
+import org.dihedron.webmvc.annotations.Out;
+import org.dihedron.webmvc.exceptions.DeploymentException;
+import org.dihedron.webmvc.exceptions.WebMVCException;
+import org.dihedron.webmvc.protocol.Scope;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The caching policy of a {@code @Cached} target, resolved at deployment time
+ * from the annotations on the business method and its parameters: it knows
+ * how to build the cache key out of the current {@code @In} values, how to
+ * capture the {@code @Out} values after the business method has run and how
+ * to replay them on cache hits.
+ *
+ * @author Andrea Funto'
+ */
+public class CachePolicy {
+
+	/**
+	 * The logger.
+	 */
+	private static final Logger logger = LoggerFactory.getLogger(CachePolicy.class);
+
+	/**
+	 * The cache storing the entries.
+	 */
+	private final ResponseCache cache;
+
+	/**
+	 * The id of the target, used as the first element of the key.
+	 */
+	private final String targetId;
+
+	/**
+	 * The time to live of entries, in milliseconds.
+	 */
+	private final long ttl;
+
+	/**
+	 * The time during which expired entries can still be served, in milliseconds.
+	 */
+	private final long stale;
+
+	/**
+	 * Whether the rendered response is cached too.
+	 */
+	private final boolean rendered;
+
+	/**
+	 * The names of the input parameters making up the key.
+	 */
+	private final String[] keyNames;
+
+	/**
+	 * The scopes of the input parameters making up the key.
+	 */
+	private final Scope[][] keyScopes;
+
+	/**
+	 * The names of the output parameters.
+	 */
+	private final String[] outputNames;
+
+	/**
+	 * The scopes of the output parameters.
+	 */
+	private final Scope[] outputScopes;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param targetId
+	 *   the id of the target.
+	 * @param method
+	 *   the {@code @Cached} business method.
+	 * @param cache
+	 *   the cache storing the entries.
+	 * @throws DeploymentException
+	 *   if the annotation refers to unknown {@code @In} parameters.
+	 */
+	public CachePolicy(String targetId, Method method, ResponseCache cache) throws DeploymentException {
+		Cached cached = method.getAnnotation(Cached.class);
+		this.cache = cache;
+		this.targetId = targetId;
+		this.ttl = cached.ttl() * 1000;
+		this.stale = cached.stale() * 1000;
+		this.rendered = cached.rendered();
+
+		List<String> inNames = new ArrayList<>();
+		List<Scope[]> inScopes = new ArrayList<>();
+		List<String> outNames = new ArrayList<>();
+		List<Scope> outScopes = new ArrayList<>();
+		for(Annotation[] annotations : method.getParameterAnnotations()) {
+			for(Annotation annotation : annotations) {
+				if(annotation instanceof In) {
+					inNames.add(((In)annotation).value());
+					inScopes.add(((In)annotation).from());
+				} else if(annotation instanceof InOut) {
+					inNames.add(((InOut)annotation).value());
+					inScopes.add(((InOut)annotation).from());
+					outNames.add(((InOut)annotation).value());
+					outScopes.add(((InOut)annotation).to());
+				} else if(annotation instanceof Out) {
+					outNames.add(((Out)annotation).value());
+					outScopes.add(((Out)annotation).to());
+				}
+			}
+		}
+
+		if(cached.key().length > 0) {
+			this.keyNames = cached.key();
+			this.keyScopes = new Scope[keyNames.length][];
+			for(int i = 0; i < keyNames.length; ++i) {
+				int index = inNames.indexOf(keyNames[i]);
+				if(index == -1) {
+					logger.error("cache key of target '{}' refers to unknown input parameter '{}'", targetId, keyNames[i]);
+					throw new DeploymentException("Cache key of target '" + targetId + "' refers to unknown input parameter '" + keyNames[i] + "'");
+				}
+				this.keyScopes[i] = inScopes.get(index);
+			}
+		} else {
+			this.keyNames = inNames.toArray(new String[inNames.size()]);
+			this.keyScopes = inScopes.toArray(new Scope[inScopes.size()][]);
+		}
+		this.outputNames = outNames.toArray(new String[outNames.size()]);
+		this.outputScopes = outScopes.toArray(new Scope[outScopes.size()]);
+		logger.trace("target '{}' is cached for {} s (stale: {} s), key: {}", targetId, cached.ttl(), cached.stale(), Arrays.toString(keyNames));
+	}
+
+	/**
+	 * Returns whether the rendered response is cached too.
+	 *
+	 * @return
+	 *   whether the rendered response is cached too.
+	 */
+	public boolean isRendered() {
+		return rendered;
+	}
+
+	/**
+	 * Returns the cache storing the entries.
+	 *
+	 * @return
+	 *   the cache.
+	 */
+	public ResponseCache getCache() {
+		return cache;
+	}
+
+	/**
+	 * Builds the cache key out of the current values of the key parameters.
+	 *
+	 * @param context
+	 *   the context of the current invocation.
+	 * @return
+	 *   the cache key.
+	 * @throws WebMVCException
+	 */
+	public CacheKey makeKey(ActionContext context) throws WebMVCException {
+		Object[] values = new Object[keyNames.length + 1];
+		values[0] = targetId;
+		for(int i = 0; i < keyNames.length; ++i) {
+			values[i + 1] = context.find(keyNames[i], keyScopes[i]);
+		}
+		return new CacheKey(values);
+	}
+
+	/**
+	 * Looks up an entry that can be served for the given key; if the entry is
+	 * stale, the first request to get here is told to refresh it (by returning
+	 * {@code null}) while all the others are served the stale entry.
+	 *
+	 * @param key
+	 *   the cache key.
+	 * @return
+	 *   the entry to be served, or {@code null} if the business method must be
+	 *   invoked.
+	 */
+	public CachedResponse lookup(CacheKey key) {
+		CachedResponse entry = cache.get(key);
+		long now = System.currentTimeMillis();
+		if(entry != null) {
+			if(entry.isFresh(now)) {
+				cache.recordHit();
+				return entry;
+			}
+			if(entry.isServable(now) && !entry.tryRefresh()) {
+				logger.trace("serving stale entry for '{}' while it is being refreshed", key);
+				cache.recordStaleHit();
+				return entry;
+			}
+		}
+		cache.recordMiss();
+		return null;
+	}
+
+	/**
+	 * Replays the output parameters of a cached entry into their scopes.
+	 *
+	 * @param entry
+	 *   the cached entry.
+	 * @param context
+	 *   the context of the current invocation.
+	 * @throws WebMVCException
+	 */
+	public void replay(CachedResponse entry, ActionContext context) throws WebMVCException {
+		Object[] outputs = entry.getOutputs();
+		for(int i = 0; i < outputNames.length; ++i) {
+			if(outputs[i] != null) {
+				context.set(outputNames[i], outputs[i], outputScopes[i]);
+			}
+		}
+	}
+
+	/**
+	 * Captures the outcome of the business method, as just invoked.
+	 *
+	 * @param resultId
+	 *   the result of the business method.
+	 * @param context
+	 *   the context of the current invocation.
+	 * @return
+	 *   a new entry, not yet stored.
+	 * @throws WebMVCException
+	 */
+	public CachedResponse capture(String resultId, ActionContext context) throws WebMVCException {
+		Object[] outputs = new Object[outputNames.length];
+		for(int i = 0; i < outputNames.length; ++i) {
+			outputs[i] = context.get(outputNames[i], outputScopes[i]);
+		}
+		long now = System.currentTimeMillis();
+		return new CachedResponse(resultId, outputs, now + ttl, now + ttl + stale);
+	}
+
+	/**
+	 * Stores an entry without any rendered response.
+	 *
+	 * @param key
+	 *   the cache key.
+	 * @param entry
+	 *   the entry.
+	 */
+	public void store(CacheKey key, CachedResponse entry) {
+		cache.put(key, entry);
+	}
+
+	/**
+	 * Stores an entry along with the response rendered through the given
+	 * capturing wrapper, provided it was successful and small enough.
+	 *
+	 * @param key
+	 *   the cache key.
+	 * @param entry
+	 *   the entry.
+	 * @param capture
+	 *   the wrapper through which the response was rendered.
+	 * @return
+	 *   whether the entry was stored.
+	 */
+	public boolean store(CacheKey key, CachedResponse entry, CapturingResponseWrapper capture) {
+		byte[] body = capture.getCaptured();
+		if(body == null) {
+			logger.trace("rendered response for '{}' cannot be cached", key);
+			return false;
+		}
+		cache.put(key, entry.setBody(body, capture.getContentType()));
+		return true;
+	}
+
+	/**
+	 * Releases the right to refresh the entry for the given key, if any, after
+	 * the refresh failed.
+	 *
+	 * @param key
+	 *   the cache key.
+	 */
+	public void abandon(CacheKey key) {
+		CachedResponse entry = cache.get(key);
+		if(entry != null) {
+			entry.endRefresh();
+		}
+	}
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2012-2015, Andrea Funto'. All rights reserved. See LICENSE for details.
+ */
+
+package org.dihedron.webmvc.cache;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.dihedron.webmvc.metrics.Footprint;
+import org.dihedron.webmvc.protocol.ETags;
+
+/**
+ * A cached outcome of a target: its result id, the values of its {@code @Out}
+ * parameters and, if so requested, the rendered response. Entries are never
+ * modified once stored in the cache.
+ *
+ * @author Andrea Funto'
+ */
+public class CachedResponse {
+
+	/**
+	 * An estimate of the memory taken by an entry, besides the rendered body
+	 * and the output values.
+	 */
+	private static final int OVERHEAD = 256;
+
+	/**
+	 * The result id.
+	 */
+	private final String resultId;
+
+	/**
+	 * The values of the {@code @Out} parameters, in the order declared by the
+	 * cache policy.
+	 */
+	private final Object[] outputs;
+
+	/**
+	 * An estimate of the memory taken by the output values, in bytes.
+	 */
+	private final long outputsWeight;
+
+	/**
+	 * The time (in milliseconds since the epoch) after which the entry is no
+	 * longer fresh.
+	 */
+	private final long expires;
+
+	/**
+	 * The time (in milliseconds since the epoch) after which the entry can no
+	 * longer be served, not even while being refreshed.
+	 */
+	private final long staleUntil;
+
+	/**
+	 * Whether a request is currently refreshing the entry.
+	 */
+	private final AtomicBoolean refreshing = new AtomicBoolean(false);
+
+	/**
+	 * The rendered body, if any.
+	 */
+	private byte[] body;
+
+	/**
+	 * The content type of the rendered body.
+	 */
+	private String contentType;
+
+	/**
+	 * The entity tag of the rendered body, computed on first use.
+	 */
+	private volatile String etag;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param resultId
+	 *   the result id.
+	 * @param outputs
+	 *   the values of the {@code @Out} parameters.
+	 * @param expires
+	 *   the time after which the entry is no longer fresh.
+	 * @param staleUntil
+	 *   the time after which the entry can no longer be served.
+	 */
+	CachedResponse(String resultId, Object[] outputs, long expires, long staleUntil) {
+		this.resultId = resultId;
+		this.outputs = outputs;
+		long weight = 0;
+		for(Object output : outputs) {
+			weight += Footprint.sizeOf(output);
+		}
+		this.outputsWeight = weight;
+		this.expires = expires;
+		this.staleUntil = staleUntil;
+	}
+
+	/**
+	 * Returns the result id.
+	 *
+	 * @return
+	 *   the result id.
+	 */
+	public String getResultId() {
+		return resultId;
+	}
+
+	/**
+	 * Returns the values of the {@code @Out} parameters.
+	 *
+	 * @return
+	 *   the values of the {@code @Out} parameters; callers must not modify
+	 *   the array.
+	 */
+	Object[] getOutputs() {
+		return outputs;
+	}
+
+	/**
+	 * Returns whether the entry is still fresh.
+	 *
+	 * @param now
+	 *   the current time, in milliseconds since the epoch.
+	 * @return
+	 *   whether the entry is still fresh.
+	 */
+	public boolean isFresh(long now) {
+		return now < expires;
+	}
+
+	/**
+	 * Returns whether the entry can still be served, possibly while being
+	 * refreshed.
+	 *
+	 * @param now
+	 *   the current time, in milliseconds since the epoch.
+	 * @return
+	 *   whether the entry can still be served.
+	 */
+	public boolean isServable(long now) {
+		return now < staleUntil;
+	}
+
+	/**
+	 * Tries to acquire the right to refresh the entry; only one request at a
+	 * time can refresh an entry, all the others keep on being served the stale
+	 * one.
+	 *
+	 * @return
+	 *   whether the current request must refresh the entry.
+	 */
+	public boolean tryRefresh() {
+		return refreshing.compareAndSet(false, true);
+	}
+
+	/**
+	 * Releases the right to refresh the entry, e.g. because the refresh failed.
+	 */
+	public void endRefresh() {
+		refreshing.set(false);
+	}
+
+	/**
+	 * Returns whether the entry includes the rendered response.
+	 *
+	 * @return
+	 *   whether the entry includes the rendered response.
+	 */
+	public boolean hasBody() {
+		return body != null;
+	}
+
+	/**
+	 * Sets the rendered response; this must be done before the entry is stored
+	 * in the cache.
+	 *
+	 * @param body
+	 *   the rendered body.
+	 * @param contentType
+	 *   the content type of the body, including the character set.
+	 * @return
+	 *   the object itself, for method chaining.
+	 */
+	CachedResponse setBody(byte[] body, String contentType) {
+		this.body = body;
+		this.contentType = contentType;
+		return this;
+	}
+
+	/**
+	 * Returns the strong entity tag of the rendered body.
+	 *
+	 * @return
+	 *   the quoted entity tag, or {@code null} if there is no rendered body.
+	 */
+	public String getETag() {
+		if(etag == null && body != null) {
+			etag = ETags.fromBody(body);
+		}
+		return etag;
+	}
+
+	/**
+	 * Returns an estimate of the memory taken by the entry, in bytes.
+	 *
+	 * @return
+	 *   the weight of the entry.
+	 */
+	long getWeight() {
+		return OVERHEAD + outputsWeight + (body != null ? body.length : 0);
+	}
+
+	/**
+	 * Writes the rendered response to the client.
+	 *
+	 * @param response
+	 *   the servlet response.
+	 * @throws IOException
+	 */
+	public void writeTo(HttpServletResponse response) throws IOException {
+		if(contentType != null) {
+			response.setContentType(contentType);
+		}
+		response.setContentLength(body.length);
+		response.getOutputStream().write(body);
+		response.getOutputStream().flush();
+	}
+}
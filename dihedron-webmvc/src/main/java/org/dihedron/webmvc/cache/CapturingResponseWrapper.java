@@ -0,0 +1,326 @@
+/*
+ * Copyright (c) 2012-2015, Andrea Funto'. All rights reserved. See LICENSE for details.
+ */
+
+package org.dihedron.webmvc.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * A response wrapper that streams the rendered output to the client as usual,
+ * while keeping a copy of it for the response cache; the copy is dropped as
+ * soon as it exceeds the given limit, or if the response is not a plain
+ * successful one (e.g. because of an error or a redirect).
+ * 
+ * The wrapper can also defer the output: in this case nothing is written to
+ * the client until {@link #release()} is invoked, so that headers depending 
+ * on the whole body (such as the {@code ETag}) can still be set, or the body
+ * can be dropped altogether (e.g. in a "304 Not Modified" response); if the 
+ * output exceeds the limit, the buffered bytes are written out and the rest 
+ * of the output is streamed as usual.
+ *
+ * @author Andrea Funto'
+ */
+public class CapturingResponseWrapper extends HttpServletResponseWrapper {
+
+	/**
+	 * The output stream writing both to the client and to the buffer.
+	 */
+	private class TeeOutputStream extends ServletOutputStream {
+
+		/**
+		 * The original output stream.
+		 */
+		private final ServletOutputStream target;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param target
+		 *   the original output stream.
+		 */
+		TeeOutputStream(ServletOutputStream target) {
+			this.target = target;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			if(overflow) {
+				target.write(b);
+				return;
+			}
+			if(passThrough) {
+				target.write(b);
+			}
+			buffer.write(b);
+			checkLimit();
+		}
+
+		@Override
+		public void write(byte[] b, int offset, int length) throws IOException {
+			if(overflow) {
+				target.write(b, offset, length);
+				return;
+			}
+			if(passThrough) {
+				target.write(b, offset, length);
+			}
+			buffer.write(b, offset, length);
+			checkLimit();
+		}
+
+		/**
+		 * Drops the captured output if it exceeds the limit; deferred output 
+		 * is written out first.
+		 */
+		private void checkLimit() throws IOException {
+			if(buffer.size() > limit) {
+				overflow = true;
+				if(!passThrough) {
+					buffer.writeTo(target);
+				}
+				buffer.reset();
+			}
+		}
+
+		/**
+		 * Bytes are handed over to the original stream as soon as they are
+		 * written, so there is nothing to flush here; this also avoids committing
+		 * the response at each write when the writer pushes characters through
+		 * (see {@link CapturingResponseWrapper#flushBuffer()} to actually flush
+		 * the response).
+		 */
+		@Override
+		public void flush() throws IOException {
+		}
+
+		@Override
+		public boolean isReady() {
+			return target.isReady();
+		}
+
+		@Override
+		public void setWriteListener(WriteListener listener) {
+			target.setWriteListener(listener);
+		}
+	}
+
+	/**
+	 * The maximum number of bytes that can be captured.
+	 */
+	private final long limit;
+
+	/**
+	 * Whether the output is written to the client as it is produced, or deferred;
+	 * deferred output switches to pass-through once released.
+	 */
+	private boolean passThrough;
+
+	/**
+	 * The captured output.
+	 */
+	private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+	/**
+	 * Whether the output exceeded the limit.
+	 */
+	private boolean overflow = false;
+
+	/**
+	 * The status code set on the response.
+	 */
+	private int status = HttpServletResponse.SC_OK;
+
+	/**
+	 * The output stream writing to the buffer and (possibly) to the client.
+	 */
+	private TeeOutputStream tee = null;
+
+	/**
+	 * The output stream, if requested.
+	 */
+	private ServletOutputStream stream = null;
+
+	/**
+	 * The writer, if requested.
+	 */
+	private PrintWriter writer = null;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param response
+	 *   the original response.
+	 * @param limit
+	 *   the maximum number of bytes that can be captured.
+	 */
+	public CapturingResponseWrapper(HttpServletResponse response, long limit) {
+		this(response, limit, true);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param response
+	 *   the original response.
+	 * @param limit
+	 *   the maximum number of bytes that can be captured.
+	 * @param passThrough
+	 *   whether the output should be written to the client as it is produced,
+	 *   or deferred until {@link #release()} is invoked.
+	 */
+	public CapturingResponseWrapper(HttpServletResponse response, long limit, boolean passThrough) {
+		super(response);
+		this.limit = limit;
+		this.passThrough = passThrough;
+	}
+
+	/**
+	 * @see javax.servlet.ServletResponseWrapper#getOutputStream()
+	 */
+	@Override
+	public ServletOutputStream getOutputStream() throws IOException {
+		if(writer != null) {
+			throw new IllegalStateException("getWriter() has already been called on this response");
+		}
+		if(stream == null) {
+			stream = getTee();
+		}
+		return stream;
+	}
+
+	/**
+	 * @see javax.servlet.ServletResponseWrapper#getWriter()
+	 */
+	@Override
+	public PrintWriter getWriter() throws IOException {
+		if(stream != null) {
+			throw new IllegalStateException("getOutputStream() has already been called on this response");
+		}
+		if(writer == null) {
+			// characters are pushed through the encoder as soon as they are 
+			// written, since containers may close the underlying stream (e.g. 
+			// at the end of a forward) without flushing the wrapper's writer
+			writer = new PrintWriter(new OutputStreamWriter(getTee(), getCharacterEncoding())) {
+				@Override
+				public void write(char[] buffer, int offset, int length) {
+					super.write(buffer, offset, length);
+					super.flush();
+				}
+				@Override
+				public void write(String string, int offset, int length) {
+					super.write(string, offset, length);
+					super.flush();
+				}
+				@Override
+				public void write(int c) {
+					super.write(c);
+					super.flush();
+				}
+			};
+		}
+		return writer;
+	}
+
+	/**
+	 * @see javax.servlet.ServletResponseWrapper#flushBuffer()
+	 */
+	@Override
+	public void flushBuffer() throws IOException {
+		if(writer != null) {
+			writer.flush();
+		}
+		if(passThrough || overflow) {
+			super.flushBuffer();
+		}
+	}
+
+	/**
+	 * @see javax.servlet.http.HttpServletResponseWrapper#setStatus(int)
+	 */
+	@Override
+	public void setStatus(int status) {
+		this.status = status;
+		super.setStatus(status);
+	}
+
+	/**
+	 * @see javax.servlet.http.HttpServletResponseWrapper#sendError(int)
+	 */
+	@Override
+	public void sendError(int status) throws IOException {
+		this.status = status;
+		super.sendError(status);
+	}
+
+	/**
+	 * @see javax.servlet.http.HttpServletResponseWrapper#sendError(int, java.lang.String)
+	 */
+	@Override
+	public void sendError(int status, String message) throws IOException {
+		this.status = status;
+		super.sendError(status, message);
+	}
+
+	/**
+	 * @see javax.servlet.http.HttpServletResponseWrapper#sendRedirect(java.lang.String)
+	 */
+	@Override
+	public void sendRedirect(String location) throws IOException {
+		this.status = HttpServletResponse.SC_FOUND;
+		super.sendRedirect(location);
+	}
+
+	/**
+	 * Returns the captured output, flushing any pending characters first.
+	 *
+	 * @return
+	 *   the captured output, or {@code null} if the response cannot be cached,
+	 *   because it is not a successful one or it exceeded the limit.
+	 */
+	public byte[] getCaptured() {
+		if(writer != null) {
+			writer.flush();
+		}
+		if(overflow || status != HttpServletResponse.SC_OK || (stream == null && writer == null)) {
+			return null;
+		}
+		return buffer.toByteArray();
+	}
+
+	/**
+	 * Writes the deferred output, if any, to the client; this has no effect if
+	 * the output is not deferred, or if it has already been written out because
+	 * it exceeded the limit.
+	 *
+	 * @throws IOException
+	 */
+	public void release() throws IOException {
+		if(writer != null) {
+			writer.flush();
+		}
+		if(!passThrough && !overflow && tee != null) {
+			buffer.writeTo(tee.target);
+		}
+		passThrough = true;
+	}
+
+	/**
+	 * Returns the output stream writing to the buffer and (possibly) to the 
+	 * client, creating it on first use.
+	 */
+	private TeeOutputStream getTee() throws IOException {
+		if(tee == null) {
+			tee = new TeeOutputStream(super.getOutputStream());
+		}
+		return tee;
+	}
+}
@@ -0,0 +1,315 @@
+/*
+ * Copyright (c) 2012-2015, Andrea Funto'. All rights reserved. See LICENSE for details.
+ */
+
+package org.dihedron.webmvc.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The cache of target outcomes, shared by all {@code @Cached} targets; it
+ * evicts the least recently used entries as soon as either the number of
+ * entries or their overall weight (an estimate of the memory they take)
+ * exceeds the configured limits, and it keeps hit and miss statistics, which
+ * are exposed over JMX. Large caches are split into segments, each with its 
+ * own lock and its own share of the limits, so that lookups of different 
+ * keys seldom contend; eviction is therefore least recently used within each 
+ * segment, which approximates it over the whole cache.
+ *
+ * @author Andrea Funto'
+ */
+public class ResponseCache {
+
+	/**
+	 * The logger.
+	 */
+	private static final Logger logger = LoggerFactory.getLogger(ResponseCache.class);
+
+	/**
+	 * The default maximum number of entries.
+	 */
+	public static final int DEFAULT_MAX_ENTRIES = 1000;
+
+	/**
+	 * The default maximum overall weight, in bytes.
+	 */
+	public static final long DEFAULT_MAX_WEIGHT = 16 * 1024 * 1024;
+
+	/**
+	 * The maximum number of segments, a power of two.
+	 */
+	private static final int MAX_SEGMENTS = 16;
+
+	/**
+	 * The minimum number of entries per segment, below which splitting the
+	 * cache would make eviction order too coarse.
+	 */
+	private static final int MIN_SEGMENT_ENTRIES = 64;
+
+	/**
+	 * A segment of the cache; all fields are guarded by the segment itself.
+	 */
+	private static final class Segment {
+
+		/**
+		 * The entries, in access order.
+		 */
+		final LinkedHashMap<CacheKey, CachedResponse> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+		/**
+		 * The maximum number of entries.
+		 */
+		final int maxEntries;
+
+		/**
+		 * The maximum overall weight, in bytes.
+		 */
+		final long maxWeight;
+
+		/**
+		 * The current overall weight, in bytes.
+		 */
+		long weight = 0;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param maxEntries
+		 *   the maximum number of entries.
+		 * @param maxWeight
+		 *   the maximum overall weight, in bytes.
+		 */
+		Segment(int maxEntries, long maxWeight) {
+			this.maxEntries = maxEntries;
+			this.maxWeight = maxWeight;
+		}
+	}
+
+	/**
+	 * The segments; their number is a power of two.
+	 */
+	private final Segment[] segments;
+
+	/**
+	 * The maximum weight of a single segment, in bytes.
+	 */
+	private final long maxSegmentWeight;
+
+	/**
+	 * The number of requests served with a fresh entry.
+	 */
+	private final AtomicLong hits = new AtomicLong();
+
+	/**
+	 * The number of requests served with a stale entry, while being refreshed.
+	 */
+	private final AtomicLong staleHits = new AtomicLong();
+
+	/**
+	 * The number of requests that had to invoke the business method.
+	 */
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * The number of entries evicted to honour the size and weight limits.
+	 */
+	private final AtomicLong evictions = new AtomicLong();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param maxEntries
+	 *   the maximum number of entries.
+	 * @param maxWeight
+	 *   the maximum overall weight, in bytes.
+	 */
+	public ResponseCache(int maxEntries, long maxWeight) {
+		int count = Integer.highestOneBit(Math.max(1, Math.min(MAX_SEGMENTS, maxEntries / MIN_SEGMENT_ENTRIES)));
+		this.segments = new Segment[count];
+		this.maxSegmentWeight = maxWeight / count;
+		for(int i = 0; i < count; ++i) {
+			// spread the remainder, so that the limits add up to the configured ones
+			segments[i] = new Segment(maxEntries / count + (i < maxEntries % count ? 1 : 0), maxSegmentWeight);
+		}
+		logger.info("response cache holds up to {} entries, {} bytes, in {} segments", maxEntries, maxWeight, count);
+	}
+
+	/**
+	 * Returns the weight of the largest entry the cache can hold, which also 
+	 * bounds the size of a single rendered response.
+	 *
+	 * @return
+	 *   the maximum weight of an entry, in bytes.
+	 */
+	public long getMaxWeight() {
+		return maxSegmentWeight;
+	}
+
+	/**
+	 * Returns the entry for the given key.
+	 *
+	 * @param key
+	 *   the cache key.
+	 * @return
+	 *   the entry, or {@code null} if none.
+	 */
+	public CachedResponse get(CacheKey key) {
+		Segment segment = segmentOf(key);
+		synchronized(segment) {
+			return segment.entries.get(key);
+		}
+	}
+
+	/**
+	 * Stores an entry, evicting the least recently used ones as needed.
+	 *
+	 * @param key
+	 *   the cache key.
+	 * @param entry
+	 *   the entry.
+	 */
+	public void put(CacheKey key, CachedResponse entry) {
+		if(entry.getWeight() > maxSegmentWeight) {
+			logger.debug("entry for '{}' is too large to be cached ({} bytes)", key, entry.getWeight());
+			return;
+		}
+		Segment segment = segmentOf(key);
+		synchronized(segment) {
+			CachedResponse previous = segment.entries.put(key, entry);
+			if(previous != null) {
+				segment.weight -= previous.getWeight();
+			}
+			segment.weight += entry.getWeight();
+			Iterator<Entry<CacheKey, CachedResponse>> iterator = segment.entries.entrySet().iterator();
+			while((segment.entries.size() > segment.maxEntries || segment.weight > segment.maxWeight) && iterator.hasNext()) {
+				Entry<CacheKey, CachedResponse> eldest = iterator.next();
+				if(eldest.getValue() == entry) {
+					continue;
+				}
+				segment.weight -= eldest.getValue().getWeight();
+				iterator.remove();
+				evictions.incrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * Removes all entries.
+	 */
+	public void clear() {
+		for(Segment segment : segments) {
+			synchronized(segment) {
+				segment.entries.clear();
+				segment.weight = 0;
+			}
+		}
+		logger.info("response cache cleared");
+	}
+
+	/**
+	 * Returns the segment holding the given key.
+	 */
+	private Segment segmentOf(CacheKey key) {
+		int hash = key.hashCode();
+		return segments[(hash ^ (hash >>> 16)) & (segments.length - 1)];
+	}
+
+	/**
+	 * Records a request served with a fresh entry.
+	 */
+	void recordHit() {
+		hits.incrementAndGet();
+	}
+
+	/**
+	 * Records a request served with a stale entry.
+	 */
+	void recordStaleHit() {
+		staleHits.incrementAndGet();
+	}
+
+	/**
+	 * Records a request that had to invoke the business method.
+	 */
+	void recordMiss() {
+		misses.incrementAndGet();
+	}
+
+	/**
+	 * Returns the number of requests served with a fresh entry.
+	 *
+	 * @return
+	 *   the number of fresh hits.
+	 */
+	public long getHits() {
+		return hits.get();
+	}
+
+	/**
+	 * Returns the number of requests served with a stale entry.
+	 *
+	 * @return
+	 *   the number of stale hits.
+	 */
+	public long getStaleHits() {
+		return staleHits.get();
+	}
+
+	/**
+	 * Returns the number of requests that had to invoke the business method.
+	 *
+	 * @return
+	 *   the number of misses.
+	 */
+	public long getMisses() {
+		return misses.get();
+	}
+
+	/**
+	 * Returns the number of evicted entries.
+	 *
+	 * @return
+	 *   the number of evicted entries.
+	 */
+	public long getEvictions() {
+		return evictions.get();
+	}
+
+	/**
+	 * Returns the current number of entries.
+	 *
+	 * @return
+	 *   the number of entries.
+	 */
+	public int getSize() {
+		int size = 0;
+		for(Segment segment : segments) {
+			synchronized(segment) {
+				size += segment.entries.size();
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * Returns the current overall weight of the entries.
+	 *
+	 * @return
+	 *   the overall weight, in bytes.
+	 */
+	public long getWeight() {
+		long weight = 0;
+		for(Segment segment : segments) {
+			synchronized(segment) {
+				weight += segment.weight;
+			}
+		}
+		return weight;
+	}
+}
@@ -0,0 +1,12 @@
+/*
+ * Copyright (c) 2012-2015, Andrea Funto'. All rights reserved. See LICENSE for details.
+ */
+
+/**
+ * The package containing the response cache used by {@code @Cached} targets,
+ * along with the per-target caching policies and the response wrapper that
+ * captures rendered output.
+ *
+ * @author Andrea Funto'
+ */
+package org.dihedron.webmvc.cache;
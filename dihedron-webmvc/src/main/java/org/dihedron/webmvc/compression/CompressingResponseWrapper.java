@@ -0,0 +1,503 @@
+/*
+ * Copyright (c) 2012-2015, Andrea Funto'. All rights reserved. See LICENSE for details.
+ */
+
+package org.dihedron.webmvc.compression;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import org.dihedron.webmvc.compression.Compression.Encoding;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A response wrapper that compresses the rendered output while it is being 
+ * streamed to the client. The first bytes are held back until the threshold 
+ * is exceeded: at that point, if the response is a successful one and its 
+ * content type is not an already compressed one, the {@code Content-Encoding}
+ * header is set and the output goes through a pooled {@code Deflater}; 
+ * otherwise (and for responses that never reach the threshold) the output is 
+ * written as is. The wrapper must be finished once rendering is over, to write
+ * out any held back or still compressed bytes, and recycled in any case, to
+ * return the deflater to the pool.
+ *
+ * @author Andrea Funto'
+ */
+public class CompressingResponseWrapper extends HttpServletResponseWrapper {
+
+	/**
+	 * The logger.
+	 */
+	private static final Logger logger = LoggerFactory.getLogger(CompressingResponseWrapper.class);
+
+	/**
+	 * The header of gzip members with no optional fields (RFC 1952).
+	 */
+	private static final byte[] GZIP_HEADER = { 
+		(byte)0x1f, (byte)0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte)0xff 
+	};
+
+	/**
+	 * The size of the buffer receiving compressed data.
+	 */
+	private static final int OUTPUT_BUFFER_SIZE = 8192;
+
+	/**
+	 * The states of the output stream.
+	 */
+	private enum State {
+
+		/**
+		 * Output is held back until the threshold is exceeded.
+		 */
+		BUFFERING,
+
+		/**
+		 * Output is compressed.
+		 */
+		COMPRESSING,
+
+		/**
+		 * Output is written as is.
+		 */
+		PLAIN,
+
+		/**
+		 * Output is complete.
+		 */
+		FINISHED
+	}
+
+	/**
+	 * The output stream compressing data on its way to the client.
+	 */
+	private class CompressingOutputStream extends ServletOutputStream {
+
+		/**
+		 * The original output stream.
+		 */
+		private final ServletOutputStream target;
+
+		/**
+		 * The output held back until the threshold is exceeded.
+		 */
+		private final byte[] pending = new byte[compression.getThreshold()];
+
+		/**
+		 * The number of bytes held back.
+		 */
+		private int count = 0;
+
+		/**
+		 * The current state.
+		 */
+		private State state = State.BUFFERING;
+
+		/**
+		 * The deflater, while compressing.
+		 */
+		private Deflater deflater = null;
+
+		/**
+		 * The checksum of the uncompressed data, for the gzip trailer.
+		 */
+		private CRC32 crc = null;
+
+		/**
+		 * The buffer receiving compressed data.
+		 */
+		private byte[] output = null;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param target
+		 *   the original output stream.
+		 */
+		CompressingOutputStream(ServletOutputStream target) {
+			this.target = target;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			write(new byte[] { (byte)b }, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int offset, int length) throws IOException {
+			switch(state) {
+			case BUFFERING:
+				if(count + length <= pending.length) {
+					System.arraycopy(b, offset, pending, count, length);
+					count += length;
+					return;
+				}
+				start();
+				write(b, offset, length);
+				break;
+			case COMPRESSING:
+				deflate(b, offset, length);
+				break;
+			case PLAIN:
+				target.write(b, offset, length);
+				break;
+			case FINISHED:
+				throw new IOException("Response output has already been completed");
+			}
+		}
+
+		/**
+		 * Bytes are handed over to the deflater or to the original stream as 
+		 * soon as they are written, and flushing the deflater at each write 
+		 * would spoil compression, so there is nothing to do here (see 
+		 * {@link CompressingResponseWrapper#flushBuffer()} to actually flush 
+		 * the response).
+		 */
+		@Override
+		public void flush() throws IOException {
+		}
+
+		/**
+		 * Finishes the output when the stream is closed (e.g. by the container, 
+		 * at the end of a forward).
+		 */
+		@Override
+		public void close() throws IOException {
+			finish();
+		}
+
+		@Override
+		public boolean isReady() {
+			return target.isReady();
+		}
+
+		@Override
+		public void setWriteListener(WriteListener listener) {
+			target.setWriteListener(listener);
+		}
+
+		/**
+		 * Decides whether the output must be compressed, and writes out the 
+		 * bytes held back so far accordingly.
+		 */
+		private void start() throws IOException {
+			if(status == HttpServletResponse.SC_OK && !isCommitted() 
+					&& Compression.isCompressible(getContentType()) 
+					&& !containsHeader(Compression.CONTENT_ENCODING_HEADER)) {
+				logger.trace("compressing response with {} (level {})", encoding.getCoding(), compression.getLevel());
+				setHeader(Compression.CONTENT_ENCODING_HEADER, encoding.getCoding());
+				deflater = pool.obtain(compression.getLevel(), encoding == Encoding.GZIP);
+				output = new byte[OUTPUT_BUFFER_SIZE];
+				if(encoding == Encoding.GZIP) {
+					crc = new CRC32();
+					target.write(GZIP_HEADER);
+				}
+				state = State.COMPRESSING;
+				deflate(pending, 0, count);
+			} else {
+				logger.trace("response of type '{}' (status {}) will not be compressed", getContentType(), status);
+				if(contentLength >= 0) {
+					CompressingResponseWrapper.super.setContentLengthLong(contentLength);
+				}
+				state = State.PLAIN;
+				target.write(pending, 0, count);
+			}
+			count = 0;
+		}
+
+		/**
+		 * Compresses the given bytes, writing out the compressed data as it is
+		 * produced.
+		 */
+		private void deflate(byte[] b, int offset, int length) throws IOException {
+			if(length == 0) {
+				return;
+			}
+			if(crc != null) {
+				crc.update(b, offset, length);
+			}
+			deflater.setInput(b, offset, length);
+			while(!deflater.needsInput()) {
+				drain(Deflater.NO_FLUSH);
+			}
+		}
+
+		/**
+		 * Writes out the data produced by the deflater.
+		 */
+		private int drain(int mode) throws IOException {
+			int length = deflater.deflate(output, 0, output.length, mode);
+			if(length > 0) {
+				target.write(output, 0, length);
+			}
+			return length;
+		}
+
+		/**
+		 * Pushes all the output produced so far to the client; output that is 
+		 * still being held back is not affected.
+		 */
+		void sync() throws IOException {
+			if(state == State.COMPRESSING) {
+				while(drain(Deflater.SYNC_FLUSH) == output.length) {
+				}
+				CompressingResponseWrapper.super.flushBuffer();
+			} else if(state == State.PLAIN) {
+				CompressingResponseWrapper.super.flushBuffer();
+			}
+		}
+
+		/**
+		 * Completes the output, writing out the held back bytes or the remaining
+		 * compressed data and the gzip trailer.
+		 */
+		void finish() throws IOException {
+			if(state == State.BUFFERING) {
+				if(count > 0 && !isCommitted()) {
+					CompressingResponseWrapper.super.setContentLength(count);
+				}
+				target.write(pending, 0, count);
+				count = 0;
+			} else if(state == State.COMPRESSING) {
+				deflater.finish();
+				while(!deflater.finished()) {
+					drain(Deflater.NO_FLUSH);
+				}
+				if(crc != null) {
+					writeIntLE(crc.getValue());
+					writeIntLE(deflater.getBytesRead());
+				}
+				logger.trace("compressed {} bytes into {}", deflater.getBytesRead(), deflater.getBytesWritten());
+				recycle();
+			}
+			state = State.FINISHED;
+			target.flush();
+		}
+
+		/**
+		 * Returns the deflater to the pool, if any.
+		 */
+		void recycle() {
+			if(deflater != null) {
+				pool.release(deflater, encoding == Encoding.GZIP);
+				deflater = null;
+			}
+		}
+
+		/**
+		 * Writes the low 32 bits of the given value, in little-endian order.
+		 */
+		private void writeIntLE(long value) throws IOException {
+			target.write((int)(value & 0xff));
+			target.write((int)((value >> 8) & 0xff));
+			target.write((int)((value >> 16) & 0xff));
+			target.write((int)((value >> 24) & 0xff));
+		}
+	}
+
+	/**
+	 * The compression settings.
+	 */
+	private final Compression compression;
+
+	/**
+	 * The content coding applied to the output.
+	 */
+	private final Encoding encoding;
+
+	/**
+	 * The pool of deflaters.
+	 */
+	private final DeflaterPool pool;
+
+	/**
+	 * The status code set on the response.
+	 */
+	private int status = HttpServletResponse.SC_OK;
+
+	/**
+	 * The content length declared by the renderer, which only applies if the 
+	 * output is not compressed.
+	 */
+	private long contentLength = -1;
+
+	/**
+	 * The output stream, if requested.
+	 */
+	private CompressingOutputStream stream = null;
+
+	/**
+	 * The writer, if requested.
+	 */
+	private PrintWriter writer = null;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param response
+	 *   the original response.
+	 * @param compression
+	 *   the compression settings.
+	 * @param encoding
+	 *   the content coding accepted by the client.
+	 * @param pool
+	 *   the pool of deflaters.
+	 */
+	public CompressingResponseWrapper(HttpServletResponse response, Compression compression, Encoding encoding, DeflaterPool pool) {
+		super(response);
+		this.compression = compression;
+		this.encoding = encoding;
+		this.pool = pool;
+	}
+
+	/**
+	 * @see javax.servlet.ServletResponseWrapper#getOutputStream()
+	 */
+	@Override
+	public ServletOutputStream getOutputStream() throws IOException {
+		if(writer != null) {
+			throw new IllegalStateException("getWriter() has already been called on this response");
+		}
+		return getStream();
+	}
+
+	/**
+	 * @see javax.servlet.ServletResponseWrapper#getWriter()
+	 */
+	@Override
+	public PrintWriter getWriter() throws IOException {
+		if(writer == null) {
+			if(stream != null) {
+				throw new IllegalStateException("getOutputStream() has already been called on this response");
+			}
+			writer = new PrintWriter(new OutputStreamWriter(getStream(), getCharacterEncoding()));
+		}
+		return writer;
+	}
+
+	/**
+	 * @see javax.servlet.ServletResponseWrapper#setContentLength(int)
+	 */
+	@Override
+	public void setContentLength(int length) {
+		setContentLengthLong(length);
+	}
+
+	/**
+	 * @see javax.servlet.ServletResponseWrapper#setContentLengthLong(long)
+	 */
+	@Override
+	public void setContentLengthLong(long length) {
+		this.contentLength = length;
+		if(stream != null && stream.state == State.PLAIN) {
+			super.setContentLengthLong(length);
+		}
+	}
+
+	/**
+	 * @see javax.servlet.ServletResponseWrapper#flushBuffer()
+	 */
+	@Override
+	public void flushBuffer() throws IOException {
+		if(writer != null) {
+			writer.flush();
+		}
+		if(stream != null) {
+			stream.sync();
+		} else {
+			super.flushBuffer();
+		}
+	}
+
+	/**
+	 * @see javax.servlet.ServletResponseWrapper#resetBuffer()
+	 */
+	@Override
+	public void resetBuffer() {
+		if(stream != null && stream.state == State.BUFFERING) {
+			stream.count = 0;
+		}
+		super.resetBuffer();
+	}
+
+	/**
+	 * @see javax.servlet.http.HttpServletResponseWrapper#setStatus(int)
+	 */
+	@Override
+	public void setStatus(int status) {
+		this.status = status;
+		super.setStatus(status);
+	}
+
+	/**
+	 * @see javax.servlet.http.HttpServletResponseWrapper#sendError(int)
+	 */
+	@Override
+	public void sendError(int status) throws IOException {
+		this.status = status;
+		super.sendError(status);
+	}
+
+	/**
+	 * @see javax.servlet.http.HttpServletResponseWrapper#sendError(int, java.lang.String)
+	 */
+	@Override
+	public void sendError(int status, String message) throws IOException {
+		this.status = status;
+		super.sendError(status, message);
+	}
+
+	/**
+	 * @see javax.servlet.http.HttpServletResponseWrapper#sendRedirect(java.lang.String)
+	 */
+	@Override
+	public void sendRedirect(String location) throws IOException {
+		this.status = HttpServletResponse.SC_FOUND;
+		super.sendRedirect(location);
+	}
+
+	/**
+	 * Completes the output; this has no effect if the output has already been 
+	 * completed, e.g. because the container closed the stream.
+	 *
+	 * @throws IOException
+	 */
+	public void finish() throws IOException {
+		if(writer != null) {
+			writer.flush();
+		}
+		if(stream != null && stream.state != State.FINISHED) {
+			stream.finish();
+		}
+	}
+
+	/**
+	 * Returns the deflater to the pool if the output was not completed (e.g.
+	 * because rendering failed); it must always be invoked once the wrapper is 
+	 * no longer in use.
+	 */
+	public void recycle() {
+		if(stream != null) {
+			stream.recycle();
+		}
+	}
+
+	/**
+	 * Returns the compressing output stream, creating it on first use.
+	 */
+	private CompressingOutputStream getStream() throws IOException {
+		if(stream == null) {
+			stream = new CompressingOutputStream(super.getOutputStream());
+		}
+		return stream;
+	}
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2012-2015, Andrea Funto'. All rights reserved. See LICENSE for details.
+ */
+
+package org.dihedron.webmvc.compression;
+
+import java.util.zip.Deflater;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.dihedron.core.strings.Strings;
+
+/**
+ * The response compression settings of a domain, as declared by the optional
+ * {@code <compression>} element in the domains configuration.
+ *
+ * @author Andrea Funto'
+ */
+public class Compression {
+
+	/**
+	 * The supported content codings, in order of preference.
+	 */
+	public enum Encoding {
+
+		/**
+		 * The gzip format (RFC 1952).
+		 */
+		GZIP("gzip"),
+
+		/**
+		 * The zlib format (RFC 1950), as prescribed for the "deflate" coding.
+		 */
+		DEFLATE("deflate");
+
+		/**
+		 * The content coding, as per the {@code Content-Encoding} header.
+		 */
+		private final String coding;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param coding
+		 *   the content coding.
+		 */
+		private Encoding(String coding) {
+			this.coding = coding;
+		}
+
+		/**
+		 * Returns the content coding, as per the {@code Content-Encoding} header.
+		 *
+		 * @return
+		 *   the content coding.
+		 */
+		public String getCoding() {
+			return coding;
+		}
+	}
+
+	/**
+	 * The name of the request header carrying the accepted content codings.
+	 */
+	public static final String ACCEPT_ENCODING_HEADER = "Accept-Encoding";
+
+	/**
+	 * The name of the response header carrying the applied content coding.
+	 */
+	public static final String CONTENT_ENCODING_HEADER = "Content-Encoding";
+
+	/**
+	 * The name of the response header listing the request headers that affect
+	 * the response.
+	 */
+	public static final String VARY_HEADER = "Vary";
+
+	/**
+	 * The default minimum size, in bytes, of a response to be compressed.
+	 */
+	public static final int DEFAULT_THRESHOLD = 1024;
+
+	/**
+	 * The default compression level, a good trade-off between speed and size.
+	 */
+	public static final int DEFAULT_LEVEL = 6;
+
+	/**
+	 * The prefixes of content types that are already compressed, and are
+	 * therefore never compressed again.
+	 */
+	private static final String[] COMPRESSED_TYPES = {
+		"image/",
+		"audio/",
+		"video/",
+		"application/zip",
+		"application/gzip",
+		"application/x-gzip",
+		"application/x-compress",
+		"application/x-bzip2",
+		"application/x-7z-compressed",
+		"application/x-rar-compressed",
+		"application/pdf",
+		"application/octet-stream",
+		"font/woff",
+	};
+
+	/**
+	 * The minimum size of a response to be compressed.
+	 */
+	private final int threshold;
+
+	/**
+	 * The compression level.
+	 */
+	private final int level;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param threshold
+	 *   the minimum size, in bytes, of a response to be compressed.
+	 * @param level
+	 *   the compression level, from 1 (fastest) to 9 (smallest).
+	 */
+	public Compression(int threshold, int level) {
+		this.threshold = Math.max(threshold, 0);
+		this.level = Math.min(Math.max(level, Deflater.BEST_SPEED), Deflater.BEST_COMPRESSION);
+	}
+
+	/**
+	 * Returns the minimum size of a response to be compressed.
+	 *
+	 * @return
+	 *   the threshold, in bytes.
+	 */
+	public int getThreshold() {
+		return threshold;
+	}
+
+	/**
+	 * Returns the compression level.
+	 *
+	 * @return
+	 *   the compression level.
+	 */
+	public int getLevel() {
+		return level;
+	}
+
+	/**
+	 * Picks the content coding to be applied to the response, based on the
+	 * {@code Accept-Encoding} header of the request; codings with a zero quality
+	 * value are considered refused.
+	 *
+	 * @param request
+	 *   the servlet request.
+	 * @return
+	 *   the preferred coding among those accepted by the client, or {@code null}
+	 *   if the response should not be compressed.
+	 */
+	public static Encoding negotiate(HttpServletRequest request) {
+		String header = request.getHeader(ACCEPT_ENCODING_HEADER);
+		if(!Strings.isValid(header)) {
+			return null;
+		}
+		boolean gzip = false;
+		boolean deflate = false;
+		for(String token : header.split(",")) {
+			String coding = token.trim();
+			int semicolon = coding.indexOf(';');
+			if(semicolon != -1) {
+				if(isRefused(coding.substring(semicolon + 1))) {
+					continue;
+				}
+				coding = coding.substring(0, semicolon).trim();
+			}
+			if(coding.equalsIgnoreCase(Encoding.GZIP.getCoding()) || coding.equalsIgnoreCase("x-gzip") || coding.equals("*")) {
+				gzip = true;
+			} else if(coding.equalsIgnoreCase(Encoding.DEFLATE.getCoding())) {
+				deflate = true;
+			}
+		}
+		return gzip ? Encoding.GZIP : (deflate ? Encoding.DEFLATE : null);
+	}
+
+	/**
+	 * Returns whether responses of the given content type can be compressed.
+	 *
+	 * @param contentType
+	 *   the content type of the response, possibly including parameters.
+	 * @return
+	 *   whether the content type is not an already compressed one.
+	 */
+	public static boolean isCompressible(String contentType) {
+		if(contentType != null) {
+			String type = contentType.trim().toLowerCase();
+			for(String compressed : COMPRESSED_TYPES) {
+				if(type.startsWith(compressed)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns whether the parameters of an accepted coding carry a zero quality
+	 * value.
+	 */
+	private static boolean isRefused(String parameters) {
+		for(String parameter : parameters.split(";")) {
+			String[] pair = parameter.trim().split("=");
+			if(pair.length == 2 && pair[0].trim().equalsIgnoreCase("q")) {
+				try {
+					return Double.parseDouble(pair[1].trim()) <= 0.0;
+				} catch(NumberFormatException e) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "compression(threshold: " + threshold + ", level: " + level + ")";
+	}
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2012-2015, Andrea Funto'. All rights reserved. See LICENSE for details.
+ */
+
+package org.dihedron.webmvc.compression;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Deflater;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A bounded pool of {@code Deflater}s, so that compressed responses do not 
+ * allocate (and release) native zlib memory at each request; deflaters are 
+ * reset and re-levelled when they are obtained, and those returned when the 
+ * pool is full are ended right away.
+ *
+ * @author Andrea Funto'
+ */
+public class DeflaterPool {
+
+	/**
+	 * The logger.
+	 */
+	private static final Logger logger = LoggerFactory.getLogger(DeflaterPool.class);
+
+	/**
+	 * The default number of pooled deflaters per format.
+	 */
+	public static final int DEFAULT_SIZE = 2 * Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * The idle deflaters producing raw deflate data (for gzip).
+	 */
+	private final BlockingQueue<Deflater> raw;
+
+	/**
+	 * The idle deflaters producing zlib-wrapped data (for deflate).
+	 */
+	private final BlockingQueue<Deflater> wrapped;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param size
+	 *   the maximum number of idle deflaters kept per format.
+	 */
+	public DeflaterPool(int size) {
+		this.raw = new ArrayBlockingQueue<>(Math.max(size, 1));
+		this.wrapped = new ArrayBlockingQueue<>(Math.max(size, 1));
+	}
+
+	/**
+	 * Obtains a deflater from the pool, creating a new one if none is idle.
+	 *
+	 * @param level
+	 *   the compression level.
+	 * @param nowrap
+	 *   whether the deflater must produce raw deflate data, as used by gzip, 
+	 *   instead of zlib-wrapped data.
+	 * @return
+	 *   a deflater ready to be used.
+	 */
+	public Deflater obtain(int level, boolean nowrap) {
+		Deflater deflater = (nowrap ? raw : wrapped).poll();
+		if(deflater == null) {
+			logger.trace("allocating new deflater (level {}, nowrap: {})", level, nowrap);
+			return new Deflater(level, nowrap);
+		}
+		deflater.setLevel(level);
+		return deflater;
+	}
+
+	/**
+	 * Returns a deflater to the pool.
+	 *
+	 * @param deflater
+	 *   the deflater, which must not be used afterwards.
+	 * @param nowrap
+	 *   whether the deflater produces raw deflate data.
+	 */
+	public void release(Deflater deflater, boolean nowrap) {
+		deflater.reset();
+		if(!(nowrap ? raw : wrapped).offer(deflater)) {
+			deflater.end();
+		}
+	}
+
+	/**
+	 * Releases the native memory of all idle deflaters.
+	 */
+	public void clear() {
+		Deflater deflater;
+		while((deflater = raw.poll()) != null) {
+			deflater.end();
+		}
+		while((deflater = wrapped.poll()) != null) {
+			deflater.end();
+		}
+	}
+}
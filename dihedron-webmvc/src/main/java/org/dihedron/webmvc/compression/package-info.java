@@ -0,0 +1,12 @@
+/*
+ * Copyright (c) 2012-2015, Andrea Funto'. All rights reserved. See LICENSE for details.
+ */
+
+/**
+ * The package containing the per-domain response compression settings, the
+ * pool of {@code Deflater}s shared by all compressed responses and the response
+ * wrapper that compresses rendered output while it is being streamed.
+ *
+ * @author Andrea Funto'
+ */
+package org.dihedron.webmvc.compression;
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2012-2015, Andrea Funto'. All rights reserved. See LICENSE for details.
+ */
+
+package org.dihedron.webmvc.exceptions;
+
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * An exception representing an expected condition (e.g. a target that cannot 
+ * be found, or a user that is not authenticated) rather than an error; these
+ * exceptions are used for control flow, so they carry no stack trace and are
+ * preallocated: throwing them costs nothing. The controller turns them directly 
+ * into an HTTP status code.
+ * 
+ * Since instances are shared by all threads, they are immutable: their stack 
+ * trace is not writable, their cause cannot be initialised and exceptions 
+ * suppressed on their behalf are discarded.
+ * 
+ * @author Andrea Funto'
+ */
+public final class ControlFlowException extends WebMVCException {
+
+    /**
+     * Serial version id.
+     */
+    private static final long serialVersionUID = -4180716617219366251L;
+
+    /**
+     * The exception thrown when the requested target or resource does not exist.
+     */
+    public static final ControlFlowException NOT_FOUND = new ControlFlowException(HttpServletResponse.SC_NOT_FOUND, "Target not found");
+
+    /**
+     * The exception thrown when the user is not authenticated.
+     */
+    public static final ControlFlowException UNAUTHENTICATED = new ControlFlowException(HttpServletResponse.SC_UNAUTHORIZED, "User not authenticated");
+
+    /**
+     * The exception thrown when the user is not authorised.
+     */
+    public static final ControlFlowException UNAUTHORISED = new ControlFlowException(HttpServletResponse.SC_FORBIDDEN, "User not authorised");
+
+    /**
+     * The exception thrown when a form is submitted twice.
+     */
+    public static final ControlFlowException DOUBLE_SUBMIT = new ControlFlowException(HttpServletResponse.SC_CONFLICT, "Form already submitted");
+
+    /**
+     * The exception thrown when a request is rejected because the server is 
+     * overloaded.
+     */
+    public static final ControlFlowException OVERLOADED = new ControlFlowException(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Service overloaded");
+
+    /**
+     * The exception thrown when a target exceeds its deadline and no timeout 
+     * result is configured.
+     */
+    public static final ControlFlowException TIMEOUT = new ControlFlowException(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Deadline exceeded");
+
+    /**
+     * The HTTP status code corresponding to the condition.
+     */
+    private final int status;
+
+    /**
+     * Constructor.
+     *
+     * @param status 
+     *   the HTTP status code corresponding to the condition.
+     * @param message 
+     *   the exception message.
+     */
+    private ControlFlowException(int status, String message) {
+        super(message, null, false, false);
+        this.status = status;
+    }
+
+    /**
+     * Returns the HTTP status code corresponding to the condition.
+     * 
+     * @return
+     *   the HTTP status code.
+     */
+    public int getStatus() {
+        return status;
+    }
+}
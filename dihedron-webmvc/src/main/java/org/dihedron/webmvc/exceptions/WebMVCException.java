@@ -21,6 +21,7 @@ package org.dihedron.webmvc.exceptions;
 
 import javax.servlet.ServletException;
 import java.io.PrintWriter;
+import java.lang.reflect.Field;
 import java.io.StringWriter;
 import java.io.Writer;
 
@@ -36,6 +37,23 @@ public class WebMVCException extends ServletException {
      */
     private static final long serialVersionUID = -8032261686411960912L;
 
+    /**
+     * The empty stack trace of exceptions whose stack trace is not writable.
+     */
+    private static final StackTraceElement[] NO_STACK_TRACE = new StackTraceElement[0];
+
+    /**
+     * The field holding the suppressed exceptions in {@code Throwable}, which 
+     * disables suppression when set to {@code null}; it is {@code null} itself 
+     * if the platform does not grant access to it.
+     */
+    private static final Field SUPPRESSED_EXCEPTIONS = getSuppressedExceptionsField();
+
+    /**
+     * Whether the stack trace can no longer be filled in or replaced.
+     */
+    private boolean frozen = false;
+
     /**
      * Constructor.
      */
@@ -70,6 +88,56 @@ public class WebMVCException extends ServletException {
         super(message, cause);
     }
 
+    /**
+     * Constructor, with the same semantics as the corresponding one in 
+     * {@code Throwable}, which {@code ServletException} does not expose: if 
+     * suppression is disabled, suppressed exceptions are discarded, and if the 
+     * stack trace is not writable it stays empty; the cause, even if 
+     * {@code null}, can no longer be initialised. This is meant for exceptions 
+     * that are preallocated and shared by all threads.
+     *
+     * @param message the exception message.
+     * @param cause the exception's root cause, or {@code null}.
+     * @param enableSuppression whether suppression is enabled.
+     * @param writableStackTrace whether the stack trace is writable.
+     */
+    protected WebMVCException(String message, Throwable cause, boolean enableSuppression, boolean writableStackTrace) {
+        super(message, cause);
+        if (!writableStackTrace) {
+            super.setStackTrace(NO_STACK_TRACE);
+            frozen = true;
+        }
+        if (!enableSuppression && SUPPRESSED_EXCEPTIONS != null) {
+            try {
+                SUPPRESSED_EXCEPTIONS.set(this, null);
+            } catch (IllegalAccessException e) {
+                // cannot happen, the field has been made accessible
+            }
+        }
+    }
+
+    /**
+     * Fills in the stack trace, unless it is not writable.
+     *
+     * @see java.lang.Throwable#fillInStackTrace()
+     */
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return frozen ? this : super.fillInStackTrace();
+    }
+
+    /**
+     * Sets the stack trace, unless it is not writable.
+     *
+     * @see java.lang.Throwable#setStackTrace(java.lang.StackTraceElement[])
+     */
+    @Override
+    public void setStackTrace(StackTraceElement[] stackTrace) {
+        if (!frozen) {
+            super.setStackTrace(stackTrace);
+        }
+    }
+
     /**
      * Prints the exception's stack trace to a String.
      */
@@ -79,4 +147,18 @@ public class WebMVCException extends ServletException {
         this.printStackTrace(printWriter);
         return writer.toString();
     }
+
+    /**
+     * Looks up the field holding the suppressed exceptions in {@code Throwable}.
+     */
+    private static Field getSuppressedExceptionsField() {
+        try {
+            Field field = Throwable.class.getDeclaredField("suppressedExceptions");
+            field.setAccessible(true);
+            return field;
+        } catch (NoSuchFieldException | RuntimeException e) {
+            // the platform does not open java.lang to reflection
+            return null;
+        }
+    }
 }
@@ -4,13 +4,19 @@
 
 package org.dihedron.webmvc.interceptors;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.dihedron.core.regex.Regex;
 import org.dihedron.core.strings.Strings;
 import org.dihedron.webmvc.actions.Result;
+import org.dihedron.webmvc.admission.AdaptiveLimit;
+import org.dihedron.webmvc.admission.PriorityClass;
+import org.dihedron.webmvc.annotations.Action;
+import org.dihedron.webmvc.compression.Compression;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -42,9 +48,41 @@ public class Domain {
 	private Regex pattern;
 	
 	/**
-	 * The optional list of per-domain global results.
+	 * The textual form of the pattern, as provided in the configuration.
 	 */
-	private Map<String, Result> globalResults = Collections.synchronizedMap(new HashMap<String, Result>());		
+	private String expression;
+	
+	/**
+	 * The optional, immutable map of per-domain global results; new results are
+	 * added by atomically replacing it with an updated copy.
+	 */
+	private final AtomicReference<Map<String, Result>> globalResults = new AtomicReference<Map<String, Result>>(Collections.<String, Result>emptyMap());
+	
+	/**
+	 * The optional response compression settings.
+	 */
+	private Compression compression = null;
+	
+	/**
+	 * The optional adaptive concurrency limit.
+	 */
+	private AdaptiveLimit limit = null;
+	
+	/**
+	 * The optional priority class of the domain's targets.
+	 */
+	private PriorityClass priority = null;
+	
+	/**
+	 * The maximum running time of the domain's targets, in milliseconds, or 0 
+	 * if they are not bounded.
+	 */
+	private long timeout = 0;
+	
+	/**
+	 * The result rendered when a target exceeds its deadline.
+	 */
+	private String timeoutResult = Action.TIMEOUT;
 	
 	/**
 	 * Constructor.
@@ -60,6 +98,7 @@ public class Domain {
 		this.id = id;
 		this.stack = stack;
 		this.pattern = new Regex(pattern);
+		this.expression = pattern;
 	}
 	
 	/**
@@ -76,6 +115,7 @@ public class Domain {
 		this.id = id;
 		this.stack = stack;
 		this.pattern = pattern;
+		this.expression = pattern.toString();
 	}
 	
 	
@@ -100,6 +140,128 @@ public class Domain {
 		return stack;
 	}
 	
+	/**
+	 * Returns the pattern that all domain resources must comply with, as a 
+	 * string.
+	 * 
+	 * @return
+	 *   the regular expression of the domain resources.
+	 */
+	public String getPattern() {
+		return expression;
+	}
+	
+	/**
+	 * Returns the response compression settings of the domain.
+	 * 
+	 * @return
+	 *   the compression settings, or {@code null} if responses to the domain's 
+	 *   resources are never compressed.
+	 */
+	public Compression getCompression() {
+		return compression;
+	}
+	
+	/**
+	 * Sets the response compression settings of the domain.
+	 * 
+	 * @param compression
+	 *   the compression settings, or {@code null} to disable compression.
+	 * @return
+	 *   the object itself, for method chaining.
+	 */
+	public Domain setCompression(Compression compression) {
+		this.compression = compression;
+		return this;
+	}
+	
+	/**
+	 * Returns the adaptive concurrency limit of the domain.
+	 * 
+	 * @return
+	 *   the concurrency limit, or {@code null} if requests to the domain's 
+	 *   targets are never shed.
+	 */
+	public AdaptiveLimit getAdaptiveLimit() {
+		return limit;
+	}
+	
+	/**
+	 * Sets the adaptive concurrency limit of the domain.
+	 * 
+	 * @param limit
+	 *   the concurrency limit, or {@code null} to disable load shedding.
+	 * @return
+	 *   the object itself, for method chaining.
+	 */
+	public Domain setAdaptiveLimit(AdaptiveLimit limit) {
+		this.limit = limit;
+		return this;
+	}
+	
+	/**
+	 * Returns the priority class of the domain.
+	 * 
+	 * @return
+	 *   the priority class, or {@code null} if requests to the domain's targets
+	 *   are not admitted through the priority dispatch queue.
+	 */
+	public PriorityClass getPriority() {
+		return priority;
+	}
+	
+	/**
+	 * Sets the priority class of the domain.
+	 * 
+	 * @param priority
+	 *   the priority class, or {@code null} to admit requests directly.
+	 * @return
+	 *   the object itself, for method chaining.
+	 */
+	public Domain setPriority(PriorityClass priority) {
+		this.priority = priority;
+		return this;
+	}
+	
+	/**
+	 * Returns the maximum running time of the domain's targets, unless they 
+	 * declare their own.
+	 * 
+	 * @return
+	 *   the maximum running time in milliseconds, or 0 if unbounded.
+	 */
+	public long getTimeout() {
+		return timeout;
+	}
+	
+	/**
+	 * Returns the result rendered when a target in the domain exceeds its 
+	 * deadline.
+	 * 
+	 * @return
+	 *   the id of the timeout result.
+	 */
+	public String getTimeoutResult() {
+		return timeoutResult;
+	}
+	
+	/**
+	 * Sets the deadline of the domain's targets.
+	 * 
+	 * @param timeout
+	 *   the maximum running time in milliseconds, or 0 if unbounded.
+	 * @param result
+	 *   the id of the result rendered on timeout; if not valid, the default 
+	 *   "timeout" result is used.
+	 * @return
+	 *   the object itself, for method chaining.
+	 */
+	public Domain setDeadline(long timeout, String result) {
+		this.timeout = Math.max(timeout, 0);
+		this.timeoutResult = Strings.isValid(result) ? result : Action.TIMEOUT;
+		return this;
+	}
+	
 	/**
 	 * Adds a global result to the domain.
 	 * 
@@ -110,7 +272,12 @@ public class Domain {
 	 */
 	public Domain addGlobalResult(Result result) {
 		if(result != null) {
-			globalResults.put(result.getId(), result);
+			Map<String, Result> current, updated;
+			do {
+				current = globalResults.get();
+				updated = new HashMap<>(current);
+				updated.put(result.getId(), result);
+			} while(!globalResults.compareAndSet(current, Collections.unmodifiableMap(updated)));
 		}
 		return this;
 	}
@@ -159,11 +326,21 @@ public class Domain {
      */
     public Result getGlobalResult(String resultId) {
         assert (Strings.isValid(resultId));        
-        Result result = globalResults.get(resultId);
+        Result result = globalResults.get().get(resultId);
         logger.trace("result for id '{}' is {}", resultId, result != null ? "\n" + result : "unconfigured");
         return result;
     }	
 	
+	/**
+	 * Returns a snapshot of the domain's global results.
+	 * 
+	 * @return
+	 *   the collection of global results.
+	 */
+	public Collection<Result> getGlobalResults() {
+		return globalResults.get().values();
+	}
+	
 	/**
 	 * Returns whether the given resource belongs to this domain.
 	 * 
@@ -184,9 +361,21 @@ public class Domain {
 		buffer.append("domain('").append(id).append("') {\n");
 		buffer.append("  ").append("stack('").append(stack).append("')\n");
 		buffer.append("  ").append("pattern('").append(pattern).append("')\n");
+		if(compression != null) {
+			buffer.append("  ").append(compression).append("\n");
+		}
+		if(limit != null) {
+			buffer.append("  ").append(limit).append("\n");
+		}
+		if(priority != null) {
+			buffer.append("  ").append("priority('").append(priority.name().toLowerCase()).append("')\n");
+		}
+		if(timeout > 0) {
+			buffer.append("  ").append("deadline(timeout: ").append(timeout).append(" ms, result: '").append(timeoutResult).append("')\n");
+		}
 		// add optional global results
-		if(globalResults != null && !globalResults.isEmpty()) {
-			for(Result result : globalResults.values()) {
+		if(!globalResults.get().isEmpty()) {
+			for(Result result : globalResults.get().values()) {
 				buffer.append("  ").append("result('").append(result.getId()).append("') = '").append(result.getData()).append("' (type: '").append(result.getRendererId()).append("')\n");
 			}				
 		}		
@@ -22,6 +22,12 @@ public class InterceptorStack extends ArrayList<Interceptor> {
 	 */
 	private String id;
 	
+	/**
+	 * A cached snapshot of the interceptors, as an array; it is reset whenever 
+	 * an interceptor is added to the stack.
+	 */
+	private transient volatile Interceptor[] snapshot;
+	
 	/**
 	 * Constructor.
 	 * 
@@ -42,6 +48,33 @@ public class InterceptorStack extends ArrayList<Interceptor> {
 		return id;
 	}
 	
+	/**
+	 * Adds an interceptor at the end of the stack.
+	 * 
+	 * @see java.util.ArrayList#add(java.lang.Object)
+	 */
+	@Override
+	public boolean add(Interceptor interceptor) {
+		snapshot = null;
+		return super.add(interceptor);
+	}
+	
+	/**
+	 * Returns a snapshot of the interceptors in the stack, as an array; the
+	 * array is cached, so callers must not modify it.
+	 * 
+	 * @return
+	 *   the array of interceptors, in stack order.
+	 */
+	public Interceptor[] getInterceptors() {
+		Interceptor[] interceptors = snapshot;
+		if(interceptors == null) {
+			interceptors = toArray(new Interceptor[size()]);
+			snapshot = interceptors;
+		}
+		return interceptors;
+	}
+	
 	
 
 	/**
@@ -5,6 +5,7 @@
 package org.dihedron.webmvc.interceptors.impl;
 
 import org.dihedron.webmvc.Invocation;
+import org.dihedron.webmvc.exceptions.ControlFlowException;
 import org.dihedron.webmvc.exceptions.WebMVCException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -41,12 +42,15 @@ public class Authentication extends Security {
 	 */
 	@Override
 	public String intercept(Invocation invocation) throws WebMVCException {
-		if(Security.hasSessionToken()) { 
+		if(Security.hasSessionToken(invocation.getContext())) { 
 			// propagate the invocation
 			logger.trace("user is authenticated, propagating request...");
 			return invocation.invoke();
 		}
 		logger.warn("an attempt was made to access a protected resource without authenticating first, rejecting...");
+		if(isSendStatus()) {
+			throw ControlFlowException.UNAUTHENTICATED;
+		}
 		return UNAUTHENTICATED;
 	}
 }
@@ -7,6 +7,7 @@ package org.dihedron.webmvc.interceptors.impl;
 import org.dihedron.core.regex.Regex;
 import org.dihedron.core.strings.Strings;
 import org.dihedron.webmvc.Invocation;
+import org.dihedron.webmvc.exceptions.ControlFlowException;
 import org.dihedron.webmvc.exceptions.WebMVCException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -79,7 +80,7 @@ public class Authorisation extends Security {
 	 */
 	@Override
 	public String intercept(Invocation invocation) throws WebMVCException {
-		String [] groups = Security.getGroups();
+		String [] groups = Security.getGroups(invocation.getContext());
 		if(groups != null && groups.length > 0) {
 			for(String group : groups) {
 				if(pattern.matches(group)) {
@@ -88,6 +89,9 @@ public class Authorisation extends Security {
 			}
 		}
 		// no matching group: the user is not authorised!
+		if(isSendStatus()) {
+			throw ControlFlowException.UNAUTHORISED;
+		}
 		return UNAUTHORISED;
 	}
 }
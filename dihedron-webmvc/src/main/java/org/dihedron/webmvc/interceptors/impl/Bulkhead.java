@@ -0,0 +1,323 @@
+/*
+ * Copyright (c) 2012-2015, Andrea Funto'. All rights reserved. See LICENSE for details.
+ */ 
+
+package org.dihedron.webmvc.interceptors.impl;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.dihedron.core.strings.Strings;
+import org.dihedron.webmvc.ActionInvocation;
+import org.dihedron.webmvc.Invocation;
+import org.dihedron.webmvc.exceptions.ControlFlowException;
+import org.dihedron.webmvc.exceptions.WebMVCException;
+import org.dihedron.webmvc.interceptors.Domain;
+import org.dihedron.webmvc.interceptors.Interceptor;
+import org.dihedron.webmvc.metrics.StripedCounter;
+import org.dihedron.webmvc.targets.ExecutionPlan;
+import org.dihedron.webmvc.targets.Target;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Caps the number of concurrent executions of each target and of all targets
+ * in each domain, so that a slow target cannot exhaust the container threads 
+ * and take the whole application down with it. Permits are taken without 
+ * blocking; if none is available, the request can optionally wait in a bounded
+ * queue for a limited time, after which it is rejected. Rejected requests are
+ * answered with the result set in the {@code result} parameter, which can be 
+ * mapped to any renderer, or with a "503 Service Unavailable" status code if 
+ * no result is configured. Since rejections are most frequent when the system 
+ * is overloaded, they are only counted and logged at debug level, along with a
+ * periodic warning summing them up.
+ * 
+ * Limits apply per stack instance: domains sharing the same stack also share 
+ * this interceptor, but each domain and each target gets its own permits.
+ * 
+ * @author Andrea Funto'
+ */
+public class Bulkhead extends Interceptor {
+	
+	/**
+	 * The maximum number of concurrent executions of each target; if not set,
+	 * targets are not limited individually.
+	 */
+	public static final String TARGET_LIMIT_PARAMETER = "max-per-target";
+	
+	/**
+	 * The maximum number of concurrent executions of all the targets in each
+	 * domain; if not set, domains are not limited.
+	 */
+	public static final String DOMAIN_LIMIT_PARAMETER = "max-per-domain";
+	
+	/**
+	 * The maximum number of requests waiting for a permit on each target or 
+	 * domain; it defaults to 0, meaning that requests are rejected as soon as 
+	 * no permit is available.
+	 */
+	public static final String QUEUE_SIZE_PARAMETER = "queue-size";
+	
+	/**
+	 * How long (in milliseconds) a queued request waits for a permit before 
+	 * being rejected.
+	 */
+	public static final String QUEUE_TIMEOUT_PARAMETER = "queue-timeout";
+	
+	/**
+	 * The result returned when a request is rejected; if not set, the request
+	 * is answered with a "503 Service Unavailable" status code.
+	 */
+	public static final String RESULT_PARAMETER = "result";
+	
+	/**
+	 * The default time a queued request waits for a permit, in milliseconds.
+	 */
+	public static final long DEFAULT_QUEUE_TIMEOUT = 1000;
+	
+	/**
+	 * The minimum interval between warnings about rejected requests, in 
+	 * milliseconds.
+	 */
+	private static final long WARNING_INTERVAL = 10000;
+	
+	/**
+	 * The logger.
+	 */
+	private static final Logger logger = LoggerFactory.getLogger(Bulkhead.class);
+	
+	/**
+	 * The permits of a target or a domain.
+	 */
+	private static final class Permits {
+		
+		/**
+		 * The available permits.
+		 */
+		private final Semaphore available;
+		
+		/**
+		 * The number of requests currently waiting for a permit.
+		 */
+		private final AtomicInteger waiting = new AtomicInteger();
+		
+		/**
+		 * Constructor.
+		 * 
+		 * @param limit
+		 *   the maximum number of concurrent executions.
+		 */
+		Permits(int limit) {
+			this.available = new Semaphore(limit);
+		}
+		
+		/**
+		 * Tries to take a permit, waiting in the queue if there is still room.
+		 * 
+		 * @param queueSize
+		 *   the maximum number of waiting requests.
+		 * @param timeout
+		 *   how long to wait, in milliseconds.
+		 * @return
+		 *   whether a permit was taken.
+		 */
+		boolean acquire(int queueSize, long timeout) {
+			if(available.tryAcquire()) {
+				return true;
+			}
+			if(waiting.incrementAndGet() > queueSize) {
+				waiting.decrementAndGet();
+				return false;
+			}
+			try {
+				return available.tryAcquire(timeout, TimeUnit.MILLISECONDS);
+			} catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return false;
+			} finally {
+				waiting.decrementAndGet();
+			}
+		}
+		
+		/**
+		 * Gives a permit back.
+		 */
+		void release() {
+			available.release();
+		}
+	}
+	
+	/**
+	 * The maximum number of concurrent executions per target, or 0 if unlimited.
+	 */
+	private int targetLimit = 0;
+	
+	/**
+	 * The maximum number of concurrent executions per domain, or 0 if unlimited.
+	 */
+	private int domainLimit = 0;
+	
+	/**
+	 * The maximum number of waiting requests per target or domain.
+	 */
+	private int queueSize = 0;
+	
+	/**
+	 * How long a queued request waits for a permit, in milliseconds.
+	 */
+	private long queueTimeout = DEFAULT_QUEUE_TIMEOUT;
+	
+	/**
+	 * The result returned on rejection, if any.
+	 */
+	private String result = null;
+	
+	/**
+	 * The permits of each target.
+	 */
+	private final ConcurrentMap<Target, Permits> targets = new ConcurrentHashMap<>();
+	
+	/**
+	 * The permits of each domain.
+	 */
+	private final ConcurrentMap<Domain, Permits> domains = new ConcurrentHashMap<>();
+	
+	/**
+	 * The number of rejected requests.
+	 */
+	private final StripedCounter rejected = new StripedCounter();
+	
+	/**
+	 * The number of rejected requests at the time of the last warning.
+	 */
+	private final AtomicLong warned = new AtomicLong();
+	
+	/**
+	 * The time of the last warning about rejected requests, in milliseconds.
+	 */
+	private final AtomicLong lastWarning = new AtomicLong();
+
+	/**
+	 * Initialises the interceptor.
+	 * 
+	 * @see org.dihedron.webmvc.interceptors.Interceptor#initialise()
+	 */
+	@Override
+	public void initialise() {
+		targetLimit = getIntParameter(TARGET_LIMIT_PARAMETER, 0);
+		domainLimit = getIntParameter(DOMAIN_LIMIT_PARAMETER, 0);
+		queueSize = getIntParameter(QUEUE_SIZE_PARAMETER, 0);
+		queueTimeout = getIntParameter(QUEUE_TIMEOUT_PARAMETER, (int)DEFAULT_QUEUE_TIMEOUT);
+		result = getParameter(RESULT_PARAMETER);
+		if(targetLimit <= 0 && domainLimit <= 0) {
+			logger.warn("bulkhead '{}' has no limit: check that this interceptor defines the '{}' or '{}' parameter", getId(), TARGET_LIMIT_PARAMETER, DOMAIN_LIMIT_PARAMETER);
+		}
+		logger.debug("bulkhead '{}' allows {} executions per target, {} per domain, {} waiting for {} ms", getId(), targetLimit, domainLimit, queueSize, queueTimeout);
+	}
+
+	/**
+	 * Executes the target only if both the target and its domain have a permit 
+	 * available; resources are not limited.
+	 * 
+	 * @param invocation
+	 *   the current action invocation.
+	 * @return
+	 *   the result of the nested components' execution, or the rejection result.
+	 * @see 
+	 *   org.dihedron.webmvc.interceptors.Interceptor#intercept(org.dihedron.webmvc.Invocation)
+	 */
+	@Override
+	public String intercept(Invocation invocation) throws WebMVCException {
+		if(!(invocation instanceof ActionInvocation)) {
+			return invocation.invoke();
+		}
+		Target target = ((ActionInvocation)invocation).getTarget();
+		ExecutionPlan plan = ((ActionInvocation)invocation).getExecutionPlan();
+		
+		Permits domain = domainLimit > 0 && plan != null ? getPermits(domains, plan.getDomain(), domainLimit) : null;
+		if(domain != null && !domain.acquire(queueSize, queueTimeout)) {
+			return reject(target, "domain");
+		}
+		try {
+			Permits own = targetLimit > 0 ? getPermits(targets, target, targetLimit) : null;
+			if(own != null && !own.acquire(queueSize, queueTimeout)) {
+				return reject(target, "target");
+			}
+			try {
+				return invocation.invoke();
+			} finally {
+				if(own != null) {
+					own.release();
+				}
+			}
+		} finally {
+			if(domain != null) {
+				domain.release();
+			}
+		}
+	}
+	
+	/**
+	 * Returns the permits associated with the given key, creating them on first
+	 * access.
+	 */
+	private static <K> Permits getPermits(ConcurrentMap<K, Permits> table, K key, int limit) {
+		Permits permits = table.get(key);
+		if(permits == null) {
+			Permits created = new Permits(limit);
+			permits = table.putIfAbsent(key, created);
+			if(permits == null) {
+				permits = created;
+			}
+		}
+		return permits;
+	}
+	
+	/**
+	 * Rejects the request, either returning the configured result or replying
+	 * with a "503 Service Unavailable" status code.
+	 */
+	private String reject(Target target, String scope) throws ControlFlowException {
+		rejected.increment();
+		logger.debug("request for target '{}' rejected: {} concurrency limit reached", target.getId(), scope);
+		long now = System.currentTimeMillis();
+		long last = lastWarning.get();
+		if(now - last >= WARNING_INTERVAL && lastWarning.compareAndSet(last, now)) {
+			long total = rejected.get();
+			logger.warn("bulkhead '{}' rejected {} requests since the last warning", getId(), total - warned.getAndSet(total));
+		}
+		if(Strings.isValid(result)) {
+			return result;
+		}
+		throw ControlFlowException.OVERLOADED;
+	}
+	
+	/**
+	 * Returns the number of requests rejected so far.
+	 * 
+	 * @return
+	 *   the number of rejected requests.
+	 */
+	public long getRejected() {
+		return rejected.get();
+	}
+	
+	/**
+	 * Returns the value of an integer parameter.
+	 */
+	private int getIntParameter(String key, int defaultValue) {
+		String value = getParameter(key);
+		if(Strings.isValid(value)) {
+			try {
+				return Integer.parseInt(value.trim());
+			} catch(NumberFormatException e) {
+				logger.error("invalid value '{}' for parameter '{}' of interceptor '{}', using default", value, key, getId());
+			}
+		}
+		return defaultValue;
+	}
+}
@@ -92,15 +92,16 @@ public class Dumper extends Interceptor {
 	@Override
 	public String intercept(Invocation invocation) throws WebMVCException {
 		StringBuilder builder = new StringBuilder();
+		ActionContext context = invocation.getContext();
 		for(Scope scope : scopes) {
-			dumpValues(scope, builder);
+			dumpValues(context, scope, builder);
 		}
 		builder.append(SECTION_FOOTER).append("\n");
 		logger.debug("action context BEFORE execution:\n{}", builder);
 		builder.setLength(0);
 		String result = invocation.invoke();
 		for(Scope scope : scopes) {
-			dumpValues(scope, builder);
+			dumpValues(context, scope, builder);
 		}
 		builder.append(SECTION_FOOTER).append("\n");
 		logger.debug("action context AFTER execution:\n{}", builder);
@@ -110,13 +111,15 @@ public class Dumper extends Interceptor {
 	/**
 	 * Dumps any value available in the given scope to the provided buffer.
 	 * 
+	 * @param context
+	 *   the context of the current invocation.
 	 * @param scope
 	 *   the scope whose values are being dumped.
 	 * @param builder
 	 *   the buffer used for output accumulation.
 	 */
-	private void dumpValues(Scope scope, StringBuilder builder) throws WebMVCException {
-		Set<String> names = ActionContext.getValueNames(scope);
+	private void dumpValues(ActionContext context, Scope scope, StringBuilder builder) throws WebMVCException {
+		Set<String> names = context.names(null, scope);
 		builder.append(Strings.centre(" " + scope.name() + " SCOPE ", SECTION_HEADER_LENGTH, SECTION_HEADER_PADDING)).append("\n");
 		if(scope == Scope.CONVERSATION) {
 			Map<String, List<String>> conversations = new HashMap<>();
@@ -133,14 +136,14 @@ public class Dumper extends Interceptor {
 			for(String conversation : conversations.keySet()) {
 				builder.append(Strings.centre(" " + conversation + " ", SECTION_HEADER_LENGTH, CONVERSATION_HEADER_PADDING)).append("\n");
 				for(String key : conversations.get(conversation)) {
-					dumpValue(conversation + ":" + key, ActionContext.getValue(conversation + ":" + key, Scope.CONVERSATION), builder);
+					dumpValue(conversation + ":" + key, context.get(conversation + ":" + key, Scope.CONVERSATION), builder);
 				}
 			}
 		} else {		
 			if(names != null) {
 				for(String name : names) {
 					if(regex == null || !regex.matches(name)) { 
-						Object value = ActionContext.getValue(name, scope);
+						Object value = context.get(name, scope);
 						dumpValue(name, value, builder);
 					}
 				}
@@ -28,6 +28,7 @@ import org.dihedron.core.strings.Strings;
 import org.dihedron.webmvc.ActionContext;
 import org.dihedron.webmvc.ActionInvocation;
 import org.dihedron.webmvc.Invocation;
+import org.dihedron.webmvc.exceptions.ControlFlowException;
 import org.dihedron.webmvc.exceptions.WebMVCException;
 import org.dihedron.webmvc.interceptors.Interceptor;
 import org.dihedron.webmvc.protocol.Scope;
@@ -48,6 +49,12 @@ public class Resubmit extends Interceptor {
 	
 	private String defaultResult = null;
 	
+	/**
+	 * Whether a double submit should be answered directly with an HTTP status 
+	 * code ("409 Conflict") instead of a result.
+	 */
+	private boolean sendStatus = false;
+	
 	/**
 	 * The logger.
 	 */
@@ -56,6 +63,7 @@ public class Resubmit extends Interceptor {
 	@Override
 	public void initialise() {
 		defaultResult = getParameter("result"); 
+		sendStatus = "true".equalsIgnoreCase(getParameter("send-status"));
 	}
 	
 	/**
@@ -112,14 +120,17 @@ public class Resubmit extends Interceptor {
 
 		if(invocation instanceof ActionInvocation) {
 			logger.trace("in business login invocation");
-			String[] tokens = (String[])ActionContext.getValue(FORM_TOKEN, Scope.FORM);
+			String[] tokens = (String[])invocation.getContext().get(FORM_TOKEN, Scope.FORM);
 			if(tokens != null && tokens.length > 0) {
 				long timestamp = Long.parseLong(tokens[0]);
 				logger.trace("form time: '{}'", timestamp);
 				Map<Long, String> submits = ensureSubmitDataAvailable();
 				synchronized(submits) {
 					if(submits.containsKey(timestamp)) {
-						if(Strings.isValid(defaultResult)) {
+						if(sendStatus) {
+							logger.warn("action execution aborted due to double-submit for target '{}'", ((ActionInvocation)invocation).getTarget().getId());
+							throw ControlFlowException.DOUBLE_SUBMIT;
+						} else if(Strings.isValid(defaultResult)) {
 							logger.error("action execution aborted due to double-submit, forwarding default result for target '{}': '{}'", ((ActionInvocation)invocation).getTarget().getId().toString(), defaultResult);
 							result = defaultResult;
 						} else {
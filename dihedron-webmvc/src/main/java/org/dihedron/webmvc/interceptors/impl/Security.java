@@ -24,11 +24,29 @@ public abstract class Security extends Interceptor {
 	 */
 	public static final String SESSION_TOKEN = "webmvc:session-token";
 	
+	/**
+	 * The optional parameter that, when set to "true", makes the interceptor
+	 * reply directly with an HTTP status code (through a preallocated, stackless
+	 * {@code ControlFlowException}) instead of returning an error result.
+	 */
+	public static final String SEND_STATUS_PARAMETER = "send-status";
+	
 	/**
 	 * An empty array representing a logon token with no associated groups.
 	 */
 	private static final String[] NO_GROUPS = {};
 	
+	/**
+	 * Returns whether the interceptor should reply directly with an HTTP status 
+	 * code instead of returning an error result.
+	 * 
+	 * @return
+	 *   whether the {@code send-status} parameter is set to "true".
+	 */
+	protected boolean isSendStatus() {
+		return "true".equalsIgnoreCase(getParameter(SEND_STATUS_PARAMETER));
+	}
+	
 	/**
 	 * Adds a logon token at session scope containing a list of groups, or
 	 * a standard empty list if no group is provided.
@@ -38,10 +56,24 @@ public abstract class Security extends Interceptor {
 	 * @throws WebMVCException 
 	 */
 	public static void addSessionToken(String ... groups) throws WebMVCException {
+		addSessionToken(ActionContext.getContext(), groups);
+	}	
+	
+	/**
+	 * Adds a logon token at session scope containing a list of groups, or
+	 * a standard empty list if no group is provided.
+	 * 
+	 * @param context
+	 *   the context of the current request.
+	 * @param groups
+	 *   an optional list of group names.
+	 * @throws WebMVCException 
+	 */
+	public static void addSessionToken(ActionContext context, String ... groups) throws WebMVCException {
 		if(groups != null && groups.length > 0) {
-			ActionContext.setValue(SESSION_TOKEN, groups, Scope.SESSION);
+			context.set(SESSION_TOKEN, groups, Scope.SESSION);
 		} else {
-			ActionContext.setValue(SESSION_TOKEN, NO_GROUPS, Scope.SESSION);
+			context.set(SESSION_TOKEN, NO_GROUPS, Scope.SESSION);
 		}
 	}	
 	
@@ -51,7 +83,18 @@ public abstract class Security extends Interceptor {
 	 * @throws WebMVCException
 	 */
 	public static void removeSessionToken() throws WebMVCException {
-		ActionContext.removeValue(SESSION_TOKEN, Scope.SESSION);
+		removeSessionToken(ActionContext.getContext());
+	}
+	
+	/**
+	 * Removes the logon token from the session scope.
+	 * 
+	 * @param context
+	 *   the context of the current request.
+	 * @throws WebMVCException
+	 */
+	public static void removeSessionToken(ActionContext context) throws WebMVCException {
+		context.remove(SESSION_TOKEN, Scope.SESSION);
 	}
 	
 	/**
@@ -62,7 +105,20 @@ public abstract class Security extends Interceptor {
 	 * @throws WebMVCException 
 	 */
 	public static boolean hasSessionToken() throws WebMVCException {
-		return ActionContext.getValue(SESSION_TOKEN, Scope.SESSION) != null;
+		return hasSessionToken(ActionContext.getContext());
+	}
+	
+	/**
+	 * Checks if the user is authenticated to the system.
+	 * 
+	 * @param context
+	 *   the context of the current request.
+	 * @return
+	 *   whether the user is authenticated to the system.
+	 * @throws WebMVCException 
+	 */
+	public static boolean hasSessionToken(ActionContext context) throws WebMVCException {
+		return context.get(SESSION_TOKEN, Scope.SESSION) != null;
 	}
 	
 	/**
@@ -75,7 +131,22 @@ public abstract class Security extends Interceptor {
 	 * @throws WebMVCException
 	 */
 	public static String[] getGroups() throws WebMVCException {
-		Object value = ActionContext.getValue(SESSION_TOKEN, Scope.SESSION);
+		return getGroups(ActionContext.getContext());
+	}
+	
+	/**
+	 * If the user is logged on, it returns the list of groups in the logon
+	 * token (if available) and an empty array otherwise; if the user is not 
+	 * logged on, {@code null} is returned instead.
+	 * 
+	 * @param context
+	 *   the context of the current request.
+	 * @return
+	 *   a list of groups names, or {@code null}.
+	 * @throws WebMVCException
+	 */
+	public static String[] getGroups(ActionContext context) throws WebMVCException {
+		Object value = context.get(SESSION_TOKEN, Scope.SESSION);
 		if(value != null) {
 			return (String[])value;
 		}
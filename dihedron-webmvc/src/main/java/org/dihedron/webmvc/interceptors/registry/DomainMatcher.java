@@ -0,0 +1,330 @@
+/*
+ * Copyright (c) 2012-2015, Andrea Funto'. All rights reserved. See LICENSE for details.
+ */
+
+package org.dihedron.webmvc.interceptors.registry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.dihedron.webmvc.interceptors.Domain;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An immutable matcher compiled from an ordered list of domains; it returns
+ * the same domain that a linear scan calling {@link Domain#protects(String)}
+ * on each domain in turn would, but it does so without evaluating one regular
+ * expression per domain.
+ *
+ * Domain patterns are classified at compile time:<ul>
+ * <li>purely literal patterns (e.g. {@code /app/index.html}) and literal
+ * prefixes followed by {@code .*} (e.g. {@code /app/private.*}, or {@code .*}
+ * alone) are stored in a character trie, which is walked once over the resource;</li>
+ * <li>all other patterns are merged into a single alternation, in declaration
+ * order, so that a single regular expression evaluation identifies the first
+ * matching domain; the alternation is only evaluated when one of its domains
+ * precedes the best candidate found in the trie;</li>
+ * <li>patterns that cannot be safely merged (because they contain back
+ * references, named groups or embedded flags) are evaluated one by one, again only if
+ * they precede the best candidate so far.</li>
+ * </ul>
+ * Since domains are checked in strict declaration order, the domain with the
+ * lowest position among all matching ones is always returned.
+ *
+ * @author Andrea Funto'
+ */
+class DomainMatcher {
+
+	/**
+	 * The logger.
+	 */
+	private static final Logger logger = LoggerFactory.getLogger(DomainMatcher.class);
+
+	/**
+	 * The regular expression meta-characters; patterns not containing any of
+	 * these are treated as literals.
+	 */
+	private static final String META_CHARACTERS = "\\^$.|?*+()[]{}";
+
+	/**
+	 * The suffix turning a literal into a prefix pattern.
+	 */
+	private static final String ANY_SUFFIX = ".*";
+
+	/**
+	 * The regular expression identifying patterns that cannot be merged into
+	 * the alternation, because their semantics depends on group numbering or
+	 * naming, or on the flags' scope.
+	 */
+	private static final Pattern UNMERGEABLE = Pattern.compile("\\\\[0-9]|\\\\k<|\\(\\?<[a-zA-Z]|\\(\\?[a-zA-Z-]+[:)]");
+
+	/**
+	 * A value larger than any valid domain position.
+	 */
+	private static final int NONE = Integer.MAX_VALUE;
+
+	/**
+	 * A node in the trie of literal and prefix patterns.
+	 */
+	private static final class Node {
+
+		/**
+		 * The sorted labels of the outgoing edges.
+		 */
+		private char[] labels = new char[0];
+
+		/**
+		 * The child nodes, in the same order as the labels.
+		 */
+		private Node[] children = new Node[0];
+
+		/**
+		 * The lowest position of a literal-prefix domain ending at this node.
+		 */
+		private int prefix = NONE;
+
+		/**
+		 * The lowest position of an exact literal domain ending at this node.
+		 */
+		private int exact = NONE;
+
+		/**
+		 * Returns the child node reached through the given character, or
+		 * {@code null} if none.
+		 */
+		Node next(char c) {
+			int index = Arrays.binarySearch(labels, c);
+			return index >= 0 ? children[index] : null;
+		}
+
+		/**
+		 * Returns the child node reached through the given character, creating
+		 * it if necessary; this is only used at compile time.
+		 */
+		Node add(char c) {
+			int index = Arrays.binarySearch(labels, c);
+			if(index >= 0) {
+				return children[index];
+			}
+			index = -(index + 1);
+			char[] l = new char[labels.length + 1];
+			Node[] n = new Node[children.length + 1];
+			System.arraycopy(labels, 0, l, 0, index);
+			System.arraycopy(children, 0, n, 0, index);
+			l[index] = c;
+			n[index] = new Node();
+			System.arraycopy(labels, index, l, index + 1, labels.length - index);
+			System.arraycopy(children, index, n, index + 1, children.length - index);
+			labels = l;
+			children = n;
+			return n[index];
+		}
+	}
+
+	/**
+	 * The domains, in declaration order.
+	 */
+	private final Domain[] domains;
+
+	/**
+	 * The root of the trie of literal and prefix patterns.
+	 */
+	private final Node root = new Node();
+
+	/**
+	 * The merged alternation of all non-literal patterns, or {@code null} if
+	 * there are none.
+	 */
+	private final Pattern alternation;
+
+	/**
+	 * For each top-level group in the alternation, the position of the
+	 * corresponding domain; the array is indexed by group number.
+	 */
+	private final int[] groups;
+
+	/**
+	 * The lowest position among domains in the alternation.
+	 */
+	private final int firstInAlternation;
+
+	/**
+	 * The patterns that are evaluated individually, in declaration order.
+	 */
+	private final Pattern[] standalone;
+
+	/**
+	 * The positions of the domains whose patterns are evaluated individually.
+	 */
+	private final int[] standalonePositions;
+
+	/**
+	 * A per-thread, reusable matcher for the alternation, to avoid allocating
+	 * a new one for each lookup.
+	 */
+	private final ThreadLocal<Matcher> matcher = new ThreadLocal<Matcher>() {
+		@Override
+		protected Matcher initialValue() {
+			return alternation.matcher("");
+		}
+	};
+
+	/**
+	 * Constructor.
+	 *
+	 * @param domains
+	 *   the domains, in declaration order.
+	 */
+	DomainMatcher(List<Domain> domains) {
+		this.domains = domains.toArray(new Domain[domains.size()]);
+
+		StringBuilder buffer = new StringBuilder();
+		TreeMap<Integer, Integer> positions = new TreeMap<>();
+		int group = 1;
+		int first = NONE;
+		List<Pattern> others = new ArrayList<>();
+		List<Integer> otherPositions = new ArrayList<>();
+		for(int i = 0; i < this.domains.length; ++i) {
+			String pattern = this.domains[i].getPattern();
+			if(isLiteral(pattern)) {
+				logger.trace("domain '{}' has a literal pattern", this.domains[i].getId());
+				Node node = insert(pattern);
+				node.exact = Math.min(node.exact, i);
+			} else if(pattern.endsWith(ANY_SUFFIX) && isLiteral(pattern.substring(0, pattern.length() - ANY_SUFFIX.length()))) {
+				logger.trace("domain '{}' has a literal prefix pattern", this.domains[i].getId());
+				Node node = insert(pattern.substring(0, pattern.length() - ANY_SUFFIX.length()));
+				node.prefix = Math.min(node.prefix, i);
+			} else if(UNMERGEABLE.matcher(pattern).find()) {
+				logger.trace("domain '{}' has a regular expression pattern that will be evaluated on its own", this.domains[i].getId());
+				others.add(Pattern.compile(pattern));
+				otherPositions.add(i);
+			} else {
+				logger.trace("domain '{}' has a regular expression pattern", this.domains[i].getId());
+				if(buffer.length() > 0) {
+					buffer.append('|');
+				}
+				buffer.append('(').append(pattern).append(')');
+				positions.put(group, i);
+				group += 1 + countGroups(pattern);
+				first = Math.min(first, i);
+			}
+		}
+
+		if(buffer.length() > 0) {
+			this.alternation = Pattern.compile(buffer.toString());
+			this.groups = new int[group];
+			Arrays.fill(this.groups, NONE);
+			for(Integer g : positions.keySet()) {
+				this.groups[g] = positions.get(g);
+			}
+		} else {
+			this.alternation = null;
+			this.groups = new int[0];
+		}
+		this.firstInAlternation = first;
+		this.standalone = others.toArray(new Pattern[others.size()]);
+		this.standalonePositions = new int[otherPositions.size()];
+		for(int i = 0; i < this.standalonePositions.length; ++i) {
+			this.standalonePositions[i] = otherPositions.get(i);
+		}
+	}
+
+	/**
+	 * Returns the domains, in declaration order; callers must not modify the
+	 * array.
+	 * 
+	 * @return
+	 *   the array of domains.
+	 */
+	Domain[] getDomains() {
+		return domains;
+	}
+
+	/**
+	 * Returns the first domain (in declaration order) that protects the given
+	 * resource.
+	 *
+	 * @param resource
+	 *   the resource whose domain is to be identified.
+	 * @return
+	 *   the domain, if found; {@code null} otherwise.
+	 */
+	Domain match(String resource) {
+		int best = NONE;
+		Node node = root;
+		for(int i = 0, length = resource.length(); node != null; ++i) {
+			if(node.prefix < best) {
+				best = node.prefix;
+			}
+			if(i == length) {
+				if(node.exact < best) {
+					best = node.exact;
+				}
+				break;
+			}
+			node = node.next(resource.charAt(i));
+		}
+
+		if(alternation != null && firstInAlternation < best) {
+			Matcher m = matcher.get().reset(resource);
+			if(m.matches()) {
+				for(int g = 1; g < groups.length; ++g) {
+					if(groups[g] != NONE && m.start(g) != -1) {
+						if(groups[g] < best) {
+							best = groups[g];
+						}
+						break;
+					}
+				}
+			}
+			m.reset("");
+		}
+		
+		for(int i = 0; i < standalone.length && standalonePositions[i] < best; ++i) {
+			if(standalone[i].matcher(resource).matches()) {
+				best = standalonePositions[i];
+			}
+		}
+		return best != NONE ? domains[best] : null;
+	}
+
+	/**
+	 * Inserts the given literal into the trie, returning the node where it ends.
+	 */
+	private Node insert(String literal) {
+		Node node = root;
+		for(int i = 0; i < literal.length(); ++i) {
+			node = node.add(literal.charAt(i));
+		}
+		return node;
+	}
+
+	/**
+	 * Returns whether the given pattern contains no regular expression
+	 * meta-character.
+	 */
+	private static boolean isLiteral(String pattern) {
+		for(int i = 0; i < pattern.length(); ++i) {
+			if(META_CHARACTERS.indexOf(pattern.charAt(i)) != -1) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the number of capturing groups in the given pattern.
+	 *
+	 * @throws PatternSyntaxException
+	 *   if the pattern is not a valid regular expression.
+	 */
+	private static int countGroups(String pattern) {
+		return Pattern.compile(pattern).matcher("").groupCount();
+	}
+}
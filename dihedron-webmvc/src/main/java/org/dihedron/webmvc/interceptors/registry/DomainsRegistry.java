@@ -6,7 +6,7 @@ package org.dihedron.webmvc.interceptors.registry;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.List;
 
 import javax.xml.parsers.ParserConfigurationException;
@@ -71,9 +71,12 @@ public class DomainsRegistry {
 	public static final String DEFAULT_DOMAIN = "default";
 	
 	/**
-	 * The list of registered domains.
+	 * The matcher compiled from the registered domains' patterns, used to 
+	 * identify the domain of a resource; it also holds the list of registered 
+	 * domains, and it is replaced as a whole every time a new set of domains 
+	 * is loaded, so that readers never need to lock.
 	 */
-	private List<Domain> domains = Collections.synchronizedList(new ArrayList<Domain>());
+	private volatile DomainMatcher matcher = new DomainMatcher(new ArrayList<Domain>());
 		
 	/**
 	 * Initialises the domains configuration by parsing the input configuration file
@@ -96,7 +99,11 @@ public class DomainsRegistry {
 	public void load(String specification, InterceptorsRegistry interceptors) throws WebMVCException {
 		try {			
 			logger.info("loading the domain configuration from '{}'", specification);
-			DOMReader.loadDocument(specification, DOMAINS_CONFIG_XSD, new DomainsRegistryHandler(domains, interceptors), VALIDATE_XML); 
+			synchronized(this) {
+				List<Domain> domains = new ArrayList<>(Arrays.asList(matcher.getDomains()));
+				DOMReader.loadDocument(specification, DOMAINS_CONFIG_XSD, new DomainsRegistryHandler(domains, interceptors), VALIDATE_XML);
+				matcher = new DomainMatcher(domains);
+			}
 		} catch (InvalidArgumentException e) {
 			logger.warn("no valid stream to read domains from, it may be OK (check if this is what you want)", e);
 			// gracefully handle this condition by swallowing the error
@@ -123,7 +130,7 @@ public class DomainsRegistry {
 			logger.warn("invalid domain id, no matching domain");
 			return null;
 		}
-		for(Domain domain : domains) {
+		for(Domain domain : matcher.getDomains()) {
 			if(domain.getId().equals(id)) {
 				return domain;
 			}
@@ -133,7 +140,9 @@ public class DomainsRegistry {
 	
 	/**
 	 * Looks up the matching domain for the given resource; the first
-	 * matching domain is returned. 
+	 * matching domain (in insertion order) is returned. The lookup is 
+	 * performed through a matcher pre-compiled from all domains' patterns,
+	 * so the cost does not grow linearly with the number of domains.
 	 * 
 	 * @param resource
 	 *   the resource whose domain is to be identified.
@@ -146,12 +155,17 @@ public class DomainsRegistry {
 			return null;
 		}
 		//logger.warn("testing against resource '{}'", resource);
-		for(Domain domain : domains) {
-			if(domain.protects(resource)) {
-				return domain;
-			}
-		}
-		return null;
+		return matcher.match(resource);
+	}
+		
+	/**
+	 * Returns a snapshot of the registered domains, in insertion order.
+	 * 
+	 * @return
+	 *   the list of registered domains.
+	 */
+	public List<Domain> getDomains() {
+		return new ArrayList<>(Arrays.asList(matcher.getDomains()));
 	}
 		
 	/**
@@ -159,7 +173,7 @@ public class DomainsRegistry {
 	 */
 	public String toString() {
 		StringBuilder buffer = new StringBuilder();
-		for(Domain domain : domains) {
+		for(Domain domain : matcher.getDomains()) {
 			buffer.append("\n----------- DOMAINS -----------\n");
 			buffer.append(domain.toString());
 		}
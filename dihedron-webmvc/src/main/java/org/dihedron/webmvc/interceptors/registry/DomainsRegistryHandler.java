@@ -9,6 +9,9 @@ import org.dihedron.core.strings.Strings;
 import org.dihedron.core.xml.DOM;
 import org.dihedron.core.xml.DOMHandler;
 import org.dihedron.core.xml.DOMHandlerException;
+import org.dihedron.webmvc.admission.AdaptiveLimit;
+import org.dihedron.webmvc.admission.PriorityClass;
+import org.dihedron.webmvc.compression.Compression;
 import org.dihedron.webmvc.interceptors.Domain;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -93,6 +96,66 @@ public class DomainsRegistryHandler implements DOMHandler {
 					}
 				}
 			}
+			
+			// load optional response compression settings
+			Element c = DOM.getFirstChildByTagName(e, "compression");
+			if(c != null) {
+				try {
+					String threshold = c.getAttribute("threshold");
+					String level = c.getAttribute("level");
+					domain.setCompression(new Compression(
+							Strings.isValid(threshold) ? Integer.parseInt(threshold.trim()) : Compression.DEFAULT_THRESHOLD, 
+							Strings.isValid(level) ? Integer.parseInt(level.trim()) : Compression.DEFAULT_LEVEL));
+				} catch(NumberFormatException x) {
+					logger.error("invalid compression settings for domain '{}'", domainId);
+					throw new DOMHandlerException("Invalid compression settings for domain '" + domainId + "'", x);
+				}
+			}
+			
+			// load optional adaptive concurrency limit settings
+			Element l = DOM.getFirstChildByTagName(e, "adaptive-limit");
+			if(l != null) {
+				try {
+					String initial = l.getAttribute("initial");
+					String min = l.getAttribute("min");
+					String max = l.getAttribute("max");
+					String tolerance = l.getAttribute("tolerance");
+					String backoff = l.getAttribute("backoff");
+					String window = l.getAttribute("window");
+					domain.setAdaptiveLimit(new AdaptiveLimit(
+							Strings.isValid(initial) ? Integer.parseInt(initial.trim()) : AdaptiveLimit.DEFAULT_INITIAL, 
+							Strings.isValid(min) ? Integer.parseInt(min.trim()) : AdaptiveLimit.DEFAULT_MIN, 
+							Strings.isValid(max) ? Integer.parseInt(max.trim()) : AdaptiveLimit.DEFAULT_MAX, 
+							Strings.isValid(tolerance) ? Double.parseDouble(tolerance.trim()) : AdaptiveLimit.DEFAULT_TOLERANCE, 
+							Strings.isValid(backoff) ? Double.parseDouble(backoff.trim()) : AdaptiveLimit.DEFAULT_BACKOFF, 
+							Strings.isValid(window) ? Integer.parseInt(window.trim()) : AdaptiveLimit.DEFAULT_WINDOW));
+				} catch(NumberFormatException x) {
+					logger.error("invalid adaptive limit settings for domain '{}'", domainId);
+					throw new DOMHandlerException("Invalid adaptive limit settings for domain '" + domainId + "'", x);
+				}
+			}
+			
+			// load the optional priority class
+			Element p = DOM.getFirstChildByTagName(e, "priority");
+			if(p != null) {
+				PriorityClass priority = PriorityClass.fromString(DOM.getElementText(p));
+				if(priority == null) {
+					logger.error("invalid priority class '{}' for domain '{}'", DOM.getElementText(p), domainId);
+					throw new DOMHandlerException("Invalid priority class for domain '" + domainId + "'");
+				}
+				domain.setPriority(priority);
+			}
+			
+			// load optional deadline settings
+			Element d = DOM.getFirstChildByTagName(e, "deadline");
+			if(d != null) {
+				try {
+					domain.setDeadline(Long.parseLong(d.getAttribute("timeout").trim()), d.getAttribute("result"));
+				} catch(NumberFormatException x) {
+					logger.error("invalid deadline settings for domain '{}'", domainId);
+					throw new DOMHandlerException("Invalid deadline settings for domain '" + domainId + "'", x);
+				}
+			}
 			logger.debug("adding domain '{}' (referencing stack '{}'), applied to '{}'", domainId, stackId, pattern);
 			domains.add(domain);
 		}
@@ -53,9 +53,10 @@ public class InterceptorsRegistry {
 	public static final String DEFAULT_INTERCEPTOR_STACK = "default";
 		
 	/**
-	 * The map of registered interceptor stacks.
+	 * The immutable map of registered interceptor stacks; loading new stacks 
+	 * publishes an updated copy, so that readers never need to lock.
 	 */
-	private Map<String, InterceptorStack> stacks = Collections.synchronizedMap(new HashMap<String, InterceptorStack>());
+	private volatile Map<String, InterceptorStack> stacks = Collections.emptyMap();
 	
 	/**
 	 * Initialises the interceptors configuration by parsing the input configuration 
@@ -74,7 +75,11 @@ public class InterceptorsRegistry {
 	public void load(String specification) throws WebMVCException {
 		try {			
 			logger.info("loading the interceptors configuration from '{}'", specification);
-			DOMReader.loadDocument(specification, INTERCEPTORS_CONFIG_XSD, new InterceptorsRegistryHandler(stacks), VALIDATE_XML); 
+			synchronized(this) {
+				Map<String, InterceptorStack> updated = new HashMap<>(stacks);
+				DOMReader.loadDocument(specification, INTERCEPTORS_CONFIG_XSD, new InterceptorsRegistryHandler(updated), VALIDATE_XML);
+				stacks = Collections.unmodifiableMap(updated);
+			}
 		} catch (InvalidArgumentException e) {
 			logger.warn("no valid stream to read interceptors' stacks from, it may be OK (check if this is what you want)", e);
 			// gracefully handle this condition by swallowing the error
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2012-2015, Andrea Funto'. All rights reserved. See LICENSE for details.
+ */
+
+package org.dihedron.webmvc.metrics;
+
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Rough estimates of the memory taken up by the values the framework retains
+ * across requests, such as conversation-scoped values and cached outputs; they
+ * are meant to bound memory usage, not to measure it.
+ *
+ * @author Andrea Funto'
+ */
+public final class Footprint {
+
+	/**
+	 * The estimated memory taken up by objects whose size cannot be inferred.
+	 */
+	public static final long OBJECT_SIZE = 64;
+
+	/**
+	 * Roughly estimates the memory taken up by an object: strings, arrays of
+	 * strings (e.g. form fields) and arrays of primitives are sized by their
+	 * length, collections and maps by their number of entries, any other
+	 * object is charged a flat amount.
+	 *
+	 * @param value
+	 *   the object.
+	 * @return
+	 *   the estimated footprint, in bytes; {@code null} takes up nothing.
+	 */
+	public static long sizeOf(Object value) {
+		if(value == null) {
+			return 0;
+		} else if(value instanceof String) {
+			return 40 + 2L * ((String)value).length();
+		} else if(value instanceof Object[]) {
+			long size = 16 + 8L * ((Object[])value).length;
+			for(Object element : (Object[])value) {
+				size += element instanceof String ? sizeOf(element) : 0;
+			}
+			return size;
+		} else if(value instanceof byte[]) {
+			return 16 + ((byte[])value).length;
+		} else if(value instanceof char[]) {
+			return 16 + 2L * ((char[])value).length;
+		} else if(value instanceof int[] || value instanceof float[]) {
+			return 16 + 4L * Array.getLength(value);
+		} else if(value instanceof long[] || value instanceof double[]) {
+			return 16 + 8L * Array.getLength(value);
+		} else if(value instanceof Collection) {
+			return OBJECT_SIZE + OBJECT_SIZE * ((Collection<?>)value).size();
+		} else if(value instanceof Map) {
+			return OBJECT_SIZE + 2 * OBJECT_SIZE * ((Map<?, ?>)value).size();
+		}
+		return OBJECT_SIZE;
+	}
+
+	/**
+	 * Private constructor, to prevent instantiation.
+	 */
+	private Footprint() {
+	}
+}
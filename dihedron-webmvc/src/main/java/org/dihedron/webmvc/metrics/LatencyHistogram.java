@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2012-2015, Andrea Funto'. All rights reserved. See LICENSE for details.
+ */
+
+package org.dihedron.webmvc.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of latencies, in nanoseconds, with log-linear buckets:
+ * each power of two is split into {@value #SUB_BUCKETS} buckets, so that any 
+ * percentile is reported with a relative error below 12.5%, using a fixed 
+ * amount of memory and a single atomic increment per sample. Like the cells 
+ * of a {@link StripedCounter}, buckets are replicated in rows, each used by a
+ * subset of the threads and summed on read, so that samples of similar latency
+ * recorded on different cores do not contend on the same counter.
+ *
+ * @author Andrea Funto'
+ */
+public class LatencyHistogram {
+
+	/**
+	 * The number of bits used to split each power of two.
+	 */
+	private static final int SUB_BUCKET_BITS = 3;
+
+	/**
+	 * The number of buckets per power of two.
+	 */
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	/**
+	 * The overall number of buckets, enough for any positive long value.
+	 */
+	private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+	/**
+	 * The maximum number of rows, which bounds the memory taken by histograms
+	 * on hosts with many processors.
+	 */
+	private static final int MAX_ROWS = 16;
+
+	/**
+	 * The number of rows, a power of two.
+	 */
+	private static final int ROWS = Math.min(StripedCounter.CELLS, MAX_ROWS);
+
+	/**
+	 * The distance between the beginnings of two rows, padded so that no two 
+	 * rows share a cache line.
+	 */
+	private static final int ROW_SIZE = BUCKETS + StripedCounter.PADDING;
+
+	/**
+	 * The number of samples per bucket, row by row.
+	 */
+	private final AtomicLongArray buckets = new AtomicLongArray(ROWS * ROW_SIZE);
+
+	/**
+	 * Records a sample.
+	 *
+	 * @param nanos
+	 *   the latency, in nanoseconds.
+	 */
+	public void record(long nanos) {
+		buckets.incrementAndGet(StripedCounter.stripe(ROWS) * ROW_SIZE + indexOf(Math.max(nanos, 0)));
+	}
+
+	/**
+	 * Returns the given percentiles of the recorded samples, computed on a 
+	 * single snapshot of the histogram.
+	 *
+	 * @param percentiles
+	 *   the percentiles, as numbers between 0 and 100 (e.g. 99.9).
+	 * @return
+	 *   the upper bounds of the buckets holding the given percentiles, in 
+	 *   nanoseconds, or zeros if no sample has been recorded.
+	 */
+	public long[] getPercentiles(double... percentiles) {
+		long[] snapshot = new long[BUCKETS];
+		long total = 0;
+		for(int row = 0; row < ROWS; ++row) {
+			int offset = row * ROW_SIZE;
+			for(int i = 0; i < BUCKETS; ++i) {
+				snapshot[i] += buckets.get(offset + i);
+			}
+		}
+		for(int i = 0; i < BUCKETS; ++i) {
+			total += snapshot[i];
+		}
+		long[] values = new long[percentiles.length];
+		if(total == 0) {
+			return values;
+		}
+		for(int p = 0; p < percentiles.length; ++p) {
+			long rank = (long)Math.ceil(percentiles[p] / 100.0 * total);
+			long seen = 0;
+			for(int i = 0; i < BUCKETS; ++i) {
+				seen += snapshot[i];
+				if(seen >= rank && snapshot[i] > 0) {
+					values[p] = upperBoundOf(i);
+					break;
+				}
+			}
+		}
+		return values;
+	}
+
+	/**
+	 * Removes all samples; concurrent samples may be lost.
+	 */
+	public void reset() {
+		for(int i = 0; i < buckets.length(); ++i) {
+			buckets.set(i, 0);
+		}
+	}
+
+	/**
+	 * Returns the index of the bucket holding the given value.
+	 */
+	private static int indexOf(long value) {
+		if(value < SUB_BUCKETS) {
+			return (int)value;
+		}
+		int magnitude = 63 - Long.numberOfLeadingZeros(value);
+		int shift = magnitude - SUB_BUCKET_BITS;
+		return (shift + 1) * SUB_BUCKETS + (int)((value >>> shift) & (SUB_BUCKETS - 1));
+	}
+
+	/**
+	 * Returns the highest value held by the given bucket.
+	 */
+	private static long upperBoundOf(int index) {
+		if(index < SUB_BUCKETS) {
+			return index;
+		}
+		int shift = index / SUB_BUCKETS - 1;
+		long lower = ((long)(SUB_BUCKETS + index % SUB_BUCKETS)) << shift;
+		return lower + (1L << shift) - 1;
+	}
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2012-2015, Andrea Funto'. All rights reserved. See LICENSE for details.
+ */
+
+package org.dihedron.webmvc.metrics;
+
+/**
+ * The phases of the request processing pipeline, as measured by the
+ * {@link PhaseTimer}; the time spent in interceptors is measured separately,
+ * per interceptor.
+ *
+ * @author Andrea Funto'
+ */
+public enum Phase {
+
+	/**
+	 * The binding of the {@code ActionContext}, including multipart parsing.
+	 */
+	BINDING,
+
+	/**
+	 * The preparation of the business method's arguments ({@code @In} and 
+	 * {@code @Model} binding, input validation), in the generated stub.
+	 */
+	INPUTS,
+
+	/**
+	 * The business method itself.
+	 */
+	ACTION,
+
+	/**
+	 * The storage of {@code @Out} parameters into their scopes (and result 
+	 * validation), in the generated stub.
+	 */
+	OUTPUTS,
+
+	/**
+	 * The rendering of the result.
+	 */
+	RENDERING,
+
+	/**
+	 * Anything else done by the framework, e.g. action instantiation, result 
+	 * resolution, cache look-ups and queueing for asynchronous execution.
+	 */
+	OTHER
+}
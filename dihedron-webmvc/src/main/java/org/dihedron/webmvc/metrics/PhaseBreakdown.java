@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2012-2015, Andrea Funto'. All rights reserved. See LICENSE for details.
+ */
+
+package org.dihedron.webmvc.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.CompositeDataSupport;
+import javax.management.openmbean.CompositeType;
+import javax.management.openmbean.OpenDataException;
+import javax.management.openmbean.OpenType;
+import javax.management.openmbean.SimpleType;
+import javax.management.openmbean.TabularData;
+import javax.management.openmbean.TabularDataSupport;
+import javax.management.openmbean.TabularType;
+
+/**
+ * The aggregated phase timings of the requests served by a target, as 
+ * measured by {@link PhaseTimer}s; only requests timed while phase timing was
+ * enabled contribute to it.
+ *
+ * @author Andrea Funto'
+ */
+public class PhaseBreakdown {
+
+	/**
+	 * The names of the items in the JMX representation of the breakdown; 
+	 * times are means, in microseconds.
+	 */
+	private static final String[] ITEMS;
+
+	/**
+	 * The names of the items in the JMX representation of the interceptors' 
+	 * breakdown.
+	 */
+	private static final String[] INTERCEPTOR_ITEMS = { "interceptor", "mean" };
+
+	/**
+	 * The JMX open type of the breakdown of a target.
+	 */
+	public static final CompositeType COMPOSITE_TYPE;
+
+	/**
+	 * The JMX open type of the breakdowns of all targets, indexed by target id.
+	 */
+	public static final TabularType TABULAR_TYPE;
+
+	/**
+	 * The JMX open type of the time spent in an interceptor.
+	 */
+	public static final CompositeType INTERCEPTOR_COMPOSITE_TYPE;
+
+	/**
+	 * The JMX open type of the times spent in the interceptors of a target, 
+	 * indexed by interceptor id.
+	 */
+	public static final TabularType INTERCEPTOR_TABULAR_TYPE;
+
+	static {
+		Phase[] phases = Phase.values();
+		ITEMS = new String[phases.length + 3];
+		String[] descriptions = new String[ITEMS.length];
+		OpenType<?>[] types = new OpenType<?>[ITEMS.length];
+		ITEMS[0] = "target";
+		descriptions[0] = "the target id";
+		types[0] = SimpleType.STRING;
+		ITEMS[1] = "samples";
+		descriptions[1] = "the number of timed requests";
+		types[1] = SimpleType.LONG;
+		ITEMS[2] = "interceptors";
+		descriptions[2] = "the mean time spent in interceptors (us)";
+		types[2] = SimpleType.LONG;
+		for(Phase phase : phases) {
+			ITEMS[phase.ordinal() + 3] = phase.name().toLowerCase();
+			descriptions[phase.ordinal() + 3] = "the mean time spent in phase " + phase.name() + " (us)";
+			types[phase.ordinal() + 3] = SimpleType.LONG;
+		}
+		try {
+			COMPOSITE_TYPE = new CompositeType("PhaseBreakdown", "The mean time spent in each phase by a target", ITEMS, descriptions, types);
+			TABULAR_TYPE = new TabularType("PhaseBreakdowns", "The mean time spent in each phase by all targets", COMPOSITE_TYPE, new String[] { ITEMS[0] });
+			INTERCEPTOR_COMPOSITE_TYPE = new CompositeType("InterceptorTime", "The mean exclusive time spent in an interceptor", INTERCEPTOR_ITEMS, 
+					new String[] { "the interceptor id", "the mean exclusive time (us)" }, new OpenType<?>[] { SimpleType.STRING, SimpleType.LONG });
+			INTERCEPTOR_TABULAR_TYPE = new TabularType("InterceptorTimes", "The mean exclusive time spent in each interceptor", INTERCEPTOR_COMPOSITE_TYPE, new String[] { INTERCEPTOR_ITEMS[0] });
+		} catch(OpenDataException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	/**
+	 * The number of timed requests.
+	 */
+	private final AtomicLong samples = new AtomicLong();
+
+	/**
+	 * The overall time spent in each phase, in nanoseconds.
+	 */
+	private final AtomicLongArray phases = new AtomicLongArray(Phase.values().length);
+
+	/**
+	 * The overall exclusive time spent in each interceptor, in nanoseconds.
+	 */
+	private final ConcurrentMap<String, AtomicLong> interceptors = new ConcurrentHashMap<>();
+
+	/**
+	 * Adds the timings of a request.
+	 *
+	 * @param timer
+	 *   the timer of the request.
+	 */
+	public void record(PhaseTimer timer) {
+		samples.incrementAndGet();
+		for(Phase phase : Phase.values()) {
+			phases.addAndGet(phase.ordinal(), timer.getTime(phase));
+		}
+		for(int i = 0; i < timer.getInterceptorCount(); ++i) {
+			AtomicLong time = interceptors.get(timer.getInterceptorId(i));
+			if(time == null) {
+				AtomicLong created = new AtomicLong();
+				time = interceptors.putIfAbsent(timer.getInterceptorId(i), created);
+				if(time == null) {
+					time = created;
+				}
+			}
+			time.addAndGet(timer.getInterceptorTime(i));
+		}
+	}
+
+	/**
+	 * Returns the number of timed requests.
+	 *
+	 * @return
+	 *   the number of timed requests.
+	 */
+	public long getSamples() {
+		return samples.get();
+	}
+
+	/**
+	 * Resets the breakdown.
+	 */
+	public void reset() {
+		samples.set(0);
+		for(int i = 0; i < phases.length(); ++i) {
+			phases.set(i, 0);
+		}
+		interceptors.clear();
+	}
+
+	/**
+	 * Returns the JMX representation of the breakdown.
+	 *
+	 * @param target
+	 *   the id of the target.
+	 * @return
+	 *   the breakdown, as an instance of {@link #COMPOSITE_TYPE}.
+	 * @throws OpenDataException
+	 */
+	public CompositeData toCompositeData(String target) throws OpenDataException {
+		long count = samples.get();
+		Object[] values = new Object[ITEMS.length];
+		values[0] = target;
+		values[1] = count;
+		long total = 0;
+		for(AtomicLong time : interceptors.values()) {
+			total += time.get();
+		}
+		values[2] = mean(total, count);
+		for(Phase phase : Phase.values()) {
+			values[phase.ordinal() + 3] = mean(phases.get(phase.ordinal()), count);
+		}
+		return new CompositeDataSupport(COMPOSITE_TYPE, ITEMS, values);
+	}
+
+	/**
+	 * Returns the JMX representation of the time spent in each interceptor.
+	 *
+	 * @return
+	 *   the interceptors' times, as an instance of {@link #INTERCEPTOR_TABULAR_TYPE}.
+	 * @throws OpenDataException
+	 */
+	public TabularData toInterceptorsTabularData() throws OpenDataException {
+		long count = samples.get();
+		TabularData table = new TabularDataSupport(INTERCEPTOR_TABULAR_TYPE);
+		for(Map.Entry<String, AtomicLong> entry : interceptors.entrySet()) {
+			table.put(new CompositeDataSupport(INTERCEPTOR_COMPOSITE_TYPE, INTERCEPTOR_ITEMS, new Object[] { entry.getKey(), mean(entry.getValue().get(), count) }));
+		}
+		return table;
+	}
+
+	/**
+	 * Returns the mean of the given overall time, in microseconds.
+	 */
+	private static Long mean(long nanos, long count) {
+		return count > 0 ? nanos / count / 1000 : 0L;
+	}
+}
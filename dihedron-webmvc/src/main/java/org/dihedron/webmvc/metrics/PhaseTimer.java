@@ -0,0 +1,271 @@
+/*
+ * Copyright (c) 2012-2015, Andrea Funto'. All rights reserved. See LICENSE for details.
+ */
+
+package org.dihedron.webmvc.metrics;
+
+import java.util.Arrays;
+
+/**
+ * Measures how long a request spends in each phase of the pipeline and in 
+ * each interceptor (exclusive of the nested ones), by attributing the time 
+ * between two consecutive phase switches to the phase being left. Timers are 
+ * bound to the thread serving the request; when phase timing is disabled (the
+ * default), no timer is created and each phase switch costs a single volatile 
+ * read.
+ *
+ * @author Andrea Funto'
+ */
+public final class PhaseTimer {
+
+	/**
+	 * Whether phase timing is enabled.
+	 */
+	private static volatile boolean enabled = false;
+
+	/**
+	 * The timer of the request being served by the current thread.
+	 */
+	private static final ThreadLocal<PhaseTimer> current = new ThreadLocal<>();
+
+	/**
+	 * The token returned when no timer is active.
+	 */
+	private static final int NO_SLOT = Integer.MIN_VALUE;
+
+	/**
+	 * The time spent in each phase, in nanoseconds.
+	 */
+	private final long[] phases = new long[Phase.values().length];
+
+	/**
+	 * The ids of the interceptors met so far.
+	 */
+	private String[] interceptors = new String[8];
+
+	/**
+	 * The time spent in each interceptor, in nanoseconds.
+	 */
+	private long[] times = new long[8];
+
+	/**
+	 * The number of interceptors met so far.
+	 */
+	private int size = 0;
+
+	/**
+	 * The current slot: a phase ordinal if non-negative, the index of an 
+	 * interceptor (minus one, negated) otherwise.
+	 */
+	private int slot = Phase.BINDING.ordinal();
+
+	/**
+	 * When the current slot was entered.
+	 */
+	private long since = System.nanoTime();
+
+	/**
+	 * Returns whether phase timing is enabled.
+	 *
+	 * @return
+	 *   whether phase timing is enabled.
+	 */
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Enables or disables phase timing; requests already in progress are not
+	 * affected.
+	 *
+	 * @param enabled
+	 *   whether phase timing should be enabled.
+	 */
+	public static void setEnabled(boolean enabled) {
+		PhaseTimer.enabled = enabled;
+	}
+
+	/**
+	 * Starts timing a request on the current thread, in the binding phase, if
+	 * phase timing is enabled.
+	 */
+	public static void start() {
+		if(enabled) {
+			current.set(new PhaseTimer());
+		}
+	}
+
+	/**
+	 * Stops timing the request served by the current thread.
+	 *
+	 * @return
+	 *   the timer, or {@code null} if the request was not being timed.
+	 */
+	public static PhaseTimer stop() {
+		PhaseTimer timer = current.get();
+		if(timer != null) {
+			current.remove();
+			timer.switchTo(Phase.OTHER.ordinal());
+		}
+		return timer;
+	}
+
+	/**
+	 * Detaches the timer from the current thread, so that it can be attached to
+	 * the thread that will complete the request.
+	 *
+	 * @return
+	 *   the timer, or {@code null} if the request is not being timed.
+	 */
+	public static PhaseTimer detach() {
+		PhaseTimer timer = current.get();
+		if(timer != null) {
+			current.remove();
+		}
+		return timer;
+	}
+
+	/**
+	 * Attaches a previously detached timer to the current thread.
+	 *
+	 * @param timer
+	 *   the timer; if {@code null}, this method has no effect.
+	 */
+	public static void attach(PhaseTimer timer) {
+		if(timer != null) {
+			current.set(timer);
+		}
+	}
+
+	/**
+	 * Switches the request served by the current thread to the given phase.
+	 *
+	 * @param phase
+	 *   the phase being entered.
+	 * @return
+	 *   a token representing the phase being left, to be passed to 
+	 *   {@link #resume(int)}.
+	 */
+	public static int enter(Phase phase) {
+		if(!enabled) {
+			return NO_SLOT;
+		}
+		PhaseTimer timer = current.get();
+		return timer != null ? timer.switchTo(phase.ordinal()) : NO_SLOT;
+	}
+
+	/**
+	 * Switches the request served by the current thread to the given 
+	 * interceptor.
+	 *
+	 * @param id
+	 *   the id of the interceptor being entered.
+	 * @return
+	 *   a token representing the phase (or interceptor) being left, to be 
+	 *   passed to {@link #resume(int)}.
+	 */
+	public static int enterInterceptor(String id) {
+		if(!enabled) {
+			return NO_SLOT;
+		}
+		PhaseTimer timer = current.get();
+		return timer != null ? timer.switchTo(-(timer.indexOf(id) + 1)) : NO_SLOT;
+	}
+
+	/**
+	 * Switches the request served by the current thread back to a phase (or 
+	 * interceptor) that was previously left.
+	 *
+	 * @param token
+	 *   the token returned when the phase was left.
+	 */
+	public static void resume(int token) {
+		if(token != NO_SLOT) {
+			PhaseTimer timer = current.get();
+			if(timer != null) {
+				timer.switchTo(token);
+			}
+		}
+	}
+
+	/**
+	 * Returns the time spent in the given phase.
+	 *
+	 * @param phase
+	 *   the phase.
+	 * @return
+	 *   the time spent in the phase, in nanoseconds.
+	 */
+	public long getTime(Phase phase) {
+		return phases[phase.ordinal()];
+	}
+
+	/**
+	 * Returns the number of interceptors the request went through.
+	 *
+	 * @return
+	 *   the number of interceptors.
+	 */
+	public int getInterceptorCount() {
+		return size;
+	}
+
+	/**
+	 * Returns the id of the i-th interceptor the request went through.
+	 *
+	 * @param i
+	 *   the index of the interceptor.
+	 * @return
+	 *   the interceptor id.
+	 */
+	public String getInterceptorId(int i) {
+		return interceptors[i];
+	}
+
+	/**
+	 * Returns the time spent in the i-th interceptor the request went through,
+	 * excluding nested interceptors and the action.
+	 *
+	 * @param i
+	 *   the index of the interceptor.
+	 * @return
+	 *   the exclusive time spent in the interceptor, in nanoseconds.
+	 */
+	public long getInterceptorTime(int i) {
+		return times[i];
+	}
+
+	/**
+	 * Attributes the time elapsed since the last switch to the current slot 
+	 * and enters the given one.
+	 */
+	private int switchTo(int next) {
+		long now = System.nanoTime();
+		if(slot >= 0) {
+			phases[slot] += now - since;
+		} else {
+			times[-slot - 1] += now - since;
+		}
+		int previous = slot;
+		slot = next;
+		since = now;
+		return previous;
+	}
+
+	/**
+	 * Returns the index of the given interceptor, adding it if not yet met.
+	 */
+	private int indexOf(String id) {
+		for(int i = 0; i < size; ++i) {
+			if(interceptors[i].equals(id)) {
+				return i;
+			}
+		}
+		if(size == interceptors.length) {
+			interceptors = Arrays.copyOf(interceptors, size * 2);
+			times = Arrays.copyOf(times, size * 2);
+		}
+		interceptors[size] = id;
+		return size++;
+	}
+}
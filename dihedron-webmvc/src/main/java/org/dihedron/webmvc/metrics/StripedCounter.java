@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2012-2015, Andrea Funto'. All rights reserved. See LICENSE for details.
+ */
+
+package org.dihedron.webmvc.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A counter spread over several cells, each on its own cache line, so that
+ * threads updating it concurrently do not contend on the same memory location;
+ * the value is the sum of all cells, and is therefore only a snapshot when the
+ * counter is being updated.
+ *
+ * @author Andrea Funto'
+ */
+public class StripedCounter {
+
+	/**
+	 * The distance between cells, in longs, so that each sits on its own 
+	 * (64-byte) cache line.
+	 */
+	static final int PADDING = 8;
+
+	/**
+	 * The number of cells, a power of two.
+	 */
+	static final int CELLS = cells();
+
+	/**
+	 * The cells.
+	 */
+	private final AtomicLongArray cells = new AtomicLongArray(CELLS * PADDING);
+
+	/**
+	 * Adds one to the counter.
+	 */
+	public void increment() {
+		add(1);
+	}
+
+	/**
+	 * Adds the given amount to the counter.
+	 *
+	 * @param delta
+	 *   the amount to be added.
+	 */
+	public void add(long delta) {
+		cells.getAndAdd(index(), delta);
+	}
+
+	/**
+	 * Returns the current value of the counter.
+	 *
+	 * @return
+	 *   the sum of all cells.
+	 */
+	public long get() {
+		long sum = 0;
+		for(int i = 0; i < CELLS; ++i) {
+			sum += cells.get(i * PADDING);
+		}
+		return sum;
+	}
+
+	/**
+	 * Resets the counter to zero; concurrent updates may be lost.
+	 */
+	public void reset() {
+		for(int i = 0; i < CELLS; ++i) {
+			cells.set(i * PADDING, 0);
+		}
+	}
+
+	/**
+	 * Returns the index of the cell to be used by the current thread.
+	 */
+	private static int index() {
+		return stripe(CELLS) * PADDING;
+	}
+
+	/**
+	 * Returns the stripe to be used by the current thread, out of the given
+	 * number of stripes.
+	 *
+	 * @param count
+	 *   the number of stripes, a power of two.
+	 * @return
+	 *   the stripe, between 0 and {@code count - 1}.
+	 */
+	static int stripe(int count) {
+		long id = Thread.currentThread().getId();
+		return (int)((id ^ (id >>> 16)) & (count - 1));
+	}
+
+	/**
+	 * Returns the number of cells, i.e. the smallest power of two not lower than
+	 * the number of available processors.
+	 */
+	private static int cells() {
+		int processors = Runtime.getRuntime().availableProcessors();
+		int cells = 1;
+		while(cells < processors) {
+			cells <<= 1;
+		}
+		return cells;
+	}
+}
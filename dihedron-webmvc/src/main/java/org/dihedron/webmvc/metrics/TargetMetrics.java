@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2012-2015, Andrea Funto'. All rights reserved. See LICENSE for details.
+ */
+
+package org.dihedron.webmvc.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.CompositeDataSupport;
+import javax.management.openmbean.CompositeType;
+import javax.management.openmbean.OpenDataException;
+import javax.management.openmbean.OpenType;
+import javax.management.openmbean.SimpleType;
+import javax.management.openmbean.TabularType;
+
+/**
+ * The runtime metrics of a target: the number of requests served, how many of
+ * them failed, and the distribution of their latencies, measured from the 
+ * moment the target is invoked to the moment its result has been rendered.
+ *
+ * @author Andrea Funto'
+ */
+public class TargetMetrics {
+
+	/**
+	 * The names of the items in the JMX representation of the metrics; 
+	 * latencies are in microseconds.
+	 */
+	private static final String[] ITEMS = { 
+		"target", "count", "errors", "mean", "p50", "p90", "p99", "p999", "max" 
+	};
+
+	/**
+	 * The descriptions of the items in the JMX representation of the metrics.
+	 */
+	private static final String[] DESCRIPTIONS = { 
+		"the target id", 
+		"the number of requests served", 
+		"the number of requests that failed", 
+		"the mean latency (us)", 
+		"the median latency (us)", 
+		"the 90th percentile latency (us)", 
+		"the 99th percentile latency (us)", 
+		"the 99.9th percentile latency (us)", 
+		"the maximum latency (us)" 
+	};
+
+	/**
+	 * The JMX open type of the metrics of a target.
+	 */
+	public static final CompositeType COMPOSITE_TYPE;
+
+	/**
+	 * The JMX open type of the metrics of all targets, indexed by target id.
+	 */
+	public static final TabularType TABULAR_TYPE;
+
+	static {
+		try {
+			OpenType<?>[] types = new OpenType<?>[ITEMS.length];
+			types[0] = SimpleType.STRING;
+			for(int i = 1; i < types.length; ++i) {
+				types[i] = SimpleType.LONG;
+			}
+			COMPOSITE_TYPE = new CompositeType("TargetMetrics", "The runtime metrics of a target", ITEMS, DESCRIPTIONS, types);
+			TABULAR_TYPE = new TabularType("TargetsMetrics", "The runtime metrics of all targets", COMPOSITE_TYPE, new String[] { ITEMS[0] });
+		} catch(OpenDataException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	/**
+	 * The number of requests served.
+	 */
+	private final StripedCounter count = new StripedCounter();
+
+	/**
+	 * The number of requests that failed.
+	 */
+	private final StripedCounter errors = new StripedCounter();
+
+	/**
+	 * The overall latency of all requests, in nanoseconds.
+	 */
+	private final StripedCounter elapsed = new StripedCounter();
+
+	/**
+	 * The maximum latency, in nanoseconds.
+	 */
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * The distribution of latencies.
+	 */
+	private final LatencyHistogram histogram = new LatencyHistogram();
+
+	/**
+	 * The breakdown of the time spent in each phase.
+	 */
+	private final PhaseBreakdown breakdown = new PhaseBreakdown();
+
+	/**
+	 * Records a request.
+	 *
+	 * @param nanos
+	 *   the latency of the request, in nanoseconds.
+	 * @param failed
+	 *   whether the request failed.
+	 */
+	public void record(long nanos, boolean failed) {
+		count.increment();
+		if(failed) {
+			errors.increment();
+		}
+		elapsed.add(nanos);
+		histogram.record(nanos);
+		long current = max.get();
+		while(nanos > current && !max.compareAndSet(current, nanos)) {
+			current = max.get();
+		}
+	}
+
+	/**
+	 * Returns the number of requests served.
+	 *
+	 * @return
+	 *   the number of requests served.
+	 */
+	public long getCount() {
+		return count.get();
+	}
+
+	/**
+	 * Returns the number of requests that failed.
+	 *
+	 * @return
+	 *   the number of requests that failed.
+	 */
+	public long getErrors() {
+		return errors.get();
+	}
+
+	/**
+	 * Returns the breakdown of the time spent in each phase.
+	 *
+	 * @return
+	 *   the phase breakdown.
+	 */
+	public PhaseBreakdown getBreakdown() {
+		return breakdown;
+	}
+
+	/**
+	 * Resets all metrics.
+	 */
+	public void reset() {
+		count.reset();
+		errors.reset();
+		elapsed.reset();
+		max.set(0);
+		histogram.reset();
+		breakdown.reset();
+	}
+
+	/**
+	 * Returns the JMX representation of the metrics.
+	 *
+	 * @param target
+	 *   the id of the target.
+	 * @return
+	 *   the metrics, as an instance of {@link #COMPOSITE_TYPE}.
+	 * @throws OpenDataException
+	 */
+	public CompositeData toCompositeData(String target) throws OpenDataException {
+		long requests = count.get();
+		long[] percentiles = histogram.getPercentiles(50.0, 90.0, 99.0, 99.9);
+		Object[] values = { 
+			target, 
+			requests, 
+			errors.get(), 
+			requests > 0 ? elapsed.get() / requests / 1000 : 0L, 
+			percentiles[0] / 1000, 
+			percentiles[1] / 1000, 
+			percentiles[2] / 1000, 
+			percentiles[3] / 1000, 
+			max.get() / 1000 
+		};
+		return new CompositeDataSupport(COMPOSITE_TYPE, ITEMS, values);
+	}
+}
@@ -0,0 +1,11 @@
+/*
+ * Copyright (c) 2012-2015, Andrea Funto'. All rights reserved. See LICENSE for details.
+ */
+
+/**
+ * The package containing the low-overhead, per-target runtime metrics (counts,
+ * errors and latency histograms) exposed through the controller's JMX MBean.
+ *
+ * @author Andrea Funto'
+ */
+package org.dihedron.webmvc.metrics;
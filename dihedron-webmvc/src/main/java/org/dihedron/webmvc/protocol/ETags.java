@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2012-2015, Andrea Funto'. All rights reserved. See LICENSE for details.
+ */
+
+package org.dihedron.webmvc.protocol;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Helper methods to compute entity tags and evaluate conditional requests, as
+ * per RFC 7232.
+ *
+ * @author Andrea Funto'
+ */
+public final class ETags {
+
+	/**
+	 * The name of the response header carrying the entity tag.
+	 */
+	public static final String ETAG_HEADER = "ETag";
+
+	/**
+	 * The name of the request header carrying the entity tags known to the client.
+	 */
+	public static final String IF_NONE_MATCH_HEADER = "If-None-Match";
+
+	/**
+	 * The digest algorithm used to hash rendered responses.
+	 */
+	private static final String DIGEST_ALGORITHM = "SHA-1";
+
+	/**
+	 * The prefix of weak entity tags.
+	 */
+	private static final String WEAK_PREFIX = "W/";
+
+	/**
+	 * The separator between the opaque tag and the content coding.
+	 */
+	private static final char CODING_SEPARATOR = '-';
+
+	/**
+	 * The hexadecimal digits.
+	 */
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	/**
+	 * The per-thread message digest, to avoid looking up the provider at each
+	 * request.
+	 */
+	private static final ThreadLocal<MessageDigest> digest = new ThreadLocal<MessageDigest>() {
+		@Override
+		protected MessageDigest initialValue() {
+			try {
+				return MessageDigest.getInstance(DIGEST_ALGORITHM);
+			} catch(NoSuchAlgorithmException e) {
+				// every Java platform is required to support SHA-1
+				throw new IllegalStateException("Digest algorithm " + DIGEST_ALGORITHM + " not available", e);
+			}
+		}
+	};
+
+	/**
+	 * Returns the strong entity tag of the given body, as a hash of its bytes.
+	 *
+	 * @param body
+	 *   the rendered body.
+	 * @return
+	 *   the quoted entity tag.
+	 */
+	public static String fromBody(byte[] body) {
+		MessageDigest md = digest.get();
+		md.reset();
+		byte[] hash = md.digest(body);
+		char[] tag = new char[hash.length * 2 + 2];
+		tag[0] = '"';
+		for(int i = 0; i < hash.length; ++i) {
+			tag[2 * i + 1] = HEX[(hash[i] >> 4) & 0x0F];
+			tag[2 * i + 2] = HEX[hash[i] & 0x0F];
+		}
+		tag[tag.length - 1] = '"';
+		return new String(tag);
+	}
+
+	/**
+	 * Returns the strong entity tag corresponding to a version supplied by the
+	 * application; double quotes in the version are dropped, since they are not
+	 * allowed in entity tags.
+	 *
+	 * @param version
+	 *   the version of the resource.
+	 * @return
+	 *   the quoted entity tag.
+	 */
+	public static String fromVersion(Object version) {
+		return "\"" + version.toString().replace("\"", "") + "\"";
+	}
+
+	/**
+	 * Returns the entity tag of the representation sent with the given content
+	 * coding: since different codings of the same resource are different 
+	 * representations, they must not share a strong validator (RFC 7232, 
+	 * section 2.3.3), or caches varying on {@code Accept-Encoding} could reply
+	 * "304 Not Modified" for the wrong variant; the coding is appended to the
+	 * opaque tag, e.g. {@code "<hash>-gzip"}, and weak tags stay weak.
+	 *
+	 * @param etag
+	 *   the quoted entity tag of the uncompressed representation.
+	 * @param coding
+	 *   the content coding, or {@code null} for the identity coding.
+	 * @return
+	 *   the quoted entity tag of the encoded representation.
+	 */
+	public static String forCoding(String etag, String coding) {
+		if(coding == null || etag == null) {
+			return etag;
+		}
+		return etag.substring(0, etag.length() - 1) + CODING_SEPARATOR + coding + "\"";
+	}
+
+	/**
+	 * Returns whether the request is a safe one (i.e. GET or HEAD), the only ones
+	 * for which "304 Not Modified" can be returned.
+	 *
+	 * @param request
+	 *   the servlet request.
+	 * @return
+	 *   whether the request method is GET or HEAD.
+	 */
+	public static boolean isConditionalMethod(HttpServletRequest request) {
+		String method = request.getMethod();
+		return "GET".equals(method) || "HEAD".equals(method);
+	}
+
+	/**
+	 * Returns whether the entity tag matches the {@code If-None-Match} header of
+	 * the request, using the weak comparison function, as prescribed for this
+	 * header; a coding-specific tag (see {@link #forCoding(String, String)}) 
+	 * therefore matches both its strong form and the weak one that proxies 
+	 * rewriting the body send back, but never the tag of another coding.
+	 *
+	 * @param request
+	 *   the servlet request.
+	 * @param etag
+	 *   the quoted entity tag of the current representation.
+	 * @return
+	 *   whether the client already has the current representation.
+	 */
+	public static boolean matches(HttpServletRequest request, String etag) {
+		String header = request.getHeader(IF_NONE_MATCH_HEADER);
+		if(header == null) {
+			return false;
+		}
+		String current = opaque(etag);
+		for(String candidate : header.split(",")) {
+			candidate = candidate.trim();
+			if(candidate.equals("*") || opaque(candidate).equals(current)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the entity tag without the weakness indicator.
+	 */
+	private static String opaque(String etag) {
+		return etag.startsWith(WEAK_PREFIX) ? etag.substring(WEAK_PREFIX.length()) : etag;
+	}
+
+	/**
+	 * Private constructor, to prevent instantiation.
+	 */
+	private ETags() {
+	}
+}
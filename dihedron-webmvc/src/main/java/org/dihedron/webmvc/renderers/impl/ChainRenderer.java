@@ -34,7 +34,10 @@ import org.slf4j.LoggerFactory;
  * The renderer that takes care of informing the framework that upon this kind
  * of result, control should be handled ovber to another targets; this renderer
  * is not capable of rendering any output, it will throw an exception if it is 
- * forced to do so (since it would be a bug).
+ * forced to do so (since it would be a bug). Results pointing to registered 
+ * targets are chained in process by the controller; this renderer is only 
+ * invoked for other paths (or paths carrying a query string), which are
+ * forwarded through the container.
  * 
  * @author Andrea Funto'
  */
@@ -0,0 +1,316 @@
+/*
+ * Copyright (c) 2012-2015, Andrea Funto'. All rights reserved. See LICENSE for details.
+ */
+
+package org.dihedron.webmvc.targets;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.dihedron.webmvc.actions.Result;
+import org.dihedron.webmvc.exceptions.DeploymentException;
+import org.dihedron.webmvc.exceptions.WebMVCException;
+import org.dihedron.webmvc.interceptors.Domain;
+import org.dihedron.webmvc.interceptors.Interceptor;
+import org.dihedron.webmvc.interceptors.InterceptorStack;
+import org.dihedron.webmvc.renderers.Renderer;
+import org.dihedron.webmvc.renderers.registry.RendererRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The execution plan of a target, resolved once and for all at deployment time:
+ * it holds the domain protecting the target, the interceptors that must be
+ * applied to it, the action factory and stub methods, and the table mapping
+ * each result onto its {@code Result} and {@code Renderer} instance, so that
+ * servicing a request only involves field and array reads.
+ *
+ * Results that are not known at deployment time (because the business method
+ * returned an undeclared value and the JSP path is inferred) are added to the
+ * table as they are discovered, by replacing the table with an updated copy.
+ *
+ * @author Andrea Funto'
+ */
+public class ExecutionPlan {
+
+    /**
+     * The combination of a result and the renderer instance that serves it.
+     *
+     * @author Andrea Funto'
+     */
+    public static class Outcome {
+
+        /**
+         * The result.
+         */
+        private final Result result;
+
+        /**
+         * The renderer that serves the result.
+         */
+        private final Renderer renderer;
+
+        /**
+         * Constructor.
+         *
+         * @param result
+         *   the result.
+         * @param renderer
+         *   the renderer that serves the result.
+         */
+        public Outcome(Result result, Renderer renderer) {
+            this.result = result;
+            this.renderer = renderer;
+        }
+
+        /**
+         * Returns the result.
+         *
+         * @return
+         *   the result.
+         */
+        public Result getResult() {
+            return result;
+        }
+
+        /**
+         * Returns the renderer instance serving the result.
+         *
+         * @return
+         *   the renderer instance.
+         */
+        public Renderer getRenderer() {
+            return renderer;
+        }
+    }
+
+    /**
+     * The logger.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(ExecutionPlan.class);
+
+    /**
+     * The target this plan applies to.
+     */
+    private final Target target;
+
+    /**
+     * The domain protecting the target.
+     */
+    private final Domain domain;
+
+    /**
+     * The interceptors stack applicable to the target.
+     */
+    private final InterceptorStack stack;
+
+    /**
+     * A snapshot of the interceptors in the stack, as an array.
+     */
+    private final Interceptor[] interceptors;
+
+    /**
+     * The registry used to resolve renderers for results discovered at runtime.
+     */
+    private final RendererRegistry renderers;
+
+    /**
+     * The immutable table of outcomes, by result id; it is atomically replaced 
+     * as a whole when new results are discovered at runtime.
+     */
+    private final AtomicReference<Map<String, Outcome>> outcomes = new AtomicReference<>();
+
+    /**
+     * Constructor.
+     *
+     * @param target
+     *   the target this plan applies to; its results must have already been
+     *   declared.
+     * @param domain
+     *   the domain protecting the target.
+     * @param stack
+     *   the interceptors stack applicable to the target.
+     * @param renderers
+     *   the renderers registry.
+     * @throws WebMVCException
+     *   if any of the results refers to an unknown renderer.
+     */
+    public ExecutionPlan(Target target, Domain domain, InterceptorStack stack, RendererRegistry renderers) throws WebMVCException {
+        this.target = target;
+        this.domain = domain;
+        this.stack = stack;
+        this.interceptors = stack.getInterceptors();
+        this.renderers = renderers;
+
+        Map<String, Outcome> table = new HashMap<>();
+        // global results first, so that the target's can override them
+        for (Result result : domain.getGlobalResults()) {
+            table.put(result.getId(), makeOutcome(result));
+        }
+        for (Result result : target.getResults().values()) {
+            table.put(result.getId(), makeOutcome(result));
+        }
+        this.outcomes.set(Collections.unmodifiableMap(table));
+    }
+
+    /**
+     * Returns the target this plan applies to.
+     *
+     * @return
+     *   the target.
+     */
+    public Target getTarget() {
+        return target;
+    }
+
+    /**
+     * Returns the domain protecting the target.
+     *
+     * @return
+     *   the domain.
+     */
+    public Domain getDomain() {
+        return domain;
+    }
+
+    /**
+     * Returns the interceptors stack applicable to the target.
+     *
+     * @return
+     *   the interceptors stack.
+     */
+    public InterceptorStack getStack() {
+        return stack;
+    }
+
+    /**
+     * Returns the interceptors applicable to the target, as an array; callers
+     * must not modify the array.
+     *
+     * @return
+     *   the array of interceptors.
+     */
+    public Interceptor[] getInterceptors() {
+        return interceptors;
+    }
+
+    /**
+     * Returns the factory method creating the action instances.
+     *
+     * @return
+     *   the action factory method.
+     */
+    public Method getActionFactory() {
+        return target.getActionFactory();
+    }
+
+    /**
+     * Returns the stub method invoking the business method.
+     *
+     * @return
+     *   the stub method.
+     */
+    public Method getStubMethod() {
+        return target.getStubMethod();
+    }
+
+    /**
+     * Returns the outcome corresponding to the given result id; if the result
+     * is neither declared by the target nor global to its domain, a JSP-rendered
+     * result is auto-configured and added to the plan.
+     *
+     * @param resultId
+     *   a result string (e.g. "success", "error").
+     * @return
+     *   the outcome, never {@code null}.
+     * @throws WebMVCException
+     *   if no outcome can be configured for the given result.
+     */
+    public Outcome getOutcome(String resultId) throws WebMVCException {
+        Outcome outcome = outcomes.get().get(resultId);
+        if (outcome != null) {
+            return outcome;
+        }
+        logger.trace("result '{}' is not present yet, auto-configuring...", resultId);
+        Result result = target.addUndeclaredResult(resultId);
+        if (result == null) {
+            logger.error("misconfiguration in registry: target '{}' and result '{}' have no valid processing information", target.getId(), resultId);
+            throw new WebMVCException("No valid information found in registry for target '" + target.getId() + "', result '" + resultId + "', please check your actions");
+        }
+        outcome = makeOutcome(result);
+        Map<String, Outcome> current, updated;
+        do {
+            current = outcomes.get();
+            if (current.containsKey(resultId)) {
+                return current.get(resultId);
+            }
+            updated = new HashMap<>(current);
+            updated.put(resultId, outcome);
+        } while (!outcomes.compareAndSet(current, Collections.unmodifiableMap(updated)));
+        return outcome;
+    }
+
+    /**
+     * Returns the outcome corresponding to the given result id, only if it is 
+     * declared by the target or global to its domain; no result is auto-configured.
+     *
+     * @param resultId
+     *   a result string.
+     * @return
+     *   the outcome, or {@code null} if the result is not declared.
+     */
+    public Outcome findOutcome(String resultId) {
+        return outcomes.get().get(resultId);
+    }
+
+    /**
+     * Returns a pretty printed, complex representation of the object as a string.
+     */
+    public String toString() {
+        StringBuilder buffer = new StringBuilder();
+        buffer.append("plan('").append(target.getId()).append("') {\n");
+        buffer.append("  domain      ('").append(domain.getId()).append("')\n");
+        buffer.append("  stack       ('").append(stack.getId()).append("')\n");
+        buffer.append("  interceptors [");
+        for (int i = 0; i < interceptors.length; ++i) {
+            buffer.append(i > 0 ? ", '" : "'").append(interceptors[i].getId()).append("'");
+        }
+        buffer.append("]\n");
+        buffer.append("  factory     ('").append(getActionFactory().getName()).append("')\n");
+        buffer.append("  stub        ('").append(getStubMethod().getName()).append("')\n");
+        buffer.append("  outcomes {\n");
+        for (Entry<String, Outcome> entry : new TreeMap<>(outcomes.get()).entrySet()) {
+            Result result = entry.getValue().getResult();
+            buffer.append("    outcome ('").append(entry.getKey()).append("') -> ")
+                .append(entry.getValue().getRenderer().getClass().getSimpleName())
+                .append("('").append(result.getData()).append("')\n");
+        }
+        buffer.append("  }\n");
+        buffer.append("}\n");
+        return buffer.toString();
+    }
+
+    /**
+     * Binds the given result to its renderer instance.
+     *
+     * @param result
+     *   the result.
+     * @return
+     *   the outcome.
+     * @throws WebMVCException
+     *   if the result refers to an unknown renderer.
+     */
+    private Outcome makeOutcome(Result result) throws WebMVCException {
+        Renderer renderer = renderers.getRenderer(result.getRendererId());
+        if (renderer == null) {
+            logger.error("result '{}' of target '{}' refers to unknown renderer '{}'", result.getId(), target.getId(), result.getRendererId());
+            throw new DeploymentException("Result '" + result.getId() + "' of target '" + target.getId() + "' refers to unknown renderer '" + result.getRendererId() + "'");
+        }
+        return new Outcome(result, renderer);
+    }
+}
@@ -24,10 +24,15 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
 
 import org.dihedron.core.strings.Strings;
 import org.dihedron.webmvc.actions.Result;
 import org.dihedron.webmvc.annotations.Invocable;
+import org.dihedron.webmvc.cache.CachePolicy;
+import org.dihedron.webmvc.metrics.TargetMetrics;
+import org.dihedron.webmvc.protocol.Scope;
 import org.dihedron.webmvc.renderers.impl.JspRenderer;
 import org.dihedron.webmvc.targets.registry.TargetRegistry;
 import org.slf4j.Logger;
@@ -82,15 +87,72 @@ public class Target {
      */
     private String jspUrlPattern = TargetRegistry.DEFAULT_JSP_PATH_PATTERN;
 
+    /**
+     * The JSP URL pattern, precompiled for this target: action and method names
+     * are already replaced, and the fragments around each occurrence of the 
+     * result variable are stored in order, so that building a JSP URL is a 
+     * simple concatenation.
+     */
+    private volatile String[] jspUrlTemplate;
+
     /**
      * The domain that protects this target.
      */
     private String domain;
 
     /**
-     * The map of expected results.
+     * Whether the target is executed asynchronously.
+     */
+    private boolean async = false;
+
+    /**
+     * Whether the target is idempotent.
+     */
+    private boolean idempotent = false;
+
+    /**
+     * The maximum running time of the target, in milliseconds, or 0 to apply 
+     * the deadline of the domain.
+     */
+    private long timeout = 0;
+
+    /**
+     * The result rendered when the target exceeds its deadline, or {@code null}
+     * to apply the timeout result of the domain.
+     */
+    private String timeoutResult = null;
+
+    /**
+     * The caching policy, if the target is cached.
      */
-    private Map<String, Result> results = Collections.synchronizedMap(new HashMap<String, Result>());
+    private CachePolicy cache = null;
+
+    /**
+     * The runtime metrics of the target.
+     */
+    private final TargetMetrics metrics = new TargetMetrics();
+
+    /**
+     * Whether responses carry an entity tag.
+     */
+    private boolean etag = false;
+
+    /**
+     * The name of the value carrying the resource version, if supplied by the
+     * business method.
+     */
+    private String etagVersion = null;
+
+    /**
+     * The scope of the value carrying the resource version.
+     */
+    private Scope etagVersionScope = Scope.REQUEST;
+
+    /**
+     * The immutable map of expected results; new results are added by atomically
+     * replacing it with an updated copy, so that readers never need to lock.
+     */
+    private final AtomicReference<Map<String, Result>> results = new AtomicReference<Map<String, Result>>(Collections.<String, Result>emptyMap());
 
     /**
      * Constructor.
@@ -241,6 +303,7 @@ public class Target {
         if (Strings.isValid(pattern)) {
             this.jspUrlPattern = Strings.trim(pattern);
         }
+        this.jspUrlTemplate = null;
         logger.trace("target '{}' has URL pattern '{}'", id, this.jspUrlPattern);
         return this;
     }
@@ -271,6 +334,186 @@ public class Target {
         return this;
     }
 
+    /**
+     * Returns whether the target is executed asynchronously, on a framework-managed
+     * thread pool.
+     *
+     * @return 
+     *   whether the target is executed asynchronously.
+     */
+    public boolean isAsync() {
+        return async;
+    }
+
+    /**
+     * Sets whether the target is executed asynchronously.
+     *
+     * @param async 
+     *   whether the target is executed asynchronously.
+     * @return 
+     *   the object itself, for method chaining.
+     */
+    public Target setAsync(boolean async) {
+        this.async = async;
+        return this;
+    }
+
+    /**
+     * Returns whether the target is idempotent, in which case concurrent 
+     * invocations with the same inputs are coalesced.
+     *
+     * @return 
+     *   whether the target is idempotent.
+     */
+    public boolean isIdempotent() {
+        return idempotent;
+    }
+
+    /**
+     * Sets whether the target is idempotent.
+     *
+     * @param idempotent 
+     *   whether the target is idempotent.
+     * @return 
+     *   the object itself, for method chaining.
+     */
+    public Target setIdempotent(boolean idempotent) {
+        this.idempotent = idempotent;
+        return this;
+    }
+
+    /**
+     * Returns the maximum running time of the target.
+     *
+     * @return 
+     *   the maximum running time in milliseconds, or 0 if the deadline of the 
+     *   domain applies.
+     */
+    public long getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Sets the maximum running time of the target.
+     *
+     * @param timeout 
+     *   the maximum running time in milliseconds, or 0 to apply the deadline of
+     *   the domain.
+     * @return 
+     *   the object itself, for method chaining.
+     */
+    public Target setTimeout(long timeout) {
+        this.timeout = Math.max(timeout, 0);
+        return this;
+    }
+
+    /**
+     * Returns the result rendered when the target exceeds its deadline.
+     *
+     * @return 
+     *   the timeout result, or {@code null} if the timeout result of the domain
+     *   applies.
+     */
+    public String getTimeoutResult() {
+        return timeoutResult;
+    }
+
+    /**
+     * Sets the result rendered when the target exceeds its deadline.
+     *
+     * @param timeoutResult 
+     *   the timeout result, or {@code null} (or an empty string) to apply the
+     *   timeout result of the domain.
+     * @return 
+     *   the object itself, for method chaining.
+     */
+    public Target setTimeoutResult(String timeoutResult) {
+        this.timeoutResult = Strings.isValid(timeoutResult) ? timeoutResult : null;
+        return this;
+    }
+
+    /**
+     * Returns the runtime metrics of the target.
+     *
+     * @return 
+     *   the runtime metrics of the target.
+     */
+    public TargetMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Returns the caching policy of the target.
+     *
+     * @return 
+     *   the caching policy, or {@code null} if the target is not cached.
+     */
+    public CachePolicy getCachePolicy() {
+        return cache;
+    }
+
+    /**
+     * Sets the caching policy of the target.
+     *
+     * @param cache 
+     *   the caching policy, or {@code null} if the target is not cached.
+     * @return 
+     *   the object itself, for method chaining.
+     */
+    public Target setCachePolicy(CachePolicy cache) {
+        this.cache = cache;
+        return this;
+    }
+
+    /**
+     * Returns whether responses to GET and HEAD requests carry an entity tag.
+     *
+     * @return 
+     *   whether responses carry an entity tag.
+     */
+    public boolean hasETag() {
+        return etag;
+    }
+
+    /**
+     * Returns the name of the value carrying the resource version.
+     *
+     * @return 
+     *   the name of the value carrying the resource version, or {@code null}
+     *   if the entity tag is a hash of the rendered response.
+     */
+    public String getETagVersion() {
+        return etagVersion;
+    }
+
+    /**
+     * Returns the scope of the value carrying the resource version.
+     *
+     * @return 
+     *   the scope of the value carrying the resource version.
+     */
+    public Scope getETagVersionScope() {
+        return etagVersionScope;
+    }
+
+    /**
+     * Enables entity tags on responses.
+     *
+     * @param version 
+     *   the name of the value carrying the resource version, or {@code null} 
+     *   to hash the rendered response.
+     * @param scope 
+     *   the scope of the value carrying the resource version.
+     * @return 
+     *   the object itself, for method chaining.
+     */
+    public Target setETag(String version, Scope scope) {
+        this.etag = true;
+        this.etagVersion = Strings.isValid(version) ? version : null;
+        this.etagVersionScope = scope;
+        return this;
+    }
+
     public void addDeclaredResults(Invocable invocable) {
         logger.trace("auto-configuring results of '{}'...", id);
         for (org.dihedron.webmvc.annotations.Result annotation : invocable.results()) {
@@ -289,28 +532,28 @@ public class Target {
         } else {
             logger.trace("adding result '{}' with data '{}'", id, data);
         }
-        Result result = new Result(id, renderer, data);
-        this.results.put(id, result);
-
+        putResult(new Result(id, renderer, data), true);
     }
 
     public Result addUndeclaredResult(String value) {
         String id = value;
+        Result result = results.get().get(id);
+        if (result != null) {
+            return result;
+        }
         String renderer = DEFAULT_RENDERER;
         String data = makeJspUrl(id);
         logger.trace("adding (auto-configured) result '{}' with data '{}'", id, data);
-        Result result = new Result(id, renderer, data);
-        this.results.put(id, result);
-        return result;
+        return putResult(new Result(id, renderer, data), false);
     }
 
     /**
      * Returns the map of result identifiers and <code>Result</code> objects.
      *
-     * @return the map of result identifiers and <code>Result</code> objects.
+     * @return the immutable map of result identifiers and <code>Result</code> objects.
      */
     public Map<String, Result> getResults() {
-        return results;
+        return results.get();
     }
 
     /**
@@ -326,7 +569,7 @@ public class Target {
     public Result getResult(String resultId) {
         assert (Strings.isValid(resultId));
         logger.trace("retrieving result for id '{}'", resultId);
-        return results.get(resultId);
+        return results.get().get(resultId);
 //        if (result == null) {
 //            logger.trace("result '{}' is not present yet, auto-configuring...", resultId);
 //            addUndeclaredResult(resultId);
@@ -346,10 +589,16 @@ public class Target {
         buffer.append("  stub        ('").append(stubMethod.getName()).append("')\n");
         buffer.append("  url pattern ('").append(this.getJspUrlPattern()).append("')\n");
         buffer.append("  domain      ('").append(domain).append("')\n");
+        buffer.append("  async       ('").append(async).append("')\n");
+        buffer.append("  idempotent  ('").append(idempotent).append("')\n");
+        buffer.append("  timeout     ('").append(timeout).append("')\n");
+        buffer.append("  on timeout  ('").append(timeoutResult != null ? timeoutResult : "domain").append("')\n");
+        buffer.append("  cached      ('").append(cache != null).append("')\n");
+        buffer.append("  etag        ('").append(etag ? (etagVersion != null ? etagVersion : "hash") : "none").append("')\n");
         buffer.append("  javaclass   ('").append(action.getCanonicalName()).append("')\n");
-        if (!results.isEmpty()) {
+        if (!results.get().isEmpty()) {
             buffer.append("  results {\n");
-            for (Entry<String, Result> result : results.entrySet()) {
+            for (Entry<String, Result> result : results.get().entrySet()) {
                 buffer.append("    result  ('").append(result.getKey()).append("') { \n");
                 buffer.append("      renderer ('").append(result.getValue().getRendererId()).append("')\n");
                 buffer.append("      data     ('").append(result.getValue().getData()).append("')\n");
@@ -372,14 +621,62 @@ public class Target {
      * @return the URL of the JSP-renderered page for the given result.
      */
     private String makeJspUrl(String result) {
-        String path = this.jspUrlPattern
-                .replaceAll("\\$\\{action\\}", id.getActionName())
-                .replaceAll("\\$\\{method\\}", id.getMethodName())
-                .replaceAll("\\$\\{result\\}", result);
+        String[] template = jspUrlTemplate;
+        if (template == null) {
+            String pattern = this.jspUrlPattern
+                    .replace(ACTION_VARIABLE, id.getActionName())
+                    .replace(METHOD_VARIABLE, id.getMethodName());
+            template = pattern.split(Pattern.quote(RESULT_VARIABLE), -1);
+            jspUrlTemplate = template;
+        }
+        StringBuilder buffer = new StringBuilder(template[0]);
+        for (int i = 1; i < template.length; ++i) {
+            buffer.append(result).append(template[i]);
+        }
+        String path = buffer.toString();
         logger.debug("path for target: '{}', result: '{}' is '{}'", id, result, path);
         return path;
     }
 
+    /**
+     * Atomically adds the given result to the map of results.
+     *
+     * @param result
+     *   the result to be added.
+     * @param replace
+     *   whether an existing result with the same id should be replaced; if not,
+     *   the existing result is returned.
+     * @return
+     *   the result in the map after the operation.
+     */
+    private Result putResult(Result result, boolean replace) {
+        Map<String, Result> current, updated;
+        do {
+            current = results.get();
+            if (!replace && current.containsKey(result.getId())) {
+                return current.get(result.getId());
+            }
+            updated = new HashMap<>(current);
+            updated.put(result.getId(), result);
+        } while (!results.compareAndSet(current, Collections.unmodifiableMap(updated)));
+        return result;
+    }
+
+    /**
+     * The variable representing the action name in JSP URL patterns.
+     */
+    private static final String ACTION_VARIABLE = "${action}";
+
+    /**
+     * The variable representing the method name in JSP URL patterns.
+     */
+    private static final String METHOD_VARIABLE = "${method}";
+
+    /**
+     * The variable representing the result in JSP URL patterns.
+     */
+    private static final String RESULT_VARIABLE = "${result}";
+
     /**
      * The default renderer, to be used when no renderer is specified.
      */
@@ -64,6 +64,12 @@ public class TargetId {
 	 */
 	private String methodName;
 
+	/**
+	 * The string representation of the target id, computed once at construction
+	 * time since it is used as the basis for hashing and comparisons.
+	 */
+	private String id;
+
 	/**
 	 * Constructor.
 	 * 
@@ -77,6 +83,7 @@ public class TargetId {
 	public TargetId(String targetId) throws WebMVCException {
 		this.actionName = getActionName(targetId);
 		this.methodName = getMethodName(targetId);
+		this.id = actionName + METHOD_SEPARATOR + methodName;
 	}
 
 	/**
@@ -97,6 +104,7 @@ public class TargetId {
 		}
 		this.actionName = actionName.trim();
 		this.methodName = Strings.isValid(methodName) ? methodName.trim() : DEFAULT_METHOD_NAME;
+		this.id = this.actionName + METHOD_SEPARATOR + this.methodName;
 	}
 
 	/**
@@ -125,6 +133,7 @@ public class TargetId {
 			this.actionName = action.getSimpleName();
 		}
 		this.methodName = method.getName();
+		this.id = actionName + METHOD_SEPARATOR + methodName;
 	}
 
 	/**
@@ -156,7 +165,7 @@ public class TargetId {
 	 */
 	@Override
 	public String toString() {
-		return actionName + METHOD_SEPARATOR + methodName;
+		return id;
 	}
 
 	/**
@@ -167,7 +176,7 @@ public class TargetId {
 	 */
 	@Override
 	public int hashCode() {
-		return this.toString().hashCode();
+		return id.hashCode();
 	}
 
 	/**
@@ -179,7 +188,7 @@ public class TargetId {
 	 */
 	@Override
 	public boolean equals(Object other) {
-		return (other instanceof TargetId && ((TargetId) other).toString().equals(this.toString()));
+		return (other instanceof TargetId && ((TargetId) other).id.equals(this.id));
 	}
 
 	/**
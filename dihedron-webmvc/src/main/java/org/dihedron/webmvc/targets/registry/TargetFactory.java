@@ -15,9 +15,15 @@ import org.dihedron.webmvc.annotations.Action;
 import org.dihedron.webmvc.annotations.Invocable;
 import org.dihedron.webmvc.aop.ActionProxy;
 import org.dihedron.webmvc.aop.ActionProxyBuilder;
+import org.dihedron.webmvc.aop.CodegenProfile;
 import org.dihedron.webmvc.exceptions.DeploymentException;
 import org.dihedron.webmvc.exceptions.WebMVCException;
+import org.dihedron.webmvc.interceptors.Domain;
 import org.dihedron.webmvc.interceptors.registry.DomainsRegistry;
+import org.dihedron.webmvc.interceptors.registry.InterceptorsRegistry;
+import org.dihedron.webmvc.renderers.registry.RendererRegistry;
+import org.dihedron.webmvc.targets.ExecutionPlan;
+import org.dihedron.webmvc.targets.Target;
 import org.reflections.Reflections;
 import org.reflections.scanners.SubTypesScanner;
 import org.reflections.scanners.TypeAnnotationsScanner;
@@ -63,7 +69,21 @@ public class TargetFactory {
      *   proxies.
      */
     public TargetFactory(boolean doValidation) {
-    	builder = new ActionProxyBuilder();
+    	this(doValidation, CodegenProfile.STANDARD);
+    }
+    
+    /**
+     * Constructor.
+     *
+     * @param doValidation
+     *   whether the factory should emit JSR-349 validation code in the generated 
+     *   proxies.
+     * @param profile
+     *   the code generation profile of the generated proxies.
+     */
+    public TargetFactory(boolean doValidation, CodegenProfile profile) {
+    	builder = new ActionProxyBuilder().withProfile(profile);
+    	logger.info("the builder will use the '{}' code generation profile", profile.name().toLowerCase());
     	if(doValidation) {
     		logger.info("the builder will emit code supporting JSR-349 validation");
     		builder.withValidation();
@@ -178,4 +198,31 @@ public class TargetFactory {
         }
         logger.trace("... done analysing action class: '{}'!", actionClass.getName());
     }
+
+    /**
+     * Resolves the domain protecting the given target and builds its execution 
+     * plan against the given registries; the target itself is not modified, so
+     * that plans can be prepared against a new configuration and applied only
+     * once all targets have been resolved successfully.
+     * 
+     * @param target
+     *   the target whose execution plan must be built.
+     * @param domains
+     *   the registry of the domains.
+     * @param interceptors
+     *   the registry of the interceptor stacks.
+     * @param renderers
+     *   the registry of the renderers.
+     * @return
+     *   the execution plan of the target.
+     * @throws WebMVCException
+     *   if no domain applies to the target, or the plan cannot be resolved.
+     */
+    public static ExecutionPlan makeExecutionPlan(Target target, DomainsRegistry domains, InterceptorsRegistry interceptors, RendererRegistry renderers) throws WebMVCException {
+        Domain binding = Strings.isValid(target.getDomainId()) ? domains.findDomainById(target.getDomainId()) : domains.findDomainByResource(target.getId().toString());
+        if(binding == null) {
+        	throw new DeploymentException("No domain applies to target '" + target.getId() + "': check your domains configuration");
+        }
+        return new ExecutionPlan(target, binding, interceptors.getStackOrDefault(binding.getStackId()), renderers);
+    }
 }
@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2012-2015, Andrea Funto'. All rights reserved. See LICENSE for details.
+ */
+
+package org.dihedron.webmvc.targets.registry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+import org.dihedron.webmvc.targets.Target;
+import org.dihedron.webmvc.targets.TargetId;
+
+/**
+ * An immutable route index, compiled once the targets registry has been fully
+ * populated at deployment time; it maps the raw characters of a request URI (as
+ * found after the context path) onto the corresponding {@code Target}, without
+ * creating any intermediate strings, {@code TargetId} objects or regular
+ * expression matchers.
+ *
+ * The index is a character trie whose nodes store their outgoing edges as sorted
+ * {@code char} arrays; each target is reachable both through its full id (e.g.
+ * {@code MyAction!myMethod}) and, if the method is the default one, through the
+ * bare action name (e.g. {@code MyAction}, standing for {@code MyAction!execute}).
+ * Since the structure is never modified after construction, it can be safely
+ * shared among request threads without any synchronisation.
+ *
+ * @author Andrea Funto'
+ */
+public final class TargetIndex {
+
+	/**
+	 * A node in the trie.
+	 */
+	private static final class Node {
+
+		/**
+		 * The sorted labels of the outgoing edges.
+		 */
+		private final char[] labels;
+
+		/**
+		 * The child nodes, in the same order as the labels.
+		 */
+		private final Node[] children;
+
+		/**
+		 * The target terminating at this node, if any.
+		 */
+		private final Target target;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param labels
+		 *   the sorted labels of the outgoing edges.
+		 * @param children
+		 *   the child nodes.
+		 * @param target
+		 *   the target terminating at this node, or {@code null}.
+		 */
+		Node(char[] labels, Node[] children, Target target) {
+			this.labels = labels;
+			this.children = children;
+			this.target = target;
+		}
+
+		/**
+		 * Returns the child node reached through the given character, or
+		 * {@code null} if none.
+		 */
+		Node next(char c) {
+			int index = Arrays.binarySearch(labels, c);
+			return index >= 0 ? children[index] : null;
+		}
+	}
+
+	/**
+	 * An index that contains no target.
+	 */
+	public static final TargetIndex EMPTY = new TargetIndex(new TreeMap<String, Target>());
+
+	/**
+	 * The root of the trie.
+	 */
+	private final Node root;
+
+	/**
+	 * The number of routes in the index.
+	 */
+	private final int size;
+
+	/**
+	 * Compiles the given set of targets into an immutable index.
+	 *
+	 * @param targets
+	 *   the targets to be indexed.
+	 * @return
+	 *   the index.
+	 */
+	public static TargetIndex compile(Iterable<Target> targets) {
+		Map<String, Target> routes = new TreeMap<>();
+		for(Target target : targets) {
+			TargetId id = target.getId();
+			routes.put(id.toString(), target);
+			if(TargetId.DEFAULT_METHOD_NAME.equals(id.getMethodName()) && !routes.containsKey(id.getActionName())) {
+				routes.put(id.getActionName(), target);
+			}
+		}
+		return new TargetIndex(routes);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param routes
+	 *   the sorted map of routes to targets.
+	 */
+	private TargetIndex(Map<String, Target> routes) {
+		this.root = build(new ArrayList<>(routes.entrySet()), 0);
+		this.size = routes.size();
+	}
+
+	/**
+	 * Looks up the target corresponding to the given path; the path is read
+	 * starting at the given offset and up to its end.
+	 *
+	 * @param path
+	 *   the request path (usually the request URI).
+	 * @param offset
+	 *   the index of the first character of the target id (usually the length
+	 *   of the context path, plus one for the leading slash).
+	 * @return
+	 *   the target, or {@code null} if no target is registered under that path.
+	 */
+	public Target lookup(CharSequence path, int offset) {
+		if(path == null || offset < 0) {
+			return null;
+		}
+		Node node = root;
+		for(int i = offset, length = path.length(); i < length && node != null; ++i) {
+			node = node.next(path.charAt(i));
+		}
+		return node != null ? node.target : null;
+	}
+
+	/**
+	 * Returns the number of routes in the index (aliases included).
+	 *
+	 * @return
+	 *   the number of routes in the index.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Recursively builds the trie node for the given (sorted) set of routes,
+	 * all sharing the same prefix up to the given depth.
+	 *
+	 * @param routes
+	 *   the sorted routes sharing the same prefix.
+	 * @param depth
+	 *   the length of the common prefix.
+	 * @return
+	 *   the trie node.
+	 */
+	private static Node build(List<Entry<String, Target>> routes, int depth) {
+		Target target = null;
+		List<Character> labels = new ArrayList<>();
+		List<Node> children = new ArrayList<>();
+		int i = 0;
+		while(i < routes.size()) {
+			String route = routes.get(i).getKey();
+			if(route.length() == depth) {
+				target = routes.get(i).getValue();
+				++i;
+				continue;
+			}
+			char label = route.charAt(depth);
+			int j = i + 1;
+			while(j < routes.size() && routes.get(j).getKey().charAt(depth) == label) {
+				++j;
+			}
+			labels.add(label);
+			children.add(build(routes.subList(i, j), depth + 1));
+			i = j;
+		}
+		char[] array = new char[labels.size()];
+		for(int k = 0; k < array.length; ++k) {
+			array[k] = labels.get(k);
+		}
+		return new Node(array, children.toArray(new Node[children.size()]), target);
+	}
+}
@@ -4,15 +4,27 @@
 
 package org.dihedron.webmvc.targets.registry;
 
+import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 
 import org.dihedron.core.strings.Strings;
+import org.dihedron.webmvc.Lookup;
 import org.dihedron.webmvc.annotations.Action;
+import org.dihedron.webmvc.annotations.Cached;
+import org.dihedron.webmvc.annotations.ETag;
+import org.dihedron.webmvc.annotations.InOut;
 import org.dihedron.webmvc.annotations.Invocable;
+import org.dihedron.webmvc.annotations.Out;
+import org.dihedron.webmvc.cache.CachePolicy;
+import org.dihedron.webmvc.cache.ResponseCache;
+import org.dihedron.webmvc.exceptions.ControlFlowException;
 import org.dihedron.webmvc.exceptions.WebMVCException;
+import org.dihedron.webmvc.protocol.Scope;
 import org.dihedron.webmvc.targets.Target;
 import org.dihedron.webmvc.targets.TargetId;
 import org.slf4j.Logger;
@@ -50,6 +62,17 @@ public class TargetRegistry {
      */
     private Map<TargetId, Target> store = new HashMap<>();
 
+    /**
+     * The immutable route index, compiled when the registry is frozen at the end
+     * of the deployment phase; until then, it contains no route.
+     */
+    private volatile TargetIndex index = TargetIndex.EMPTY;
+
+    /**
+     * Whether the registry has been frozen and can no longer accept new targets.
+     */
+    private volatile boolean frozen = false;
+
     /**
      * The root directory to be used to infer the path to result JSPs, based on 
      * the business method outcome when no explicit result is provided via the
@@ -64,6 +87,11 @@ public class TargetRegistry {
      */
     private volatile String jspPathPattern = DEFAULT_JSP_PATH_PATTERN;
 
+    /**
+     * The cache used by {@code @Cached} targets, if any.
+     */
+    private ResponseCache cache = null;
+
     /**
      * Constructor.
      */
@@ -107,6 +135,17 @@ public class TargetRegistry {
         logger.info("pattern for auto-configured targets' JSPs: '{}'", this.jspPathPattern);
     }
 
+    /**
+     * Sets the cache used by {@code @Cached} targets; if no cache is set, the
+     * annotation is ignored.
+     *
+     * @param cache 
+     *   the response cache.
+     */
+    public void setResponseCache(ResponseCache cache) {
+        this.cache = cache;
+    }
+
     /**
      * Registers a new target (as a {@code TargetId}, {@code Target} pair) into 
      * the registry.
@@ -125,10 +164,16 @@ public class TargetRegistry {
      * @param domain  
      *   the name of the domain for the containing action; if not overridden in the
      *   @Invocable annotation, this value will be used.
+     * @return
+     *   the newly registered target.
      * @throws WebMVCException
      */
-    public void addTarget(Class<?> targetClass, Method targetMethod, Method stubFactoryMethod, Method stubMethod,
+    public Target addTarget(Class<?> targetClass, Method targetMethod, Method stubFactoryMethod, Method stubMethod,
                           Invocable invocable, String domain) throws WebMVCException {
+        if (frozen) {
+            logger.error("cannot add target for method '{}' to a frozen registry", targetMethod.getName());
+            throw new WebMVCException("Targets registry is frozen, no new target can be added");
+        }
         String actionName = Strings.isValid(targetClass.getAnnotation(Action.class).alias()) ? targetClass.getAnnotation(Action.class).alias() : targetClass.getSimpleName();
         logger.info("adding target '{}!{}' (proxy: '{}')", actionName, targetMethod.getName(), stubMethod.getName());
         TargetId id = new TargetId(targetClass, targetMethod);
@@ -139,11 +184,126 @@ public class TargetRegistry {
         data.setActionFactory(stubFactoryMethod);
         data.setActionMethod(targetMethod);
         data.setStubMethod(stubMethod);
-//        data.setIdempotent(invocable.idempotent());
+        data.setIdempotent(invocable.idempotent());
+        data.setAsync(invocable.async());
+        data.setTimeout(invocable.timeout());
+        data.setTimeoutResult(invocable.timeoutResult());
         data.setDomainId(domain);
         data.setJspUrlPattern(jspPathPattern);
         data.addDeclaredResults(invocable);
+        if (cache != null && targetMethod.isAnnotationPresent(Cached.class)) {
+            data.setCachePolicy(new CachePolicy(id.toString(), targetMethod, cache));
+        }
+        if (targetMethod.isAnnotationPresent(ETag.class)) {
+            String version = targetMethod.getAnnotation(ETag.class).version();
+            data.setETag(version, getOutputScope(targetMethod, version));
+        }
         this.store.put(id, data);
+        return data;
+    }
+
+    /**
+     * Returns the scope into which the given output parameter is stored by the
+     * given method.
+     *
+     * @param method 
+     *   the business method.
+     * @param name 
+     *   the name of the output parameter.
+     * @return 
+     *   the scope of the {@code @Out} or {@code @InOut} parameter with the given 
+     *   name, or {@link Scope#REQUEST} if none is found.
+     */
+    private static Scope getOutputScope(Method method, String name) {
+        for (Annotation[] annotations : method.getParameterAnnotations()) {
+            for (Annotation annotation : annotations) {
+                if (annotation instanceof Out && ((Out) annotation).value().equals(name)) {
+                    return ((Out) annotation).to();
+                } else if (annotation instanceof InOut && ((InOut) annotation).value().equals(name)) {
+                    return ((InOut) annotation).to();
+                }
+            }
+        }
+        return Scope.REQUEST;
+    }
+
+    /**
+     * Freezes the registry, compiling all registered targets into an immutable 
+     * route index; after this method has been invoked, no new targets can be 
+     * added and lookups by request path can be performed via 
+     * {@link #lookup(CharSequence, int)}.
+     */
+    public void freeze() {
+        if (!frozen) {
+            index = TargetIndex.compile(store.values());
+            frozen = true;
+            logger.info("targets registry frozen, {} routes in index", index.size());
+        }
+    }
+
+    /**
+     * Returns whether the registry has been frozen.
+     *
+     * @return
+     *   whether the registry has been frozen.
+     */
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    /**
+     * Looks up the {@code Target} corresponding to the given request path, 
+     * starting at the given offset, through the compiled route index; this 
+     * method does not allocate any object and never throws, so it is suitable
+     * for use on the request processing path.
+     *
+     * @param path
+     *   the request path (e.g. the request URI).
+     * @param offset
+     *   the index of the first character of the target id within the path.
+     * @return
+     *   the {@code Target} object, or {@code null} if the path does not 
+     *   correspond to any target (or the registry has not been frozen yet).
+     */
+    public Target lookup(CharSequence path, int offset) {
+        return index.lookup(path, offset);
+    }
+
+    /**
+     * Looks up the {@code Target} object corresponding to the given target 
+     * identifier, without throwing if none is found.
+     *
+     * @param id 
+     *   the target identifier.
+     * @return 
+     *   the lookup result, which may or may not contain a {@code Target}.
+     */
+    public Lookup<Target> findTarget(TargetId id) {
+        return Lookup.ofNullable(id != null ? store.get(id) : null);
+    }
+
+    /**
+     * Looks up the {@code Target} object corresponding to the given target 
+     * string (e.g. "MyAction!myMethod" or "MyAction"), without throwing if 
+     * the string is not a valid target or no target is found.
+     *
+     * @param target 
+     *   a string representing the action, with or without the method.
+     * @return 
+     *   the lookup result, which may or may not contain a {@code Target}.
+     */
+    public Lookup<Target> findTarget(String target) {
+        if (frozen) {
+            return Lookup.ofNullable(index.lookup(target, 0));
+        }
+        if (!TargetId.isValidTargetId(target)) {
+            return Lookup.absent();
+        }
+        try {
+            return findTarget(new TargetId(target));
+        } catch (WebMVCException e) {
+            return Lookup.absent();
+        }
     }
 
     /**
@@ -156,14 +316,17 @@ public class TargetRegistry {
      *   the {@code Target} object; if none found in the registry, an
      *   exception is thrown.
      * @throws WebMVCException 
-     *   if no @{code Target} object could be found for the given id.
+     *   if no @{code Target} object could be found for the given id; the
+     *   exception is the preallocated, stackless 
+     *   {@link ControlFlowException#NOT_FOUND}.
      */
     public Target getTarget(TargetId id) throws WebMVCException {
-        if (!store.containsKey(id)) {
+        Target target = store.get(id);
+        if (target == null) {
             logger.debug("repository does not contain info for target '{}'", id);
-            throw new WebMVCException("Invalid target : '" + id.toString() + "'");
+            throw ControlFlowException.NOT_FOUND;
         }
-        return store.get(id);
+        return target;
     }
 
     /**
@@ -206,6 +369,16 @@ public class TargetRegistry {
         return getTarget(new TargetId(action, method));
     }
 
+    /**
+     * Returns the registered targets.
+     *
+     * @return
+     *   an unmodifiable view of the registered targets.
+     */
+    public Collection<Target> getTargets() {
+        return Collections.unmodifiableCollection(store.values());
+    }
+
     /**
      * Provides a string representation of the registry.
      *
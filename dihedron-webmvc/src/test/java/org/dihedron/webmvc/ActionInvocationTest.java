@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2012-2015, Andrea Funto'. All rights reserved. See LICENSE for details.
+ */
+
+package org.dihedron.webmvc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import org.dihedron.webmvc.exceptions.WebMVCException;
+import org.dihedron.webmvc.interceptors.Domain;
+import org.dihedron.webmvc.interceptors.Interceptor;
+import org.dihedron.webmvc.interceptors.InterceptorStack;
+import org.dihedron.webmvc.targets.ExecutionPlan;
+import org.dihedron.webmvc.targets.Target;
+import org.dihedron.webmvc.targets.TargetId;
+import org.junit.Test;
+
+/**
+ * @author Andrea Funto'
+ */
+public class ActionInvocationTest {
+	
+	/**
+	 * Creates an execution plan applying the given interceptor, which must not
+	 * let the invocation reach the business method.
+	 */
+	private static ExecutionPlan plan(String action, Interceptor interceptor) throws WebMVCException {
+		InterceptorStack stack = new InterceptorStack("test");
+		stack.add(interceptor);
+		return new ExecutionPlan(new Target(new TargetId(action, "execute")), new Domain("test", "test", ".*"), stack, null);
+	}
+
+	/**
+	 * Test method for {@link org.dihedron.webmvc.ActionInvocation#obtain(org.dihedron.webmvc.targets.ExecutionPlan, java.lang.Object, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse)}.
+	 */
+	@Test
+	public void testReentrantObtain() throws WebMVCException {
+		final Object outerAction = new Object();
+		final Object innerAction = new Object();
+		final ExecutionPlan inner = plan("Inner", new Interceptor() {
+			@Override
+			public String intercept(Invocation invocation) throws WebMVCException {
+				return "inner";
+			}
+		});
+		ExecutionPlan outer = plan("Outer", new Interceptor() {
+			@Override
+			public String intercept(Invocation invocation) throws WebMVCException {
+				// a nested dispatch while the outer invocation is in progress
+				ActionInvocation nested = ActionInvocation.obtain(inner, innerAction, null, null);
+				try {
+					assertNotSame(invocation, nested);
+					assertEquals("inner", nested.invoke());
+				} finally {
+					nested.cleanup();
+				}
+				// the outer invocation is untouched by the nested one
+				assertSame(outerAction, ((ActionInvocation)invocation).getAction());
+				return "outer";
+			}
+		});
+		
+		ActionInvocation invocation = ActionInvocation.obtain(outer, outerAction, null, null);
+		try {
+			assertEquals("outer", invocation.invoke());
+			assertSame(outer, invocation.getExecutionPlan());
+			assertSame(outer.getTarget(), invocation.getTarget());
+		} finally {
+			invocation.cleanup();
+		}
+		
+		// once released, the thread's instance is recycled
+		ActionInvocation next = ActionInvocation.obtain(inner, innerAction, null, null);
+		assertSame(invocation, next);
+		next.cleanup();
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.ActionInvocation#cleanup()}.
+	 */
+	@Test
+	public void testCleanupAfterException() throws WebMVCException {
+		ExecutionPlan plan = plan("Failing", new Interceptor() {
+			@Override
+			public String intercept(Invocation invocation) throws WebMVCException {
+				throw new WebMVCException("failing on purpose");
+			}
+		});
+		ActionInvocation invocation = ActionInvocation.obtain(plan, new Object(), null, null);
+		try {
+			invocation.invoke();
+			fail("the interceptor should have thrown");
+		} catch(WebMVCException e) {
+			// expected
+		} finally {
+			invocation.cleanup();
+		}
+		assertNull(invocation.getExecutionPlan());
+		assertNull(invocation.getTarget());
+		assertNull(invocation.getAction());
+		assertNull(invocation.getCacheKey());
+		
+		// the failure did not leave the instance marked as busy
+		ActionInvocation recycled = ActionInvocation.obtain(plan, new Object(), null, null);
+		assertSame(invocation, recycled);
+		recycled.cleanup();
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.ActionInvocation#obtain(org.dihedron.webmvc.targets.ExecutionPlan, java.lang.Object, javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse)}.
+	 */
+	@Test
+	public void testBusyWithoutCleanup() throws WebMVCException {
+		ExecutionPlan plan = plan("Busy", new Interceptor() {
+			@Override
+			public String intercept(Invocation invocation) throws WebMVCException {
+				return "success";
+			}
+		});
+		ActionInvocation first = ActionInvocation.obtain(plan, new Object(), null, null);
+		ActionInvocation second = ActionInvocation.obtain(plan, new Object(), null, null);
+		assertNotSame(first, second);
+		second.cleanup();
+		// releasing the extra instance does not free the thread's one
+		assertNotSame(first, ActionInvocation.obtain(plan, new Object(), null, null));
+		first.cleanup();
+		ActionInvocation third = ActionInvocation.obtain(plan, new Object(), null, null);
+		assertSame(first, third);
+		third.cleanup();
+	}
+}
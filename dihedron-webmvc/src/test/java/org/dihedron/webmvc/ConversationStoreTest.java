@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2012-2015, Andrea Funto'. All rights reserved. See LICENSE for details.
+ */
+
+package org.dihedron.webmvc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import javax.servlet.http.HttpSession;
+
+import org.dihedron.core.regex.Regex;
+import org.junit.Test;
+
+/**
+ * @author Andrea Funto'
+ */
+public class ConversationStoreTest {
+	
+	/**
+	 * A string whose estimated footprint, stored under a one-character key, is
+	 * 530 bytes.
+	 */
+	private static final String LARGE = new String(new char[200]);
+	
+	/**
+	 * The current time, as seen by the stores.
+	 */
+	private long now = 1000000L;
+	
+	/**
+	 * Creates a store with the given limits.
+	 */
+	private static ConversationStore store(int maxConversations, long idleTimeout, long maxFootprint) {
+		return ConversationStore.of(session(), true, new ConversationStore.Limits(maxConversations, idleTimeout, maxFootprint));
+	}
+	
+	/**
+	 * Returns whether the given conversation is in progress and holds the given value.
+	 */
+	private boolean holds(ConversationStore store, String id, String key) {
+		return store.lookup(id, key, now).isPresent();
+	}
+
+	/**
+	 * Test method for {@link org.dihedron.webmvc.ConversationStore#of(javax.servlet.http.HttpSession, boolean, org.dihedron.webmvc.ConversationStore.Limits)}.
+	 */
+	@Test
+	public void testOf() {
+		HttpSession session = session();
+		assertNull(ConversationStore.of(session, false, null));
+		ConversationStore store = ConversationStore.of(session, true, null);
+		assertSame(store, ConversationStore.of(session, false, null));
+		assertSame(store, ConversationStore.of(session, true, ConversationStore.Limits.DEFAULT));
+		
+		// the limits of the latest request apply from then on
+		store.put("a", "k", "value", now);
+		store.put("b", "k", "value", now);
+		ConversationStore.of(session, false, new ConversationStore.Limits(1, 0, Long.MAX_VALUE));
+		store.put("c", "k", "value", now);
+		assertFalse(holds(store, "a", "k"));
+		assertFalse(holds(store, "b", "k"));
+		assertTrue(holds(store, "c", "k"));
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.ConversationStore#begin(java.lang.String)}.
+	 */
+	@Test
+	public void testBeginAndEnd() {
+		ConversationStore store = store(16, 0, Long.MAX_VALUE);
+		assertTrue(store.begin("a", now));
+		assertFalse(store.begin("a", now));
+		store.put("a", "k", null, now);
+		assertTrue(holds(store, "a", "k"));
+		assertEquals(null, store.lookup("a", "k", now).orNull());
+		store.remove("a", "k", now);
+		assertFalse(holds(store, "a", "k"));
+		assertTrue(store.end("a", now));
+		assertFalse(store.end("a", now));
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.ConversationStore#lookup(java.lang.String, java.lang.String)}.
+	 */
+	@Test
+	public void testIdleExpiry() {
+		ConversationStore store = store(16, 200, Long.MAX_VALUE);
+		store.put("a", "k", "value", now);
+		store.put("b", "k", "value", now);
+		now += 120;
+		// using a conversation keeps it alive
+		assertTrue(holds(store, "a", "k"));
+		now += 79;
+		assertEquals(new HashSet<>(Arrays.asList("a:k", "b:k")), store.names(new Regex(".*"), new Regex(".*"), now));
+		
+		// conversations expire as soon as they have been idle for the timeout
+		now += 1;
+		assertEquals(new HashSet<>(Arrays.asList("a:k")), store.names(new Regex(".*"), new Regex(".*"), now));
+		assertFalse(holds(store, "b", "k"));
+		assertTrue(store.begin("b", now));
+		now += 200;
+		assertFalse(holds(store, "a", "k"));
+		assertFalse(holds(store, "b", "k"));
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.ConversationStore#lookup(java.lang.String, java.lang.String)}.
+	 */
+	@Test
+	public void testNoExpiry() {
+		ConversationStore store = store(16, 0, Long.MAX_VALUE);
+		store.put("a", "k", "value", now);
+		now += 365L * 24 * 60 * 60 * 1000;
+		assertTrue(holds(store, "a", "k"));
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.ConversationStore#begin(java.lang.String)}.
+	 */
+	@Test
+	public void testLeastRecentlyUsedCap() {
+		ConversationStore store = store(3, 0, Long.MAX_VALUE);
+		store.put("a", "k", "value", now);
+		store.put("b", "k", "value", now);
+		store.put("c", "k", "value", now);
+		assertTrue(holds(store, "a", "k"));
+		assertTrue(store.begin("d", now));
+		assertEquals(new HashSet<>(Arrays.asList("a:k", "c:k")), store.names(new Regex(".*"), new Regex(".*"), now));
+		assertFalse(holds(store, "b", "k"));
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.ConversationStore#put(java.lang.String, java.lang.String, java.lang.Object)}.
+	 */
+	@Test
+	public void testFootprint() {
+		ConversationStore store = store(16, 0, 1000);
+		store.put("a", "k", LARGE, now);
+		store.put("b", "k", LARGE, now);
+		assertFalse(holds(store, "a", "k"));
+		assertTrue(holds(store, "b", "k"));
+		
+		// replacing a value releases the footprint of the previous one
+		store.put("b", "k", "small", now);
+		store.put("c", "k", LARGE, now);
+		assertTrue(holds(store, "b", "k"));
+		assertTrue(holds(store, "c", "k"));
+		
+		// and so does removing it
+		store.remove("b", "k", now);
+		store.put("d", "k", "small", now);
+		store.put("d", "j", "small", now);
+		assertTrue(holds(store, "c", "k"));
+		assertTrue(holds(store, "d", "k"));
+		
+		// the conversation being used is never evicted, even if too large
+		store.put("e", "k", LARGE + LARGE + LARGE, now);
+		assertTrue(holds(store, "e", "k"));
+		assertEquals(new HashSet<>(Arrays.asList("e:k")), store.names(new Regex(".*"), new Regex(".*"), now));
+	}
+	
+	/**
+	 * Creates a session keeping its attributes in a map.
+	 */
+	private static HttpSession session() {
+		final Map<String, Object> attributes = new HashMap<>();
+		return (HttpSession)Proxy.newProxyInstance(ConversationStoreTest.class.getClassLoader(), new Class<?>[] { HttpSession.class }, new InvocationHandler() {
+			@Override
+			public Object invoke(Object proxy, Method m, Object[] args) {
+				switch(m.getName()) {
+				case "getId":
+					return "session";
+				case "getAttribute":
+					return attributes.get(args[0]);
+				case "setAttribute":
+					attributes.put((String)args[0], args[1]);
+					return null;
+				default:
+					return null;
+				}
+			}
+		});
+	}
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2012-2015, Andrea Funto'. All rights reserved. See LICENSE for details.
+ */
+
+package org.dihedron.webmvc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Andrea Funto'
+ */
+public class DeadlineTest {
+	
+	private ScheduledThreadPoolExecutor timers;
+	
+	@Before
+	public void setUp() {
+		timers = new ScheduledThreadPoolExecutor(1);
+		timers.setRemoveOnCancelPolicy(true);
+	}
+	
+	@After
+	public void tearDown() {
+		timers.shutdownNow();
+		// never leak an interrupt into the test runner's thread
+		Thread.interrupted();
+	}
+
+	/**
+	 * Test method for {@link org.dihedron.webmvc.Deadline#enter()}.
+	 */
+	@Test
+	public void testInterruptInsideTarget() {
+		long start = System.nanoTime();
+		Deadline deadline = new Deadline(50, "timeout", timers);
+		deadline.enter();
+		try {
+			Thread.sleep(10000);
+			fail("the thread should have been interrupted");
+		} catch(InterruptedException e) {
+			assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+		} finally {
+			deadline.exit();
+		}
+		assertTrue(deadline.isCancelled());
+		assertFalse(deadline.isAbandoned());
+		assertEquals("timeout", deadline.getResult());
+		assertEquals(0, deadline.getRemainingTime());
+		assertFalse(Thread.currentThread().isInterrupted());
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.Deadline#exit()}.
+	 */
+	@Test
+	public void testInterruptClearedOnExit() {
+		Deadline deadline = new Deadline(0, "timeout", null);
+		deadline.enter();
+		// the target ignores the interrupt, leaving the flag set
+		deadline.abandon();
+		assertTrue(Thread.currentThread().isInterrupted());
+		deadline.exit();
+		assertFalse(Thread.currentThread().isInterrupted());
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.Deadline#exit()}.
+	 */
+	@Test
+	public void testUnrelatedInterruptPreserved() {
+		Deadline deadline = new Deadline(0, "timeout", null);
+		deadline.enter();
+		Thread.currentThread().interrupt();
+		deadline.exit();
+		// the interrupt was not raised by the deadline, so it is not its to clear
+		assertTrue(Thread.interrupted());
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.Deadline#abandon()}.
+	 */
+	@Test
+	public void testNoInterruptAfterExit() {
+		Deadline deadline = new Deadline(0, "timeout", null);
+		deadline.enter();
+		deadline.exit();
+		deadline.abandon();
+		assertTrue(deadline.isCancelled());
+		assertFalse(Thread.currentThread().isInterrupted());
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.Deadline#abandon()}.
+	 */
+	@Test
+	public void testInterruptOtherThread() throws InterruptedException {
+		final Deadline deadline = new Deadline(0, "timeout", null);
+		final CountDownLatch entered = new CountDownLatch(1);
+		final CountDownLatch done = new CountDownLatch(1);
+		final AtomicBoolean interrupted = new AtomicBoolean();
+		final AtomicBoolean leaked = new AtomicBoolean(true);
+		Thread worker = new Thread() {
+			@Override
+			public void run() {
+				deadline.enter();
+				try {
+					entered.countDown();
+					Thread.sleep(10000);
+				} catch(InterruptedException e) {
+					interrupted.set(true);
+					// restore the flag, as a careless target would
+					Thread.currentThread().interrupt();
+				} finally {
+					deadline.exit();
+				}
+				leaked.set(Thread.currentThread().isInterrupted());
+				done.countDown();
+			}
+		};
+		worker.start();
+		assertTrue(entered.await(5, TimeUnit.SECONDS));
+		deadline.abandon();
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		assertTrue(interrupted.get());
+		assertFalse(leaked.get());
+		assertTrue(deadline.isAbandoned());
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.Deadline#isAbandoned()}.
+	 */
+	@Test
+	public void testAbandonBeforeExpiry() throws InterruptedException {
+		Deadline deadline = new Deadline(50, "timeout", timers);
+		deadline.abandon();
+		assertTrue(deadline.isCancelled());
+		assertTrue(deadline.isAbandoned());
+		
+		// the first cancellation wins
+		Thread.sleep(100);
+		assertTrue(deadline.isAbandoned());
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.Deadline#isAbandoned()}.
+	 */
+	@Test
+	public void testExpiryBeforeAbandon() throws InterruptedException {
+		Deadline deadline = new Deadline(20, "timeout", timers);
+		long limit = System.currentTimeMillis() + 5000;
+		while(!deadline.isCancelled()) {
+			assertTrue("the deadline never expired", System.currentTimeMillis() < limit);
+			Thread.sleep(5);
+		}
+		assertFalse(deadline.isAbandoned());
+		deadline.abandon();
+		assertFalse(deadline.isAbandoned());
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.Deadline#finish()}.
+	 */
+	@Test
+	public void testFinishCancelsTimer() throws InterruptedException {
+		Deadline deadline = new Deadline(60000, "timeout", timers);
+		assertEquals(1, timers.getQueue().size());
+		assertTrue(deadline.getRemainingTime() <= 60000);
+		assertTrue(deadline.getRemainingTime() > 50000);
+		deadline.finish();
+		assertEquals(0, timers.getQueue().size());
+		assertFalse(deadline.isCancelled());
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.Deadline#getRemainingTime()}.
+	 */
+	@Test
+	public void testUnbounded() {
+		Deadline deadline = new Deadline(0, "timeout", timers);
+		assertEquals(Long.MAX_VALUE, deadline.getRemainingTime());
+		assertEquals(0, timers.getQueue().size());
+		deadline.finish();
+		assertFalse(deadline.isCancelled());
+	}
+}
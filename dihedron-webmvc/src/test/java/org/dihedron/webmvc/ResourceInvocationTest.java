@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2012-2015, Andrea Funto'. All rights reserved. See LICENSE for details.
+ */
+
+package org.dihedron.webmvc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.dihedron.webmvc.exceptions.WebMVCException;
+import org.dihedron.webmvc.interceptors.Interceptor;
+import org.junit.Test;
+
+/**
+ * @author Andrea Funto'
+ */
+public class ResourceInvocationTest {
+
+	/**
+	 * Test method for {@link org.dihedron.webmvc.ResourceInvocation#obtain(java.lang.String, org.dihedron.webmvc.interceptors.Interceptor[], javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse)}.
+	 */
+	@Test
+	public void testRecycling() throws WebMVCException {
+		ResourceInvocation first = ResourceInvocation.obtain("/a.html", null, null, null);
+		assertEquals("/a.html", first.invoke());
+		first.cleanup();
+		ResourceInvocation second = ResourceInvocation.obtain("/b.html", null, null, null);
+		assertSame(first, second);
+		assertEquals("/b.html", second.invoke());
+		second.cleanup();
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.ResourceInvocation#obtain(java.lang.String, org.dihedron.webmvc.interceptors.Interceptor[], javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse)}.
+	 */
+	@Test
+	public void testReentrantObtain() throws WebMVCException {
+		final List<ResourceInvocation> nested = new ArrayList<>();
+		Interceptor dispatcher = new Interceptor() {
+			@Override
+			public String intercept(Invocation invocation) throws WebMVCException {
+				// a nested dispatch while the outer invocation is in progress
+				ResourceInvocation inner = ResourceInvocation.obtain("/inner.html", null, null, null);
+				nested.add(inner);
+				try {
+					assertNotSame(invocation, inner);
+					assertEquals("/inner.html", inner.invoke());
+				} finally {
+					inner.cleanup();
+				}
+				return invocation.invoke();
+			}
+		};
+		ResourceInvocation outer = ResourceInvocation.obtain("/outer.html", new Interceptor[] { dispatcher }, null, null);
+		try {
+			assertEquals("/outer.html", outer.invoke());
+			assertEquals("/outer.html", outer.getResource());
+		} finally {
+			outer.cleanup();
+		}
+		
+		// the nested instance is not recycled, the thread's one is
+		ResourceInvocation next = ResourceInvocation.obtain("/next.html", null, null, null);
+		assertSame(outer, next);
+		assertNotSame(nested.get(0), next);
+		next.cleanup();
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.ResourceInvocation#cleanup()}.
+	 */
+	@Test
+	public void testCleanupAfterException() throws WebMVCException {
+		final int[] calls = { 0 };
+		Interceptor failing = new Interceptor() {
+			@Override
+			public String intercept(Invocation invocation) throws WebMVCException {
+				calls[0]++;
+				throw new WebMVCException("failing on purpose");
+			}
+		};
+		ResourceInvocation invocation = ResourceInvocation.obtain("/a.html", new Interceptor[] { failing }, null, null);
+		try {
+			invocation.invoke();
+			fail("the interceptor should have thrown");
+		} catch(WebMVCException e) {
+			// expected
+		} finally {
+			invocation.cleanup();
+		}
+		assertNull(invocation.getResource());
+		assertNull(invocation.getContext());
+		
+		// the recycled instance starts over from the first interceptor
+		ResourceInvocation recycled = ResourceInvocation.obtain("/b.html", new Interceptor[] { failing }, null, null);
+		assertSame(invocation, recycled);
+		try {
+			recycled.invoke();
+			fail("the interceptor should have thrown");
+		} catch(WebMVCException e) {
+			// expected
+		} finally {
+			recycled.cleanup();
+		}
+		assertEquals(2, calls[0]);
+	}
+}
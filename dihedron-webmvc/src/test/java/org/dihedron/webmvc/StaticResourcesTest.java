@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2012-2015, Andrea Funto'. All rights reserved. See LICENSE for details.
+ */
+
+package org.dihedron.webmvc;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.dihedron.webmvc.interceptors.Domain;
+import org.dihedron.webmvc.interceptors.registry.DomainsRegistry;
+import org.junit.Test;
+
+/**
+ * @author Andrea Funto'
+ */
+public class StaticResourcesTest {
+	
+	/**
+	 * The offset of the resource path in the URIs below.
+	 */
+	private static final int OFFSET = "/app/".length();
+
+	/**
+	 * Test method for {@link org.dihedron.webmvc.StaticResources#isEnabled()}.
+	 */
+	@Test
+	public void testDisabled() {
+		StaticResources statics = new StaticResources(null);
+		assertFalse(statics.isEnabled());
+		assertFalse(statics.isStatic("/app/style.css", OFFSET));
+		
+		statics = new StaticResources(" , ");
+		assertFalse(statics.isEnabled());
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.StaticResources#isStatic(java.lang.String, int)}.
+	 */
+	@Test
+	public void testExtensions() {
+		StaticResources statics = new StaticResources("*.css, *.js");
+		assertTrue(statics.isEnabled());
+		assertTrue(statics.isStatic("/app/style.css", OFFSET));
+		assertTrue(statics.isStatic("/app/scripts/lib/jquery.min.js", OFFSET));
+		assertFalse(statics.isStatic("/app/style.scss", OFFSET));
+		assertFalse(statics.isStatic("/app/style.cs", OFFSET));
+		assertFalse(statics.isStatic("/app/json", OFFSET));
+		
+		// the extension must belong to the last path segment
+		assertFalse(statics.isStatic("/app/theme.css/Cart", OFFSET));
+		
+		// the dot must be within the resource path, not the context path
+		assertFalse(statics.isStatic("/app.css/Cart", "/app.css/".length()));
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.StaticResources#isStatic(java.lang.String, int)}.
+	 */
+	@Test
+	public void testPathPrefixes() {
+		StaticResources statics = new StaticResources("static/*, /images/*");
+		assertTrue(statics.isStatic("/app/static/", OFFSET));
+		assertTrue(statics.isStatic("/app/static/css/style.css", OFFSET));
+		assertTrue(statics.isStatic("/app/images/logo.png", OFFSET));
+		assertFalse(statics.isStatic("/app/static", OFFSET));
+		assertFalse(statics.isStatic("/app/Cart!execute", OFFSET));
+		assertFalse(statics.isStatic("/other/static/style.css", OFFSET));
+	}
+
+	/**
+	 * Test method for {@link org.dihedron.webmvc.StaticResources#isStatic(java.lang.String, int)}.
+	 */
+	@Test
+	public void testExactPaths() {
+		StaticResources statics = new StaticResources("favicon.ico, /robots.txt");
+		assertTrue(statics.isStatic("/app/favicon.ico", OFFSET));
+		assertTrue(statics.isStatic("/app/robots.txt", OFFSET));
+		assertFalse(statics.isStatic("/app/favicon.icon", OFFSET));
+		assertFalse(statics.isStatic("/app/favicon", OFFSET));
+		assertFalse(statics.isStatic("/app/images/favicon.ico", OFFSET));
+		assertFalse(statics.isStatic(null, OFFSET));
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.StaticResources#addDomain(org.dihedron.webmvc.interceptors.Domain, org.dihedron.webmvc.interceptors.registry.DomainsRegistry)}.
+	 */
+	@Test
+	public void testDomains() {
+		final Domain assets = new Domain("assets", "empty", "/app/assets/.*");
+		final Domain other = new Domain("other", "default", ".*");
+		DomainsRegistry registry = new DomainsRegistry() {
+			@Override
+			public Domain findDomainByResource(String resource) {
+				return assets.protects(resource) ? assets : other;
+			}
+		};
+		StaticResources statics = new StaticResources(null).addDomain(assets, registry);
+		assertTrue(statics.isEnabled());
+		assertTrue(statics.isStatic("/app/assets/logo.png", OFFSET));
+		assertFalse(statics.isStatic("/app/Cart!execute", OFFSET));
+	}
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2012-2015, Andrea Funto'. All rights reserved. See LICENSE for details.
+ */
+
+package org.dihedron.webmvc.admission;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * @author Andrea Funto'
+ */
+public class AdaptiveLimitTest {
+	
+	private static final long MILLISECOND = 1000000L;
+
+	/**
+	 * Runs a whole window of requests, one at a time, with the given latency.
+	 */
+	private static void serial(AdaptiveLimit limit, int window, long nanos) {
+		for(int i = 0; i < window; ++i) {
+			assertTrue(limit.tryAcquire());
+			limit.release(nanos);
+		}
+	}
+	
+	/**
+	 * Runs a whole window of requests, all at once, with the given latency.
+	 */
+	private static void saturate(AdaptiveLimit limit, long nanos) {
+		int count = limit.getLimit();
+		for(int i = 0; i < count; ++i) {
+			assertTrue(limit.tryAcquire());
+		}
+		for(int i = 0; i < count; ++i) {
+			limit.release(nanos);
+		}
+	}
+
+	/**
+	 * Test method for {@link org.dihedron.webmvc.admission.AdaptiveLimit#tryAcquire()}.
+	 */
+	@Test
+	public void testShedding() {
+		AdaptiveLimit limit = new AdaptiveLimit(2, 1, 10, 2.0, 0.5, 100);
+		assertTrue(limit.tryAcquire());
+		assertTrue(limit.tryAcquire());
+		assertEquals(2, limit.getInflight());
+		assertFalse(limit.tryAcquire());
+		assertFalse(limit.tryAcquire());
+		assertEquals(2, limit.getShed());
+		limit.release(MILLISECOND);
+		assertEquals(1, limit.getInflight());
+		assertTrue(limit.tryAcquire());
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.admission.AdaptiveLimit#release(long)}.
+	 */
+	@Test
+	public void testIncreaseWhenReached() {
+		AdaptiveLimit limit = new AdaptiveLimit(2, 1, 4, 2.0, 0.5, 2);
+		saturate(limit, MILLISECOND);
+		assertEquals(3, limit.getLimit());
+		// the window closes while the third request is still in flight
+		saturate(limit, MILLISECOND);
+		assertEquals(4, limit.getLimit());
+		saturate(limit, MILLISECOND);
+		assertEquals("limit above the maximum", 4, limit.getLimit());
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.admission.AdaptiveLimit#release(long)}.
+	 */
+	@Test
+	public void testNoIncreaseWhenUnused() {
+		AdaptiveLimit limit = new AdaptiveLimit(5, 1, 10, 2.0, 0.5, 10);
+		serial(limit, 10, MILLISECOND);
+		serial(limit, 10, MILLISECOND);
+		assertEquals(5, limit.getLimit());
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.admission.AdaptiveLimit#release(long)}.
+	 */
+	@Test
+	public void testBackoff() {
+		AdaptiveLimit limit = new AdaptiveLimit(10, 4, 20, 2.0, 0.5, 5);
+		serial(limit, 5, MILLISECOND);
+		assertEquals(10, limit.getLimit());
+		// within tolerance: neither reduced nor, since unused, increased
+		serial(limit, 5, 2 * MILLISECOND);
+		assertEquals(10, limit.getLimit());
+		// well above the baseline, which only drifts slowly towards it
+		serial(limit, 5, 5 * MILLISECOND);
+		assertEquals(5, limit.getLimit());
+		serial(limit, 5, 5 * MILLISECOND);
+		assertEquals("limit below the minimum", 4, limit.getLimit());
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.admission.AdaptiveLimit#release(long)}.
+	 */
+	@Test
+	public void testBaselineFollowsFasterWindows() {
+		AdaptiveLimit limit = new AdaptiveLimit(10, 1, 20, 2.0, 0.5, 5);
+		serial(limit, 5, 10 * MILLISECOND);
+		serial(limit, 5, MILLISECOND);
+		// 15 ms would be within tolerance of the first baseline, not of the second
+		serial(limit, 5, 15 * MILLISECOND);
+		assertEquals(5, limit.getLimit());
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.admission.AdaptiveLimit#AdaptiveLimit(int, int, int, double, double, int)}.
+	 */
+	@Test
+	public void testClamping() {
+		AdaptiveLimit limit = new AdaptiveLimit(50, 0, 10, 0.5, 2.0, 0);
+		assertEquals(10, limit.getLimit());
+		limit = new AdaptiveLimit(0, 3, 10, 2.0, 0.5, 1);
+		assertEquals(3, limit.getLimit());
+	}
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2012-2015, Andrea Funto'. All rights reserved. See LICENSE for details.
+ */
+
+package org.dihedron.webmvc.admission;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.openmbean.OpenDataException;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * @author Andrea Funto'
+ */
+public class PriorityDispatcherTest {
+	
+	/**
+	 * A task keeping the (only) worker busy until it is opened.
+	 */
+	private static class Gate implements Runnable {
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch open = new CountDownLatch(1);
+		
+		@Override
+		public void run() {
+			started.countDown();
+			try {
+				open.await();
+			} catch(InterruptedException e) {
+				// shut down
+			}
+		}
+	}
+	
+	/**
+	 * A task recording its class in the order of execution.
+	 */
+	private static class Recorder implements Runnable {
+		final PriorityClass priority;
+		final List<PriorityClass> order;
+		final CountDownLatch done;
+		
+		Recorder(PriorityClass priority, List<PriorityClass> order, CountDownLatch done) {
+			this.priority = priority;
+			this.order = order;
+			this.done = done;
+		}
+		
+		@Override
+		public void run() {
+			order.add(priority);
+			done.countDown();
+		}
+	}
+	
+	private PriorityDispatcher dispatcher;
+	
+	@After
+	public void tearDown() {
+		if(dispatcher != null) {
+			dispatcher.shutdown(1000);
+		}
+	}
+	
+	/**
+	 * Blocks the worker thread of the dispatcher until the returned gate opens.
+	 */
+	private Gate block() throws InterruptedException {
+		Gate gate = new Gate();
+		dispatcher.submit(gate, PriorityClass.NORMAL);
+		assertTrue(gate.started.await(5, TimeUnit.SECONDS));
+		return gate;
+	}
+
+	/**
+	 * Test method for {@link org.dihedron.webmvc.admission.PriorityDispatcher#submit(Runnable, PriorityClass)}.
+	 */
+	@Test
+	public void testWeightedSelection() throws InterruptedException {
+		dispatcher = new PriorityDispatcher("test-", 1, 100, 60000);
+		Gate gate = block();
+		List<PriorityClass> order = Collections.synchronizedList(new ArrayList<PriorityClass>());
+		CountDownLatch done = new CountDownLatch(3 * 13);
+		for(PriorityClass priority : PriorityClass.values()) {
+			for(int i = 0; i < 13; ++i) {
+				dispatcher.submit(new Recorder(priority, order, done), priority);
+			}
+		}
+		gate.open.countDown();
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		
+		// while all classes are queued, they are served 8:4:1, interleaved
+		List<PriorityClass> round = order.subList(0, 13);
+		assertEquals(8, Collections.frequency(round, PriorityClass.INTERACTIVE));
+		assertEquals(4, Collections.frequency(round, PriorityClass.NORMAL));
+		assertEquals(1, Collections.frequency(round, PriorityClass.BATCH));
+		assertEquals(PriorityClass.INTERACTIVE, round.get(0));
+		assertFalse(round.subList(0, 5).equals(Collections.nCopies(5, PriorityClass.INTERACTIVE)));
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.admission.PriorityDispatcher#submit(Runnable, PriorityClass)}.
+	 */
+	@Test
+	public void testStarvation() throws InterruptedException, OpenDataException {
+		dispatcher = new PriorityDispatcher("test-", 1, 100, 50);
+		Gate gate = block();
+		List<PriorityClass> order = Collections.synchronizedList(new ArrayList<PriorityClass>());
+		CountDownLatch done = new CountDownLatch(11);
+		dispatcher.submit(new Recorder(PriorityClass.BATCH, order, done), PriorityClass.BATCH);
+		Thread.sleep(100);
+		for(int i = 0; i < 10; ++i) {
+			dispatcher.submit(new Recorder(PriorityClass.INTERACTIVE, order, done), PriorityClass.INTERACTIVE);
+		}
+		gate.open.countDown();
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		assertEquals(PriorityClass.BATCH, order.get(0));
+		
+		long starved = (Long)dispatcher.toTabularData().get(new Object[] { "batch" }).get("starved");
+		assertEquals(1, starved);
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.admission.PriorityDispatcher#submit(Runnable, PriorityClass)}.
+	 */
+	@Test
+	public void testBoundedQueues() throws InterruptedException, OpenDataException {
+		dispatcher = new PriorityDispatcher("test-", 1, 2, 60000);
+		Gate gate = block();
+		Runnable noop = new Runnable() {
+			@Override
+			public void run() {
+			}
+		};
+		dispatcher.submit(noop, PriorityClass.BATCH);
+		dispatcher.getExecutor(PriorityClass.BATCH).execute(noop);
+		try {
+			dispatcher.submit(noop, PriorityClass.BATCH);
+			fail("the batch queue should be full");
+		} catch(RejectedExecutionException e) {
+			// expected
+		}
+		// a full class does not take the room of the others
+		dispatcher.submit(noop, PriorityClass.INTERACTIVE);
+		
+		long rejected = (Long)dispatcher.toTabularData().get(new Object[] { "batch" }).get("rejected");
+		assertEquals(1, rejected);
+		gate.open.countDown();
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.admission.PriorityDispatcher#submit(Runnable, PriorityClass)}.
+	 */
+	@Test
+	public void testWorkerSurvivesFailures() throws InterruptedException {
+		dispatcher = new PriorityDispatcher("test-", 1, 10, 60000);
+		final CountDownLatch done = new CountDownLatch(1);
+		dispatcher.submit(new Runnable() {
+			@Override
+			public void run() {
+				throw new IllegalStateException("failing on purpose");
+			}
+		}, PriorityClass.NORMAL);
+		dispatcher.submit(new Runnable() {
+			@Override
+			public void run() {
+				done.countDown();
+			}
+		}, PriorityClass.NORMAL);
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.admission.PriorityDispatcher#shutdown(long)}.
+	 */
+	@Test
+	public void testShutdown() throws InterruptedException {
+		dispatcher = new PriorityDispatcher("test-", 1, 10, 60000);
+		block();
+		List<PriorityClass> order = Collections.synchronizedList(new ArrayList<PriorityClass>());
+		CountDownLatch done = new CountDownLatch(3);
+		Runnable first = new Recorder(PriorityClass.BATCH, order, done);
+		Runnable second = new Recorder(PriorityClass.BATCH, order, done);
+		Runnable third = new Recorder(PriorityClass.INTERACTIVE, order, done);
+		dispatcher.submit(first, PriorityClass.BATCH);
+		dispatcher.submit(second, PriorityClass.BATCH);
+		dispatcher.submit(third, PriorityClass.INTERACTIVE);
+		
+		// the gate never opens: the worker is interrupted once the timeout expires
+		List<Runnable> drained = dispatcher.shutdown(50);
+		assertEquals(Arrays.asList(third, first, second), drained);
+		assertTrue(order.isEmpty());
+		try {
+			dispatcher.submit(first, PriorityClass.INTERACTIVE);
+			fail("the dispatcher should not accept tasks after shutdown");
+		} catch(RejectedExecutionException e) {
+			// expected
+		}
+	}
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2012-2015, Andrea Funto'. All rights reserved. See LICENSE for details.
+ */
+
+package org.dihedron.webmvc.aop;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.channels.ClosedByInterruptException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.dihedron.webmvc.aop.SingleFlight.Flight;
+import org.dihedron.webmvc.exceptions.ControlFlowException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Andrea Funto'
+ */
+public class SingleFlightTest {
+	
+	/**
+	 * An exception that cannot be re-created by reflection.
+	 */
+	private static class OpaqueException extends Exception {
+		private static final long serialVersionUID = 1L;
+		OpaqueException() {
+			super("opaque");
+		}
+	}
+
+	private SingleFlight flights;
+	
+	private ExecutorService executor;
+	
+	@Before
+	public void setUp() {
+		flights = new SingleFlight();
+		executor = Executors.newSingleThreadExecutor();
+	}
+	
+	@After
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Test method for {@link org.dihedron.webmvc.aop.SingleFlight#join(java.lang.Object[])}.
+	 */
+	@Test
+	public void testJoin() throws Exception {
+		final Flight flight = flights.join(new Object[] { "search", "books", new String[] { "a", "b" } });
+		assertTrue(flight.isLeader());
+		
+		// same method and inputs (arrays compared by value) join the same flight
+		Flight joined = executor.submit(new Callable<Flight>() {
+			@Override
+			public Flight call() {
+				return flights.join(new Object[] { "search", "books", new String[] { "a", "b" } });
+			}
+		}).get();
+		assertSame(flight, joined);
+		assertFalse(executor.submit(new Callable<Boolean>() {
+			@Override
+			public Boolean call() {
+				return flight.isLeader();
+			}
+		}).get());
+		
+		// different inputs start a flight of their own
+		assertNotSame(flight, flights.join(new Object[] { "search", "books", new String[] { "a", "c" } }));
+		assertNotSame(flight, flights.join(new Object[] { "browse", "books", new String[] { "a", "b" } }));
+		
+		// once landed, the flight is no longer joined
+		flight.complete("success", new Object[0]);
+		Flight next = flights.join(new Object[] { "search", "books", new String[] { "a", "b" } });
+		assertNotSame(flight, next);
+		assertTrue(next.isLeader());
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.aop.SingleFlight.Flight#getResult()}.
+	 */
+	@Test
+	public void testSharedResult() throws Exception {
+		final Flight flight = flights.join(new Object[] { "search", "books" });
+		final CountDownLatch joined = new CountDownLatch(1);
+		Future<Object[]> waiter = executor.submit(new Callable<Object[]>() {
+			@Override
+			public Object[] call() throws Exception {
+				Flight other = flights.join(new Object[] { "search", "books" });
+				joined.countDown();
+				assertFalse(other.isLeader());
+				assertTrue(other.await(Long.MAX_VALUE));
+				return new Object[] { other.getResult(), other.getOutputs() };
+			}
+		});
+		assertTrue(joined.await(5, TimeUnit.SECONDS));
+		Object[] outputs = { "output" };
+		flight.complete("success", outputs);
+		Object[] shared = waiter.get(5, TimeUnit.SECONDS);
+		assertEquals("success", shared[0]);
+		assertArrayEquals(outputs, (Object[])shared[1]);
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.aop.SingleFlight.Flight#await(long)}.
+	 */
+	@Test
+	public void testAwaitTimeout() throws Exception {
+		final Flight flight = flights.join(new Object[] { "search", "books" });
+		Future<Boolean> waiter = executor.submit(new Callable<Boolean>() {
+			@Override
+			public Boolean call() throws Exception {
+				return flight.await(10);
+			}
+		});
+		try {
+			waiter.get(5, TimeUnit.SECONDS);
+			fail("the wait should have timed out");
+		} catch(ExecutionException e) {
+			assertSame(ControlFlowException.TIMEOUT, e.getCause());
+		}
+		flight.complete("success", null);
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.aop.SingleFlight.Flight#await(long)}.
+	 */
+	@Test
+	public void testInterruptedLeader() throws Exception {
+		Flight flight = flights.join(new Object[] { "search", "books" });
+		flight.fail(new RuntimeException("interrupted", new InterruptedException()));
+		assertFalse(flight.await(1000));
+		
+		flight = flights.join(new Object[] { "search", "books" });
+		flight.fail(new ClosedByInterruptException());
+		assertFalse(flight.await(1000));
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.aop.SingleFlight.Flight#getResult()}.
+	 */
+	@Test
+	public void testFreshFailures() throws Exception {
+		Flight flight = flights.join(new Object[] { "search", "books" });
+		IllegalStateException original = new IllegalStateException("broken");
+		flight.fail(original);
+		assertTrue(flight.await(1000));
+		try {
+			flight.getResult();
+			fail("the leader's failure should have been rethrown");
+		} catch(IllegalStateException e) {
+			assertNotSame(original, e);
+			assertSame(original, e.getCause());
+			assertEquals("broken", e.getMessage());
+		}
+		
+		// exceptions that cannot be re-created are shared as they are
+		flight = flights.join(new Object[] { "search", "books" });
+		OpaqueException opaque = new OpaqueException();
+		flight.fail(opaque);
+		assertTrue(flight.await(1000));
+		try {
+			flight.getResult();
+			fail("the leader's failure should have been rethrown");
+		} catch(OpaqueException e) {
+			assertSame(opaque, e);
+		}
+		
+		// so are preallocated control flow exceptions
+		flight = flights.join(new Object[] { "search", "books" });
+		flight.fail(ControlFlowException.UNAUTHORISED);
+		assertTrue(flight.await(1000));
+		try {
+			flight.getResult();
+			fail("the leader's failure should have been rethrown");
+		} catch(ControlFlowException e) {
+			assertSame(ControlFlowException.UNAUTHORISED, e);
+		}
+	}
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2012-2015, Andrea Funto'. All rights reserved. See LICENSE for details.
+ */
+
+package org.dihedron.webmvc.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.dihedron.webmvc.annotations.Cached;
+import org.dihedron.webmvc.annotations.In;
+import org.dihedron.webmvc.exceptions.DeploymentException;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Andrea Funto'
+ */
+public class CachePolicyTest {
+	
+	/**
+	 * The business methods of the tests.
+	 */
+	public static class Shop {
+		
+		@Cached(ttl = 60, stale = 30)
+		public String search(@In("query") String query) {
+			return "success";
+		}
+		
+		@Cached(ttl = 60, key = { "missing" })
+		public String browse(@In("category") String category) {
+			return "success";
+		}
+	}
+	
+	private ResponseCache cache;
+	
+	private CachePolicy policy;
+	
+	@Before
+	public void setUp() throws Exception {
+		cache = new ResponseCache(100, ResponseCache.DEFAULT_MAX_WEIGHT);
+		policy = new CachePolicy("Shop!search", Shop.class.getMethod("search", String.class), cache);
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.cache.CachePolicy#CachePolicy(java.lang.String, java.lang.reflect.Method, org.dihedron.webmvc.cache.ResponseCache)}.
+	 */
+	@Test(expected = DeploymentException.class)
+	public void testUnknownKey() throws Exception {
+		new CachePolicy("Shop!browse", Shop.class.getMethod("browse", String.class), cache);
+	}
+
+	/**
+	 * Test method for {@link org.dihedron.webmvc.cache.CachePolicy#lookup(org.dihedron.webmvc.cache.CacheKey)}.
+	 */
+	@Test
+	public void testFreshEntry() {
+		CacheKey key = ResponseCacheTest.key("books");
+		assertNull(policy.lookup(key));
+		assertEquals(1, cache.getMisses());
+		
+		CachedResponse entry = entry(60000, 90000);
+		policy.store(key, entry);
+		assertSame(entry, policy.lookup(key));
+		assertSame(entry, policy.lookup(key));
+		assertEquals(2, cache.getHits());
+		assertEquals(0, cache.getStaleHits());
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.cache.CachePolicy#lookup(org.dihedron.webmvc.cache.CacheKey)}.
+	 */
+	@Test
+	public void testStaleWindow() {
+		CacheKey key = ResponseCacheTest.key("books");
+		CachedResponse entry = entry(-1000, 30000);
+		policy.store(key, entry);
+		
+		// the first request refreshes the entry, the others are served the stale one
+		assertNull(policy.lookup(key));
+		assertSame(entry, policy.lookup(key));
+		assertSame(entry, policy.lookup(key));
+		assertEquals(1, cache.getMisses());
+		assertEquals(2, cache.getStaleHits());
+		assertEquals(0, cache.getHits());
+		
+		// if the refresh fails, the next request takes it over
+		policy.abandon(key);
+		assertNull(policy.lookup(key));
+		assertSame(entry, policy.lookup(key));
+		
+		// the refreshed entry replaces the stale one
+		CachedResponse refreshed = entry(60000, 90000);
+		policy.store(key, refreshed);
+		assertSame(refreshed, policy.lookup(key));
+		assertEquals(1, cache.getHits());
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.cache.CachePolicy#lookup(org.dihedron.webmvc.cache.CacheKey)}.
+	 */
+	@Test
+	public void testPastStaleWindow() {
+		CacheKey key = ResponseCacheTest.key("books");
+		policy.store(key, entry(-2000, -1000));
+		assertNull(policy.lookup(key));
+		assertNull(policy.lookup(key));
+		assertEquals(2, cache.getMisses());
+		assertEquals(0, cache.getStaleHits());
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.cache.CachedResponse#tryRefresh()}.
+	 */
+	@Test
+	public void testTryRefresh() {
+		CachedResponse entry = entry(-1000, 30000);
+		long now = System.currentTimeMillis();
+		assertFalse(entry.isFresh(now));
+		assertTrue(entry.isServable(now));
+		assertTrue(entry.tryRefresh());
+		assertFalse(entry.tryRefresh());
+		entry.endRefresh();
+		assertTrue(entry.tryRefresh());
+		assertFalse(entry.isServable(now + 30000));
+	}
+	
+	/**
+	 * Creates an entry expiring and going out of the stale window at the given
+	 * offsets from now.
+	 */
+	private static CachedResponse entry(long expires, long staleUntil) {
+		long now = System.currentTimeMillis();
+		return new CachedResponse("success", new Object[0], now + expires, now + staleUntil);
+	}
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2012-2015, Andrea Funto'. All rights reserved. See LICENSE for details.
+ */
+
+package org.dihedron.webmvc.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * @author Andrea Funto'
+ */
+public class ResponseCacheTest {
+
+	/**
+	 * Test method for {@link org.dihedron.webmvc.cache.ResponseCache#put(org.dihedron.webmvc.cache.CacheKey, org.dihedron.webmvc.cache.CachedResponse)}.
+	 */
+	@Test
+	public void testEvictionBySize() {
+		ResponseCache cache = new ResponseCache(2, ResponseCache.DEFAULT_MAX_WEIGHT);
+		CachedResponse a = entry(0);
+		CachedResponse b = entry(0);
+		CachedResponse c = entry(0);
+		cache.put(key("a"), a);
+		cache.put(key("b"), b);
+		
+		// touching "a" makes "b" the least recently used entry
+		assertSame(a, cache.get(key("a")));
+		cache.put(key("c"), c);
+		assertEquals(2, cache.getSize());
+		assertEquals(1, cache.getEvictions());
+		assertSame(a, cache.get(key("a")));
+		assertNull(cache.get(key("b")));
+		assertSame(c, cache.get(key("c")));
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.cache.ResponseCache#put(org.dihedron.webmvc.cache.CacheKey, org.dihedron.webmvc.cache.CachedResponse)}.
+	 */
+	@Test
+	public void testEvictionByWeight() {
+		CachedResponse a = entry(400);
+		CachedResponse b = entry(400);
+		CachedResponse c = entry(400);
+		ResponseCache cache = new ResponseCache(100, 2 * a.getWeight());
+		cache.put(key("a"), a);
+		cache.put(key("b"), b);
+		assertEquals(2 * a.getWeight(), cache.getWeight());
+		assertEquals(0, cache.getEvictions());
+		
+		cache.put(key("c"), c);
+		assertEquals(2, cache.getSize());
+		assertEquals(2 * a.getWeight(), cache.getWeight());
+		assertEquals(1, cache.getEvictions());
+		assertNull(cache.get(key("a")));
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.cache.ResponseCache#put(org.dihedron.webmvc.cache.CacheKey, org.dihedron.webmvc.cache.CachedResponse)}.
+	 */
+	@Test
+	public void testOversizedEntry() {
+		ResponseCache cache = new ResponseCache(100, 1024);
+		cache.put(key("a"), entry(0));
+		cache.put(key("huge"), entry(2048));
+		assertNull(cache.get(key("huge")));
+		assertEquals(1, cache.getSize());
+		assertEquals(0, cache.getEvictions());
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.cache.ResponseCache#put(org.dihedron.webmvc.cache.CacheKey, org.dihedron.webmvc.cache.CachedResponse)}.
+	 */
+	@Test
+	public void testReplacement() {
+		ResponseCache cache = new ResponseCache(100, ResponseCache.DEFAULT_MAX_WEIGHT);
+		CachedResponse small = entry(10);
+		CachedResponse large = entry(1000);
+		cache.put(key("a"), small);
+		cache.put(key("a"), large);
+		assertEquals(1, cache.getSize());
+		assertEquals(large.getWeight(), cache.getWeight());
+		assertSame(large, cache.get(key("a")));
+		
+		cache.clear();
+		assertEquals(0, cache.getSize());
+		assertEquals(0, cache.getWeight());
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.cache.ResponseCache#put(org.dihedron.webmvc.cache.CacheKey, org.dihedron.webmvc.cache.CachedResponse)}.
+	 */
+	@Test
+	public void testSegmentedLimits() {
+		// large enough to be split into segments, each with its share of the limits
+		ResponseCache cache = new ResponseCache(1024, 1024 * 1024);
+		assertEquals(1024 * 1024 / 16, cache.getMaxWeight());
+		for(int i = 0; i < 5000; ++i) {
+			cache.put(key("key-" + i), entry(0));
+		}
+		assertTrue(cache.getSize() <= 1024);
+		assertTrue(cache.getSize() > 1024 - 16 * 8);
+		assertEquals(5000 - cache.getSize(), cache.getEvictions());
+		assertEquals(cache.getSize() * entry(0).getWeight(), cache.getWeight());
+		
+		// an entry too large for its segment is not stored
+		cache.put(key("huge"), entry((int)cache.getMaxWeight()));
+		assertNull(cache.get(key("huge")));
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.cache.CachedResponse#getWeight()}.
+	 */
+	@Test
+	public void testOutputsWeight() {
+		long now = System.currentTimeMillis();
+		CachedResponse empty = new CachedResponse("success", new Object[] { null }, now + 60000, now + 60000);
+		CachedResponse outputs = new CachedResponse("success", new Object[] { new String(new char[1000]), new long[1000] }, now + 60000, now + 60000);
+		// unrendered entries are charged for the values of their @Out parameters
+		assertTrue(outputs.getWeight() >= empty.getWeight() + 2000 + 8000);
+		
+		ResponseCache cache = new ResponseCache(100, 4 * outputs.getWeight());
+		for(int i = 0; i < 10; ++i) {
+			cache.put(key("key-" + i), new CachedResponse("success", new Object[] { new String(new char[1000]), new long[1000] }, now + 60000, now + 60000));
+		}
+		assertEquals(4, cache.getSize());
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.cache.CacheKey#equals(java.lang.Object)}.
+	 */
+	@Test
+	public void testKeysCompareArraysByValue() {
+		ResponseCache cache = new ResponseCache(100, ResponseCache.DEFAULT_MAX_WEIGHT);
+		CachedResponse a = entry(0);
+		cache.put(new CacheKey(new Object[] { "Shop!search", new String[] { "x", "y" } }), a);
+		assertSame(a, cache.get(new CacheKey(new Object[] { "Shop!search", new String[] { "x", "y" } })));
+		assertNull(cache.get(new CacheKey(new Object[] { "Shop!search", new String[] { "x" } })));
+	}
+	
+	/**
+	 * Creates a fresh entry, with a rendered body of the given size.
+	 */
+	static CachedResponse entry(int size) {
+		long now = System.currentTimeMillis();
+		CachedResponse entry = new CachedResponse("success", new Object[0], now + 60000, now + 60000);
+		return size > 0 ? entry.setBody(new byte[size], "text/html") : entry;
+	}
+	
+	/**
+	 * Creates a key for the given value.
+	 */
+	static CacheKey key(String value) {
+		return new CacheKey(new Object[] { "Shop!search", value });
+	}
+}
@@ -0,0 +1,326 @@
+/*
+ * Copyright (c) 2012-2015, Andrea Funto'. All rights reserved. See LICENSE for details.
+ */
+
+package org.dihedron.webmvc.compression;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+
+import org.dihedron.webmvc.compression.Compression.Encoding;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Andrea Funto'
+ */
+public class CompressingResponseWrapperTest {
+	
+	/**
+	 * The compression threshold used in the tests.
+	 */
+	private static final int THRESHOLD = 64;
+	
+	/**
+	 * Records what is written to a response.
+	 */
+	private static class Recorder implements InvocationHandler {
+		
+		private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+		
+		private final Map<String, String> headers = new HashMap<>();
+		
+		private String contentType;
+		
+		private long contentLength = -1;
+		
+		private int status = HttpServletResponse.SC_OK;
+		
+		private boolean committed = false;
+		
+		private final ServletOutputStream stream = new ServletOutputStream() {
+			@Override
+			public void write(int b) throws IOException {
+				committed = true;
+				body.write(b);
+			}
+			@Override
+			public boolean isReady() {
+				return true;
+			}
+			@Override
+			public void setWriteListener(WriteListener listener) {
+			}
+		};
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch(method.getName()) {
+			case "getOutputStream":
+				return stream;
+			case "getCharacterEncoding":
+				return "UTF-8";
+			case "getContentType":
+				return contentType;
+			case "setContentType":
+				contentType = (String)args[0];
+				return null;
+			case "setContentLength":
+				contentLength = (Integer)args[0];
+				return null;
+			case "setContentLengthLong":
+				contentLength = (Long)args[0];
+				return null;
+			case "setHeader":
+				headers.put((String)args[0], (String)args[1]);
+				return null;
+			case "getHeader":
+				return headers.get(args[0]);
+			case "containsHeader":
+				return headers.containsKey(args[0]);
+			case "setStatus":
+			case "sendError":
+				status = (Integer)args[0];
+				return null;
+			case "isCommitted":
+				return committed;
+			case "flushBuffer":
+				committed = true;
+				return null;
+			default:
+				return null;
+			}
+		}
+	}
+	
+	private Recorder recorder;
+	
+	private DeflaterPool pool;
+	
+	@Before
+	public void setUp() {
+		recorder = new Recorder();
+		pool = new DeflaterPool(1);
+	}
+
+	/**
+	 * Test method for {@link org.dihedron.webmvc.compression.CompressingResponseWrapper#finish()}.
+	 */
+	@Test
+	public void testBelowThreshold() throws IOException {
+		CompressingResponseWrapper wrapper = wrap(Encoding.GZIP, "text/html");
+		byte[] data = text(THRESHOLD);
+		wrapper.getOutputStream().write(data);
+		assertEquals(0, recorder.body.size());
+		wrapper.finish();
+		wrapper.recycle();
+		assertNull(recorder.headers.get(Compression.CONTENT_ENCODING_HEADER));
+		assertEquals(THRESHOLD, recorder.contentLength);
+		assertArrayEquals(data, recorder.body.toByteArray());
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.compression.CompressingResponseWrapper#getOutputStream()}.
+	 */
+	@Test
+	public void testGzip() throws IOException {
+		CompressingResponseWrapper wrapper = wrap(Encoding.GZIP, "text/html; charset=UTF-8");
+		byte[] data = text(10 * THRESHOLD);
+		wrapper.setContentLength(data.length);
+		ServletOutputStream stream = wrapper.getOutputStream();
+		stream.write(data, 0, THRESHOLD);
+		stream.write(data, THRESHOLD, data.length - THRESHOLD);
+		wrapper.finish();
+		wrapper.recycle();
+		assertEquals("gzip", recorder.headers.get(Compression.CONTENT_ENCODING_HEADER));
+		assertEquals(-1, recorder.contentLength);
+		assertTrue(recorder.body.size() < data.length);
+		assertArrayEquals(data, inflate(new GZIPInputStream(new ByteArrayInputStream(recorder.body.toByteArray()))));
+	}
+
+	/**
+	 * Test method for {@link org.dihedron.webmvc.compression.CompressingResponseWrapper#getWriter()}.
+	 */
+	@Test
+	public void testDeflateThroughWriter() throws IOException {
+		CompressingResponseWrapper wrapper = wrap(Encoding.DEFLATE, "application/json");
+		String data = new String(text(10 * THRESHOLD), StandardCharsets.UTF_8);
+		PrintWriter writer = wrapper.getWriter();
+		writer.print(data);
+		wrapper.finish();
+		wrapper.recycle();
+		assertEquals("deflate", recorder.headers.get(Compression.CONTENT_ENCODING_HEADER));
+		byte[] inflated = inflate(new InflaterInputStream(new ByteArrayInputStream(recorder.body.toByteArray())));
+		assertEquals(data, new String(inflated, StandardCharsets.UTF_8));
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.compression.Compression#isCompressible(java.lang.String)}.
+	 */
+	@Test
+	public void testSkippedTypes() throws IOException {
+		assertFalse(Compression.isCompressible("image/png"));
+		assertFalse(Compression.isCompressible("Application/PDF"));
+		assertFalse(Compression.isCompressible("application/zip"));
+		assertTrue(Compression.isCompressible("text/css"));
+		assertTrue(Compression.isCompressible(null));
+		
+		CompressingResponseWrapper wrapper = wrap(Encoding.GZIP, "image/png");
+		byte[] data = text(10 * THRESHOLD);
+		wrapper.setContentLength(data.length);
+		wrapper.getOutputStream().write(data);
+		wrapper.finish();
+		wrapper.recycle();
+		assertNull(recorder.headers.get(Compression.CONTENT_ENCODING_HEADER));
+		assertEquals(data.length, recorder.contentLength);
+		assertArrayEquals(data, recorder.body.toByteArray());
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.compression.CompressingResponseWrapper#setStatus(int)}.
+	 */
+	@Test
+	public void testSkippedStatus() throws IOException {
+		CompressingResponseWrapper wrapper = wrap(Encoding.GZIP, "text/html");
+		wrapper.setStatus(HttpServletResponse.SC_NOT_FOUND);
+		byte[] data = text(10 * THRESHOLD);
+		wrapper.getOutputStream().write(data);
+		wrapper.finish();
+		assertNull(recorder.headers.get(Compression.CONTENT_ENCODING_HEADER));
+		assertArrayEquals(data, recorder.body.toByteArray());
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.compression.CompressingResponseWrapper#flushBuffer()}.
+	 */
+	@Test
+	public void testFlushWhileCompressing() throws IOException {
+		CompressingResponseWrapper wrapper = wrap(Encoding.GZIP, "text/html");
+		byte[] data = text(10 * THRESHOLD);
+		wrapper.getOutputStream().write(data);
+		wrapper.flushBuffer();
+		
+		// what has been flushed so far can already be decompressed by the client
+		byte[] partial = recorder.body.toByteArray();
+		InputStream inflater = new GZIPInputStream(new ByteArrayInputStream(partial));
+		byte[] buffer = new byte[data.length];
+		int read = 0;
+		while(read < data.length) {
+			int n = inflater.read(buffer, read, data.length - read);
+			if(n < 0) {
+				break;
+			}
+			read += n;
+		}
+		assertArrayEquals(data, buffer);
+		
+		wrapper.finish();
+		wrapper.recycle();
+		assertArrayEquals(data, inflate(new GZIPInputStream(new ByteArrayInputStream(recorder.body.toByteArray()))));
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.compression.CompressingResponseWrapper#finish()}.
+	 */
+	@Test
+	public void testWriteAfterFinish() throws IOException {
+		CompressingResponseWrapper wrapper = wrap(Encoding.GZIP, "text/html");
+		ServletOutputStream stream = wrapper.getOutputStream();
+		stream.write(text(10 * THRESHOLD));
+		wrapper.finish();
+		
+		// finishing twice (e.g. once by the container) is harmless
+		int length = recorder.body.size();
+		stream.close();
+		wrapper.finish();
+		assertEquals(length, recorder.body.size());
+		try {
+			stream.write('x');
+			fail("writing after the output has been completed must fail");
+		} catch(IOException e) {
+			// expected
+		}
+		wrapper.recycle();
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.compression.CompressingResponseWrapper#recycle()}.
+	 */
+	@Test
+	public void testRecycle() throws IOException {
+		Deflater deflater = pool.obtain(Compression.DEFAULT_LEVEL, true);
+		pool.release(deflater, true);
+		
+		// a completed response returns the deflater to the pool
+		CompressingResponseWrapper wrapper = wrap(Encoding.GZIP, "text/html");
+		wrapper.getOutputStream().write(text(10 * THRESHOLD));
+		wrapper.finish();
+		wrapper.recycle();
+		assertSame(deflater, pool.obtain(Compression.DEFAULT_LEVEL, true));
+		pool.release(deflater, true);
+		
+		// so does a response whose rendering failed half way
+		recorder = new Recorder();
+		wrapper = wrap(Encoding.GZIP, "text/html");
+		wrapper.getOutputStream().write(text(10 * THRESHOLD));
+		wrapper.recycle();
+		assertSame(deflater, pool.obtain(Compression.DEFAULT_LEVEL, true));
+	}
+
+	/**
+	 * Wraps a response of the given content type.
+	 */
+	private CompressingResponseWrapper wrap(Encoding encoding, String contentType) {
+		recorder.contentType = contentType;
+		HttpServletResponse response = (HttpServletResponse)Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { HttpServletResponse.class }, recorder);
+		return new CompressingResponseWrapper(response, new Compression(THRESHOLD, Compression.DEFAULT_LEVEL), encoding, pool);
+	}
+	
+	/**
+	 * Returns some compressible text of the given length.
+	 */
+	private static byte[] text(int length) {
+		byte[] text = new byte[length];
+		for(int i = 0; i < length; ++i) {
+			text[i] = (byte)('a' + (i % 7));
+		}
+		return text;
+	}
+	
+	/**
+	 * Reads all decompressed data from the given stream.
+	 */
+	private static byte[] inflate(InputStream input) throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		byte[] buffer = new byte[1024];
+		int n;
+		while((n = input.read(buffer)) != -1) {
+			output.write(buffer, 0, n);
+		}
+		return output.toByteArray();
+	}
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2012-2015, Andrea Funto'. All rights reserved. See LICENSE for details.
+ */
+
+package org.dihedron.webmvc.exceptions;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+import org.junit.Test;
+
+/**
+ * @author Andrea Funto'
+ */
+public class ControlFlowExceptionTest {
+
+	/**
+	 * Test method for {@link org.dihedron.webmvc.exceptions.WebMVCException#fillInStackTrace()}.
+	 */
+	@Test
+	public void testStackTraceNotWritable() {
+		ControlFlowException e = ControlFlowException.NOT_FOUND;
+		assertEquals(0, e.getStackTrace().length);
+		e.fillInStackTrace();
+		e.setStackTrace(new Exception().getStackTrace());
+		assertEquals(0, e.getStackTrace().length);
+		
+		// ordinary exceptions are not affected
+		assertEquals(true, new WebMVCException("error").getStackTrace().length > 0);
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.exceptions.WebMVCException#WebMVCException(String, Throwable, boolean, boolean)}.
+	 */
+	@Test
+	public void testCauseNotInitialisable() {
+		try {
+			ControlFlowException.TIMEOUT.initCause(new InterruptedException());
+			fail("the cause of a shared exception should not be initialisable");
+		} catch(IllegalStateException e) {
+			// expected
+		}
+		assertNull(ControlFlowException.TIMEOUT.getCause());
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.exceptions.WebMVCException#WebMVCException(String, Throwable, boolean, boolean)}.
+	 */
+	@Test
+	public void testSuppressionDisabled() {
+		assumeTrue(isSuppressionAccessible());
+		try(AutoCloseable resource = new AutoCloseable() {
+			@Override
+			public void close() throws Exception {
+				throw new IllegalStateException("closing");
+			}
+		}) {
+			throw ControlFlowException.UNAUTHORISED;
+		} catch(Exception e) {
+			assertEquals(ControlFlowException.UNAUTHORISED, e);
+		}
+		assertEquals(0, ControlFlowException.UNAUTHORISED.getSuppressed().length);
+	}
+	
+	/**
+	 * Returns whether the platform lets suppression be disabled on exceptions 
+	 * that do not inherit the corresponding constructor.
+	 */
+	private static boolean isSuppressionAccessible() {
+		try {
+			Throwable.class.getDeclaredField("suppressedExceptions").setAccessible(true);
+			return true;
+		} catch(NoSuchFieldException | RuntimeException e) {
+			return false;
+		}
+	}
+}
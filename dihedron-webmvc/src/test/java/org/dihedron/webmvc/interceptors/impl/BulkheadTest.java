@@ -0,0 +1,274 @@
+/*
+ * Copyright (c) 2012-2015, Andrea Funto'. All rights reserved. See LICENSE for details.
+ */
+
+package org.dihedron.webmvc.interceptors.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.dihedron.webmvc.ActionInvocation;
+import org.dihedron.webmvc.Invocation;
+import org.dihedron.webmvc.exceptions.ControlFlowException;
+import org.dihedron.webmvc.exceptions.WebMVCException;
+import org.dihedron.webmvc.interceptors.Domain;
+import org.dihedron.webmvc.interceptors.Interceptor;
+import org.dihedron.webmvc.interceptors.InterceptorStack;
+import org.dihedron.webmvc.targets.ExecutionPlan;
+import org.dihedron.webmvc.targets.Target;
+import org.dihedron.webmvc.targets.TargetId;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * @author Andrea Funto'
+ */
+public class BulkheadTest {
+	
+	/**
+	 * Stands in for the business method: it runs the action, which is a
+	 * {@code Runnable} in these tests, and returns "success".
+	 */
+	private static final Interceptor TARGET = new Interceptor() {
+		@Override
+		public String intercept(Invocation invocation) throws WebMVCException {
+			((Runnable)((ActionInvocation)invocation).getAction()).run();
+			return "success";
+		}
+	};
+	
+	/**
+	 * An action that does nothing.
+	 */
+	private static final Runnable NOOP = new Runnable() {
+		@Override
+		public void run() {
+		}
+	};
+	
+	/**
+	 * An action holding its permits until it is released.
+	 */
+	private static class Holder implements Runnable {
+		final CountDownLatch entered = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		
+		@Override
+		public void run() {
+			entered.countDown();
+			try {
+				release.await();
+			} catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+	
+	private final ExecutorService pool = Executors.newCachedThreadPool();
+	
+	private final Domain domain = new Domain("test", "test", ".*");
+	
+	@After
+	public void tearDown() {
+		pool.shutdownNow();
+	}
+	
+	/**
+	 * Creates a bulkhead with the given parameters, as name/value pairs.
+	 */
+	private static Bulkhead bulkhead(String... parameters) {
+		Bulkhead bulkhead = new Bulkhead();
+		bulkhead.setId("test", "bulkhead");
+		for(int i = 0; i < parameters.length; i += 2) {
+			bulkhead.setParameter(parameters[i], parameters[i + 1]);
+		}
+		bulkhead.initialise();
+		return bulkhead;
+	}
+	
+	/**
+	 * Creates the execution plan of a target protected by the given bulkhead.
+	 */
+	private ExecutionPlan plan(String action, Bulkhead bulkhead) throws WebMVCException {
+		InterceptorStack stack = new InterceptorStack("test");
+		stack.add(bulkhead);
+		stack.add(TARGET);
+		return new ExecutionPlan(new Target(new TargetId(action, "execute")), domain, stack, null);
+	}
+	
+	/**
+	 * Invokes the target on the current thread, running the given action.
+	 */
+	private static String call(ExecutionPlan plan, Runnable action) throws WebMVCException {
+		ActionInvocation invocation = ActionInvocation.obtain(plan, action, null, null);
+		try {
+			return invocation.invoke();
+		} finally {
+			invocation.cleanup();
+		}
+	}
+	
+	/**
+	 * Invokes the target on a pooled thread, running the given action.
+	 */
+	private Future<String> submit(final ExecutionPlan plan, final Runnable action) {
+		return pool.submit(new Callable<String>() {
+			@Override
+			public String call() throws Exception {
+				return BulkheadTest.call(plan, action);
+			}
+		});
+	}
+	
+	/**
+	 * Takes the only permit of the given target on a pooled thread.
+	 */
+	private Holder hold(ExecutionPlan plan) throws InterruptedException {
+		Holder holder = new Holder();
+		submit(plan, holder);
+		assertTrue(holder.entered.await(5, TimeUnit.SECONDS));
+		return holder;
+	}
+
+	/**
+	 * Invokes the target on a pooled thread, returning once the request is
+	 * waiting in the queue.
+	 */
+	private Future<String> enqueue(final ExecutionPlan plan) throws InterruptedException {
+		final AtomicReference<Thread> caller = new AtomicReference<>();
+		Future<String> future = pool.submit(new Callable<String>() {
+			@Override
+			public String call() throws Exception {
+				caller.set(Thread.currentThread());
+				return BulkheadTest.call(plan, NOOP);
+			}
+		});
+		long deadline = System.currentTimeMillis() + 5000;
+		while(caller.get() == null || caller.get().getState() != Thread.State.TIMED_WAITING) {
+			assertTrue("the request never queued", System.currentTimeMillis() < deadline);
+			Thread.sleep(5);
+		}
+		return future;
+	}
+
+	/**
+	 * Test method for {@link org.dihedron.webmvc.interceptors.impl.Bulkhead#intercept(org.dihedron.webmvc.Invocation)}.
+	 */
+	@Test
+	public void testTargetLimit() throws Exception {
+		Bulkhead bulkhead = bulkhead(Bulkhead.TARGET_LIMIT_PARAMETER, "1");
+		ExecutionPlan plan = plan("Shop", bulkhead);
+		ExecutionPlan other = plan("Cart", bulkhead);
+		Holder holder = hold(plan);
+		try {
+			call(plan, NOOP);
+			fail("the request should have been rejected");
+		} catch(ControlFlowException e) {
+			assertSame(ControlFlowException.OVERLOADED, e);
+		}
+		// other targets have their own permits
+		assertEquals("success", call(other, NOOP));
+		assertEquals(1, bulkhead.getRejected());
+		
+		// the permit is given back once the target completes
+		holder.release.countDown();
+		pool.shutdown();
+		assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+		assertEquals("success", call(plan, NOOP));
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.interceptors.impl.Bulkhead#intercept(org.dihedron.webmvc.Invocation)}.
+	 */
+	@Test
+	public void testDomainLimit() throws Exception {
+		Bulkhead bulkhead = bulkhead(Bulkhead.DOMAIN_LIMIT_PARAMETER, "1", Bulkhead.RESULT_PARAMETER, "busy");
+		ExecutionPlan plan = plan("Shop", bulkhead);
+		ExecutionPlan other = plan("Cart", bulkhead);
+		Holder holder = hold(plan);
+		// all targets in the domain share its permits
+		assertEquals("busy", call(other, NOOP));
+		assertEquals(1, bulkhead.getRejected());
+		holder.release.countDown();
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.interceptors.impl.Bulkhead#intercept(org.dihedron.webmvc.Invocation)}.
+	 */
+	@Test
+	public void testQueueTimeout() throws Exception {
+		Bulkhead bulkhead = bulkhead(Bulkhead.TARGET_LIMIT_PARAMETER, "1", Bulkhead.QUEUE_SIZE_PARAMETER, "1", Bulkhead.QUEUE_TIMEOUT_PARAMETER, "100", Bulkhead.RESULT_PARAMETER, "busy");
+		ExecutionPlan plan = plan("Shop", bulkhead);
+		Holder holder = hold(plan);
+		long start = System.nanoTime();
+		assertEquals("busy", call(plan, NOOP));
+		assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100));
+		holder.release.countDown();
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.interceptors.impl.Bulkhead#intercept(org.dihedron.webmvc.Invocation)}.
+	 */
+	@Test
+	public void testQueuedRequestGetsPermit() throws Exception {
+		Bulkhead bulkhead = bulkhead(Bulkhead.TARGET_LIMIT_PARAMETER, "1", Bulkhead.QUEUE_SIZE_PARAMETER, "1", Bulkhead.QUEUE_TIMEOUT_PARAMETER, "5000");
+		ExecutionPlan plan = plan("Shop", bulkhead);
+		Holder holder = hold(plan);
+		Future<String> queued = enqueue(plan);
+		holder.release.countDown();
+		assertEquals("success", queued.get(5, TimeUnit.SECONDS));
+		assertEquals(0, bulkhead.getRejected());
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.interceptors.impl.Bulkhead#intercept(org.dihedron.webmvc.Invocation)}.
+	 */
+	@Test
+	public void testQueueBound() throws Exception {
+		Bulkhead bulkhead = bulkhead(Bulkhead.TARGET_LIMIT_PARAMETER, "1", Bulkhead.QUEUE_SIZE_PARAMETER, "1", Bulkhead.QUEUE_TIMEOUT_PARAMETER, "5000", Bulkhead.RESULT_PARAMETER, "busy");
+		ExecutionPlan plan = plan("Shop", bulkhead);
+		Holder holder = hold(plan);
+		Future<String> queued = enqueue(plan);
+		
+		// the queue is full: rejected right away rather than after the timeout
+		long start = System.nanoTime();
+		assertEquals("busy", call(plan, NOOP));
+		assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(2500));
+		
+		holder.release.countDown();
+		assertEquals("success", queued.get(5, TimeUnit.SECONDS));
+		assertEquals(1, bulkhead.getRejected());
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.interceptors.impl.Bulkhead#intercept(org.dihedron.webmvc.Invocation)}.
+	 */
+	@Test
+	public void testReleaseOnFailure() throws Exception {
+		Bulkhead bulkhead = bulkhead(Bulkhead.TARGET_LIMIT_PARAMETER, "1", Bulkhead.DOMAIN_LIMIT_PARAMETER, "1");
+		ExecutionPlan plan = plan("Shop", bulkhead);
+		try {
+			call(plan, new Runnable() {
+				@Override
+				public void run() {
+					throw new IllegalStateException("failing on purpose");
+				}
+			});
+			fail("the target should have thrown");
+		} catch(IllegalStateException e) {
+			// expected
+		}
+		assertEquals("success", call(plan, NOOP));
+		assertEquals(0, bulkhead.getRejected());
+	}
+}
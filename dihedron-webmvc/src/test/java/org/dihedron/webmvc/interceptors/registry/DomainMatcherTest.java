@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2012-2015, Andrea Funto'. All rights reserved. See LICENSE for details.
+ */
+
+package org.dihedron.webmvc.interceptors.registry;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.dihedron.webmvc.interceptors.Domain;
+import org.junit.Test;
+
+/**
+ * @author Andrea Funto'
+ */
+public class DomainMatcherTest {
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.interceptors.registry.DomainMatcher#match(java.lang.String)}.
+	 */
+	@Test
+	public void testLiteral() {
+		Domain index = domain("index", "/app/index.html");
+		DomainMatcher matcher = new DomainMatcher(Arrays.asList(index));
+		assertSame(index, matcher.match("/app/index.html"));
+		assertNull(matcher.match("/app/index.htm"));
+		assertNull(matcher.match("/app/index.html5"));
+		assertNull(matcher.match(""));
+	}
+
+	/**
+	 * Test method for {@link org.dihedron.webmvc.interceptors.registry.DomainMatcher#match(java.lang.String)}.
+	 */
+	@Test
+	public void testPrefix() {
+		Domain secure = domain("secure", "/app/private.*");
+		Domain all = domain("all", ".*");
+		DomainMatcher matcher = new DomainMatcher(Arrays.asList(secure, all));
+		assertSame(secure, matcher.match("/app/private"));
+		assertSame(secure, matcher.match("/app/private/Cart!checkout"));
+		assertSame(all, matcher.match("/app/public/Cart"));
+		assertSame(all, matcher.match(""));
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.interceptors.registry.DomainMatcher#match(java.lang.String)}.
+	 */
+	@Test
+	public void testDeclarationOrder() {
+		// the catch-all comes first and shadows everything else
+		Domain all = domain("all", ".*");
+		Domain secure = domain("secure", "/app/private.*");
+		Domain index = domain("index", "/app/index.html");
+		Domain regex = domain("regex", "/app/[a-z]+\\.jsp");
+		DomainMatcher matcher = new DomainMatcher(Arrays.asList(all, secure, index, regex));
+		assertSame(all, matcher.match("/app/private/Cart"));
+		assertSame(all, matcher.match("/app/index.html"));
+		assertSame(all, matcher.match("/app/home.jsp"));
+		
+		// a regular expression declared before a literal wins over it
+		Domain html = domain("html", "/app/[a-z]+\\.html");
+		matcher = new DomainMatcher(Arrays.asList(html, index));
+		assertSame(html, matcher.match("/app/index.html"));
+		matcher = new DomainMatcher(Arrays.asList(index, html));
+		assertSame(index, matcher.match("/app/index.html"));
+		assertSame(html, matcher.match("/app/about.html"));
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.interceptors.registry.DomainMatcher#match(java.lang.String)}.
+	 */
+	@Test
+	public void testAlternationWithGroups() {
+		// groups within a pattern must not shift the positions of the following ones
+		Domain grouped = domain("grouped", "/(admin|root)/(.*)\\.do");
+		Domain nested = domain("nested", "/((a)(b))+/x");
+		Domain plain = domain("plain", "/[0-9]+");
+		DomainMatcher matcher = new DomainMatcher(Arrays.asList(grouped, nested, plain));
+		assertSame(grouped, matcher.match("/admin/users.do"));
+		assertSame(nested, matcher.match("/abab/x"));
+		assertSame(plain, matcher.match("/42"));
+		assertNull(matcher.match("/guest/users.do"));
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.interceptors.registry.DomainMatcher#match(java.lang.String)}.
+	 */
+	@Test
+	public void testUnmergeablePatterns() {
+		Domain backref = domain("backref", "/(\\w+)/\\1");
+		Domain named = domain("named", "/(?<area>shop|cart)/.*");
+		Domain flags = domain("flags", "(?i)/ADMIN/.*");
+		Domain all = domain("all", ".*");
+		DomainMatcher matcher = new DomainMatcher(Arrays.asList(backref, named, flags, all));
+		assertSame(backref, matcher.match("/same/same"));
+		assertSame(named, matcher.match("/cart/items"));
+		assertSame(flags, matcher.match("/admin/users"));
+		assertSame(all, matcher.match("/same/other"));
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.interceptors.registry.DomainMatcher#match(java.lang.String)}.
+	 */
+	@Test
+	public void testNoDomains() {
+		DomainMatcher matcher = new DomainMatcher(new ArrayList<Domain>());
+		assertNull(matcher.match("/app/index.html"));
+	}
+	
+	/**
+	 * Checks that the matcher picks the same domain as a linear scan calling
+	 * {@link Domain#protects(String)} on each domain in turn.
+	 */
+	@Test
+	public void testEquivalentToLinearScan() {
+		List<Domain> domains = Arrays.asList(
+				domain("login", "/app/Login"),
+				domain("static", "/app/static/.*"),
+				domain("jsp", "/app/.*\\.jsp"),
+				domain("admin", "/app/(admin|root)/.*"),
+				domain("repeat", "/app/(\\w+)/\\1"),
+				domain("html", "/app/index.html"),
+				domain("app", "/app/.*"),
+				domain("all", ".*"));
+		String[] resources = {
+				"/app/Login", "/app/Login/", "/app/static/style.css", "/app/static/page.jsp",
+				"/app/home.jsp", "/app/admin/Users", "/app/root/x.jsp", "/app/foo/foo",
+				"/app/foo/bar", "/app/index.html", "/app/", "/app", "/other"
+		};
+		DomainMatcher matcher = new DomainMatcher(domains);
+		for(String resource : resources) {
+			assertSame(resource, scan(domains, resource), matcher.match(resource));
+		}
+	}
+	
+	/**
+	 * Returns the first domain protecting the resource, as a linear scan would.
+	 */
+	private static Domain scan(List<Domain> domains, String resource) {
+		for(Domain domain : domains) {
+			if(domain.protects(resource)) {
+				return domain;
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Creates a domain with the given pattern.
+	 */
+	private static Domain domain(String id, String pattern) {
+		return new Domain(id, "default", pattern);
+	}
+}
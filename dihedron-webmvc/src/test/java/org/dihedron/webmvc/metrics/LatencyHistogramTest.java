@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2012-2015, Andrea Funto'. All rights reserved. See LICENSE for details.
+ */
+
+package org.dihedron.webmvc.metrics;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * @author Andrea Funto'
+ */
+public class LatencyHistogramTest {
+
+	/**
+	 * Test method for {@link org.dihedron.webmvc.metrics.LatencyHistogram#getPercentiles(double[])}.
+	 */
+	@Test
+	public void testEmpty() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		assertArrayEquals(new long[] { 0, 0, 0 }, histogram.getPercentiles(50, 99, 100));
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.metrics.LatencyHistogram#getPercentiles(double[])}.
+	 */
+	@Test
+	public void testSmallValuesAreExact() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for(long i = 0; i < 8; ++i) {
+			histogram.record(i);
+		}
+		assertArrayEquals(new long[] { 0, 3, 6, 7 }, histogram.getPercentiles(0, 50, 87.5, 100));
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.metrics.LatencyHistogram#getPercentiles(double[])}.
+	 */
+	@Test
+	public void testRelativeError() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		Random random = new Random(42);
+		long[] samples = new long[10000];
+		for(int i = 0; i < samples.length; ++i) {
+			// latencies spread between a microsecond and ten seconds
+			samples[i] = (long)Math.pow(10, 3 + 7 * random.nextDouble());
+			histogram.record(samples[i]);
+		}
+		Arrays.sort(samples);
+		double[] percentiles = { 1, 25, 50, 90, 99, 99.9, 100 };
+		long[] values = histogram.getPercentiles(percentiles);
+		for(int p = 0; p < percentiles.length; ++p) {
+			long exact = samples[(int)Math.ceil(percentiles[p] / 100.0 * samples.length) - 1];
+			assertTrue(percentiles[p] + "th percentile below the exact value", values[p] >= exact);
+			assertTrue(percentiles[p] + "th percentile off by more than 12.5%", values[p] < exact * 1.125);
+		}
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.metrics.LatencyHistogram#record(long)}.
+	 */
+	@Test
+	public void testExtremes() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(-5);
+		histogram.record(Long.MAX_VALUE);
+		assertArrayEquals(new long[] { 0, Long.MAX_VALUE }, histogram.getPercentiles(50, 100));
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.metrics.LatencyHistogram#reset()}.
+	 */
+	@Test
+	public void testReset() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(1000);
+		histogram.reset();
+		assertEquals(0, histogram.getPercentiles(100)[0]);
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.metrics.LatencyHistogram#record(long)}.
+	 */
+	@Test
+	public void testConcurrentRecording() throws InterruptedException {
+		final LatencyHistogram histogram = new LatencyHistogram();
+		Thread[] threads = new Thread[4];
+		for(int t = 0; t < threads.length; ++t) {
+			final long value = (t + 1) * 1000;
+			threads[t] = new Thread() {
+				@Override
+				public void run() {
+					for(int i = 0; i < 10000; ++i) {
+						histogram.record(value);
+					}
+				}
+			};
+			threads[t].start();
+		}
+		for(Thread thread : threads) {
+			thread.join();
+		}
+		// each value accounts for exactly a quarter of the samples
+		long[] values = histogram.getPercentiles(25, 50, 75, 100);
+		for(int t = 0; t < threads.length; ++t) {
+			long exact = (t + 1) * 1000;
+			assertTrue(values[t] >= exact && values[t] < exact * 1.125);
+		}
+	}
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2012-2015, Andrea Funto'. All rights reserved. See LICENSE for details.
+ */
+
+package org.dihedron.webmvc.metrics;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * @author Andrea Funto'
+ */
+public class StripedCounterTest {
+
+	/**
+	 * Test method for {@link org.dihedron.webmvc.metrics.StripedCounter#add(long)}.
+	 */
+	@Test
+	public void testSingleThread() {
+		StripedCounter counter = new StripedCounter();
+		assertEquals(0, counter.get());
+		counter.increment();
+		counter.add(41);
+		counter.add(-2);
+		assertEquals(40, counter.get());
+		counter.reset();
+		assertEquals(0, counter.get());
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.metrics.StripedCounter#increment()}.
+	 */
+	@Test
+	public void testConcurrentUpdates() throws InterruptedException {
+		final StripedCounter counter = new StripedCounter();
+		final int increments = 100000;
+		Thread[] threads = new Thread[8];
+		for(int t = 0; t < threads.length; ++t) {
+			threads[t] = new Thread() {
+				@Override
+				public void run() {
+					for(int i = 0; i < increments; ++i) {
+						counter.increment();
+					}
+				}
+			};
+			threads[t].start();
+		}
+		for(Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals((long)threads.length * increments, counter.get());
+	}
+}
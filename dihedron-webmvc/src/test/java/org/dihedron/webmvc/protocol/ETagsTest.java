@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2012-2015, Andrea Funto'. All rights reserved. See LICENSE for details.
+ */
+
+package org.dihedron.webmvc.protocol;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.junit.Test;
+
+/**
+ * @author Andrea Funto'
+ */
+public class ETagsTest {
+
+	/**
+	 * Test method for {@link org.dihedron.webmvc.protocol.ETags#fromBody(byte[])}.
+	 */
+	@Test
+	public void testFromBody() {
+		assertEquals("\"da39a3ee5e6b4b0d3255bfef95601890afd80709\"", ETags.fromBody(new byte[0]));
+		assertEquals("\"a9993e364706816aba3e25717850c26c9cd0d89d\"", ETags.fromBody("abc".getBytes(StandardCharsets.US_ASCII)));
+		
+		// the per-thread digest is reset between invocations
+		assertEquals(ETags.fromBody("abc".getBytes(StandardCharsets.US_ASCII)), ETags.fromBody("abc".getBytes(StandardCharsets.US_ASCII)));
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.protocol.ETags#fromVersion(java.lang.Object)}.
+	 */
+	@Test
+	public void testFromVersion() {
+		assertEquals("\"42\"", ETags.fromVersion(42));
+		assertEquals("\"v1.0\"", ETags.fromVersion("v1.0"));
+		assertEquals("\"quoted\"", ETags.fromVersion("\"quoted\""));
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.protocol.ETags#isConditionalMethod(javax.servlet.http.HttpServletRequest)}.
+	 */
+	@Test
+	public void testIsConditionalMethod() {
+		assertTrue(ETags.isConditionalMethod(request("GET", null)));
+		assertTrue(ETags.isConditionalMethod(request("HEAD", null)));
+		assertFalse(ETags.isConditionalMethod(request("POST", null)));
+		assertFalse(ETags.isConditionalMethod(request("PUT", null)));
+	}
+
+	/**
+	 * Test method for {@link org.dihedron.webmvc.protocol.ETags#matches(javax.servlet.http.HttpServletRequest, java.lang.String)}.
+	 */
+	@Test
+	public void testMatches() {
+		String etag = "\"abc\"";
+		assertFalse(ETags.matches(request("GET", null), etag));
+		assertTrue(ETags.matches(request("GET", "\"abc\""), etag));
+		assertTrue(ETags.matches(request("GET", "\"xyz\", \"abc\""), etag));
+		assertTrue(ETags.matches(request("GET", "*"), etag));
+		assertFalse(ETags.matches(request("GET", "\"xyz\""), etag));
+		assertFalse(ETags.matches(request("GET", "abc"), etag));
+		
+		// If-None-Match uses the weak comparison function
+		assertTrue(ETags.matches(request("GET", "W/\"abc\""), etag));
+		assertTrue(ETags.matches(request("GET", "\"abc\""), "W/\"abc\""));
+		assertTrue(ETags.matches(request("GET", "W/\"abc\""), "W/\"abc\""));
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.protocol.ETags#forCoding(java.lang.String, java.lang.String)}.
+	 */
+	@Test
+	public void testForCoding() {
+		assertEquals("\"abc\"", ETags.forCoding("\"abc\"", null));
+		assertEquals("\"abc-gzip\"", ETags.forCoding("\"abc\"", "gzip"));
+		assertEquals("W/\"abc-deflate\"", ETags.forCoding("W/\"abc\"", "deflate"));
+		
+		// each coding is a representation of its own
+		String identity = ETags.fromBody(new byte[] { 1, 2, 3 });
+		String gzip = ETags.forCoding(identity, "gzip");
+		assertTrue(ETags.matches(request("GET", gzip), gzip));
+		assertTrue(ETags.matches(request("GET", "W/" + gzip), gzip));
+		assertFalse(ETags.matches(request("GET", identity), gzip));
+		assertFalse(ETags.matches(request("GET", gzip), identity));
+		assertFalse(ETags.matches(request("GET", ETags.forCoding(identity, "deflate")), gzip));
+	}
+	
+	/**
+	 * Creates a request with the given method and If-None-Match header.
+	 */
+	private static HttpServletRequest request(final String method, final String ifNoneMatch) {
+		return (HttpServletRequest)Proxy.newProxyInstance(ETagsTest.class.getClassLoader(), new Class<?>[] { HttpServletRequest.class }, new InvocationHandler() {
+			@Override
+			public Object invoke(Object proxy, Method m, Object[] args) {
+				if(m.getName().equals("getMethod")) {
+					return method;
+				} else if(m.getName().equals("getHeader") && ETags.IF_NONE_MATCH_HEADER.equals(args[0])) {
+					return ifNoneMatch;
+				}
+				return null;
+			}
+		});
+	}
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2012-2015, Andrea Funto'. All rights reserved. See LICENSE for details.
+ */
+
+package org.dihedron.webmvc.targets.registry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+import org.dihedron.webmvc.annotations.Action;
+import org.dihedron.webmvc.annotations.Invocable;
+import org.dihedron.webmvc.exceptions.WebMVCException;
+import org.dihedron.webmvc.targets.Target;
+import org.dihedron.webmvc.targets.TargetId;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Andrea Funto'
+ */
+public class TargetIndexTest {
+	
+	/**
+	 * An action with a default method and a named one.
+	 */
+	@Action
+	public static class Cart {
+		
+		@Invocable
+		public String execute() {
+			return Action.SUCCESS;
+		}
+		
+		@Invocable
+		public String checkout() {
+			return Action.SUCCESS;
+		}
+	}
+	
+	/**
+	 * An action with no default method.
+	 */
+	@Action(alias="Shop")
+	public static class Catalogue {
+		
+		@Invocable
+		public String browse() {
+			return Action.SUCCESS;
+		}
+	}
+
+	private Target execute;
+	
+	private Target checkout;
+	
+	private Target browse;
+	
+	private TargetIndex index;
+	
+	@Before
+	public void setUp() throws WebMVCException {
+		execute = new Target(new TargetId("Cart", "execute"));
+		checkout = new Target(new TargetId("Cart", "checkout"));
+		browse = new Target(new TargetId("Shop", "browse"));
+		index = TargetIndex.compile(Arrays.asList(execute, checkout, browse));
+	}
+
+	/**
+	 * Test method for {@link org.dihedron.webmvc.targets.registry.TargetIndex#lookup(java.lang.CharSequence, int)}.
+	 */
+	@Test
+	public void testLookupFullId() {
+		assertSame(execute, index.lookup("Cart!execute", 0));
+		assertSame(checkout, index.lookup("Cart!checkout", 0));
+		assertSame(browse, index.lookup("Shop!browse", 0));
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.targets.registry.TargetIndex#lookup(java.lang.CharSequence, int)}.
+	 */
+	@Test
+	public void testLookupAtOffset() {
+		String uri = "/context/Cart!checkout";
+		assertSame(checkout, index.lookup(uri, "/context/".length()));
+		assertSame(checkout, index.lookup(new StringBuilder(uri), "/context/".length()));
+		assertNull(index.lookup(uri, "/context".length()));
+		assertNull(index.lookup(uri, 0));
+		assertNull(index.lookup(uri, -1));
+		assertNull(index.lookup(uri, uri.length()));
+		assertNull(index.lookup(null, 0));
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.targets.registry.TargetIndex#lookup(java.lang.CharSequence, int)}.
+	 */
+	@Test
+	public void testLookupPrefixesAndExtensions() {
+		assertNull(index.lookup("Cart!", 0));
+		assertNull(index.lookup("Cart!check", 0));
+		assertNull(index.lookup("Cart!checkouts", 0));
+		assertNull(index.lookup("cart!checkout", 0));
+		assertNull(index.lookup("", 0));
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.targets.registry.TargetIndex#compile(java.lang.Iterable)}.
+	 */
+	@Test
+	public void testDefaultMethodAlias() {
+		assertSame(execute, index.lookup("Cart", 0));
+		assertSame(execute, index.lookup("/Cart", 1));
+		assertNull(index.lookup("Shop", 0));
+		assertEquals(4, index.size());
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.targets.registry.TargetIndex#EMPTY}.
+	 */
+	@Test
+	public void testEmpty() {
+		assertEquals(0, TargetIndex.EMPTY.size());
+		assertNull(TargetIndex.EMPTY.lookup("Cart", 0));
+		assertNull(TargetIndex.EMPTY.lookup("", 0));
+	}
+	
+	/**
+	 * Test method for {@link org.dihedron.webmvc.targets.registry.TargetRegistry#freeze()}.
+	 */
+	@Test
+	public void testFreeze() throws Exception {
+		TargetRegistry registry = new TargetRegistry();
+		Target cart = register(registry, Cart.class, "execute");
+		register(registry, Cart.class, "checkout");
+		
+		// before freezing, the index is empty but targets can still be found by id 
+		assertFalse(registry.isFrozen());
+		assertNull(registry.lookup("Cart!execute", 0));
+		assertSame(cart, registry.findTarget("Cart!execute").get());
+		
+		registry.freeze();
+		assertTrue(registry.isFrozen());
+		assertSame(cart, registry.lookup("/app/Cart!execute", "/app/".length()));
+		assertSame(cart, registry.lookup("/app/Cart", "/app/".length()));
+		assertSame(cart, registry.findTarget("Cart").get());
+		assertFalse(registry.findTarget("Cart!missing").isPresent());
+		
+		// freezing twice is harmless
+		registry.freeze();
+		assertSame(cart, registry.lookup("Cart", 0));
+		
+		try {
+			register(registry, Catalogue.class, "browse");
+			fail("a frozen registry must not accept new targets");
+		} catch(WebMVCException e) {
+			// expected
+		}
+		assertNull(registry.lookup("Shop!browse", 0));
+	}
+
+	/**
+	 * Registers the given method of an action class.
+	 */
+	private static Target register(TargetRegistry registry, Class<?> action, String name) throws Exception {
+		Method method = action.getMethod(name);
+		return registry.addTarget(action, method, method, method, method.getAnnotation(Invocable.class), "default");
+	}
+}